@@ -0,0 +1,181 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates keys that look like what we get from a web crawl, so benchmark results reflect
+ * real workloads versus short sequential keys (which hash and compare unrealistically fast).
+ *
+ * Domains are mostly 10-25 characters, with a skewed TLD distribution. URLs average about
+ * 65 characters, with a long tail from deep paths and query strings, and a few percent have
+ * non-ASCII characters (which take the slower UTF-8 encoding path). URLs are spread over
+ * domains with a Zipf-like skew, so many keys share long prefixes, same as with real data.
+ */
+public class CrawlKeys {
+
+    public static enum KeyType {
+        DOMAIN,
+        URL
+    }
+
+    private static final String[] TLDS = {
+        "com", "com", "com", "com", "com", "com", "com", "com", "com", "com",
+        "net", "net", "org", "org", "de", "de", "co.uk", "ru", "jp", "fr",
+        "info", "nl", "it", "com.br", "pl", "in", "edu", "gov", "io", "es"
+    };
+
+    private static final String[] SUBDOMAINS = {
+        "www", "www", "www", "www", "www", "www", "m", "blog", "news", "shop", "en", "forum"
+    };
+
+    private static final String[] PATH_WORDS = {
+        "index", "page", "article", "news", "products", "category", "blog", "2014", "05",
+        "archive", "search", "tag", "user", "profile", "view", "item", "help", "about"
+    };
+
+    private static final String[] EXTENSIONS = {
+        "", "", "", "", "/", "/", ".html", ".html", ".htm", ".php", ".aspx", ".jsp"
+    };
+
+    private static final String[] PARAM_NAMES = {
+        "id", "p", "q", "page", "sort", "lang", "ref", "sid", "utm_source", "cat"
+    };
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String NON_ASCII = "\u00e9\u00fc\u00f1\u00e5\u00df\u0434\u043e\u043c\u65e5\u672c";
+
+    private CrawlKeys() {
+        // Enforce class isn't instantiated
+    }
+
+    /**
+     * @return <numKeys> unique keys of type <keyType>. The same <seed> always generates the same keys.
+     */
+    public static String[] makeKeys(KeyType keyType, int numKeys, long seed) {
+        return makeKeys(keyType, numKeys, seed, null);
+    }
+
+    /**
+     * @return <numKeys> unique keys of type <keyType>, none of which are in <exclude>, e.g. for
+     * generating keys that will miss.
+     */
+    public static String[] makeMissingKeys(KeyType keyType, int numKeys, long seed, String[] exclude) {
+        Set<String> excluded = new LinkedHashSet<String>(exclude.length * 2);
+        for (String key : exclude) {
+            excluded.add(key);
+        }
+
+        return makeKeys(keyType, numKeys, seed, excluded);
+    }
+
+    private static String[] makeKeys(KeyType keyType, int numKeys, long seed, Set<String> exclude) {
+        Random rand = new Random(seed);
+        Set<String> result = new LinkedHashSet<String>(numKeys * 2);
+
+        if (keyType == KeyType.DOMAIN) {
+            while (result.size() < numKeys) {
+                String domain = makeDomain(rand);
+                if ((exclude == null) || !exclude.contains(domain)) {
+                    result.add(domain);
+                }
+            }
+        } else {
+            // Roughly 20 URLs per domain on average, but skewed so a few big sites have most of them.
+            String[] domains = new String[Math.max(1, numKeys / 20)];
+            for (int i = 0; i < domains.length; i++) {
+                domains[i] = makeDomain(rand);
+            }
+
+            while (result.size() < numKeys) {
+                double skewed = Math.pow(rand.nextDouble(), 3.0);
+                String url = makeUrl(rand, domains[(int)(skewed * domains.length)]);
+                if ((exclude == null) || !exclude.contains(url)) {
+                    result.add(url);
+                }
+            }
+        }
+
+        return result.toArray(new String[result.size()]);
+    }
+
+    private static String makeDomain(Random rand) {
+        StringBuilder result = new StringBuilder();
+        if (rand.nextInt(3) > 0) {
+            result.append(SUBDOMAINS[rand.nextInt(SUBDOMAINS.length)]);
+            result.append('.');
+        }
+
+        appendWord(rand, result, 4 + (int)Math.abs(rand.nextGaussian() * 6), 0.0);
+        if (rand.nextInt(5) == 0) {
+            result.append('-');
+            appendWord(rand, result, 3 + rand.nextInt(6), 0.0);
+        }
+
+        result.append('.');
+        result.append(TLDS[rand.nextInt(TLDS.length)]);
+        return result.toString();
+    }
+
+    private static String makeUrl(Random rand, String domain) {
+        StringBuilder result = new StringBuilder();
+        result.append(rand.nextInt(4) == 0 ? "https://" : "http://");
+        result.append(domain);
+
+        double nonAsciiRate = (rand.nextInt(20) == 0) ? 0.2 : 0.0;
+        int numSegments = geometric(rand, 0.28);
+        for (int i = 0; i < numSegments; i++) {
+            result.append('/');
+            if (rand.nextBoolean()) {
+                result.append(PATH_WORDS[rand.nextInt(PATH_WORDS.length)]);
+            } else {
+                // Log-normal lengths, which gives the occasional very long slug.
+                int length = 1 + (int)Math.exp(2.1 + (rand.nextGaussian() * 0.7));
+                appendWord(rand, result, Math.min(length, 120), nonAsciiRate);
+            }
+        }
+
+        if (numSegments > 0) {
+            result.append(EXTENSIONS[rand.nextInt(EXTENSIONS.length)]);
+        } else {
+            result.append('/');
+        }
+
+        if (rand.nextInt(10) < 3) {
+            int numParams = 1 + geometric(rand, 0.5);
+            for (int i = 0; i < numParams; i++) {
+                result.append(i == 0 ? '?' : '&');
+                result.append(PARAM_NAMES[rand.nextInt(PARAM_NAMES.length)]);
+                result.append('=');
+                if (rand.nextBoolean()) {
+                    result.append(rand.nextInt(1000000));
+                } else {
+                    result.append(Long.toHexString(rand.nextLong()));
+                }
+            }
+        }
+
+        return result.toString();
+    }
+
+    private static void appendWord(Random rand, StringBuilder result, int length, double nonAsciiRate) {
+        for (int i = 0; i < length; i++) {
+            if ((nonAsciiRate > 0.0) && (rand.nextDouble() < nonAsciiRate)) {
+                result.append(NON_ASCII.charAt(rand.nextInt(NON_ASCII.length())));
+            } else {
+                result.append(LETTERS.charAt(rand.nextInt(LETTERS.length())));
+            }
+        }
+    }
+
+    // Number of failures before the first success, with success probability <p>.
+    private static int geometric(Random rand, double p) {
+        int result = 0;
+        while (rand.nextDouble() > p) {
+            result += 1;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.scaleunlimited.maps.StringMap;
+import com.scaleunlimited.maps.StringSet;
+import com.scaleunlimited.maps.benchmarks.CrawlKeys.KeyType;
+
+/**
+ * Reports the retained heap per entry of {@link StringMap} and {@link StringSet} versus HashMap and
+ * HashSet, for crawl-like keys. JMH doesn't measure retained memory, so this is a regular program:
+ *
+ * mvn -Pjmh test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.scaleunlimited.maps.benchmarks.FootprintReport
+ *
+ * Each table gets its own copies of the keys and values (same as when they come from tuples), so the
+ * HashMap/HashSet numbers include the String objects.
+ */
+public class FootprintReport {
+
+    private static final int[] NUM_KEYS = {10000, 1000000};
+
+    // For small tables, the heap size is too noisy to measure just one, so we build enough of them
+    // to get roughly MIN_MEASURED_ENTRIES, and return the average size.
+    private static final int MIN_MEASURED_ENTRIES = 1000000;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-8s %8s %12s %12s %12s %12s", "keys", "count", "StringMap", "HashMap", "StringSet", "HashSet"));
+
+        for (KeyType keyType : KeyType.values()) {
+            for (int numKeys : NUM_KEYS) {
+                String[] keys = CrawlKeys.makeKeys(keyType, numKeys, 1L);
+                String[] values = MapBenchmark.makeValues(numKeys);
+
+                long stringMapBytes = measureMap(true, keys, values);
+                long hashMapBytes = measureMap(false, keys, values);
+                long stringSetBytes = measureSet(true, keys);
+                long hashSetBytes = measureSet(false, keys);
+
+                System.out.println(String.format("%-8s %8d %12s %12s %12s %12s", keyType, numKeys,
+                                perEntry(stringMapBytes, numKeys),
+                                perEntry(hashMapBytes, numKeys),
+                                perEntry(stringSetBytes, numKeys),
+                                perEntry(hashSetBytes, numKeys)));
+            }
+        }
+    }
+
+    private static String perEntry(long bytes, int numKeys) {
+        return String.format("%.1f b/e", (double)bytes / numKeys);
+    }
+
+    private static int getNumTables(int numKeys) {
+        return Math.max(1, MIN_MEASURED_ENTRIES / numKeys);
+    }
+
+    private static long measureMap(boolean stringMap, String[] keys, String[] values) {
+        List<Map<String, String>> maps = new ArrayList<Map<String, String>>();
+        int numTables = getNumTables(keys.length);
+
+        long startBytes = getUsedMemory();
+        for (int t = 0; t < numTables; t++) {
+            Map<String, String> map = stringMap ? new StringMap() : new HashMap<String, String>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(copy(keys[i]), copy(values[i]));
+            }
+
+            maps.add(map);
+        }
+
+        return getRetainedBytes(startBytes, maps) / numTables;
+    }
+
+    private static long measureSet(boolean stringSet, String[] keys) {
+        List<Set<String>> sets = new ArrayList<Set<String>>();
+        int numTables = getNumTables(keys.length);
+
+        long startBytes = getUsedMemory();
+        for (int t = 0; t < numTables; t++) {
+            Set<String> set = stringSet ? new StringSet() : new HashSet<String>();
+            for (String key : keys) {
+                set.add(copy(key));
+            }
+
+            sets.add(set);
+        }
+
+        return getRetainedBytes(startBytes, sets) / numTables;
+    }
+
+    private static long getRetainedBytes(long startBytes, List<?> tables) {
+        long result = getUsedMemory() - startBytes;
+
+        // Make sure the tables can't be collected before we've measured them.
+        if (tables.isEmpty()) {
+            throw new IllegalStateException("No tables");
+        }
+
+        return result;
+    }
+
+    private static String copy(String s) {
+        return new String(s.toCharArray());
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long result = Long.MAX_VALUE;
+
+        // GC is a hint, so keep going until used memory stops dropping.
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            if (used >= result) {
+                break;
+            }
+
+            result = used;
+        }
+
+        return result;
+    }
+}
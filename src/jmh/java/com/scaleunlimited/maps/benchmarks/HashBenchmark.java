@@ -0,0 +1,113 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scaleunlimited.maps.HashUtils;
+import com.scaleunlimited.maps.benchmarks.CrawlKeys.KeyType;
+
+/**
+ * Hashing throughput of the {@link HashUtils} methods, for crawl-like keys. We use a small number of
+ * keys, so that we're measuring the hash function versus cache misses.
+ *
+ * The baseline is the String.hashCode() algorithm, but calculated each time, since String caches its
+ * hash code (and a HashMap lookup with a freshly created key has to calculate it).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class HashBenchmark {
+
+    private static final int NUM_KEYS = 1024;
+    private static final int KEY_INDEX_MASK = NUM_KEYS - 1;
+
+    @Param({"DOMAIN", "URL"})
+    public KeyType keyType;
+
+    private String[] _keys;
+    private byte[][] _keyBytes;
+    private long[] _hash128;
+    private int _index;
+
+    @Setup
+    public void setup() {
+        _keys = CrawlKeys.makeKeys(keyType, NUM_KEYS, 1L);
+        _keyBytes = new byte[NUM_KEYS][];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            _keyBytes[i] = HashUtils.getUTF8Bytes(_keys[i]);
+        }
+
+        _hash128 = new long[2];
+        _index = 0;
+    }
+
+    private int nextIndex() {
+        int result = _index;
+        _index = (result + 1) & KEY_INDEX_MASK;
+        return result;
+    }
+
+    @Benchmark
+    public int stringHashCode() {
+        String key = _keys[nextIndex()];
+        int result = 0;
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            result = (31 * result) + key.charAt(i);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public long murmur3Hash64String() {
+        return HashUtils.getMurmur3Hash64(_keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public long murmur3Hash64Bytes() {
+        byte[] b = _keyBytes[nextIndex()];
+        return HashUtils.getMurmur3Hash64(b, 0, b.length);
+    }
+
+    @Benchmark
+    public long[] murmur3Hash128String() {
+        HashUtils.getMurmur3Hash128(_keys[nextIndex()], 0, _hash128);
+        return _hash128;
+    }
+
+    @Benchmark
+    public long joaatLongHashString() {
+        return HashUtils.getLongHash(_keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public long joaatLongHashBytes() {
+        byte[] b = _keyBytes[nextIndex()];
+        return HashUtils.getLongHash(b, 0, b.length);
+    }
+
+    /**
+     * Encoding to UTF-8 and then hashing the bytes, which is what we'd have to do without the
+     * CharSequence versions of the hash methods.
+     */
+    @Benchmark
+    public long murmur3Hash64EncodeBytes() {
+        byte[] b = HashUtils.getUTF8Bytes(_keys[nextIndex()]);
+        return HashUtils.getMurmur3Hash64(b, 0, b.length);
+    }
+}
@@ -0,0 +1,182 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scaleunlimited.maps.StringMap;
+import com.scaleunlimited.maps.benchmarks.CrawlKeys.KeyType;
+
+/**
+ * {@link StringMap} versus HashMap<String, String>, for crawl-like keys (see {@link CrawlKeys}).
+ *
+ * Lookups use copies of the keys, in a different (shuffled) order from inserts, so we don't get an
+ * unrealistic boost from walking the StringMap's string data in order. Note that HashMap gets to use the cached
+ * hash code of each key String, which won't be the case when keys come from freshly deserialized
+ * tuples, so real-world lookup times for HashMap are somewhat slower than what's reported here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class MapBenchmark {
+
+    public static enum MapType {
+        STRING_MAP,
+        HASH_MAP
+    }
+
+    @Param({"DOMAIN", "URL"})
+    public KeyType keyType;
+
+    @Param({"10000", "1000000"})
+    public int numKeys;
+
+    @Param({"STRING_MAP", "HASH_MAP"})
+    public MapType mapType;
+
+    private String[] _keys;
+    private String[] _values;
+    private String[] _longValues;
+    private String[] _lookupKeys;
+    private String[] _missingKeys;
+
+    private Map<String, String> _map;
+    private int _index;
+    private boolean _longPass;
+
+    @Setup
+    public void setup() {
+        _keys = CrawlKeys.makeKeys(keyType, numKeys, 1L);
+        _values = makeValues(numKeys);
+        _longValues = makeLongValues(_values);
+        _lookupKeys = copyAndShuffle(_keys);
+        _missingKeys = CrawlKeys.makeMissingKeys(keyType, numKeys, 2L, _keys);
+
+        _map = fill();
+        _index = 0;
+        _longPass = false;
+    }
+
+    /**
+     * @return short values, like what we'd have for a status or count. These are all new
+     * String objects, so a HashMap doesn't share them with the keys.
+     */
+    static String[] makeValues(int numValues) {
+        String[] result = new String[numValues];
+        for (int i = 0; i < numValues; i++) {
+            result[i] = Integer.toString(i * 7919);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return <values>, with a suffix that makes each one longer than any of <values>.
+     */
+    static String[] makeLongValues(String[] values) {
+        String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] + "-updated-value";
+        }
+
+        return result;
+    }
+
+    /**
+     * @return copies of <keys>, in a random order. They're copies so that HashMap lookups can't
+     * short-circuit the equals() check when the lookup key is the same object as the map's key.
+     */
+    static String[] copyAndShuffle(String[] keys) {
+        List<String> result = new ArrayList<String>(keys.length);
+        for (String key : keys) {
+            result.add(new String(key.toCharArray()));
+        }
+
+        Collections.shuffle(result, new Random(3L));
+        return result.toArray(new String[result.size()]);
+    }
+
+    private static Map<String, String> makeMap(MapType mapType) {
+        switch (mapType) {
+            case STRING_MAP:
+                return new StringMap();
+
+            case HASH_MAP:
+                return new HashMap<String, String>();
+
+            default:
+                throw new IllegalArgumentException("Unknown map type: " + mapType);
+        }
+    }
+
+    private int nextIndex() {
+        int result = _index;
+        _index = (result + 1 == numKeys) ? 0 : result + 1;
+        return result;
+    }
+
+    /**
+     * Time to create a map and put all of the keys, including all of the resizing that happens
+     * as the map grows. Divide by <numKeys> to get the per-key time.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, String> fill() {
+        Map<String, String> result = makeMap(mapType);
+        for (int i = 0; i < _keys.length; i++) {
+            result.put(_keys[i], _values[i]);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public String get() {
+        return _map.get(_lookupKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return _map.get(_missingKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return _map.containsKey(_lookupKeys[nextIndex()]);
+    }
+
+    /**
+     * Replace the value for an existing key. Each pass through the keys switches between short
+     * and long values, so for StringMap half of the new values don't fit where the old value is,
+     * and the entry gets moved to the end of the string data. Every put leaves behind dead bytes,
+     * so this also includes the (amortized) cost of compacting the string data.
+     */
+    @Benchmark
+    public String putExisting() {
+        int index = nextIndex();
+        if (index == 0) {
+            _longPass = !_longPass;
+        }
+
+        return _map.put(_lookupKeys[index], _longPass ? _longValues[index] : _values[index]);
+    }
+}
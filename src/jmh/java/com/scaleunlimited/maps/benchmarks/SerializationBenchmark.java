@@ -0,0 +1,180 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scaleunlimited.maps.StringMap;
+import com.scaleunlimited.maps.StringSet;
+import com.scaleunlimited.maps.benchmarks.CrawlKeys.KeyType;
+
+/**
+ * Serializing and deserializing a {@link StringMap} or {@link StringSet} (via the Writable interface),
+ * versus writing the entries of a HashMap or HashSet with writeUTF() and reading them back into a new
+ * HashMap or HashSet, which is what we'd otherwise do to ship a map to tasks.
+ *
+ * The StringMap/StringSet format includes the hash table, so reading is just a few bulk reads, where
+ * the HashMap/HashSet version has to decode and re-hash every entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    public static enum TableType {
+        STRING_MAP,
+        HASH_MAP,
+        STRING_SET,
+        HASH_SET
+    }
+
+    @Param({"DOMAIN", "URL"})
+    public KeyType keyType;
+
+    @Param({"10000", "1000000"})
+    public int numKeys;
+
+    @Param({"STRING_MAP", "HASH_MAP", "STRING_SET", "HASH_SET"})
+    public TableType tableType;
+
+    private Object _table;
+    private byte[] _serialized;
+    private ByteArrayOutputStream _outBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        String[] keys = CrawlKeys.makeKeys(keyType, numKeys, 1L);
+        String[] values = MapBenchmark.makeValues(numKeys);
+
+        switch (tableType) {
+            case STRING_MAP:
+            case HASH_MAP:
+                Map<String, String> map = (tableType == TableType.STRING_MAP) ? new StringMap() : new HashMap<String, String>();
+                for (int i = 0; i < numKeys; i++) {
+                    map.put(keys[i], values[i]);
+                }
+
+                _table = map;
+                break;
+
+            case STRING_SET:
+            case HASH_SET:
+                Set<String> set = (tableType == TableType.STRING_SET) ? new StringSet() : new HashSet<String>();
+                for (String key : keys) {
+                    set.add(key);
+                }
+
+                _table = set;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown table type: " + tableType);
+        }
+
+        _outBuffer = new ByteArrayOutputStream();
+        write();
+        _serialized = _outBuffer.toByteArray();
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        _outBuffer.reset();
+        DataOutputStream out = new DataOutputStream(_outBuffer);
+        write(_table, out);
+        out.flush();
+        return _outBuffer.size();
+    }
+
+    @Benchmark
+    public Object readFields() throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(_serialized)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Object table, DataOutput out) throws IOException {
+        switch (tableType) {
+            case STRING_MAP:
+            case STRING_SET:
+                ((Writable)table).write(out);
+                break;
+
+            case HASH_MAP:
+                Map<String, String> map = (Map<String, String>)table;
+                out.writeInt(map.size());
+                for (Map.Entry<String, String> entry : map.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+                break;
+
+            case HASH_SET:
+                Set<String> set = (Set<String>)table;
+                out.writeInt(set.size());
+                for (String key : set) {
+                    out.writeUTF(key);
+                }
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown table type: " + tableType);
+        }
+    }
+
+    private Object read(DataInput in) throws IOException {
+        switch (tableType) {
+            case STRING_MAP:
+                StringMap stringMap = new StringMap();
+                stringMap.readFields(in);
+                return stringMap;
+
+            case STRING_SET:
+                StringSet stringSet = new StringSet();
+                stringSet.readFields(in);
+                return stringSet;
+
+            case HASH_MAP:
+                int numMapEntries = in.readInt();
+                Map<String, String> map = new HashMap<String, String>();
+                for (int i = 0; i < numMapEntries; i++) {
+                    map.put(in.readUTF(), in.readUTF());
+                }
+                return map;
+
+            case HASH_SET:
+                int numSetEntries = in.readInt();
+                Set<String> set = new HashSet<String>();
+                for (int i = 0; i < numSetEntries; i++) {
+                    set.add(in.readUTF());
+                }
+                return set;
+
+            default:
+                throw new IllegalArgumentException("Unknown table type: " + tableType);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.scaleunlimited.maps.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.scaleunlimited.maps.StringSet;
+import com.scaleunlimited.maps.benchmarks.CrawlKeys.KeyType;
+
+/**
+ * {@link StringSet} versus HashSet<String>, for crawl-like keys. See {@link MapBenchmark} for
+ * notes on how lookup keys are set up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SetBenchmark {
+
+    public static enum SetType {
+        STRING_SET,
+        HASH_SET
+    }
+
+    @Param({"DOMAIN", "URL"})
+    public KeyType keyType;
+
+    @Param({"10000", "1000000"})
+    public int numKeys;
+
+    @Param({"STRING_SET", "HASH_SET"})
+    public SetType setType;
+
+    private String[] _keys;
+    private String[] _lookupKeys;
+    private String[] _missingKeys;
+
+    private Set<String> _set;
+    private int _index;
+
+    @Setup
+    public void setup() {
+        _keys = CrawlKeys.makeKeys(keyType, numKeys, 1L);
+        _lookupKeys = MapBenchmark.copyAndShuffle(_keys);
+        _missingKeys = CrawlKeys.makeMissingKeys(keyType, numKeys, 2L, _keys);
+
+        _set = fill();
+        _index = 0;
+    }
+
+    private static Set<String> makeSet(SetType setType) {
+        switch (setType) {
+            case STRING_SET:
+                return new StringSet();
+
+            case HASH_SET:
+                return new HashSet<String>();
+
+            default:
+                throw new IllegalArgumentException("Unknown set type: " + setType);
+        }
+    }
+
+    private int nextIndex() {
+        int result = _index;
+        _index = (result + 1 == numKeys) ? 0 : result + 1;
+        return result;
+    }
+
+    /**
+     * Time to create a set and add all of the keys. Divide by <numKeys> to get the per-key time.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set<String> fill() {
+        Set<String> result = makeSet(setType);
+        for (String key : _keys) {
+            result.add(key);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return _set.contains(_lookupKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return _set.contains(_missingKeys[nextIndex()]);
+    }
+
+    /**
+     * Add a key that's already in the set, which is the common case when de-duplicating.
+     */
+    @Benchmark
+    public boolean addExisting() {
+        return _set.add(_lookupKeys[nextIndex()]);
+    }
+}
@@ -0,0 +1,172 @@
+package com.scaleunlimited.cascading;
+
+import java.beans.ConstructorProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.io.BytesWritable;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.Aggregator;
+import cascading.operation.AggregatorCall;
+import cascading.operation.BaseOperation;
+import cascading.operation.OperationCall;
+import cascading.pipe.Pipe;
+import cascading.pipe.assembly.AggregateBy;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+
+import com.scaleunlimited.maps.HyperLogLog;
+
+/**
+ * An approximate version of {@link UniqueCount}, for when there are too many unique values per
+ * group to shuffle and sort them all. For each group we build a {@link HyperLogLog} sketch of the
+ * uniqueFields values map-side, and only the (serialized) sketches get shuffled. The reducer merges
+ * the sketches for each group, and outputs the estimated count (as a long) in countField.
+ *
+ * The precision sets the size of the sketch (2^precision bytes, or less for groups with only a
+ * few unique values), and the relative standard error of the count, which is about
+ * 1.04/sqrt(2^precision). Counts up to 2^precision/4 are (almost always) exact.
+ *
+ * The threshold is the number of groups we keep sketches for map-side, same as with the other
+ * AggregateBy assemblies. If there are more groups, the least recently used sketches are emitted
+ * early, and get merged with the rest in the reducer.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class ApproximateUniqueCount extends AggregateBy {
+
+    private static final Fields SKETCH_FIELD = new Fields("ApproximateUniqueCount_sketch");
+
+    private static class SketchPartials implements Functor {
+
+        private int _precision;
+
+        public SketchPartials(int precision) {
+            _precision = precision;
+        }
+
+        @Override
+        public Fields getDeclaredFields() {
+            return SKETCH_FIELD;
+        }
+
+        @Override
+        public Tuple aggregate(FlowProcess flowProcess, TupleEntry args, Tuple context) {
+            if (context == null) {
+                context = new Tuple(new HyperLogLog(_precision));
+            }
+
+            HyperLogLog sketch = (HyperLogLog)context.getObject(0);
+            sketch.addHash(UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(args.getTuple()));
+            return context;
+        }
+
+        @Override
+        public Tuple complete(FlowProcess flowProcess, Tuple context) {
+            HyperLogLog sketch = (HyperLogLog)context.getObject(0);
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                sketch.write(out);
+                out.close();
+
+                return new Tuple(new BytesWritable(bytes.toByteArray()));
+            } catch (IOException e) {
+                throw new RuntimeException("Impossible exception writing to byte array", e);
+            }
+        }
+    }
+
+    private static class MergeSketches extends BaseOperation<HyperLogLog> implements Aggregator<HyperLogLog> {
+
+        private int _precision;
+
+        private transient HyperLogLog _partialSketch;
+
+        public MergeSketches(Fields countField, int precision) {
+            super(1, countField);
+
+            _precision = precision;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<HyperLogLog> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            operationCall.setContext(new HyperLogLog(_precision));
+            _partialSketch = new HyperLogLog(_precision);
+        }
+
+        @Override
+        public void start(FlowProcess flowProcess, AggregatorCall<HyperLogLog> aggregatorCall) {
+            aggregatorCall.getContext().clear();
+        }
+
+        @Override
+        public void aggregate(FlowProcess flowProcess, AggregatorCall<HyperLogLog> aggregatorCall) {
+            BytesWritable bytes = (BytesWritable)aggregatorCall.getArguments().getObject(0);
+
+            try {
+                _partialSketch.readFields(new DataInputStream(new ByteArrayInputStream(bytes.getBytes(), 0, bytes.getLength())));
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid sketch data", e);
+            }
+
+            aggregatorCall.getContext().merge(_partialSketch);
+        }
+
+        @Override
+        public void complete(FlowProcess flowProcess, AggregatorCall<HyperLogLog> aggregatorCall) {
+            aggregatorCall.getOutputCollector().add(new Tuple(aggregatorCall.getContext().cardinality()));
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "uniqueFields", "countField" })
+    public ApproximateUniqueCount(Pipe pipe, Fields groupFields, Fields uniqueFields, Fields countField) {
+        this(null, Pipe.pipes(pipe), groupFields, uniqueFields, countField, HyperLogLog.DEFAULT_PRECISION, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "uniqueFields", "countField", "precision" })
+    public ApproximateUniqueCount(Pipe pipe, Fields groupFields, Fields uniqueFields, Fields countField, int precision) {
+        this(null, Pipe.pipes(pipe), groupFields, uniqueFields, countField, precision, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Count the (approximate) number of unique values found in uniqueFields, for each group
+     * defined by groupFields, and put the resulting count into countField.
+     *
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param groupFields
+     *            of type Fields
+     * @param uniqueFields
+     *            of type Fields
+     * @param countField
+     *            of type Fields
+     * @param precision
+     *            sketch precision, from {@link HyperLogLog#MIN_PRECISION} to {@link HyperLogLog#MAX_PRECISION}
+     * @param threshold
+     *            number of groups to keep sketches for map-side
+     */
+    @ConstructorProperties({ "name", "pipes", "groupFields", "uniqueFields", "countField", "precision", "threshold" })
+    public ApproximateUniqueCount(String name, Pipe[] pipes, Fields groupFields, Fields uniqueFields, Fields countField, int precision, int threshold) {
+        super(name, pipes, groupFields, uniqueFields, new SketchPartials(checkPrecision(precision)),
+                        new MergeSketches(countField.applyTypes(Long.TYPE), precision), threshold);
+    }
+
+    private static int checkPrecision(int precision) {
+        // Fail when building the flow, versus in the tasks.
+        if ((precision < HyperLogLog.MIN_PRECISION) || (precision > HyperLogLog.MAX_PRECISION)) {
+            throw new IllegalArgumentException(String.format("Precision must be >= %d and <= %d", HyperLogLog.MIN_PRECISION, HyperLogLog.MAX_PRECISION));
+        }
+
+        return precision;
+    }
+}
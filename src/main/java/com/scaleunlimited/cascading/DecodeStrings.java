@@ -0,0 +1,92 @@
+package com.scaleunlimited.cascading;
+
+import java.io.IOException;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+
+import com.scaleunlimited.maps.FrontCodedStringSet;
+
+/**
+ * Replace the int ids in <fields> (from {@link EncodeStrings}) with the original strings,
+ * using the same dictionary.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class DecodeStrings extends SubAssembly {
+
+    private static class DecodeFunction extends BaseOperation<FrontCodedStringSet> implements Function<FrontCodedStringSet> {
+
+        private BasePlatform _platform;
+        private String _sharedDictionaryDir;
+
+        private transient Tuple _result;
+
+        public DecodeFunction(Fields fields, BasePlatform platform, String sharedDictionaryDir) {
+            super(fields);
+
+            _platform = platform;
+            _sharedDictionaryDir = sharedDictionaryDir;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<FrontCodedStringSet> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            try {
+                operationCall.setContext(StringDictionary.loadDictionary(_platform, flowProcess, _sharedDictionaryDir));
+            } catch (IOException e) {
+                throw new RuntimeException("Can't load string dictionary from " + _sharedDictionaryDir, e);
+            }
+
+            _result = Tuple.size(getFieldDeclaration().size());
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<FrontCodedStringSet> functionCall) {
+            FrontCodedStringSet dictionary = functionCall.getContext();
+            Tuple values = functionCall.getArguments().getTuple();
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.getObject(i);
+                if (value == null) {
+                    _result.set(i, null);
+                } else {
+                    _result.set(i, dictionary.select(((Number)value).intValue()));
+                }
+            }
+
+            functionCall.getOutputCollector().add(_result);
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<FrontCodedStringSet> operationCall) {
+            operationCall.setContext(null);
+
+            super.cleanup(flowProcess, operationCall);
+        }
+    }
+
+    /**
+     * @param pipe pipe with tuples containing <fields>
+     * @param fields fields with ids that should be replaced by the original strings
+     * @param platform platform that was used to share the dictionary
+     * @param sharedDictionaryDir same shared directory as was used with {@link EncodeStrings}
+     */
+    public DecodeStrings(Pipe pipe, Fields fields, BasePlatform platform, String sharedDictionaryDir) {
+        super(pipe);
+
+        Pipe result = new Each(pipe, fields, new DecodeFunction(fields, platform, sharedDictionaryDir), Fields.REPLACE);
+        setTails(result);
+    }
+
+    public Pipe getTailPipe() {
+        return getTails()[0];
+    }
+}
@@ -0,0 +1,106 @@
+package com.scaleunlimited.cascading;
+
+import java.io.IOException;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+
+import com.scaleunlimited.maps.FrontCodedStringSet;
+
+/**
+ * Replace the string values in <fields> with int ids, using a dictionary built by
+ * {@link StringDictionary}. This shrinks the amount of data that has to be shuffled by a
+ * following GroupBy or CoGroup, and makes sorting faster (comparing ints versus Strings).
+ * Use {@link DecodeStrings} afterwards to get back the original strings.
+ *
+ * Ids sort in the same order as the UTF-8 bytes of the strings, so grouping or sorting by
+ * the ids gives the same order as doing it with the strings (other than for strings that
+ * contain characters outside of the Basic Multilingual Plane).
+ *
+ * Null values stay null. A non-null value that's not in the dictionary triggers an exception,
+ * since it means the dictionary wasn't built from the same data.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class EncodeStrings extends SubAssembly {
+
+    private static class EncodeFunction extends BaseOperation<FrontCodedStringSet> implements Function<FrontCodedStringSet> {
+
+        private BasePlatform _platform;
+        private String _sharedDictionaryDir;
+
+        private transient Tuple _result;
+
+        public EncodeFunction(Fields fields, BasePlatform platform, String sharedDictionaryDir) {
+            super(fields);
+
+            _platform = platform;
+            _sharedDictionaryDir = sharedDictionaryDir;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<FrontCodedStringSet> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            try {
+                operationCall.setContext(StringDictionary.loadDictionary(_platform, flowProcess, _sharedDictionaryDir));
+            } catch (IOException e) {
+                throw new RuntimeException("Can't load string dictionary from " + _sharedDictionaryDir, e);
+            }
+
+            _result = Tuple.size(getFieldDeclaration().size());
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<FrontCodedStringSet> functionCall) {
+            FrontCodedStringSet dictionary = functionCall.getContext();
+            Tuple values = functionCall.getArguments().getTuple();
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.getObject(i);
+                if (value == null) {
+                    _result.set(i, null);
+                } else {
+                    int id = dictionary.indexOf(value.toString());
+                    if (id == -1) {
+                        throw new IllegalStateException("String isn't in the dictionary: " + value);
+                    }
+
+                    _result.set(i, id);
+                }
+            }
+
+            functionCall.getOutputCollector().add(_result);
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<FrontCodedStringSet> operationCall) {
+            operationCall.setContext(null);
+
+            super.cleanup(flowProcess, operationCall);
+        }
+    }
+
+    /**
+     * @param pipe pipe with tuples containing <fields>
+     * @param fields fields with string values that should be replaced by (Integer) ids
+     * @param platform platform that was used to share the dictionary
+     * @param sharedDictionaryDir result of {@link StringDictionary#buildDictionary(BasePlatform, cascading.tap.Tap, Fields, BasePath, java.io.File)}
+     */
+    public EncodeStrings(Pipe pipe, Fields fields, BasePlatform platform, String sharedDictionaryDir) {
+        super(pipe);
+
+        Pipe result = new Each(pipe, fields, new EncodeFunction(fields, platform, sharedDictionaryDir), Fields.REPLACE);
+        setTails(result);
+    }
+
+    public Pipe getTailPipe() {
+        return getTails()[0];
+    }
+}
@@ -0,0 +1,208 @@
+package com.scaleunlimited.cascading;
+
+import java.beans.ConstructorProperties;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Every;
+import cascading.pipe.GroupBy;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+
+/**
+ * Keep the first maxInGroup tuples of each group (as sorted by sortFields), same as a GroupBy
+ * followed by {@link GroupLimit}, but with map-side pre-limiting. For each group we keep the best
+ * maxInGroup tuples seen so far in a bounded heap, and only those get emitted to the GroupBy. So
+ * instead of shuffling every tuple, each map task shuffles at most maxInGroup tuples per group
+ * (plus some extra when a group gets flushed early, see below).
+ *
+ * The maxBufferedTuples value caps the memory used map-side. If the heaps hold more tuples than
+ * that, we emit the heap for the least recently used group. The reducer still does the final
+ * limiting, so flushing a group early just means more data gets shuffled.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class GroupLimitAssembly extends SubAssembly {
+
+    public static final int DEFAULT_MAX_BUFFERED_TUPLES = 100000;
+
+    /**
+     * A tuple plus the values of its sort fields.
+     */
+    private static class SortedTuple {
+        public Tuple sortValues;
+        public Tuple tuple;
+
+        public SortedTuple(Tuple sortValues, Tuple tuple) {
+            this.sortValues = sortValues;
+            this.tuple = tuple;
+        }
+    }
+
+    private static class PreLimitContext {
+        // Access-ordered, so the first entry is the least recently used group.
+        public LinkedHashMap<Tuple, PriorityQueue<SortedTuple>> groups = new LinkedHashMap<Tuple, PriorityQueue<SortedTuple>>(16, 0.75f, true);
+        public int numBufferedTuples;
+
+        // Orders tuples from worst to best, so the head of a heap is the one to drop.
+        public Comparator<SortedTuple> worstFirst;
+    }
+
+    private static class PreLimit extends BaseOperation<PreLimitContext> implements Function<PreLimitContext> {
+
+        private Fields _groupFields;
+        private Fields _sortFields;
+        private boolean _reverseOrder;
+        private int _maxInGroup;
+        private int _maxBufferedTuples;
+
+        public PreLimit(Fields groupFields, Fields sortFields, boolean reverseOrder, int maxInGroup, int maxBufferedTuples) {
+            super(Fields.ARGS);
+
+            _groupFields = groupFields;
+            _sortFields = sortFields;
+            _reverseOrder = reverseOrder;
+            _maxInGroup = maxInGroup;
+            _maxBufferedTuples = maxBufferedTuples;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<PreLimitContext> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            // Use any comparators set on the sort fields, same as the GroupBy does.
+            final Comparator[] comparators = _sortFields.getComparators();
+
+            PreLimitContext context = new PreLimitContext();
+            context.worstFirst = new Comparator<SortedTuple>() {
+
+                @Override
+                public int compare(SortedTuple t1, SortedTuple t2) {
+                    // Normally the GroupBy puts the lowest values first, so those are the best.
+                    int result = t1.sortValues.compareTo(comparators, t2.sortValues);
+                    return _reverseOrder ? result : -result;
+                }
+            };
+
+            operationCall.setContext(context);
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<PreLimitContext> functionCall) {
+            PreLimitContext context = functionCall.getContext();
+            TupleEntry args = functionCall.getArguments();
+
+            Tuple group = args.selectTuple(_groupFields);
+            PriorityQueue<SortedTuple> heap = context.groups.get(group);
+            if (heap == null) {
+                heap = new PriorityQueue<SortedTuple>(Math.min(_maxInGroup, 16), context.worstFirst);
+                context.groups.put(group, heap);
+            }
+
+            SortedTuple candidate = new SortedTuple(args.selectTuple(_sortFields), null);
+            if (heap.size() < _maxInGroup) {
+                candidate.tuple = args.getTupleCopy();
+                heap.add(candidate);
+                context.numBufferedTuples += 1;
+            } else if (context.worstFirst.compare(candidate, heap.peek()) > 0) {
+                candidate.tuple = args.getTupleCopy();
+                heap.poll();
+                heap.add(candidate);
+            }
+
+            TupleEntryCollector collector = functionCall.getOutputCollector();
+            while (context.numBufferedTuples > _maxBufferedTuples) {
+                Map.Entry<Tuple, PriorityQueue<SortedTuple>> eldest = context.groups.entrySet().iterator().next();
+                emit(context, eldest.getValue(), collector);
+                context.groups.remove(eldest.getKey());
+            }
+        }
+
+        @Override
+        public void flush(FlowProcess flowProcess, OperationCall<PreLimitContext> operationCall) {
+            PreLimitContext context = operationCall.getContext();
+            TupleEntryCollector collector = ((FunctionCall)operationCall).getOutputCollector();
+
+            for (PriorityQueue<SortedTuple> heap : context.groups.values()) {
+                emit(context, heap, collector);
+            }
+
+            context.groups.clear();
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<PreLimitContext> operationCall) {
+            operationCall.setContext(null);
+        }
+
+        private void emit(PreLimitContext context, PriorityQueue<SortedTuple> heap, TupleEntryCollector collector) {
+            for (SortedTuple sortedTuple : heap) {
+                collector.add(sortedTuple.tuple);
+            }
+
+            context.numBufferedTuples -= heap.size();
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "sortFields", "reverseOrder", "maxInGroup" })
+    public GroupLimitAssembly(Pipe pipe, Fields groupFields, Fields sortFields, boolean reverseOrder, int maxInGroup) {
+        this(null, Pipe.pipes(pipe), groupFields, sortFields, reverseOrder, maxInGroup, DEFAULT_MAX_BUFFERED_TUPLES);
+    }
+
+    /**
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param groupFields
+     *            of type Fields
+     * @param sortFields
+     *            of type Fields
+     * @param reverseOrder
+     *            true to keep the tuples with the highest sort values
+     * @param maxInGroup
+     *            max number of tuples to output for each group
+     * @param maxBufferedTuples
+     *            max number of tuples to keep map-side, for all groups
+     */
+    @ConstructorProperties({ "name", "pipes", "groupFields", "sortFields", "reverseOrder", "maxInGroup", "maxBufferedTuples" })
+    public GroupLimitAssembly(String name, Pipe[] pipes, Fields groupFields, Fields sortFields, boolean reverseOrder, int maxInGroup, int maxBufferedTuples) {
+        super(pipes);
+
+        if (maxInGroup < 1) {
+            throw new IllegalArgumentException("maxInGroup parameter must be > 0");
+        }
+
+        if (maxBufferedTuples < maxInGroup) {
+            throw new IllegalArgumentException("maxBufferedTuples parameter must be >= maxInGroup");
+        }
+
+        PreLimit preLimit = new PreLimit(groupFields, sortFields, reverseOrder, maxInGroup, maxBufferedTuples);
+
+        Pipe[] limited = new Pipe[pipes.length];
+        for (int i = 0; i < pipes.length; i++) {
+            limited[i] = new Each(pipes[i], preLimit, Fields.RESULTS);
+        }
+
+        Pipe pipe = new GroupBy(name, limited, groupFields, sortFields, reverseOrder);
+        pipe = new Every(pipe, new GroupLimit(maxInGroup), Fields.RESULTS);
+
+        setTails(pipe);
+    }
+
+    public Pipe getTailPipe() {
+        Pipe[] tails = getTails();
+        return tails[0];
+    }
+}
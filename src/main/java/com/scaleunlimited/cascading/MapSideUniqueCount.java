@@ -0,0 +1,619 @@
+package com.scaleunlimited.cascading;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.beans.ConstructorProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.hadoop.io.BytesWritable;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Buffer;
+import cascading.operation.BufferCall;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Every;
+import cascading.pipe.GroupBy;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+
+import com.scaleunlimited.cascading.UniqueCount.FilterPartialFingerprintDuplicates;
+import com.scaleunlimited.maps.FingerprintCache;
+import com.scaleunlimited.maps.FrontCodedStringSet;
+import com.scaleunlimited.maps.StringSet;
+
+/**
+ * An exact version of {@link UniqueCount} that does the de-duping map-side, so that groups with
+ * a modest number of unique values don't shuffle individual values. For each group we keep the
+ * set of unique values seen so far (a primitive long set if the values are a single Integer or
+ * Long field, otherwise a {@link StringSet} of strings that encode the values). When there are too
+ * many groups, or the sets use more than the memory limit, we emit the least recently used set
+ * as a sorted, front-coded run ({@link FrontCodedStringSet}).
+ *
+ * The reducer has to hold all of a group's runs in memory while it merges them, so we only emit a
+ * run the first time a group's set is evicted (in each map task), and only if it's small. After that
+ * the group has "spilled", and we emit each of its values as a separate tuple. The GroupBy sorts
+ * these by value, after the runs, so the reducer counts them like {@link UniqueCount} does, and only
+ * has to check each one against the runs. The unique count (as a long) goes into countField.
+ *
+ * If each group's values are only in one map task, and come together (e.g. the input was written
+ * by a GroupBy on the group fields), then set partitionedByGroup. Once a set is evicted we won't see
+ * that group again, so we emit the count versus the values, which is tiny. The only exception is a
+ * group that has too many values to fit in memory, which we emit as individual values.
+ *
+ * Values of types other than String, Integer, Long, Short, Byte, Float, Double and Boolean are
+ * compared using their class and toString(), so for those toString() has to be unique.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class MapSideUniqueCount extends SubAssembly {
+
+    public static final int DEFAULT_THRESHOLD = 10000;
+    public static final int DEFAULT_MAX_MEMORY_MB = 64;
+
+    private static final Fields PARTIAL_FIELD = new Fields("MapSideUniqueCount_partial");
+    private static final Fields VALUE_FIELD = new Fields("MapSideUniqueCount_value");
+
+    // Value for tuples with a run or a count, which sorts before any encoded value.
+    private static final String NO_VALUE = "";
+
+    // Max number of values in a run, which limits the memory the reducer needs for each one.
+    private static final int MAX_RUN_SIZE = 1000;
+
+    // Size of the cache used to remember which groups have been emitted (in a map task).
+    private static final int EMITTED_GROUPS_CACHE_MB = 1;
+
+    // Rough heap size of one entry in a LongOpenHashSet. For strings we use a StringSet, which
+    // knows how many bytes it's using.
+    private static final int LONG_ENTRY_SIZE = 16;
+
+    // Most groups only have a few unique values.
+    private static final int INITIAL_STRING_SET_SIZE = 4;
+
+    /**
+     * The unique values for one group. We start with a primitive set of longs, and switch to
+     * a set of encoded strings if we get anything other than one Integer or Long value.
+     */
+    private static class DistinctValues {
+
+        private LongOpenHashSet _longValues = new LongOpenHashSet(4);
+        private Class _longType;
+
+        private StringSet _stringValues;
+
+        private long _memorySize;
+
+        /**
+         * @return change in memory size.
+         */
+        public long add(Tuple values) {
+            long oldSize = _memorySize;
+
+            if (_longValues != null) {
+                Object value = (values.size() == 1) ? values.getObject(0) : null;
+                if ((value != null) && ((value instanceof Integer) || (value instanceof Long))
+                                && ((_longType == null) || (_longType == value.getClass()))) {
+                    _longType = value.getClass();
+                    if (_longValues.add(((Number)value).longValue())) {
+                        _memorySize += LONG_ENTRY_SIZE;
+                    }
+
+                    return _memorySize - oldSize;
+                }
+
+                convertToStrings();
+            }
+
+            _stringValues.add(encodeValues(values));
+            _memorySize = _stringValues.getMemorySize();
+            return _memorySize - oldSize;
+        }
+
+        private void convertToStrings() {
+            _stringValues = new StringSet(Math.max(INITIAL_STRING_SET_SIZE, _longValues.size()));
+
+            LongIterator iter = _longValues.iterator();
+            while (iter.hasNext()) {
+                _stringValues.add(encodeValue(getLongValue(iter.nextLong())));
+            }
+
+            _memorySize = _stringValues.getMemorySize();
+            _longValues = null;
+        }
+
+        private Object getLongValue(long value) {
+            // Not a ?: expression, since that would unbox the Integer and promote it to a long.
+            if (_longType == Integer.class) {
+                return Integer.valueOf((int)value);
+            } else {
+                return Long.valueOf(value);
+            }
+        }
+
+        public long getMemorySize() {
+            return _memorySize;
+        }
+
+        public int size() {
+            return (_longValues != null) ? _longValues.size() : _stringValues.size();
+        }
+
+        /**
+         * Add a tuple to <collector> for each of the (encoded) values, by setting the value at
+         * <pos> in <result>.
+         */
+        public void emitValues(Tuple result, int pos, TupleEntryCollector collector) {
+            if (_longValues != null) {
+                LongIterator iter = _longValues.iterator();
+                while (iter.hasNext()) {
+                    result.set(pos, encodeValue(getLongValue(iter.nextLong())));
+                    collector.add(result);
+                }
+            } else {
+                for (String value : _stringValues) {
+                    result.set(pos, value);
+                    collector.add(result);
+                }
+            }
+        }
+
+        public BytesWritable toRun() {
+            if (_longValues != null) {
+                convertToStrings();
+            }
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                new FrontCodedStringSet(_stringValues).write(out);
+                out.close();
+
+                return new BytesWritable(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new RuntimeException("Impossible exception writing to byte array", e);
+            }
+        }
+    }
+
+    private static class PartialsContext {
+        // Access-ordered, so the first entry is the least recently used group.
+        public LinkedHashMap<Tuple, DistinctValues> groups = new LinkedHashMap<Tuple, DistinctValues>(16, 0.75f, true);
+        public long memorySize;
+
+        // Groups we had to emit before we'd seen all of their values, when partitionedByGroup.
+        public Set<Tuple> spilledGroups = new HashSet<Tuple>();
+
+        // Fingerprints of groups that we've emitted, when not partitionedByGroup. If we forget a
+        // group, we'll emit another run for it, which is OK.
+        public FingerprintCache emittedGroups;
+
+        public Tuple result;
+    }
+
+    private static class PartialDistinctSets extends BaseOperation<PartialsContext> implements Function<PartialsContext> {
+
+        private int _numGroupFields;
+        private int _threshold;
+        private long _maxMemorySize;
+        private boolean _partitionedByGroup;
+
+        public PartialDistinctSets(Fields groupFields, int threshold, int maxMemoryMB, boolean partitionedByGroup) {
+            super(groupFields.append(PARTIAL_FIELD).append(VALUE_FIELD));
+
+            _numGroupFields = groupFields.size();
+            _threshold = threshold;
+            _maxMemorySize = maxMemoryMB * 1024L * 1024L;
+            _partitionedByGroup = partitionedByGroup;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<PartialsContext> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            PartialsContext context = new PartialsContext();
+            context.result = Tuple.size(_numGroupFields + 2);
+            if (!_partitionedByGroup) {
+                context.emittedGroups = new FingerprintCache(EMITTED_GROUPS_CACHE_MB);
+            }
+
+            operationCall.setContext(context);
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<PartialsContext> functionCall) {
+            PartialsContext context = functionCall.getContext();
+            Tuple args = functionCall.getArguments().getTuple();
+
+            Tuple group = new Tuple();
+            Tuple values = new Tuple();
+            for (int i = 0; i < args.size(); i++) {
+                if (i < _numGroupFields) {
+                    group.add(args.getObject(i));
+                } else {
+                    values.add(args.getObject(i));
+                }
+            }
+
+            DistinctValues distinctValues = context.groups.get(group);
+            if (distinctValues == null) {
+                distinctValues = new DistinctValues();
+                context.groups.put(group, distinctValues);
+            }
+
+            context.memorySize += distinctValues.add(values);
+
+            TupleEntryCollector collector = functionCall.getOutputCollector();
+            while ((context.groups.size() > _threshold) || (context.memorySize > _maxMemorySize)) {
+                Map.Entry<Tuple, DistinctValues> eldest = context.groups.entrySet().iterator().next();
+
+                // If the only group left is too big, we're still getting values for it.
+                boolean incomplete = context.groups.size() == 1;
+                if (incomplete && _partitionedByGroup) {
+                    context.spilledGroups.add(eldest.getKey());
+                }
+
+                emit(context, eldest.getKey(), eldest.getValue(), collector);
+                context.groups.remove(eldest.getKey());
+            }
+        }
+
+        @Override
+        public void flush(FlowProcess flowProcess, OperationCall<PartialsContext> operationCall) {
+            PartialsContext context = operationCall.getContext();
+            TupleEntryCollector collector = ((FunctionCall)operationCall).getOutputCollector();
+
+            for (Map.Entry<Tuple, DistinctValues> entry : context.groups.entrySet()) {
+                emit(context, entry.getKey(), entry.getValue(), collector);
+            }
+
+            context.groups.clear();
+            context.memorySize = 0;
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<PartialsContext> operationCall) {
+            operationCall.setContext(null);
+        }
+
+        private void emit(PartialsContext context, Tuple group, DistinctValues values, TupleEntryCollector collector) {
+            context.memorySize -= values.getMemorySize();
+
+            for (int i = 0; i < _numGroupFields; i++) {
+                context.result.set(i, group.getObject(i));
+            }
+
+            boolean spilled;
+            if (_partitionedByGroup) {
+                spilled = context.spilledGroups.contains(group);
+            } else {
+                spilled = !context.emittedGroups.add(FilterPartialFingerprintDuplicates.getFingerprint(group));
+            }
+
+            if (_partitionedByGroup && !spilled) {
+                context.result.set(_numGroupFields, (long)values.size());
+                context.result.set(_numGroupFields + 1, NO_VALUE);
+                collector.add(context.result);
+            } else if (!spilled && (values.size() <= MAX_RUN_SIZE)) {
+                context.result.set(_numGroupFields, values.toRun());
+                context.result.set(_numGroupFields + 1, NO_VALUE);
+                collector.add(context.result);
+            } else {
+                context.result.set(_numGroupFields, null);
+                values.emitValues(context.result, _numGroupFields + 1, collector);
+            }
+        }
+    }
+
+    /**
+     * Current position in a sorted run of encoded values.
+     */
+    private static class RunCursor {
+        public Iterator<String> iter;
+        public String value;
+
+        public RunCursor(FrontCodedStringSet run) {
+            iter = run.iterator();
+            value = iter.next();
+        }
+
+        public boolean advance() {
+            value = iter.hasNext() ? iter.next() : null;
+            return value != null;
+        }
+    }
+
+    // Runs are sorted by UTF-8 bytes, which is the same as Unicode code point order (but not the
+    // same as String.compareTo() order).
+    private static final Comparator<RunCursor> CURSOR_COMPARATOR = new Comparator<RunCursor>() {
+
+        @Override
+        public int compare(RunCursor c1, RunCursor c2) {
+            return compareCodePoints(c1.value, c2.value);
+        }
+    };
+
+    private static class CountDistinct extends BaseOperation<NullContext> implements Buffer<NullContext> {
+
+        private transient Tuple _result;
+
+        public CountDistinct(Fields countField) {
+            super(countField);
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<NullContext> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            _result = new Tuple(0L);
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, BufferCall<NullContext> bufferCall) {
+            long count = 0;
+            List<FrontCodedStringSet> runs = new ArrayList<FrontCodedStringSet>();
+            String prevValue = null;
+
+            // We get all of the runs and counts first, and then the individual values, sorted, so
+            // we only have to keep the runs (which are small) in memory.
+            Iterator<TupleEntry> iter = bufferCall.getArgumentsIterator();
+            while (iter.hasNext()) {
+                TupleEntry entry = iter.next();
+                Object partial = entry.getObject(0);
+                if (partial instanceof BytesWritable) {
+                    runs.add(readRun((BytesWritable)partial));
+                } else if (partial != null) {
+                    count += ((Number)partial).longValue();
+                } else {
+                    String value = (String)entry.getObject(1);
+                    if (!value.equals(prevValue)) {
+                        prevValue = value;
+                        if (!inRuns(runs, value)) {
+                            count += 1;
+                        }
+                    }
+                }
+            }
+
+            if (runs.size() == 1) {
+                count += runs.get(0).size();
+            } else if (runs.size() > 1) {
+                count += countMerged(runs);
+            }
+
+            _result.set(0, count);
+            bufferCall.getOutputCollector().add(_result);
+        }
+
+        private FrontCodedStringSet readRun(BytesWritable bytes) {
+            FrontCodedStringSet result = new FrontCodedStringSet();
+
+            try {
+                result.readFields(new DataInputStream(new ByteArrayInputStream(bytes.getBytes(), 0, bytes.getLength())));
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid run data", e);
+            }
+
+            return result;
+        }
+
+        private boolean inRuns(List<FrontCodedStringSet> runs, String value) {
+            for (FrontCodedStringSet run : runs) {
+                if (run.contains(value)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private long countMerged(List<FrontCodedStringSet> runs) {
+            PriorityQueue<RunCursor> queue = new PriorityQueue<RunCursor>(runs.size(), CURSOR_COMPARATOR);
+            for (FrontCodedStringSet run : runs) {
+                if (!run.isEmpty()) {
+                    queue.add(new RunCursor(run));
+                }
+            }
+
+            long result = 0;
+            String prevValue = null;
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                if (!cursor.value.equals(prevValue)) {
+                    result += 1;
+                    prevValue = cursor.value;
+                }
+
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "uniqueFields", "countField" })
+    public MapSideUniqueCount(Pipe pipe, Fields groupFields, Fields uniqueFields, Fields countField) {
+        this(null, Pipe.pipes(pipe), groupFields, uniqueFields, countField, DEFAULT_THRESHOLD, DEFAULT_MAX_MEMORY_MB, false);
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "uniqueFields", "countField", "partitionedByGroup" })
+    public MapSideUniqueCount(Pipe pipe, Fields groupFields, Fields uniqueFields, Fields countField, boolean partitionedByGroup) {
+        this(null, Pipe.pipes(pipe), groupFields, uniqueFields, countField, DEFAULT_THRESHOLD, DEFAULT_MAX_MEMORY_MB, partitionedByGroup);
+    }
+
+    /**
+     * Count the number of unique values found in uniqueFields, for each group defined by
+     * groupFields, and put the resulting count into countField.
+     *
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param groupFields
+     *            of type Fields
+     * @param uniqueFields
+     *            of type Fields
+     * @param countField
+     *            of type Fields
+     * @param threshold
+     *            max number of groups to keep sets for map-side
+     * @param maxMemoryMB
+     *            max (estimated) memory used by the sets map-side
+     * @param partitionedByGroup
+     *            true if all of a group's values are in one map task, and come together
+     */
+    @ConstructorProperties({ "name", "pipes", "groupFields", "uniqueFields", "countField", "threshold", "maxMemoryMB", "partitionedByGroup" })
+    public MapSideUniqueCount(String name, Pipe[] pipes, Fields groupFields, Fields uniqueFields, Fields countField, int threshold, int maxMemoryMB, boolean partitionedByGroup) {
+        super(pipes);
+
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be > 0");
+        }
+
+        if (maxMemoryMB <= 0) {
+            throw new IllegalArgumentException("Max memory must be > 0 MB");
+        }
+
+        Fields joinedFields = Fields.join(groupFields, uniqueFields);
+        PartialDistinctSets partials = new PartialDistinctSets(groupFields, threshold, maxMemoryMB, partitionedByGroup);
+
+        Pipe[] partialPipes = new Pipe[pipes.length];
+        for (int i = 0; i < pipes.length; i++) {
+            partialPipes[i] = new Each(pipes[i], joinedFields, partials, Fields.RESULTS);
+        }
+
+        // Sort by value, so individual values come after the runs and counts, and duplicates are together.
+        Pipe pipe = new GroupBy(name, partialPipes, groupFields, VALUE_FIELD);
+        pipe = new Every(pipe, PARTIAL_FIELD.append(VALUE_FIELD), new CountDistinct(countField.applyTypes(Long.TYPE)), Fields.SWAP);
+
+        setTails(pipe);
+    }
+
+    public Pipe getTailPipe() {
+        Pipe[] tails = getTails();
+        return tails[0];
+    }
+
+    /**
+     * Encode <values> as a string, such that two tuples get the same string only if they're
+     * equal. Each value is a type character followed by the value as a string, and all but the
+     * last one are prefixed by the length, so we know where each one ends.
+     */
+    static String encodeValues(Tuple values) {
+        if (values.size() == 1) {
+            return encodeValue(values.getObject(0));
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            String encoded = encodeValue(values.getObject(i));
+            if (i < values.size() - 1) {
+                result.append(encoded.length());
+                result.append(':');
+            }
+
+            result.append(encoded);
+        }
+
+        return result.toString();
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return "n";
+        } else if (value instanceof String) {
+            return "s" + escapeSurrogates((String)value);
+        } else if (value instanceof Integer) {
+            return "i" + value;
+        } else if (value instanceof Long) {
+            return "l" + value;
+        } else if (value instanceof Short) {
+            return "h" + value;
+        } else if (value instanceof Byte) {
+            return "y" + value;
+        } else if (value instanceof Double) {
+            return "d" + value;
+        } else if (value instanceof Float) {
+            return "f" + value;
+        } else if (value instanceof Boolean) {
+            return "b" + value;
+        } else {
+            return "o" + value.getClass().getName() + ":" + escapeSurrogates(value.toString());
+        }
+    }
+
+    /**
+     * Runs store strings as UTF-8, which turns an unpaired surrogate into '?', so (for example) "a?"
+     * and "a" plus an unpaired surrogate would be counted as one value. To avoid that we replace
+     * each unpaired surrogate with a backslash and its four hex digits, and (so that this is
+     * reversible) each backslash with two backslashes.
+     */
+    static String escapeSurrogates(String s) {
+        StringBuilder result = null;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && (i + 1 < len) && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // A valid pair, which is fine as UTF-8.
+                if (result != null) {
+                    result.append(c).append(s.charAt(i + 1));
+                }
+
+                i += 1;
+            } else if ((c == '\\') || ((c >= Character.MIN_SURROGATE) && (c <= Character.MAX_SURROGATE))) {
+                if (result == null) {
+                    result = new StringBuilder(len + 8);
+                    result.append(s, 0, i);
+                }
+
+                result.append('\\');
+                result.append((c == '\\') ? "\\" : Integer.toHexString(c));
+            } else if (result != null) {
+                result.append(c);
+            }
+        }
+
+        return (result == null) ? s : result.toString();
+    }
+
+    static int compareCodePoints(String s1, String s2) {
+        int len = Math.min(s1.length(), s2.length());
+        for (int i = 0; i < len; i++) {
+            char c1 = s1.charAt(i);
+            char c2 = s2.charAt(i);
+            if (c1 != c2) {
+                // Surrogates (for code points past the BMP) sort after all other chars.
+                boolean surrogate1 = (c1 >= Character.MIN_SURROGATE) && (c1 <= Character.MAX_SURROGATE);
+                boolean surrogate2 = (c2 >= Character.MIN_SURROGATE) && (c2 <= Character.MAX_SURROGATE);
+                if (surrogate1 != surrogate2) {
+                    return surrogate1 ? 1 : -1;
+                }
+
+                return c1 - c2;
+            }
+        }
+
+        return s1.length() - s2.length();
+    }
+}
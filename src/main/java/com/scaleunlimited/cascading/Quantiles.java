@@ -0,0 +1,229 @@
+package com.scaleunlimited.cascading;
+
+import java.beans.ConstructorProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.io.BytesWritable;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.Aggregator;
+import cascading.operation.AggregatorCall;
+import cascading.operation.BaseOperation;
+import cascading.operation.OperationCall;
+import cascading.pipe.Pipe;
+import cascading.pipe.assembly.AggregateBy;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+
+import com.scaleunlimited.maps.TDigest;
+
+/**
+ * Estimate quantiles (e.g. p50/p95/p99) of the values in valueField, for each group. Unlike the
+ * quartiles from {@link StdDeviation}, this works with partial aggregation: for each group we build
+ * a {@link TDigest} of the values map-side, and only the (serialized) digests get shuffled. The
+ * reducer merges the digests for each group, and outputs the estimate for each quantile (as a double)
+ * in the corresponding output field.
+ *
+ * The compression sets the accuracy and memory used per group, see {@link TDigest}. The default of
+ * 100 has a worst case of a few KB per group, and serialized digests are typically 1-2KB.
+ *
+ * The threshold is the number of groups we keep digests for map-side, same as with the other
+ * AggregateBy assemblies. If there are more groups, the least recently used digests are emitted
+ * early, and get merged with the rest in the reducer.
+ *
+ * Null values are ignored. If a group has no (non-null) values, all of the outputs are null.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class Quantiles extends AggregateBy {
+
+    public static final double[] DEFAULT_QUANTILES = {0.50, 0.95, 0.99};
+    public static final Fields DEFAULT_OUTPUT_FIELDS = new Fields("p50", "p95", "p99");
+
+    private static final Fields DIGEST_FIELD = new Fields("Quantiles_digest");
+
+    private static class DigestPartials implements Functor {
+
+        private int _compression;
+
+        public DigestPartials(int compression) {
+            _compression = compression;
+        }
+
+        @Override
+        public Fields getDeclaredFields() {
+            return DIGEST_FIELD;
+        }
+
+        @Override
+        public Tuple aggregate(FlowProcess flowProcess, TupleEntry args, Tuple context) {
+            if (context == null) {
+                context = new Tuple(new TDigest(_compression));
+            }
+
+            if (args.getObject(0) != null) {
+                ((TDigest)context.getObject(0)).add(args.getDouble(0));
+            }
+
+            return context;
+        }
+
+        @Override
+        public Tuple complete(FlowProcess flowProcess, Tuple context) {
+            TDigest digest = (TDigest)context.getObject(0);
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                digest.write(out);
+                out.close();
+
+                return new Tuple(new BytesWritable(bytes.toByteArray()));
+            } catch (IOException e) {
+                throw new RuntimeException("Impossible exception writing to byte array", e);
+            }
+        }
+    }
+
+    private static class MergeDigests extends BaseOperation<TDigest> implements Aggregator<TDigest> {
+
+        private double[] _quantiles;
+        private int _compression;
+
+        private transient TDigest _partialDigest;
+
+        public MergeDigests(Fields outputFields, double[] quantiles, int compression) {
+            super(1, outputFields);
+
+            _quantiles = quantiles;
+            _compression = compression;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<TDigest> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            operationCall.setContext(new TDigest(_compression));
+            _partialDigest = new TDigest(_compression);
+        }
+
+        @Override
+        public void start(FlowProcess flowProcess, AggregatorCall<TDigest> aggregatorCall) {
+            aggregatorCall.getContext().clear();
+        }
+
+        @Override
+        public void aggregate(FlowProcess flowProcess, AggregatorCall<TDigest> aggregatorCall) {
+            BytesWritable bytes = (BytesWritable)aggregatorCall.getArguments().getObject(0);
+
+            try {
+                _partialDigest.readFields(new DataInputStream(new ByteArrayInputStream(bytes.getBytes(), 0, bytes.getLength())));
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid digest data", e);
+            }
+
+            aggregatorCall.getContext().merge(_partialDigest);
+        }
+
+        @Override
+        public void complete(FlowProcess flowProcess, AggregatorCall<TDigest> aggregatorCall) {
+            TDigest digest = aggregatorCall.getContext();
+            if (digest.getCount() == 0) {
+                aggregatorCall.getOutputCollector().add(Tuple.size(_quantiles.length));
+                return;
+            }
+
+            Tuple result = new Tuple();
+            for (double q : _quantiles) {
+                result.add(digest.quantile(q));
+            }
+
+            aggregatorCall.getOutputCollector().add(result);
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "valueField" })
+    public Quantiles(Pipe pipe, Fields groupFields, Fields valueField) {
+        this(null, Pipe.pipes(pipe), groupFields, valueField, DEFAULT_QUANTILES, DEFAULT_OUTPUT_FIELDS,
+                        TDigest.DEFAULT_COMPRESSION, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "valueField", "quantiles", "outputFields" })
+    public Quantiles(Pipe pipe, Fields groupFields, Fields valueField, double[] quantiles, Fields outputFields) {
+        this(null, Pipe.pipes(pipe), groupFields, valueField, quantiles, outputFields,
+                        TDigest.DEFAULT_COMPRESSION, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Estimate each of the quantiles of the values in valueField, for each group defined by
+     * groupFields, and put the results into the corresponding outputFields.
+     *
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param groupFields
+     *            of type Fields
+     * @param valueField
+     *            of type Fields
+     * @param quantiles
+     *            quantiles to estimate, each from 0.0 (the min) to 1.0 (the max)
+     * @param outputFields
+     *            one field for each quantile
+     * @param compression
+     *            digest compression, from {@link TDigest#MIN_COMPRESSION} to {@link TDigest#MAX_COMPRESSION}
+     * @param threshold
+     *            number of groups to keep digests for map-side
+     */
+    @ConstructorProperties({ "name", "pipes", "groupFields", "valueField", "quantiles", "outputFields", "compression", "threshold" })
+    public Quantiles(String name, Pipe[] pipes, Fields groupFields, Fields valueField, double[] quantiles, Fields outputFields,
+                    int compression, int threshold) {
+        super(name, pipes, groupFields, checkValueField(valueField), new DigestPartials(checkCompression(compression)),
+                        new MergeDigests(checkOutputFields(outputFields, quantiles), quantiles.clone(), compression), threshold);
+    }
+
+    private static Fields checkValueField(Fields valueField) {
+        // Fail when building the flow, versus in the tasks.
+        if (valueField.size() != 1) {
+            throw new IllegalArgumentException("valueField may only declare 1 field, got: " + valueField.size());
+        }
+
+        return valueField;
+    }
+
+    private static int checkCompression(int compression) {
+        if ((compression < TDigest.MIN_COMPRESSION) || (compression > TDigest.MAX_COMPRESSION)) {
+            throw new IllegalArgumentException(String.format("Compression must be >= %d and <= %d", TDigest.MIN_COMPRESSION, TDigest.MAX_COMPRESSION));
+        }
+
+        return compression;
+    }
+
+    private static Fields checkOutputFields(Fields outputFields, double[] quantiles) {
+        if (outputFields.size() != quantiles.length) {
+            throw new IllegalArgumentException(String.format("outputFields must declare one field per quantile (%d), got: %d",
+                            quantiles.length, outputFields.size()));
+        }
+
+        for (double q : quantiles) {
+            if ((q < 0.0) || (q > 1.0)) {
+                throw new IllegalArgumentException("Quantile must be >= 0.0 and <= 1.0, got " + q);
+            }
+        }
+
+        return outputFields.applyTypes(getDoubleTypes(quantiles.length));
+    }
+
+    private static Class[] getDoubleTypes(int numFields) {
+        Class[] result = new Class[numFields];
+        for (int i = 0; i < numFields; i++) {
+            result[i] = Double.class;
+        }
+
+        return result;
+    }
+}
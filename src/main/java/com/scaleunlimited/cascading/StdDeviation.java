@@ -45,6 +45,9 @@ import cascading.tuple.TupleEntry;
  * See
  * <p/>
  * http://citeseerx.ist.psu.edu/viewdoc/summary?doi=10.1.1.105.1580
+ * <p/>
+ * These estimates can't be merged, so this has to run after a full GroupBy. See {@link StdDeviationBy}
+ * and {@link Quantiles} for versions that do partial aggregation map-side.
  */
 @SuppressWarnings("serial")
 public class StdDeviation extends BaseOperation<StdDeviation.Context> implements Aggregator<StdDeviation.Context> {
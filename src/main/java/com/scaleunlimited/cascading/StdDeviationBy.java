@@ -0,0 +1,207 @@
+package com.scaleunlimited.cascading;
+
+import java.beans.ConstructorProperties;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.Aggregator;
+import cascading.operation.AggregatorCall;
+import cascading.operation.BaseOperation;
+import cascading.pipe.Pipe;
+import cascading.pipe.assembly.AggregateBy;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+
+/**
+ * A mergeable version of the mean/variance part of {@link StdDeviation}, for when there are too many
+ * values per group to shuffle them all. For each group we keep a partial (count, mean, M2) map-side,
+ * using Welford's method, and only these partials get shuffled. The reducer merges the partials for
+ * each group using the parallel form of the algorithm (Chan et al.), and outputs the mean, variance
+ * and standard deviation. As with {@link StdDeviation}, this is the population variance (M2/count).
+ *
+ * See
+ * <p/>
+ * http://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+ * <p/>
+ * Null values are ignored. If a group has no (non-null) values, all three outputs are null.
+ *
+ * The quartile estimates from {@link StdDeviation} can't be merged, so they aren't available here.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class StdDeviationBy extends AggregateBy {
+
+    public static final String MEAN_FIELD_NAME = "mean";
+    public static final String VARIANCE_FIELD_NAME = "variance";
+
+    public static final Fields DEFAULT_OUTPUT_FIELDS = new Fields(MEAN_FIELD_NAME, VARIANCE_FIELD_NAME, StdDeviation.FIELD_NAME);
+
+    private static final Fields PARTIAL_FIELDS = new Fields("StdDeviationBy_count", "StdDeviationBy_mean", "StdDeviationBy_m2");
+
+    /**
+     * Running count, mean and sum of squared differences from the mean (M2) for a set of values.
+     */
+    protected static class Moments {
+        private long _count;
+        private double _mean;
+        private double _m2;
+
+        public void reset() {
+            _count = 0;
+            _mean = 0.0;
+            _m2 = 0.0;
+        }
+
+        public void add(double value) {
+            _count += 1;
+            double delta = value - _mean;
+            _mean += delta / _count;
+            _m2 += delta * (value - _mean);
+        }
+
+        public void merge(long count, double mean, double m2) {
+            if (count == 0) {
+                return;
+            } else if (_count == 0) {
+                _count = count;
+                _mean = mean;
+                _m2 = m2;
+                return;
+            }
+
+            long newCount = _count + count;
+            double delta = mean - _mean;
+
+            // Weight the correction terms by count/newCount (versus multiplying the counts first),
+            // so that large counts don't lose precision.
+            _mean += delta * ((double)count / newCount);
+            _m2 += m2 + (delta * delta) * _count * ((double)count / newCount);
+            _count = newCount;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+
+        public double getMean() {
+            return _mean;
+        }
+
+        public double getM2() {
+            return _m2;
+        }
+
+        public double getVariance() {
+            return _m2 / _count;
+        }
+    }
+
+    private static class MomentsPartials implements Functor {
+
+        @Override
+        public Fields getDeclaredFields() {
+            return PARTIAL_FIELDS;
+        }
+
+        @Override
+        public Tuple aggregate(FlowProcess flowProcess, TupleEntry args, Tuple context) {
+            if (context == null) {
+                context = new Tuple(new Moments());
+            }
+
+            if (args.getObject(0) != null) {
+                ((Moments)context.getObject(0)).add(args.getDouble(0));
+            }
+
+            return context;
+        }
+
+        @Override
+        public Tuple complete(FlowProcess flowProcess, Tuple context) {
+            Moments moments = (Moments)context.getObject(0);
+            return new Tuple(moments.getCount(), moments.getMean(), moments.getM2());
+        }
+    }
+
+    private static class MergeMoments extends BaseOperation<Moments> implements Aggregator<Moments> {
+
+        public MergeMoments(Fields outputFields) {
+            super(PARTIAL_FIELDS.size(), outputFields);
+        }
+
+        @Override
+        public void start(FlowProcess flowProcess, AggregatorCall<Moments> aggregatorCall) {
+            if (aggregatorCall.getContext() != null) {
+                aggregatorCall.getContext().reset();
+            } else {
+                aggregatorCall.setContext(new Moments());
+            }
+        }
+
+        @Override
+        public void aggregate(FlowProcess flowProcess, AggregatorCall<Moments> aggregatorCall) {
+            TupleEntry partial = aggregatorCall.getArguments();
+            aggregatorCall.getContext().merge(partial.getLong(0), partial.getDouble(1), partial.getDouble(2));
+        }
+
+        @Override
+        public void complete(FlowProcess flowProcess, AggregatorCall<Moments> aggregatorCall) {
+            Moments moments = aggregatorCall.getContext();
+            if (moments.getCount() == 0) {
+                aggregatorCall.getOutputCollector().add(Tuple.size(3));
+            } else {
+                double variance = moments.getVariance();
+                aggregatorCall.getOutputCollector().add(new Tuple(moments.getMean(), variance, Math.sqrt(variance)));
+            }
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "valueField" })
+    public StdDeviationBy(Pipe pipe, Fields groupFields, Fields valueField) {
+        this(null, Pipe.pipes(pipe), groupFields, valueField, DEFAULT_OUTPUT_FIELDS, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    @ConstructorProperties({ "pipe", "groupFields", "valueField", "outputFields" })
+    public StdDeviationBy(Pipe pipe, Fields groupFields, Fields valueField, Fields outputFields) {
+        this(null, Pipe.pipes(pipe), groupFields, valueField, outputFields, CompositeFunction.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Calculate the mean, variance and standard deviation of the values in valueField, for each
+     * group defined by groupFields, and put the results into outputFields.
+     *
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param groupFields
+     *            of type Fields
+     * @param valueField
+     *            of type Fields
+     * @param outputFields
+     *            names for the mean, variance and standard deviation fields
+     * @param threshold
+     *            number of groups to keep partials for map-side
+     */
+    @ConstructorProperties({ "name", "pipes", "groupFields", "valueField", "outputFields", "threshold" })
+    public StdDeviationBy(String name, Pipe[] pipes, Fields groupFields, Fields valueField, Fields outputFields, int threshold) {
+        super(name, pipes, groupFields, checkValueField(valueField), new MomentsPartials(),
+                        new MergeMoments(checkOutputFields(outputFields)), threshold);
+    }
+
+    private static Fields checkValueField(Fields valueField) {
+        // Fail when building the flow, versus in the tasks.
+        if (valueField.size() != 1) {
+            throw new IllegalArgumentException("valueField may only declare 1 field, got: " + valueField.size());
+        }
+
+        return valueField;
+    }
+
+    private static Fields checkOutputFields(Fields outputFields) {
+        if (outputFields.size() != 3) {
+            throw new IllegalArgumentException("outputFields must declare 3 fields (mean, variance, stddeviation), got: " + outputFields.size());
+        }
+
+        return outputFields;
+    }
+}
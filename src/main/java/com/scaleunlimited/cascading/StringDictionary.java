@@ -0,0 +1,157 @@
+package com.scaleunlimited.cascading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import cascading.flow.Flow;
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.pipe.Each;
+import cascading.pipe.Pipe;
+import cascading.pipe.assembly.Unique;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.maps.FrontCodedStringSet;
+
+/**
+ * Support for {@link EncodeStrings} and {@link DecodeStrings}, which use a global dictionary that
+ * maps each unique string to an int id. The dictionary is a {@link FrontCodedStringSet}, where the
+ * id for a string is its ordinal, so ids sort in the same order as the (UTF-8 bytes of) the strings.
+ *
+ * Building the dictionary is a pre-pass, typically via {@link #buildDictionary(BasePlatform, Tap, Fields, BasePath, File)}
+ * which runs a flow to find all unique values of the string fields, then writes the dictionary to a local
+ * directory and shares it (via {@link BasePlatform#shareLocalDir(String)}), so that tasks can load it.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class StringDictionary {
+
+    public static final String STRING_FN = "string";
+
+    public static final String DICTIONARY_FILENAME = "string-dictionary";
+
+    private static class ExtractStrings extends BaseOperation<NullContext> implements Function<NullContext> {
+
+        private transient Tuple _result;
+
+        public ExtractStrings() {
+            super(new Fields(STRING_FN));
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<NullContext> functionCall) {
+            if (_result == null) {
+                _result = Tuple.size(1);
+            }
+
+            Tuple values = functionCall.getArguments().getTuple();
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.getObject(i);
+                if (value != null) {
+                    _result.set(0, value.toString());
+                    functionCall.getOutputCollector().add(_result);
+                }
+            }
+        }
+    }
+
+    private StringDictionary() {
+        // Enforce class isn't instantiated
+    }
+
+    /**
+     * Create a pipe with one tuple (with a single STRING_FN field) for every unique (non-null) value
+     * in <fields>.
+     */
+    public static Pipe makeUniqueStringsPipe(Pipe pipe, Fields fields) {
+        Pipe result = new Each(pipe, fields, new ExtractStrings(), Fields.RESULTS);
+        return new Unique(result, new Fields(STRING_FN));
+    }
+
+    /**
+     * Build and share a dictionary for all unique values in <fields>, for the tuples from <sourceTap>.
+     *
+     * @param platform platform for running the flow
+     * @param sourceTap tap with tuples containing <fields>
+     * @param fields fields with values that will be encoded
+     * @param workingDir directory where we can put the unique strings
+     * @param localDir local directory where we can write the dictionary
+     * @return name of shared directory, to pass to {@link EncodeStrings} and {@link DecodeStrings}.
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public static String buildDictionary(BasePlatform platform, Tap sourceTap, Fields fields, BasePath workingDir, File localDir) throws Exception {
+        Pipe pipe = makeUniqueStringsPipe(new Pipe("unique strings"), fields);
+        BasePath uniqueStringsPath = platform.makePath(workingDir, "unique-strings");
+        Tap uniqueStringsTap = platform.makeTap(platform.makeBinaryScheme(new Fields(STRING_FN)), uniqueStringsPath, SinkMode.REPLACE);
+
+        Flow flow = platform.makeFlowConnector().connect("Build string dictionary", sourceTap, uniqueStringsTap, pipe);
+        flow.complete();
+
+        return shareDictionary(platform, uniqueStringsTap, localDir);
+    }
+
+    /**
+     * Build a dictionary from the strings in <uniqueStringsTap> (in the first field of each tuple),
+     * write it to <localDir>, and share it.
+     *
+     * @return name of shared directory, to pass to {@link EncodeStrings} and {@link DecodeStrings}.
+     */
+    @SuppressWarnings("unchecked")
+    public static String shareDictionary(BasePlatform platform, Tap uniqueStringsTap, File localDir) throws Exception {
+        List<String> strings = new ArrayList<String>();
+        TupleEntryIterator iter = uniqueStringsTap.openForRead(platform.makeFlowProcess());
+
+        try {
+            while (iter.hasNext()) {
+                TupleEntry te = iter.next();
+                strings.add(te.getTuple().getString(0));
+            }
+        } finally {
+            iter.close();
+        }
+
+        FrontCodedStringSet dictionary = new FrontCodedStringSet(strings);
+
+        localDir.mkdirs();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(localDir, DICTIONARY_FILENAME))));
+
+        try {
+            dictionary.write(out);
+        } finally {
+            out.close();
+        }
+
+        return platform.shareLocalDir(localDir.getAbsolutePath());
+    }
+
+    /**
+     * Load the dictionary that was shared by {@link #shareDictionary(BasePlatform, Tap, File)}.
+     */
+    public static FrontCodedStringSet loadDictionary(BasePlatform platform, FlowProcess flowProcess, String sharedDirName) throws IOException {
+        String localDirName = platform.copySharedDirToLocal(flowProcess, sharedDirName);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(localDirName, DICTIONARY_FILENAME))));
+
+        try {
+            FrontCodedStringSet result = new FrontCodedStringSet();
+            result.readFields(in);
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.scaleunlimited.cascading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+
+import com.scaleunlimited.maps.FrozenStringMap;
+import com.scaleunlimited.maps.MappedStringMap;
+import com.scaleunlimited.maps.StringMap;
+
+/**
+ * A map-side "join" against a (relatively small) set of key/value strings, without a shuffle. This is
+ * similar to using a HashJoin, but the right-hand side is a {@link StringMap} versus a list of Tuples,
+ * so it uses much less memory, and it's only loaded once per JVM (and shared by all operations in all
+ * tasks that run in that JVM) versus once per task.
+ *
+ * The map is written out and shared (via {@link BasePlatform#shareLocalDir(String)}) by
+ * {@link #shareMap(BasePlatform, StringMap, File)}, before the flow is run. Tasks then load it (via
+ * {@link BasePlatform#copySharedDirToLocal(FlowProcess, String)}) as one of the {@link MapType} variants.
+ *
+ * For each tuple, the value of the key field is looked up in the map, and the result is appended
+ * as the value field. If there's no entry for the key, the value is null, or the tuple is removed
+ * if <includeMissing> is false (so it's like an inner join).
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class StringMapLookup extends SubAssembly {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StringMapLookup.class);
+
+    public static final String MAP_FILENAME = "string-map";
+
+    /**
+     * How the map is loaded in each JVM.
+     */
+    public static enum MapType {
+        // Read into a regular StringMap.
+        HEAP,
+
+        // Read into a StringMap, then frozen into a FrozenStringMap (slower to load, faster lookups).
+        FROZEN,
+
+        // Memory-mapped by a MappedStringMap, so it doesn't use heap.
+        MAPPED
+    }
+
+    /**
+     * Common interface for the map variants, which are all thread-safe for lookups.
+     */
+    static interface Lookup {
+        String get(String key);
+    }
+
+    // Maps that have been loaded in this JVM, keyed by map type and shared directory name.
+    private static final Map<String, Lookup> LOADED_MAPS = new HashMap<String, Lookup>();
+
+    private static class LookupFunction extends BaseOperation<Lookup> implements Function<Lookup> {
+
+        private BasePlatform _platform;
+        private String _sharedMapDir;
+        private MapType _mapType;
+        private boolean _includeMissing;
+
+        private transient Tuple _result;
+
+        public LookupFunction(Fields valueField, BasePlatform platform, String sharedMapDir, MapType mapType, boolean includeMissing) {
+            super(1, valueField);
+
+            _platform = platform;
+            _sharedMapDir = sharedMapDir;
+            _mapType = mapType;
+            _includeMissing = includeMissing;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<Lookup> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            try {
+                operationCall.setContext(getMap(_platform, flowProcess, _sharedMapDir, _mapType));
+            } catch (IOException e) {
+                throw new RuntimeException("Can't load string map from " + _sharedMapDir, e);
+            }
+
+            _result = Tuple.size(1);
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<Lookup> functionCall) {
+            String key = functionCall.getArguments().getString(0);
+            String value = (key == null) ? null : functionCall.getContext().get(key);
+            if ((value != null) || _includeMissing) {
+                _result.set(0, value);
+                functionCall.getOutputCollector().add(_result);
+            }
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<Lookup> operationCall) {
+            // We don't close the map, since it's shared with other operations in this JVM.
+            operationCall.setContext(null);
+
+            super.cleanup(flowProcess, operationCall);
+        }
+    }
+
+    /**
+     * Add <valueField> to every tuple in <pipe>, with the value from the map for the key in <keyField>,
+     * or null if there's no entry for that key.
+     *
+     * @param pipe pipe with tuples containing <keyField>
+     * @param keyField field with the lookup key
+     * @param valueField field that gets the looked-up value
+     * @param platform platform that was used to share the map
+     * @param sharedMapDir result of {@link #shareMap(BasePlatform, StringMap, File)}
+     */
+    public StringMapLookup(Pipe pipe, Fields keyField, Fields valueField, BasePlatform platform, String sharedMapDir) {
+        this(pipe, keyField, valueField, platform, sharedMapDir, MapType.HEAP, true);
+    }
+
+    /**
+     * @param mapType how the map should be loaded
+     * @param includeMissing if false, remove tuples where the key isn't in the map.
+     */
+    public StringMapLookup(Pipe pipe, Fields keyField, Fields valueField, BasePlatform platform, String sharedMapDir, MapType mapType, boolean includeMissing) {
+        super(pipe);
+
+        if (keyField.size() != 1) {
+            throw new IllegalArgumentException("Key field must be a single field: " + keyField);
+        }
+
+        if (valueField.size() != 1) {
+            throw new IllegalArgumentException("Value field must be a single field: " + valueField);
+        }
+
+        Pipe result = new Each(pipe, keyField, new LookupFunction(valueField, platform, sharedMapDir, mapType, includeMissing), Fields.ALL);
+        setTails(result);
+    }
+
+    public Pipe getTailPipe() {
+        return getTails()[0];
+    }
+
+    /**
+     * Write <map> to a new sub-directory of <localDir>, and share it.
+     *
+     * @return name of shared directory, to pass to the StringMapLookup constructor.
+     */
+    public static String shareMap(BasePlatform platform, StringMap map, File localDir) throws IOException {
+        // Use a unique directory, since maps are cached by the shared directory name, and (for local
+        // platforms) that's the same as the local directory name.
+        File mapDir = new File(localDir, "string-map-" + UUID.randomUUID());
+        mapDir.mkdirs();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(mapDir, MAP_FILENAME))));
+
+        try {
+            map.write(out);
+        } finally {
+            out.close();
+        }
+
+        return platform.shareLocalDir(mapDir.getAbsolutePath());
+    }
+
+    /**
+     * Return the map that was shared in <sharedMapDir>, loading it if it hasn't already been loaded
+     * by this JVM.
+     */
+    static synchronized Lookup getMap(BasePlatform platform, FlowProcess flowProcess, String sharedMapDir, MapType mapType) throws IOException {
+        String cacheKey = mapType + ":" + sharedMapDir;
+        Lookup result = LOADED_MAPS.get(cacheKey);
+        if (result == null) {
+            File mapFile = new File(platform.copySharedDirToLocal(flowProcess, sharedMapDir), MAP_FILENAME);
+            LOGGER.info(String.format("Loading %s string map from %s", mapType, mapFile));
+
+            result = loadMap(mapFile, mapType);
+            LOADED_MAPS.put(cacheKey, result);
+        }
+
+        return result;
+    }
+
+    private static Lookup loadMap(File mapFile, MapType mapType) throws IOException {
+        if (mapType == MapType.MAPPED) {
+            final MappedStringMap map = new MappedStringMap(mapFile);
+            return new Lookup() {
+
+                @Override
+                public String get(String key) {
+                    return map.get(key);
+                }
+            };
+        }
+
+        final StringMap map = new StringMap();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mapFile)));
+
+        try {
+            map.readFields(in);
+        } finally {
+            in.close();
+        }
+
+        if (mapType == MapType.FROZEN) {
+            final FrozenStringMap frozenMap = map.freeze();
+            return new Lookup() {
+
+                @Override
+                public String get(String key) {
+                    return frozenMap.get((CharSequence)key);
+                }
+            };
+        } else {
+            return new Lookup() {
+
+                @Override
+                public String get(String key) {
+                    return map.get((CharSequence)key);
+                }
+            };
+        }
+    }
+}
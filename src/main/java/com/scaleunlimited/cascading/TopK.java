@@ -0,0 +1,214 @@
+package com.scaleunlimited.cascading;
+
+import java.beans.ConstructorProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.BytesWritable;
+
+import cascading.flow.FlowProcess;
+import cascading.operation.BaseOperation;
+import cascading.operation.Buffer;
+import cascading.operation.BufferCall;
+import cascading.operation.Function;
+import cascading.operation.FunctionCall;
+import cascading.operation.OperationCall;
+import cascading.pipe.Each;
+import cascading.pipe.Every;
+import cascading.pipe.GroupBy;
+import cascading.pipe.Pipe;
+import cascading.pipe.SubAssembly;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+
+import com.scaleunlimited.maps.SpaceSaving;
+
+/**
+ * Find the (approximate) k most frequent values of itemField, across all of the input tuples, without
+ * counting every value and then sorting the counts in a single reducer. Each map task keeps a
+ * {@link SpaceSaving} summary of the values it sees, and only the (serialized) summaries get shuffled,
+ * to one reducer that merges them and outputs the top k values with their counts.
+ *
+ * If a weightField is given, each value is counted as that (non-negative, integer) weight versus 1,
+ * e.g. for input that's already been partially counted. Null values are ignored.
+ *
+ * The capacity is the number of counters in each summary, which sets the memory used and the error.
+ * Each count is an upper bound on the actual count, and is too high by at most totalWeight/capacity
+ * (with the total weight of all inputs). So any value whose actual count is above that will be found,
+ * and values whose counts differ by more than that come out in the right order.
+ */
+@SuppressWarnings({"serial", "rawtypes"})
+public class TopK extends SubAssembly {
+
+    private static final Fields SUMMARY_FIELD = new Fields("TopK_summary");
+
+    private static class BuildSummary extends BaseOperation<SpaceSaving> implements Function<SpaceSaving> {
+
+        private int _capacity;
+
+        public BuildSummary(int capacity) {
+            super(SUMMARY_FIELD);
+
+            _capacity = capacity;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<SpaceSaving> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            operationCall.setContext(new SpaceSaving(_capacity));
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, FunctionCall<SpaceSaving> functionCall) {
+            TupleEntry args = functionCall.getArguments();
+            if (args.getObject(0) == null) {
+                return;
+            }
+
+            long weight = (args.size() > 1) ? args.getLong(1) : 1;
+            functionCall.getContext().add(args.getString(0), weight);
+        }
+
+        @Override
+        public void flush(FlowProcess flowProcess, OperationCall<SpaceSaving> operationCall) {
+            SpaceSaving summary = operationCall.getContext();
+            if (summary.size() == 0) {
+                return;
+            }
+
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                summary.write(out);
+                out.close();
+
+                ((FunctionCall)operationCall).getOutputCollector().add(new Tuple(new BytesWritable(bytes.toByteArray())));
+            } catch (IOException e) {
+                throw new RuntimeException("Impossible exception writing to byte array", e);
+            }
+
+            summary.clear();
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<SpaceSaving> operationCall) {
+            operationCall.setContext(null);
+        }
+    }
+
+    private static class MergeSummaries extends BaseOperation<SpaceSaving> implements Buffer<SpaceSaving> {
+
+        private int _capacity;
+        private int _k;
+
+        private transient SpaceSaving _partialSummary;
+
+        public MergeSummaries(Fields outputFields, int capacity, int k) {
+            super(1, outputFields);
+
+            _capacity = capacity;
+            _k = k;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<SpaceSaving> operationCall) {
+            super.prepare(flowProcess, operationCall);
+
+            operationCall.setContext(new SpaceSaving(_capacity));
+            _partialSummary = new SpaceSaving(_capacity);
+        }
+
+        @Override
+        public void operate(FlowProcess flowProcess, BufferCall<SpaceSaving> bufferCall) {
+            SpaceSaving summary = bufferCall.getContext();
+            summary.clear();
+
+            Iterator<TupleEntry> iter = bufferCall.getArgumentsIterator();
+            while (iter.hasNext()) {
+                BytesWritable bytes = (BytesWritable)iter.next().getObject(0);
+
+                try {
+                    _partialSummary.readFields(new DataInputStream(new ByteArrayInputStream(bytes.getBytes(), 0, bytes.getLength())));
+                } catch (IOException e) {
+                    throw new RuntimeException("Invalid summary data", e);
+                }
+
+                summary.merge(_partialSummary);
+            }
+
+            for (SpaceSaving.Counter counter : summary.getTop(_k)) {
+                bufferCall.getOutputCollector().add(new Tuple(counter.getKey(), counter.getCount()));
+            }
+        }
+    }
+
+    @ConstructorProperties({ "pipe", "itemField", "countField", "k" })
+    public TopK(Pipe pipe, Fields itemField, Fields countField, int k) {
+        this(null, Pipe.pipes(pipe), itemField, null, countField, k, Math.max(SpaceSaving.DEFAULT_CAPACITY, k * 10));
+    }
+
+    /**
+     * Find the k most frequent values in itemField, and output them (most frequent first) in itemField,
+     * with their counts (as a long) in countField.
+     *
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param itemField
+     *            of type Fields
+     * @param weightField
+     *            field with the weight for each value, or null to count each value as 1
+     * @param countField
+     *            of type Fields
+     * @param k
+     *            number of values to output
+     * @param capacity
+     *            number of counters to use for each summary, which has to be at least k
+     */
+    @ConstructorProperties({ "name", "pipes", "itemField", "weightField", "countField", "k", "capacity" })
+    public TopK(String name, Pipe[] pipes, Fields itemField, Fields weightField, Fields countField, int k, int capacity) {
+        super(pipes);
+
+        if (itemField.size() != 1) {
+            throw new IllegalArgumentException("itemField may only declare 1 field, got: " + itemField.size());
+        }
+
+        if ((weightField != null) && (weightField.size() != 1)) {
+            throw new IllegalArgumentException("weightField may only declare 1 field, got: " + weightField.size());
+        }
+
+        if (k < 1) {
+            throw new IllegalArgumentException("k parameter must be > 0");
+        }
+
+        if (capacity < k) {
+            throw new IllegalArgumentException("capacity parameter must be >= k");
+        }
+
+        Fields argumentFields = (weightField == null) ? itemField : itemField.append(weightField);
+        BuildSummary buildSummary = new BuildSummary(capacity);
+
+        Pipe[] summaries = new Pipe[pipes.length];
+        for (int i = 0; i < pipes.length; i++) {
+            summaries[i] = new Each(pipes[i], argumentFields, buildSummary, Fields.RESULTS);
+        }
+
+        // All of the summaries go to a single group, but there's only one per map task.
+        Pipe pipe = new GroupBy(name, summaries, Fields.NONE);
+        pipe = new Every(pipe, SUMMARY_FIELD, new MergeSummaries(itemField.append(countField.applyTypes(Long.TYPE)), capacity, k), Fields.RESULTS);
+
+        setTails(pipe);
+    }
+
+    public Pipe getTailPipe() {
+        Pipe[] tails = getTails();
+        return tails[0];
+    }
+}
@@ -22,6 +22,11 @@ import cascading.tuple.Fields;
 import cascading.tuple.Tuple;
 import cascading.tuple.TupleEntry;
 
+import com.scaleunlimited.maps.FingerprintCache;
+import com.scaleunlimited.maps.HashUtils;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
 @SuppressWarnings({"serial", "rawtypes"})
 public class UniqueCount extends SubAssembly {
 
@@ -117,6 +122,118 @@ public class UniqueCount extends SubAssembly {
         }
     }
 
+    /**
+     * Class FilterPartialFingerprintDuplicates is a {@link cascading.operation.Filter}
+     * that, like {@link FilterPartialDuplicates}, removes observed duplicates from
+     * the tuple stream. Instead of keeping copies of the tuples, it keeps a 64-bit
+     * fingerprint (hash) of each tuple in a {@link FingerprintCache}, so the memory
+     * used is fixed (set in MB), and there are no per-tuple objects.
+     * <p/>
+     * Two different tuples can have the same fingerprint, in which case the second
+     * one is removed, and (unlike when the cache misses a duplicate) the GroupBy
+     * can't fix that. The odds of this for any one tuple are roughly the number of
+     * cached fingerprints divided by 2^64, or about 1 in 3 trillion for a full
+     * 64MB cache, so only use this filter when that's OK (e.g. for approximate counts).
+     */
+    public static class FilterPartialFingerprintDuplicates extends BaseOperation<FingerprintCache> implements Filter<FingerprintCache> {
+        
+        public static final int DEFAULT_CACHE_SIZE_MB = 64;
+        
+        // Arbitrary values mixed into the fingerprint, so that (for example) a null, 0 and "0" are
+        // all different.
+        private static final long NULL_HASH = 0x2545F4914F6CDD1DL;
+        private static final long INTEGER_SALT = 0x9E3779B97F4A7C15L;
+        private static final long LONG_SALT = 0xC2B2AE3D27D4EB4FL;
+        
+        private int cacheSizeMB = DEFAULT_CACHE_SIZE_MB;
+
+        /**
+         * Constructor FilterPartialFingerprintDuplicates creates a new
+         * FilterPartialFingerprintDuplicates instance.
+         */
+        public FilterPartialFingerprintDuplicates() {
+        }
+
+        /**
+         * Constructor FilterPartialFingerprintDuplicates creates a new
+         * FilterPartialFingerprintDuplicates instance.
+         * 
+         * @param cacheSizeMB
+         *            max size of the fingerprint cache, in megabytes
+         */
+        @ConstructorProperties({ "cacheSizeMB" })
+        public FilterPartialFingerprintDuplicates(int cacheSizeMB) {
+            this.cacheSizeMB = cacheSizeMB;
+        }
+
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<FingerprintCache> operationCall) {
+            operationCall.setContext(new FingerprintCache(cacheSizeMB));
+        }
+
+        @Override
+        public boolean isRemove(FlowProcess flowProcess, FilterCall<FingerprintCache> filterCall) {
+            return !filterCall.getContext().add(getFingerprint(filterCall.getArguments().getTuple()));
+        }
+
+        @Override
+        public void cleanup(FlowProcess flowProcess, OperationCall<FingerprintCache> operationCall) {
+            operationCall.setContext(null);
+        }
+
+        /**
+         * Return a 64-bit hash of <tuple> that depends on the order of the values,
+         * and (for Integer and Long values) their type, same as Tuple.equals().
+         */
+        public static long getFingerprint(Tuple tuple) {
+            long result = tuple.size();
+            
+            for (int i = 0; i < tuple.size(); i++) {
+                Object value = tuple.getObject(i);
+                long hash;
+                if (value == null) {
+                    hash = NULL_HASH;
+                } else if (value instanceof CharSequence) {
+                    hash = HashUtils.getMurmur3Hash64((CharSequence)value);
+                } else if (value instanceof Integer) {
+                    hash = HashCommon.murmurHash3(((Integer)value).longValue() ^ INTEGER_SALT);
+                } else if (value instanceof Long) {
+                    hash = HashCommon.murmurHash3(((Long)value).longValue() ^ LONG_SALT);
+                } else {
+                    hash = HashUtils.getMurmur3Hash64(value.toString()) ^ value.getClass().getName().hashCode();
+                }
+                
+                result = HashCommon.murmurHash3((result * 31) + hash);
+            }
+            
+            return result;
+        }
+        
+        @Override
+        public boolean equals(Object object) {
+            if (this == object)
+                return true;
+            if (!(object instanceof FilterPartialFingerprintDuplicates))
+                return false;
+            if (!super.equals(object))
+                return false;
+
+            FilterPartialFingerprintDuplicates that = (FilterPartialFingerprintDuplicates) object;
+
+            if (cacheSizeMB != that.cacheSizeMB)
+                return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = super.hashCode();
+            result = 31 * result + cacheSizeMB;
+            return result;
+        }
+    }
+
     private static class CountUniques extends BaseOperation<NullContext> implements Buffer<NullContext> {
 
         private Fields _uniqueFields;
@@ -284,11 +401,31 @@ public class UniqueCount extends SubAssembly {
      */
     @ConstructorProperties({ "name", "pipes", "uniqueFields", "threshold" })
     public UniqueCount(String name, Pipe[] pipes, Fields groupFields, Fields uniqueFields, Fields countField, int threshold) {
+        this(name, pipes, groupFields, uniqueFields, countField, new FilterPartialDuplicates(threshold));
+    }
+
+    /**
+     * Constructor UniqueCount creates a new UniqueCount instance, which uses
+     * partialDuplicates to remove (some) duplicates before the GroupBy. This
+     * can be a {@link FilterPartialDuplicates} or a
+     * {@link FilterPartialFingerprintDuplicates}. It must never remove the first
+     * occurrence of a unique value.
+     * 
+     * @param name
+     *            of type String
+     * @param pipes
+     *            of type Pipe[]
+     * @param uniqueFields
+     *            of type Fields
+     * @param partialDuplicates
+     *            of type Filter
+     */
+    @ConstructorProperties({ "name", "pipes", "uniqueFields", "partialDuplicates" })
+    public UniqueCount(String name, Pipe[] pipes, Fields groupFields, Fields uniqueFields, Fields countField, Filter partialDuplicates) {
         super(pipes);
         Fields joinedFields = Fields.join(groupFields, uniqueFields);
         
         Pipe[] filters = new Pipe[pipes.length];
-        FilterPartialDuplicates partialDuplicates = new FilterPartialDuplicates(threshold);
 
         for (int i = 0; i < filters.length; i++) {
             filters[i] = new Each(pipes[i], joinedFields, partialDuplicates);
@@ -1,6 +1,5 @@
 package com.scaleunlimited.cascading.ml;
 
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -27,6 +26,8 @@ import cascading.tuple.Fields;
 import cascading.tuple.Tuple;
 import cascading.tuple.TupleEntry;
 
+import com.scaleunlimited.maps.HashUtils;
+
 /**
  * We get passed a Tuple that has two two fields in it - a document id, and a "terms" string.
  * We'll output the the top N similar documents (with similarity scores) for each unique doc ID.
@@ -88,58 +89,16 @@ public class SimHash extends SubAssembly {
         }
     }
     
-    private static byte[] getUTF8Bytes(String str) {
-        try {
-            return str.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Impossible missing charset exception", e);
-        }
-    }
-    
-    /**
-     * Generate a 64-bit JOAAT hash from the bytes of <s>
-     * 
-     * @param s String to hash
-     * @return 64-bit hash
-     */
-    private static long getLongHash(String s) {
-        byte[] bytes = getUTF8Bytes(s);
-        return getLongHash(bytes, 0, bytes.length);
-    }
-
-    /**
-     * Generate a 64-bit JOAAT hash from the given byte array
-     * 
-     * @param b Bytes to hash
-     * @param offset starting offset
-     * @param length number of bytes to hash
-     * @return 64-bit hash
-     */
-    private static long getLongHash(byte[] b, int offset, int length) {
-        long result = 0;
-
-        for (int i = 0; i < length; i++) {
-            byte curByte = b[offset + i];
-            int h = (int)curByte;
-            
-            result += h & 0x0FFL;
-            result += (result << 20);
-            result ^= (result >> 12);
-        }
-        
-        result += (result << 6);
-        result ^= (result >> 22);
-        result += (result << 30);
-
-        return result;
-    }
-
     private static class CalcHash extends BaseOperation<Void> implements Function<Void> {
 
+        private boolean _murmur3Hash;
+        
         private transient Tuple _result;
         
-        public CalcHash() {
+        public CalcHash(boolean murmur3Hash) {
             super(TERM_HASH_FIELD);
+            
+            _murmur3Hash = murmur3Hash;
         }
         
         @Override
@@ -154,7 +113,7 @@ public class SimHash extends SubAssembly {
             long hash = 0;
             
             if (term instanceof String) {
-                hash = getLongHash((String)term);
+                hash = _murmur3Hash ? HashUtils.getMurmur3Hash64((String)term) : HashUtils.getLongHash((String)term);
             } else {
                 hash = term.hashCode();
             }
@@ -167,6 +126,14 @@ public class SimHash extends SubAssembly {
     
     
     public SimHash(Pipe sourcePipe, String docIdFieldname, String termFieldname, int numHashes, int numSimilarDocs) {
+        this(sourcePipe, docIdFieldname, termFieldname, numHashes, numSimilarDocs, false);
+    }
+    
+    /**
+     * @param murmur3Hash true to hash terms with Murmur3, which is faster and better distributed than
+     *        the (default) JOAAT hash, but generates different hashes (and thus different results).
+     */
+    public SimHash(Pipe sourcePipe, String docIdFieldname, String termFieldname, int numHashes, int numSimilarDocs, boolean murmur3Hash) {
         super(sourcePipe);
         
         // Calculate hash for each tuple. First leave one unique value per document.
@@ -176,7 +143,7 @@ public class SimHash extends SubAssembly {
 
         // sourcePipe = new Each(sourcePipe, new Fields(termFieldname), new ExpressionFunction(TERM_HASH_FIELD, "$0.hashCode()", String.class), Fields.SWAP);
         sourcePipe = new Each(sourcePipe, DebugLevel.VERBOSE, new Debug("terms", true));
-        sourcePipe = new Each(sourcePipe, new Fields(termFieldname), new CalcHash(), Fields.SWAP);
+        sourcePipe = new Each(sourcePipe, new Fields(termFieldname), new CalcHash(murmur3Hash), Fields.SWAP);
         sourcePipe = new Each(sourcePipe, DebugLevel.VERBOSE, new Debug("raw hashes", true));
 
         // Group by doc, sort by hash, pick the first numHashes
@@ -2,10 +2,8 @@ package com.scaleunlimited.cascading.ml;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +15,7 @@ import cascading.operation.BufferCall;
 import cascading.operation.Function;
 import cascading.operation.FunctionCall;
 import cascading.operation.Identity;
+import cascading.operation.OperationCall;
 import cascading.pipe.CoGroup;
 import cascading.pipe.Each;
 import cascading.pipe.Every;
@@ -31,6 +30,7 @@ import cascading.tuple.Tuple;
 import cascading.tuple.TupleEntry;
 
 import com.scaleunlimited.cascading.NullContext;
+import com.scaleunlimited.maps.StringIntMap;
 
 @SuppressWarnings("serial")
 public class TopTermsByLLR extends SubAssembly {
@@ -40,34 +40,37 @@ public class TopTermsByLLR extends SubAssembly {
         
         private ITermsParser _parser;
         
+        // We re-use one map for all documents, to avoid per-term allocations.
+        private transient StringIntMap _terms;
+        
         public ExtractTerms(ITermsParser parser) {
             super(new Fields("term", "term_count"));
             _parser = parser;
         }
 
+        @SuppressWarnings("rawtypes")
+        @Override
+        public void prepare(FlowProcess flowProcess, OperationCall<NullContext> operationCall) {
+            super.prepare(flowProcess, operationCall);
+            
+            _terms = new StringIntMap();
+        }
+        
         @SuppressWarnings("rawtypes")
         @Override
         public void operate(FlowProcess flowProcess, FunctionCall<NullContext> functionCall) {
             _parser.reset(functionCall.getArguments().getString(0));
-            
-            // TODO use fastutils code, e.g. Object2IntOpenHashMap. Or get long hash from
-            // string, but then we'd need to re-join top terms (by hash) against the actual
-            // term at the end of the workflow
-            Map<String, Integer> terms = new HashMap<String, Integer>();
+            _terms.clear();
             
             int totalTerms = 0;
             for (String term : _parser) {
                 totalTerms += 1;
-                Integer termCount = terms.get(term);
-                if (termCount == null) {
-                    terms.put(term, 1);
-                } else {
-                    terms.put(term, termCount + 1);
-                }
+                _terms.addTo(term, 1);
             }
             
-            for (String term : terms.keySet()) {
-                functionCall.getOutputCollector().add(new Tuple(term, terms.get(term)));
+            StringIntMap.Cursor cursor = _terms.cursor();
+            while (cursor.next()) {
+                functionCall.getOutputCollector().add(new Tuple(cursor.getKey(), cursor.getValue()));
             }
             
             functionCall.getOutputCollector().add(new Tuple(null, totalTerms));
@@ -2,10 +2,8 @@ package com.scaleunlimited.cascading.ml;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import cascading.flow.FlowProcess;
 import cascading.operation.BaseOperation;
@@ -32,6 +30,7 @@ import cascading.tuple.TupleEntry;
 
 import com.scaleunlimited.cascading.NullContext;
 import com.scaleunlimited.cascading.UniqueCount;
+import com.scaleunlimited.maps.StringIntMap;
 
 @SuppressWarnings("serial")
 public class TopTermsByTfIdf extends SubAssembly {
@@ -43,6 +42,9 @@ public class TopTermsByTfIdf extends SubAssembly {
         private transient Tuple _result;
         private transient Tuple _emptyTerm;
         
+        // We re-use one map for all documents, to avoid per-term allocations.
+        private transient StringIntMap _terms;
+        
         public ExtractTerms(ITermsParser parser) {
             super(new Fields("term", "tf", "joiner"));
             _parser = parser;
@@ -54,16 +56,13 @@ public class TopTermsByTfIdf extends SubAssembly {
             
             _result = new Tuple("", 0.0f, "");
             _emptyTerm = new Tuple("", 0.0f, "x");
+            _terms = new StringIntMap();
         }
         
         @Override
         public void operate(FlowProcess flowProcess, FunctionCall<NullContext> functionCall) {
             _parser.reset(functionCall.getArguments().getString("text"));
-            
-            // TODO use fastutils code, e.g. Object2IntOpenHashMap. Or get long hash from
-            // string, but then we'd need to re-join top terms (by hash) against the actual
-            // term at the end of the workflow
-            Map<String, Integer> terms = new HashMap<String, Integer>();
+            _terms.clear();
             
             int totalTerms = 0;
             for (String term : _parser) {
@@ -73,17 +72,13 @@ public class TopTermsByTfIdf extends SubAssembly {
                 }
                 
                 totalTerms += 1;
-                Integer termCount = terms.get(term);
-                if (termCount == null) {
-                    terms.put(term, 1);
-                } else {
-                    terms.put(term, termCount + 1);
-                }
+                _terms.addTo(term, 1);
             }
             
-            for (String term : terms.keySet()) {
-                _result.setString(0, term);
-                _result.setFloat(1, (float)terms.get(term)/(float)totalTerms);
+            StringIntMap.Cursor cursor = _terms.cursor();
+            while (cursor.next()) {
+                _result.setString(0, cursor.getKey());
+                _result.setFloat(1, (float)cursor.getValue()/(float)totalTerms);
                 functionCall.getOutputCollector().add(_result);
             }
             
@@ -0,0 +1,269 @@
+package com.scaleunlimited.maps;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An approximate set of strings, for when false positives are OK (e.g. prefiltering for a dedup or
+ * a semi-join), but there are too many strings to keep them all in a {@link StringSet}.
+ *
+ * This is a "blocked" Bloom filter, where the bits are split into 512-bit blocks (one cache line).
+ * Each string is hashed (using a 128-bit Murmur3 hash) to one block, and all of its bits are set in
+ * that block, so adding or checking a string touches one cache line instead of <numHashes> random
+ * locations. The cost is a somewhat higher false positive rate for the same number of bits, since
+ * some blocks get more than their share of strings - the sizing methods take this into account.
+ *
+ * Filters with the same number of blocks and hashes can be merged (e.g. to combine filters built by
+ * separate tasks), which gives the same result as adding all of the strings to one filter.
+ *
+ * Like {@link StringSet}, this class isn't thread-safe.
+ */
+public class BlockedBloomFilter implements Writable {
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int BLOCK_BITS_SHIFT = 9;
+    private static final int BLOCK_BITS = 1 << BLOCK_BITS_SHIFT;
+    private static final int BLOCK_BITS_MASK = BLOCK_BITS - 1;
+    private static final int WORDS_PER_BLOCK = BLOCK_BITS / 64;
+
+    // Number of bit positions (in a block) we can get from one long hash value.
+    private static final int POSITIONS_PER_LONG = 64 / BLOCK_BITS_SHIFT;
+
+    public static final int MAX_NUM_HASHES = 16;
+
+    // Limit on bits, from the max size of a Java array of longs.
+    private static final int MAX_NUM_BLOCKS = Integer.MAX_VALUE / WORDS_PER_BLOCK;
+
+    private int _numBlocks;
+    private int _numHashes;
+    private long[] _bits;
+
+    private long[] _hash = new long[2];
+
+    /**
+     * Create an empty filter, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public BlockedBloomFilter() {
+        this(1, 1);
+    }
+
+    /**
+     * Create a filter that's big enough for <expectedEntries> strings, with a false positive
+     * rate of no more than <falsePositiveRate>.
+     */
+    public BlockedBloomFilter(long expectedEntries, double falsePositiveRate) {
+        this(getNumBlocks(expectedEntries, falsePositiveRate), getNumHashes(expectedEntries, getNumBlocks(expectedEntries, falsePositiveRate)));
+    }
+
+    public BlockedBloomFilter(int numBlocks, int numHashes) {
+        if ((numBlocks <= 0) || (numBlocks > MAX_NUM_BLOCKS)) {
+            throw new IllegalArgumentException("Number of blocks must be > 0 and <= " + MAX_NUM_BLOCKS);
+        }
+
+        if ((numHashes <= 0) || (numHashes > MAX_NUM_HASHES)) {
+            throw new IllegalArgumentException("Number of hashes must be > 0 and <= " + MAX_NUM_HASHES);
+        }
+
+        _numBlocks = numBlocks;
+        _numHashes = numHashes;
+        _bits = new long[numBlocks * WORDS_PER_BLOCK];
+    }
+
+    /**
+     * @return the number of 512-bit blocks needed for <expectedEntries> strings, with a false
+     * positive rate no more than <falsePositiveRate>.
+     */
+    public static int getNumBlocks(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 0) {
+            throw new IllegalArgumentException("Expected number of entries must be >= 0");
+        }
+
+        if ((falsePositiveRate <= 0.0) || (falsePositiveRate >= 1.0)) {
+            throw new IllegalArgumentException("False positive rate must be > 0.0 and < 1.0");
+        }
+
+        // Start with the number of bits a regular Bloom filter would need, and then grow it
+        // until the blocked version is good enough.
+        long numEntries = Math.max(1, expectedEntries);
+        double numBits = -numEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        while (true) {
+            long numBlocks = Math.max(1, (long)Math.ceil(numBits / BLOCK_BITS));
+            if (numBlocks > MAX_NUM_BLOCKS) {
+                throw new IllegalArgumentException("Filter would need too many bits: " + (numBlocks * BLOCK_BITS));
+            }
+
+            int numHashes = getNumHashes(numEntries, (int)numBlocks);
+            if (getFalsePositiveRate(numEntries, (int)numBlocks, numHashes) <= falsePositiveRate) {
+                return (int)numBlocks;
+            }
+
+            numBits *= 1.05;
+        }
+    }
+
+    /**
+     * @return the best number of hashes for a filter with <numBlocks> blocks and <expectedEntries> strings.
+     */
+    public static int getNumHashes(long expectedEntries, int numBlocks) {
+        double bitsPerEntry = ((double)numBlocks * BLOCK_BITS) / Math.max(1, expectedEntries);
+        int result = (int)Math.round(bitsPerEntry * Math.log(2));
+        return Math.max(1, Math.min(MAX_NUM_HASHES, result));
+    }
+
+    /**
+     * @return the expected false positive rate for a filter with <numBlocks> blocks and <numHashes> hashes,
+     * after <numEntries> strings have been added. The number of strings in a block has a Poisson
+     * distribution, so we sum the (regular Bloom filter) false positive rate for each block load, weighted
+     * by the probability of that load.
+     */
+    public static double getFalsePositiveRate(long numEntries, int numBlocks, int numHashes) {
+        double entriesPerBlock = (double)numEntries / numBlocks;
+        int maxLoad = (int)(entriesPerBlock + (10 * Math.sqrt(entriesPerBlock)) + 10);
+
+        double result = 0.0;
+        double logProbability = -entriesPerBlock;
+        for (int load = 0; load <= maxLoad; load++) {
+            if (load > 0) {
+                logProbability += Math.log(entriesPerBlock / load);
+            }
+
+            double bitSetProbability = 1.0 - Math.pow(1.0 - (1.0 / BLOCK_BITS), (double)numHashes * load);
+            result += Math.exp(logProbability) * Math.pow(bitSetProbability, numHashes);
+        }
+
+        return Math.min(1.0, result);
+    }
+
+    public int getNumBlocks() {
+        return _numBlocks;
+    }
+
+    public int getNumHashes() {
+        return _numHashes;
+    }
+
+    public void add(CharSequence s) {
+        HashUtils.getMurmur3Hash128(s, 0, _hash);
+        setBits(_hash[0], _hash[1]);
+    }
+
+    /**
+     * Add the string with UTF-8 bytes <b>, starting at <offset> and continuing for <length> bytes.
+     */
+    public void add(byte[] b, int offset, int length) {
+        HashUtils.getMurmur3Hash128(b, offset, length, 0, _hash);
+        setBits(_hash[0], _hash[1]);
+    }
+
+    /**
+     * @return false if <s> was definitely never added, true if it (probably) was.
+     */
+    public boolean mightContain(CharSequence s) {
+        HashUtils.getMurmur3Hash128(s, 0, _hash);
+        return checkBits(_hash[0], _hash[1]);
+    }
+
+    /**
+     * Same as {@link #mightContain(CharSequence)}, for the string with UTF-8 bytes <b>, starting at
+     * <offset> and continuing for <length> bytes.
+     */
+    public boolean mightContain(byte[] b, int offset, int length) {
+        HashUtils.getMurmur3Hash128(b, offset, length, 0, _hash);
+        return checkBits(_hash[0], _hash[1]);
+    }
+
+    // We use the top 32 bits of <hash1> to pick the block, and then take 9-bit chunks of <hash2> as
+    // the positions in the block (re-mixing <hash2> when we run out of bits). Double hashing would be
+    // cheaper, but in such a small range it generates correlated positions, which hurts the false
+    // positive rate.
+
+    private int getBlockStart(long hash1) {
+        return (int)(((hash1 >>> 32) * _numBlocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    private void setBits(long hash1, long hash2) {
+        int blockStart = getBlockStart(hash1);
+        long positions = hash2;
+        for (int i = 0; i < _numHashes; i++) {
+            if ((i > 0) && ((i % POSITIONS_PER_LONG) == 0)) {
+                positions = HashCommon.murmurHash3(hash2 + i);
+            }
+
+            int bit = (int)positions & BLOCK_BITS_MASK;
+            positions >>>= BLOCK_BITS_SHIFT;
+            _bits[blockStart + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean checkBits(long hash1, long hash2) {
+        int blockStart = getBlockStart(hash1);
+        long positions = hash2;
+        for (int i = 0; i < _numHashes; i++) {
+            if ((i > 0) && ((i % POSITIONS_PER_LONG) == 0)) {
+                positions = HashCommon.murmurHash3(hash2 + i);
+            }
+
+            int bit = (int)positions & BLOCK_BITS_MASK;
+            positions >>>= BLOCK_BITS_SHIFT;
+            if ((_bits[blockStart + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Add all of the strings from <other> to this filter.
+     */
+    public void merge(BlockedBloomFilter other) {
+        if ((other._numBlocks != _numBlocks) || (other._numHashes != _numHashes)) {
+            throw new IllegalArgumentException(String.format("Can't merge a filter with %d blocks and %d hashes into one with %d blocks and %d hashes",
+                            other._numBlocks, other._numHashes, _numBlocks, _numHashes));
+        }
+
+        for (int i = 0; i < _bits.length; i++) {
+            _bits[i] |= other._bits[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(_bits, 0);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(_numBlocks);
+        out.writeByte(_numHashes);
+        DataUtils.writeLongs(out, _bits, 0, _bits.length);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int numBlocks = in.readInt();
+        int numHashes = in.readUnsignedByte();
+        if ((numBlocks <= 0) || (numBlocks > MAX_NUM_BLOCKS) || (numHashes <= 0) || (numHashes > MAX_NUM_HASHES)) {
+            throw new IOException("Data corruption - invalid filter size info!");
+        }
+
+        long[] bits = new long[numBlocks * WORDS_PER_BLOCK];
+        DataUtils.readLongs(in, bits, 0, bits.length);
+
+        _numBlocks = numBlocks;
+        _numHashes = numHashes;
+        _bits = bits;
+    }
+}
@@ -0,0 +1,107 @@
+package com.scaleunlimited.maps;
+
+/**
+ * A thread-safe version of {@link StringMap}. Lookups and updates only lock the segment that contains
+ * the key, and lookups only take a read lock (see {@link ConcurrentStringTable}), so multiple threads
+ * can efficiently share one big map.
+ * 
+ * Keys and values can't be null.
+ */
+public class ConcurrentStringMap extends ConcurrentStringTable<StringMap> {
+
+    public ConcurrentStringMap() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+    
+    /**
+     * @param concurrencyLevel expected number of concurrent updating threads. We use this
+     *        (rounded up to a power of two) as the number of segments.
+     */
+    public ConcurrentStringMap(int concurrencyLevel) {
+        super(concurrencyLevel);
+    }
+    
+    @Override
+    protected StringMap makeTable() {
+        return new StringMap();
+    }
+    
+    public boolean containsKey(CharSequence key) {
+        Segment<StringMap> segment = segmentFor(key);
+        segment.beginRead();
+        
+        try {
+            return segment._table.containsKey(key);
+        } finally {
+            segment.endRead();
+        }
+    }
+    
+    public String get(CharSequence key) {
+        Segment<StringMap> segment = segmentFor(key);
+        segment.beginRead();
+        
+        try {
+            return segment._table.get(key);
+        } finally {
+            segment.endRead();
+        }
+    }
+    
+    /**
+     * @return the previous value for <key>, or null if there wasn't one.
+     */
+    public String put(String key, String value) {
+        if (value == null) {
+            throw new NullPointerException("Value can't be null");
+        }
+        
+        Segment<StringMap> segment = segmentFor(key);
+        segment.beginWrite();
+        
+        try {
+            return segment._table.put(key, value);
+        } finally {
+            segment.endWrite();
+        }
+    }
+    
+    /**
+     * Set the value for <key> if it doesn't already have one.
+     * 
+     * @return the existing value for <key>, or null if there wasn't one (and thus <value> was added).
+     */
+    public String putIfAbsent(String key, String value) {
+        if (value == null) {
+            throw new NullPointerException("Value can't be null");
+        }
+        
+        Segment<StringMap> segment = segmentFor(key);
+        segment.beginWrite();
+        
+        try {
+            String result = segment._table.get(key);
+            if (result == null) {
+                segment._table.put(key, value);
+            }
+            
+            return result;
+        } finally {
+            segment.endWrite();
+        }
+    }
+    
+    /**
+     * @return the removed value, or null if there was no entry for <key>.
+     */
+    public String remove(String key) {
+        Segment<StringMap> segment = segmentFor(key);
+        segment.beginWrite();
+        
+        try {
+            return segment._table.remove(key);
+        } finally {
+            segment.endWrite();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.scaleunlimited.maps;
+
+/**
+ * A thread-safe version of {@link StringSet}. Lookups and updates only lock the segment that contains
+ * the string, and lookups only take a read lock (see {@link ConcurrentStringTable}).
+ * 
+ * Strings can't be null.
+ */
+public class ConcurrentStringSet extends ConcurrentStringTable<StringSet> {
+
+    public ConcurrentStringSet() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+    
+    /**
+     * @param concurrencyLevel expected number of concurrent updating threads. We use this
+     *        (rounded up to a power of two) as the number of segments.
+     */
+    public ConcurrentStringSet(int concurrencyLevel) {
+        super(concurrencyLevel);
+    }
+    
+    @Override
+    protected StringSet makeTable() {
+        return new StringSet();
+    }
+    
+    public boolean contains(CharSequence s) {
+        Segment<StringSet> segment = segmentFor(s);
+        segment.beginRead();
+        
+        try {
+            return segment._table.contains(s);
+        } finally {
+            segment.endRead();
+        }
+    }
+    
+    /**
+     * @return true if <s> was added, false if it was already in the set.
+     */
+    public boolean add(String s) {
+        Segment<StringSet> segment = segmentFor(s);
+        segment.beginWrite();
+        
+        try {
+            return segment._table.add(s);
+        } finally {
+            segment.endWrite();
+        }
+    }
+    
+    /**
+     * @return true if <s> was removed, false if it wasn't in the set.
+     */
+    public boolean remove(String s) {
+        Segment<StringSet> segment = segmentFor(s);
+        segment.beginWrite();
+        
+        try {
+            return segment._table.remove(s);
+        } finally {
+            segment.endWrite();
+        }
+    }
+}
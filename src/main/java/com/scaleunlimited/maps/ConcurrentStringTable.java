@@ -0,0 +1,121 @@
+package com.scaleunlimited.maps;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Common code for {@link ConcurrentStringMap} and {@link ConcurrentStringSet}. The entries are
+ * split between a power-of-two number of segments, each of which is a regular (single-threaded)
+ * string table plus a read/write lock.
+ * 
+ * Lookups take the segment's read lock, so any number of them can run at the same time, and
+ * changes take the write lock. This relies on lookups never modifying the table (or any scratch
+ * state in it). Threads only contend when they hit the same segment and at least one of them is
+ * writing, so with the default concurrency level that's rare.
+ */
+abstract class ConcurrentStringTable<T extends StringTable> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    
+    @SuppressWarnings("serial")
+    protected static final class Segment<T> extends ReentrantReadWriteLock {
+        
+        protected final T _table;
+        
+        public Segment(T table) {
+            _table = table;
+        }
+        
+        public void beginRead() {
+            readLock().lock();
+        }
+        
+        public void endRead() {
+            readLock().unlock();
+        }
+        
+        public void beginWrite() {
+            writeLock().lock();
+        }
+        
+        public void endWrite() {
+            writeLock().unlock();
+        }
+    }
+    
+    protected final Segment<T>[] _segments;
+    private final int _segmentMask;
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected ConcurrentStringTable(int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be > 0");
+        }
+        
+        int numSegments = Integer.highestOneBit(concurrencyLevel);
+        if (numSegments < concurrencyLevel) {
+            numSegments *= 2;
+        }
+        
+        _segments = (Segment<T>[])new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            _segments[i] = new Segment<T>(makeTable());
+        }
+        
+        _segmentMask = numSegments - 1;
+    }
+    
+    protected abstract T makeTable();
+    
+    /**
+     * Pick the segment for <key>. We use the same hash as String.hashCode() (which is cached for
+     * Strings), so that any CharSequence with the same chars goes to the same segment, and then
+     * mix the bits so the low bits are well distributed.
+     */
+    protected Segment<T> segmentFor(CharSequence key) {
+        int hash;
+        if (key instanceof String) {
+            hash = key.hashCode();
+        } else {
+            hash = 0;
+            int length = key.length();
+            for (int i = 0; i < length; i++) {
+                hash = (31 * hash) + key.charAt(i);
+            }
+        }
+        
+        return _segments[HashCommon.murmurHash3(hash) & _segmentMask];
+    }
+    
+    public int size() {
+        int result = 0;
+        for (Segment<T> segment : _segments) {
+            segment.beginRead();
+            
+            try {
+                result += segment._table.size();
+            } finally {
+                segment.endRead();
+            }
+        }
+        
+        return result;
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public void clear() {
+        for (Segment<T> segment : _segments) {
+            segment.beginWrite();
+            
+            try {
+                segment._table.clear();
+            } finally {
+                segment.endWrite();
+            }
+        }
+    }
+}
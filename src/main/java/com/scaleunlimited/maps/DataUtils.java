@@ -0,0 +1,136 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bulk read/write of primitive arrays via DataInput/DataOutput. Calling readInt()/writeLong()
+ * once per value is very slow for big arrays, so we convert a buffer's worth of values at
+ * a time. The byte order (big-endian) is the same as DataInput/DataOutput would use.
+ */
+final class DataUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private DataUtils() {
+        // Enforce class isn't instantiated
+    }
+    
+    /**
+     * @return size of the buffer to use for <length> values of <bytesPerValue> each. The byte count
+     * is calculated as a long, since for big arrays it doesn't fit in an int.
+     */
+    static int getBufferSize(int length, int bytesPerValue) {
+        return (int)Math.min(BUFFER_SIZE, (long)length * bytesPerValue);
+    }
+    
+    public static void writeInts(DataOutput out, int[] values, int offset, int length) throws IOException {
+        byte[] buffer = new byte[getBufferSize(length, 4)];
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+        int valuesPerBuffer = buffer.length / 4;
+        
+        while (length > 0) {
+            int numValues = Math.min(length, valuesPerBuffer);
+            bb.clear();
+            bb.asIntBuffer().put(values, offset, numValues);
+            out.write(buffer, 0, numValues * 4);
+            offset += numValues;
+            length -= numValues;
+        }
+    }
+    
+    public static void readInts(DataInput in, int[] values, int offset, int length) throws IOException {
+        byte[] buffer = new byte[getBufferSize(length, 4)];
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+        int valuesPerBuffer = buffer.length / 4;
+        
+        while (length > 0) {
+            int numValues = Math.min(length, valuesPerBuffer);
+            in.readFully(buffer, 0, numValues * 4);
+            bb.clear();
+            bb.asIntBuffer().get(values, offset, numValues);
+            offset += numValues;
+            length -= numValues;
+        }
+    }
+    
+    public static void writeLongs(DataOutput out, long[] values, int offset, int length) throws IOException {
+        byte[] buffer = new byte[getBufferSize(length, 8)];
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+        int valuesPerBuffer = buffer.length / 8;
+        
+        while (length > 0) {
+            int numValues = Math.min(length, valuesPerBuffer);
+            bb.clear();
+            bb.asLongBuffer().put(values, offset, numValues);
+            out.write(buffer, 0, numValues * 8);
+            offset += numValues;
+            length -= numValues;
+        }
+    }
+    
+    public static void readLongs(DataInput in, long[] values, int offset, int length) throws IOException {
+        byte[] buffer = new byte[getBufferSize(length, 8)];
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+        int valuesPerBuffer = buffer.length / 8;
+        
+        while (length > 0) {
+            int numValues = Math.min(length, valuesPerBuffer);
+            in.readFully(buffer, 0, numValues * 8);
+            bb.clear();
+            bb.asLongBuffer().get(values, offset, numValues);
+            offset += numValues;
+            length -= numValues;
+        }
+    }
+    
+    /**
+     * Write <value> (treated as unsigned) using 7 bits per byte, low bits first, with the high bit
+     * set on every byte but the last. Small values take one byte.
+     */
+    public static void writeVInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        out.writeByte(value);
+    }
+    
+    public static int readVInt(DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        
+        throw new IOException("Data corruption - invalid variable-length int!");
+    }
+    
+    public static void writeVLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        out.writeByte((int)value);
+    }
+    
+    public static long readVLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        
+        throw new IOException("Data corruption - invalid variable-length long!");
+    }
+}
@@ -0,0 +1,269 @@
+package com.scaleunlimited.maps;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+/**
+ * A bounded set of 64-bit fingerprints (e.g. hashes of tuples), for things like filtering out
+ * duplicates map-side, where it's OK to forget old entries. Fingerprints are stored in long arrays
+ * (open-addressing, linear probing tables), so there are no per-entry objects, and the memory used
+ * is set in MB versus entries.
+ *
+ * Eviction follows the CLOCK rule - an entry survives the next sweep only if it's been referenced
+ * since the last one - but it's applied to a whole generation at a time. New fingerprints go into
+ * the current table. A lookup that finds a fingerprint in the previous table copies it to the current
+ * table (that's the reference). When the current table is full, the previous table (and so everything
+ * that wasn't referenced) is dropped, and the current table becomes the previous one. Evicting
+ * individual entries by slot position (a regular clock hand) doesn't work well with open addressing,
+ * since inserts are spread over the table but evictions follow the hand, so the slots ahead of the
+ * hand fill up and probe sequences get very long.
+ *
+ * If adaptive sizing is enabled, the tables start small, and every <capacity> lookups we check the
+ * hit rate for that window. If we've been evicting entries and still getting a useful number of hits,
+ * a bigger table should find more duplicates, so we double the capacity (up to the max size). If we're
+ * hardly getting any hits, the data doesn't have many (nearby) duplicates, so we halve the capacity,
+ * which saves memory and keeps the tables in the CPU cache. New sizes take effect when we next
+ * switch tables.
+ *
+ * Like {@link StringSet}, this class isn't thread-safe.
+ */
+public class FingerprintCache {
+
+    // Value of an empty slot. A zero fingerprint gets stored as a different value.
+    private static final long EMPTY_SLOT = 0;
+    private static final long ZERO_FINGERPRINT = 0x9E3779B97F4A7C15L;
+
+    // Per table, so the min total capacity is twice this.
+    private static final int MIN_TABLE_CAPACITY = 1 << 12;
+    private static final int MAX_TABLE_CAPACITY = 1 << 30;
+
+    // Grow if we're evicting entries and at least this fraction of lookups are hits.
+    static final double GROW_HIT_RATE = 0.05;
+
+    // Shrink if fewer than this fraction of lookups are hits.
+    static final double SHRINK_HIT_RATE = 0.01;
+
+    private final int _maxTableCapacity;
+    private final int _minTableCapacity;
+    private final boolean _adaptive;
+
+    private long[] _current;
+    private int _currentSize;
+    private int _currentMaxFill;
+
+    private long[] _previous;
+    private int _previousSize;
+
+    // Number of entries in _previous that were copied to _current.
+    private int _previousReferenced;
+
+    // Capacity for the next table we allocate.
+    private int _tableCapacity;
+
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    // Counts for the current adaptive sizing window.
+    private int _windowLookups;
+    private int _windowHits;
+    private long _windowStartEvictions;
+
+    /**
+     * Create an adaptive cache that uses at most <maxSizeMB> megabytes.
+     */
+    public FingerprintCache(int maxSizeMB) {
+        this(maxSizeMB, true);
+    }
+
+    /**
+     * @param maxSizeMB max megabytes used by the tables
+     * @param adaptive true to start small, and grow or shrink based on the hit rate, false to
+     * always use the max size.
+     */
+    public FingerprintCache(int maxSizeMB, boolean adaptive) {
+        if (maxSizeMB <= 0) {
+            throw new IllegalArgumentException("Max size must be > 0 MB");
+        }
+
+        // We have two tables of longs.
+        long maxSlots = Math.min((maxSizeMB * 1024L * 1024L) / 16, MAX_TABLE_CAPACITY);
+        _maxTableCapacity = Integer.highestOneBit((int)maxSlots);
+        _minTableCapacity = Math.min(MIN_TABLE_CAPACITY, _maxTableCapacity);
+        _adaptive = adaptive;
+
+        _tableCapacity = adaptive ? _minTableCapacity : _maxTableCapacity;
+        _current = new long[_tableCapacity];
+        _currentMaxFill = HashCommon.maxFill(_tableCapacity, Hash.DEFAULT_LOAD_FACTOR);
+        _previous = new long[_tableCapacity];
+    }
+
+    public int size() {
+        return _currentSize + _previousSize - _previousReferenced;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return current number of slots in both tables.
+     */
+    public int getCapacity() {
+        return _current.length + _previous.length;
+    }
+
+    public int getMaxCapacity() {
+        return _maxTableCapacity * 2;
+    }
+
+    public long getHitCount() {
+        return _hitCount;
+    }
+
+    public long getMissCount() {
+        return _missCount;
+    }
+
+    public long getEvictionCount() {
+        return _evictionCount;
+    }
+
+    /**
+     * @return fraction of lookups that found the fingerprint, or 0.0 if there haven't been any.
+     */
+    public double getHitRate() {
+        long lookups = _hitCount + _missCount;
+        return (lookups == 0) ? 0.0 : (double)_hitCount / lookups;
+    }
+
+    public void clear() {
+        Arrays.fill(_current, EMPTY_SLOT);
+        _currentSize = 0;
+        Arrays.fill(_previous, EMPTY_SLOT);
+        _previousSize = 0;
+        _previousReferenced = 0;
+    }
+
+    /**
+     * @return true if <fingerprint> is in the cache. This doesn't count as a lookup (for stats
+     * or adaptive sizing), and doesn't count as a reference.
+     */
+    public boolean contains(long fingerprint) {
+        long key = toKey(fingerprint);
+        return (findSlot(_current, key) >= 0) || (findSlot(_previous, key) >= 0);
+    }
+
+    /**
+     * Look up <fingerprint>, and add it if it's not already in the cache (evicting old entries if
+     * the current table is full).
+     *
+     * @return true if <fingerprint> was added, false if it was already in the cache.
+     */
+    public boolean add(long fingerprint) {
+        long key = toKey(fingerprint);
+        boolean result;
+
+        int slot = findSlot(_current, key);
+        if (slot >= 0) {
+            result = false;
+        } else if (findSlot(_previous, key) >= 0) {
+            // Referenced, so it moves up a generation.
+            _previousReferenced += 1;
+            addToCurrent(key, slot);
+            result = false;
+        } else {
+            addToCurrent(key, slot);
+            result = true;
+        }
+
+        if (result) {
+            _missCount += 1;
+        } else {
+            _hitCount += 1;
+            _windowHits += 1;
+        }
+
+        if (_adaptive && (++_windowLookups >= getCapacity())) {
+            adjustCapacity();
+        }
+
+        return result;
+    }
+
+    private void addToCurrent(long key, int slot) {
+        if (_currentSize >= _currentMaxFill) {
+            switchTables();
+            slot = findSlot(_current, key);
+        }
+
+        _current[-slot - 1] = key;
+        _currentSize += 1;
+    }
+
+    /**
+     * Drop the previous table (evicting everything in it that wasn't referenced), and make the current
+     * table the previous one. We re-use the dropped table if it's the right size.
+     */
+    private void switchTables() {
+        _evictionCount += _previousSize - _previousReferenced;
+
+        long[] table = _previous;
+        if (table.length == _tableCapacity) {
+            Arrays.fill(table, EMPTY_SLOT);
+        } else {
+            table = new long[_tableCapacity];
+        }
+
+        _previous = _current;
+        _previousSize = _currentSize;
+        _previousReferenced = 0;
+
+        _current = table;
+        _currentSize = 0;
+        _currentMaxFill = HashCommon.maxFill(table.length, Hash.DEFAULT_LOAD_FACTOR);
+    }
+
+    private static long toKey(long fingerprint) {
+        return (fingerprint == EMPTY_SLOT) ? ZERO_FINGERPRINT : fingerprint;
+    }
+
+    /**
+     * @return slot index if <key> exists in <table>, otherwise -(insertion slot) - 1
+     */
+    private static int findSlot(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = (int)(key ^ (key >>> 32)) & mask;
+        while (true) {
+            long stored = table[slot];
+            if (stored == EMPTY_SLOT) {
+                return -slot - 1;
+            } else if (stored == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Called at the end of each adaptive sizing window, to pick the size of the next table based
+     * on the hit rate during the window.
+     */
+    private void adjustCapacity() {
+        double hitRate = (double)_windowHits / _windowLookups;
+        boolean evicting = _evictionCount > _windowStartEvictions;
+
+        if (evicting && (hitRate >= GROW_HIT_RATE) && (_tableCapacity < _maxTableCapacity)) {
+            _tableCapacity *= 2;
+        } else if ((hitRate < SHRINK_HIT_RATE) && (_tableCapacity > _minTableCapacity)) {
+            _tableCapacity /= 2;
+        }
+
+        _windowLookups = 0;
+        _windowHits = 0;
+        _windowStartEvictions = _evictionCount;
+    }
+}
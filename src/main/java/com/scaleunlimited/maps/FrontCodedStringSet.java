@@ -0,0 +1,445 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An immutable, sorted set of strings, which is stored using front coding (aka incremental encoding).
+ * The strings are sorted by their UTF-8 bytes (which is the same as sorting by Unicode code point),
+ * and each one is stored as the length of the prefix it shares with the previous string, plus the
+ * rest of its bytes. For things like URLs and terms, where neighboring strings share long prefixes,
+ * this takes much less space than storing every string in full (as {@link StringSet} does).
+ *
+ * Every <blockSize> strings we "restart" by storing the full string, and we keep the offsets of these
+ * block starts, so a lookup is a binary search over the blocks, followed by decoding at most one block.
+ *
+ * Since the set is sorted, every string has an ordinal (its index in sorted order), and we support
+ * mapping from a string to its ordinal (via {@link #rank(CharSequence)} or {@link #indexOf(CharSequence)})
+ * and from an ordinal to its string (via {@link #select(int)}), plus iterating over all strings with a
+ * given prefix.
+ *
+ * Lookups are thread-safe.
+ */
+public class FrontCodedStringSet extends AbstractSet<String> implements Writable {
+
+    static final int FORMAT_VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private static final Comparator<byte[]> UTF8_COMPARATOR = new Comparator<byte[]>() {
+
+        @Override
+        public int compare(byte[] b1, byte[] b2) {
+            return compareBytes(b1, 0, b1.length, b2, 0, b2.length);
+        }
+    };
+
+    // The front-coded strings, as <shared prefix length><suffix length><suffix bytes>, where
+    // the shared prefix length is omitted for the first string in each block.
+    private StringArena _stringData;
+    private long[] _blockOffsets;
+    private int _blockSize;
+    private int _size;
+
+    /**
+     * Create an empty set, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public FrontCodedStringSet() {
+        this(Collections.<String>emptyList());
+    }
+
+    public FrontCodedStringSet(Collection<String> strings) {
+        this(strings, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param strings strings to put in the set (which don't have to be sorted, or unique).
+     * @param blockSize number of strings per block. Bigger blocks are more compact, but lookups
+     *        have to decode more strings.
+     */
+    public FrontCodedStringSet(Collection<String> strings, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be > 0");
+        }
+
+        byte[][] sorted = new byte[strings.size()][];
+        int numStrings = 0;
+        for (String s : strings) {
+            sorted[numStrings++] = HashUtils.getUTF8Bytes(s);
+        }
+
+        Arrays.sort(sorted, 0, numStrings, UTF8_COMPARATOR);
+
+        // Remove duplicates.
+        int size = 0;
+        for (int i = 0; i < numStrings; i++) {
+            if ((size == 0) || !Arrays.equals(sorted[size - 1], sorted[i])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+
+        _blockSize = blockSize;
+        _size = size;
+        _stringData = new StringArena();
+        _blockOffsets = new long[getNumBlocks(size, blockSize)];
+
+        byte[] vIntBuffer = new byte[5];
+        for (int i = 0; i < size; i++) {
+            byte[] cur = sorted[i];
+            int shared = 0;
+            if ((i % blockSize) == 0) {
+                _blockOffsets[i / blockSize] = _stringData.length();
+            } else {
+                byte[] prev = sorted[i - 1];
+                int maxShared = Math.min(prev.length, cur.length);
+                while ((shared < maxShared) && (prev[shared] == cur[shared])) {
+                    shared++;
+                }
+
+                _stringData.appendBytes(vIntBuffer, 0, encodeVInt(shared, vIntBuffer));
+            }
+
+            _stringData.appendBytes(vIntBuffer, 0, encodeVInt(cur.length - shared, vIntBuffer));
+            _stringData.appendBytes(cur, shared, cur.length - shared);
+        }
+    }
+
+    private static int getNumBlocks(int size, int blockSize) {
+        return (int)(((long)size + blockSize - 1) / blockSize);
+    }
+
+    /**
+     * Encode <value> as a variable-length int (7 bits per byte, low bits first).
+     *
+     * @return number of bytes used.
+     */
+    private static int encodeVInt(int value, byte[] buffer) {
+        int numBytes = 0;
+        while ((value & ~0x7F) != 0) {
+            buffer[numBytes++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[numBytes++] = (byte)value;
+        return numBytes;
+    }
+
+    /**
+     * Compare bytes as unsigned values, with a shorter string sorting before any
+     * longer string it's a prefix of.
+     */
+    private static int compareBytes(byte[] b1, int offset1, int len1, byte[] b2, int offset2, int len2) {
+        int len = Math.min(len1, len2);
+        for (int i = 0; i < len; i++) {
+            int delta = (b1[offset1 + i] & 0xFF) - (b2[offset2 + i] & 0xFF);
+            if (delta != 0) {
+                return delta;
+            }
+        }
+
+        return len1 - len2;
+    }
+
+    private static byte[] getUTF8Bytes(CharSequence s) {
+        return HashUtils.getUTF8Bytes(s.toString());
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof String) {
+            return contains((CharSequence)o);
+        } else {
+            return false;
+        }
+    }
+
+    public boolean contains(CharSequence s) {
+        return (s != null) && (find(getUTF8Bytes(s)) >= 0);
+    }
+
+    /**
+     * @return the ordinal of <s> (its position in sorted order), or -1 if it's not in the set.
+     */
+    public int indexOf(CharSequence s) {
+        int result = find(getUTF8Bytes(s));
+        return (result >= 0) ? result : -1;
+    }
+
+    /**
+     * @return the number of strings in the set that sort before <s>. If <s> is in the set, this is
+     *         the same as its ordinal.
+     */
+    public int rank(CharSequence s) {
+        int result = find(getUTF8Bytes(s));
+        return (result >= 0) ? result : -result - 1;
+    }
+
+    /**
+     * @return the string with ordinal <ordinal>.
+     */
+    public String select(int ordinal) {
+        if ((ordinal < 0) || (ordinal >= _size)) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " is out of range, size is " + _size);
+        }
+
+        Reader reader = new Reader(ordinal / _blockSize);
+        do {
+            reader.next();
+        } while (reader._ordinal < ordinal);
+
+        return reader.getString();
+    }
+
+    /**
+     * @return iterator over all strings in the set, in sorted order.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new StringIterator(0, null);
+    }
+
+    /**
+     * @return iterator over all strings in the set that start with <prefix>, in sorted order.
+     */
+    public Iterator<String> prefixIterator(CharSequence prefix) {
+        byte[] prefixBytes = getUTF8Bytes(prefix);
+        return new StringIterator(rank(prefix), prefixBytes);
+    }
+
+    /**
+     * Search for <key> (as UTF-8 bytes).
+     *
+     * @return the ordinal of <key>, or (-(insertion point) - 1) if it's not in the set, the same
+     *         as Arrays.binarySearch().
+     */
+    private int find(byte[] key) {
+        // Find the last block whose first string is <= key.
+        int lo = 0;
+        int hi = _blockOffsets.length - 1;
+        int block = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareBlockStart(mid, key);
+            if (cmp == 0) {
+                return mid * _blockSize;
+            } else if (cmp < 0) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        if (block == -1) {
+            // Key sorts before everything in the set.
+            return -1;
+        }
+
+        // We know the key sorts after the first string in the block, so scan the rest.
+        Reader reader = new Reader(block);
+        reader.next();
+        int blockEnd = Math.min(_size, (block + 1) * _blockSize);
+        while (reader._ordinal + 1 < blockEnd) {
+            reader.next();
+            int cmp = reader.compareTo(key);
+            if (cmp == 0) {
+                return reader._ordinal;
+            } else if (cmp > 0) {
+                return -reader._ordinal - 1;
+            }
+        }
+
+        return -blockEnd - 1;
+    }
+
+    /**
+     * Compare the first string of <block> with <key>, without copying the string bytes.
+     */
+    private int compareBlockStart(int block, byte[] key) {
+        long offset = _blockOffsets[block];
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = _stringData.getByte(offset++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+
+        int len = Math.min(length, key.length);
+        for (int i = 0; i < len; i++) {
+            int delta = (_stringData.getByte(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (delta != 0) {
+                return delta;
+            }
+        }
+
+        return length - key.length;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(_size);
+        out.writeInt(_blockSize);
+        out.writeLong(_stringData.length());
+        _stringData.write(out);
+        DataUtils.writeLongs(out, _blockOffsets, 0, _blockOffsets.length);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int size = in.readInt();
+        int blockSize = in.readInt();
+        long stringDataSize = in.readLong();
+        if ((size < 0) || (blockSize <= 0) || (stringDataSize < 0)) {
+            throw new IOException("Data corruption - invalid size info!");
+        }
+
+        StringArena stringData = new StringArena();
+        stringData.readFields(in, stringDataSize);
+        long[] blockOffsets = new long[getNumBlocks(size, blockSize)];
+        DataUtils.readLongs(in, blockOffsets, 0, blockOffsets.length);
+
+        _stringData = stringData;
+        _blockOffsets = blockOffsets;
+        _blockSize = blockSize;
+        _size = size;
+    }
+
+    /**
+     * Decodes strings, starting at the beginning of a block. The bytes of the current string
+     * are in _bytes, since the next string needs its shared prefix.
+     */
+    private class Reader {
+
+        private long _offset;
+        private int _ordinal;
+        private byte[] _bytes;
+        private int _length;
+
+        public Reader(int block) {
+            _offset = _blockOffsets[block];
+            _ordinal = (block * _blockSize) - 1;
+            _bytes = new byte[64];
+            _length = 0;
+        }
+
+        /**
+         * Decode the next string. The caller has to make sure there is one.
+         */
+        public void next() {
+            _ordinal += 1;
+            int shared = ((_ordinal % _blockSize) == 0) ? 0 : readVInt();
+            int suffixLength = readVInt();
+            _length = shared + suffixLength;
+            if (_bytes.length < _length) {
+                _bytes = Arrays.copyOf(_bytes, Math.max(_length, _bytes.length * 2));
+            }
+
+            _stringData.getBytes(_offset, _bytes, shared, suffixLength);
+            _offset += suffixLength;
+        }
+
+        private int readVInt() {
+            int result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = _stringData.getByte(_offset++);
+                result |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+        }
+
+        public int compareTo(byte[] key) {
+            return compareBytes(_bytes, 0, _length, key, 0, key.length);
+        }
+
+        public boolean startsWith(byte[] prefix) {
+            return (_length >= prefix.length) && (compareBytes(_bytes, 0, prefix.length, prefix, 0, prefix.length) == 0);
+        }
+
+        public String getString() {
+            try {
+                return new String(_bytes, 0, _length, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException("Impossible missing charset exception", e);
+            }
+        }
+    }
+
+    private class StringIterator implements Iterator<String> {
+
+        private final byte[] _prefix;
+        private Reader _reader;
+        private boolean _hasNext;
+
+        /**
+         * @param ordinal ordinal of first string to return
+         * @param prefix only return strings that start with this prefix, or null for all strings
+         */
+        public StringIterator(int ordinal, byte[] prefix) {
+            _prefix = prefix;
+
+            if (ordinal < _size) {
+                _reader = new Reader(ordinal / _blockSize);
+                do {
+                    _reader.next();
+                } while (_reader._ordinal < ordinal);
+
+                _hasNext = (_prefix == null) || _reader.startsWith(_prefix);
+            } else {
+                _hasNext = false;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _hasNext;
+        }
+
+        @Override
+        public String next() {
+            if (!_hasNext) {
+                throw new NoSuchElementException();
+            }
+
+            String result = _reader.getString();
+            if (_reader._ordinal + 1 < _size) {
+                _reader.next();
+                _hasNext = (_prefix == null) || _reader.startsWith(_prefix);
+            } else {
+                _hasNext = false;
+            }
+
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
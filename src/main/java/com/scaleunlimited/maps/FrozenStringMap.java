@@ -0,0 +1,476 @@
+package com.scaleunlimited.maps;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An immutable version of {@link StringMap}, created via {@link StringMap#freeze()}, for maps that
+ * are built once and then only read (e.g. by many map tasks, after being sent via the distributed
+ * cache).
+ *
+ * The key/value strings are stored (without any dead bytes) in a {@link StringArena}, and a minimal
+ * perfect hash function built with the CHD ("compress, hash, displace") algorithm maps each key to
+ * a unique position in an array of entry offsets. A lookup is one (seeded) 64-bit Murmur3 hash of the
+ * key, plus one comparison against the entry at that position.
+ *
+ * Keys are hashed into buckets (about {@link #KEYS_PER_BUCKET} keys per bucket), and for each bucket
+ * we find a displacement value that sends all of its keys to unused positions, where a key's position
+ * comes from mixing its hash with the displacement, and then scaling the result to the table size
+ * (which avoids the divisions needed by CHD's original (d0, d1) displacement pairs). The displacements
+ * are bit-packed, using just enough bits for the biggest one, which typically works out to a bit more
+ * than three bits per key. The entry offsets are also bit-packed, using just enough bits for the length
+ * of the string data. We use a table that's slightly bigger than the number of keys (see
+ * {@link #LOAD_FACTOR}), since that makes the search for displacements much faster - the few unused
+ * positions just have an (unpacked) offset of -1.
+ *
+ * Lookups are thread-safe. The entrySet() view walks the entries in the same order as the original
+ * map.
+ */
+public class FrozenStringMap extends AbstractMap<String, String> implements Writable {
+
+    static final int FORMAT_VERSION = 2;
+
+    // Average number of keys per bucket, and ratio of keys to positions.
+    static final int KEYS_PER_BUCKET = 5;
+    static final double LOAD_FACTOR = 0.99;
+
+    // If we can't find a displacement for a bucket within this many tries, start over with a new seed.
+    private static final long MAX_DISPLACEMENT = 1L << 24;
+    private static final int MAX_BUILD_ATTEMPTS = 20;
+
+    private static final long EMPTY_POSITION = -1;
+
+    private StringArena _stringData;
+    private int _size;
+
+    private long _seed;
+    private int _numPositions;
+    private int _numBuckets;
+    private int _displacementBits;
+    private long[] _displacements;
+    private int _offsetBits;
+    private long[] _offsets;
+
+    private Set<Map.Entry<String, String>> _entrySet;
+
+    /**
+     * Create an empty map, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public FrozenStringMap() {
+        _stringData = new StringArena();
+        _size = 0;
+        _seed = 0;
+        _numPositions = 0;
+        _numBuckets = 0;
+        _displacementBits = 0;
+        _displacements = new long[1];
+        _offsetBits = 0;
+        _offsets = new long[1];
+    }
+
+    FrozenStringMap(StringMap map) {
+        _stringData = new StringArena();
+        _size = map.size();
+
+        // Copy the entries.
+        long[] entryOffsets = new long[_size];
+        StringMap.Cursor cursor = map.cursor();
+        for (int i = 0; cursor.next(); i++) {
+            entryOffsets[i] = _stringData.appendString(cursor.getKeyBytes(), cursor.getKeyOffset(), cursor.getKeyLength());
+            _stringData.appendString(cursor.getValueBytes(), cursor.getValueOffset(), cursor.getValueLength());
+        }
+
+        _numPositions = Math.max(1, (int)Math.ceil(_size / LOAD_FACTOR));
+        _numBuckets = Math.max(1, (_size + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET);
+
+        // The seed is part of the key hash, so if two keys have the same hash (and thus we can't
+        // find a displacement for their bucket) they'll have different hashes with the next seed.
+        long[] keyHashes = new long[_size];
+        for (int attempt = 0; attempt < MAX_BUILD_ATTEMPTS; attempt++) {
+            _seed = HashCommon.murmurHash3((long)attempt + 1);
+
+            cursor = map.cursor();
+            for (int i = 0; cursor.next(); i++) {
+                keyHashes[i] = HashUtils.getMurmur3Hash64(cursor.getKeyBytes(), cursor.getKeyOffset(), cursor.getKeyLength(), _seed);
+            }
+
+            int[] positions = buildHash(keyHashes);
+            if (positions != null) {
+                // Offsets are stored plus one, so that zero means an unused position.
+                _offsetBits = 64 - Long.numberOfLeadingZeros(_stringData.length());
+                _offsets = makePackedArray(_numPositions, _offsetBits);
+                for (int i = 0; i < _size; i++) {
+                    setPackedValue(_offsets, _offsetBits, positions[i], entryOffsets[i] + 1);
+                }
+
+                return;
+            }
+        }
+
+        throw new IllegalStateException("Unable to build perfect hash for map with " + _size + " entries");
+    }
+
+    /**
+     * Try to find a displacement for every bucket, using the current seed.
+     *
+     * @return position of each key, or null if we failed.
+     */
+    private int[] buildHash(long[] keyHashes) {
+        // Group the keys by bucket.
+        int[] bucketStarts = new int[_numBuckets + 1];
+        int[] keyBuckets = new int[_size];
+        int maxBucketSize = 0;
+        for (int i = 0; i < _size; i++) {
+            int bucket = getBucket(keyHashes[i]);
+            keyBuckets[i] = bucket;
+            bucketStarts[bucket + 1] += 1;
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[bucket + 1]);
+        }
+
+        for (int i = 0; i < _numBuckets; i++) {
+            bucketStarts[i + 1] += bucketStarts[i];
+        }
+
+        int[] bucketKeys = new int[_size];
+        int[] bucketFill = Arrays.copyOf(bucketStarts, _numBuckets);
+        for (int i = 0; i < _size; i++) {
+            bucketKeys[bucketFill[keyBuckets[i]]++] = i;
+        }
+
+        // Order the buckets by decreasing size, since the big ones are the hardest to place.
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        for (int i = 0; i < _numBuckets; i++) {
+            sizeStarts[maxBucketSize - (bucketStarts[i + 1] - bucketStarts[i]) + 1] += 1;
+        }
+
+        for (int i = 0; i <= maxBucketSize; i++) {
+            sizeStarts[i + 1] += sizeStarts[i];
+        }
+
+        int[] bucketOrder = new int[_numBuckets];
+        for (int i = 0; i < _numBuckets; i++) {
+            bucketOrder[sizeStarts[maxBucketSize - (bucketStarts[i + 1] - bucketStarts[i])]++] = i;
+        }
+
+        long[] bucketDisplacements = new long[_numBuckets];
+        long maxDisplacement = 0;
+        int[] positions = new int[_size];
+        boolean[] used = new boolean[_numPositions];
+
+        for (int bucket : bucketOrder) {
+            int start = bucketStarts[bucket];
+            int end = bucketStarts[bucket + 1];
+            if (start == end) {
+                // Rest of the buckets are empty.
+                break;
+            }
+
+            boolean placed = false;
+            for (long displacement = 0; !placed && (displacement < MAX_DISPLACEMENT); displacement++) {
+                int numPlaced = 0;
+                for (int i = start; i < end; i++) {
+                    int key = bucketKeys[i];
+                    int position = getPosition(keyHashes[key], displacement);
+                    if (used[position]) {
+                        break;
+                    }
+
+                    used[position] = true;
+                    positions[key] = position;
+                    numPlaced += 1;
+                }
+
+                if (numPlaced == end - start) {
+                    bucketDisplacements[bucket] = displacement;
+                    maxDisplacement = Math.max(maxDisplacement, displacement);
+                    placed = true;
+                } else {
+                    // Undo the keys we placed for this displacement.
+                    for (int i = start; i < start + numPlaced; i++) {
+                        used[positions[bucketKeys[i]]] = false;
+                    }
+                }
+            }
+
+            if (!placed) {
+                return null;
+            }
+        }
+
+        _displacementBits = 64 - Long.numberOfLeadingZeros(maxDisplacement);
+        _displacements = makePackedArray(_numBuckets, _displacementBits);
+        for (int i = 0; i < _numBuckets; i++) {
+            setPackedValue(_displacements, _displacementBits, i, bucketDisplacements[i]);
+        }
+
+        return positions;
+    }
+
+    // We use the top 32 bits of a key's hash to pick the bucket, and all of the hash (plus the
+    // displacement, and then mixed) to pick the position. Scaling the top 32 bits of a hash by the
+    // table size is a (much faster) alternative to mod.
+
+    private int getBucket(long hash) {
+        return (int)(((hash >>> 32) * _numBuckets) >>> 32);
+    }
+
+    private int getPosition(long hash, long displacement) {
+        return (int)(((HashCommon.murmurHash3(hash + displacement) >>> 32) * _numPositions) >>> 32);
+    }
+
+    private static long[] makePackedArray(int numValues, int numBits) {
+        return new long[(int)(((long)numValues * numBits + 63) >>> 6) + 1];
+    }
+
+    private static long getPackedValue(long[] values, int numBits, int index) {
+        long bitOffset = (long)index * numBits;
+        int wordIndex = (int)(bitOffset >>> 6);
+        int shift = (int)(bitOffset & 63);
+        long result = values[wordIndex] >>> shift;
+        if (shift + numBits > 64) {
+            result |= values[wordIndex + 1] << (64 - shift);
+        }
+
+        return result & ((1L << numBits) - 1);
+    }
+
+    private static void setPackedValue(long[] values, int numBits, int index, long value) {
+        long bitOffset = (long)index * numBits;
+        int wordIndex = (int)(bitOffset >>> 6);
+        int shift = (int)(bitOffset & 63);
+        values[wordIndex] |= value << shift;
+        if (shift + numBits > 64) {
+            values[wordIndex + 1] |= value >>> (64 - shift);
+        }
+    }
+
+    /**
+     * @return offset of the only entry that could have a key with hash <hash>, or -1.
+     */
+    private long getEntryOffset(long hash) {
+        if (_size == 0) {
+            return EMPTY_POSITION;
+        }
+
+        long displacement = getPackedValue(_displacements, _displacementBits, getBucket(hash));
+        return getPackedValue(_offsets, _offsetBits, getPosition(hash, displacement)) - 1;
+    }
+
+    private long findEntry(CharSequence key) {
+        if (key == null) {
+            return EMPTY_POSITION;
+        }
+
+        long offset = getEntryOffset(HashUtils.getMurmur3Hash64(key, _seed));
+        if ((offset != EMPTY_POSITION) && _stringData.stringMatches(offset, key)) {
+            return offset;
+        } else {
+            return EMPTY_POSITION;
+        }
+    }
+
+    private long findEntry(byte[] keyBytes, int keyOffset, int keyLen) {
+        long offset = getEntryOffset(HashUtils.getMurmur3Hash64(keyBytes, keyOffset, keyLen, _seed));
+        if ((offset != EMPTY_POSITION) && _stringData.stringMatches(offset, keyBytes, keyOffset, keyLen)) {
+            return offset;
+        } else {
+            return EMPTY_POSITION;
+        }
+    }
+
+    private String getValue(long valueOffset) {
+        return _stringData.getString(valueOffset, _stringData.calcStringLength(valueOffset));
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key instanceof String) {
+            return containsKey((CharSequence)key);
+        } else {
+            return false;
+        }
+    }
+
+    public boolean containsKey(CharSequence key) {
+        return findEntry(key) != EMPTY_POSITION;
+    }
+
+    /**
+     * Check whether there's an entry for the key with UTF-8 bytes <keyBytes>, starting at
+     * <offset> and continuing for <length> bytes.
+     */
+    public boolean containsKey(byte[] keyBytes, int offset, int length) {
+        return findEntry(keyBytes, offset, length) != EMPTY_POSITION;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (key instanceof String) {
+            return get((CharSequence)key);
+        } else {
+            return null;
+        }
+    }
+
+    public String get(CharSequence key) {
+        long offset = findEntry(key);
+        if (offset == EMPTY_POSITION) {
+            return null;
+        }
+
+        return getValue(offset + _stringData.calcStringLength(offset) + 1);
+    }
+
+    /**
+     * Get the value for the key with UTF-8 bytes <keyBytes>, starting at <offset> and
+     * continuing for <length> bytes.
+     */
+    public String get(byte[] keyBytes, int offset, int length) {
+        long entryOffset = findEntry(keyBytes, offset, length);
+        if (entryOffset == EMPTY_POSITION) {
+            return null;
+        }
+
+        return getValue(entryOffset + length + 1);
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (_entrySet == null) {
+            _entrySet = new AbstractSet<Map.Entry<String, String>>() {
+
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return _size;
+                }
+            };
+        }
+
+        return _entrySet;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(_size);
+        out.writeLong(_seed);
+        out.writeInt(_numPositions);
+        out.writeInt(_numBuckets);
+        out.writeByte(_displacementBits);
+        out.writeLong(_stringData.length());
+        _stringData.write(out);
+
+        out.writeInt(_displacements.length);
+        DataUtils.writeLongs(out, _displacements, 0, _displacements.length);
+        out.writeByte(_offsetBits);
+        out.writeInt(_offsets.length);
+        DataUtils.writeLongs(out, _offsets, 0, _offsets.length);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int size = in.readInt();
+        long seed = in.readLong();
+        int numPositions = in.readInt();
+        int numBuckets = in.readInt();
+        int displacementBits = in.readUnsignedByte();
+        long stringDataSize = in.readLong();
+        if ((size < 0) || (numPositions < size) || (numBuckets < 0) || (displacementBits > 63) || (stringDataSize < 0)) {
+            throw new IOException("Data corruption - invalid size info!");
+        }
+
+        StringArena stringData = new StringArena();
+        stringData.readFields(in, stringDataSize);
+
+        int numDisplacementWords = in.readInt();
+        if (numDisplacementWords != makePackedArray(numBuckets, displacementBits).length) {
+            throw new IOException("Data corruption - invalid displacement count: " + numDisplacementWords);
+        }
+
+        long[] displacements = new long[numDisplacementWords];
+        DataUtils.readLongs(in, displacements, 0, numDisplacementWords);
+
+        int offsetBits = in.readUnsignedByte();
+        if (offsetBits != 64 - Long.numberOfLeadingZeros(stringDataSize)) {
+            throw new IOException("Data corruption - invalid offset size: " + offsetBits);
+        }
+
+        int numOffsetWords = in.readInt();
+        if (numOffsetWords != makePackedArray(numPositions, offsetBits).length) {
+            throw new IOException("Data corruption - invalid offset count: " + numOffsetWords);
+        }
+
+        long[] offsets = new long[numOffsetWords];
+        DataUtils.readLongs(in, offsets, 0, numOffsetWords);
+
+        _stringData = stringData;
+        _size = size;
+        _seed = seed;
+        _numPositions = numPositions;
+        _numBuckets = numBuckets;
+        _displacementBits = displacementBits;
+        _displacements = displacements;
+        _offsetBits = offsetBits;
+        _offsets = offsets;
+    }
+
+    /**
+     * Walk the string data, which has no dead bytes, so every string pair is an entry.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private long _nextOffset = 0;
+
+        @Override
+        public boolean hasNext() {
+            return _nextOffset < _stringData.length();
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            int keyLength = _stringData.calcStringLength(_nextOffset);
+            String key = _stringData.getString(_nextOffset, keyLength);
+            long valueOffset = _nextOffset + keyLength + 1;
+            int valueLength = _stringData.calcStringLength(valueOffset);
+            String value = _stringData.getString(valueOffset, valueLength);
+            _nextOffset = valueOffset + valueLength + 1;
+            return new AbstractMap.SimpleImmutableEntry<String, String>(key, value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -4,6 +4,10 @@ import java.io.UnsupportedEncodingException;
 
 public class HashUtils {
 
+    // Murmur3 (x64, 128-bit) constants
+    private static final long MURMUR3_C1 = 0x87c37b91114253d5L;
+    private static final long MURMUR3_C2 = 0x4cf5ad432745937fL;
+
     public static byte[] getUTF8Bytes(String str) {
         try {
             return str.getBytes("UTF-8");
@@ -30,8 +34,342 @@ public class HashUtils {
      * @return 64-bit hash
      */
     public static long getLongHash(String s) {
-        byte[] bytes = getUTF8Bytes(s);
-        return getLongHash(bytes, 0, bytes.length);
+        return getLongHash((CharSequence)s);
+    }
+
+    /**
+     * Generate a 64-bit JOAAT hash from the UTF-8 bytes of <s>, without creating a byte
+     * array. The result is the same as hashing the bytes from {@link #getUTF8Bytes(String)}.
+     * 
+     * @param s characters to hash
+     * @return 64-bit hash
+     */
+    public static long getLongHash(CharSequence s) {
+        long result = 0;
+        
+        int length = s.length();
+        for (int i = 0; i < length; ) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                // Fast path for ASCII, which is one byte.
+                result += c;
+                result += (result << 20);
+                result ^= (result >> 12);
+                i += 1;
+            } else {
+                int encoded = encodeUTF8(s, i);
+                int numBytes = getUTF8ByteCount(encoded);
+                for (int j = 0; j < numBytes; j++) {
+                    result += encoded & 0x0FF;
+                    result += (result << 20);
+                    result ^= (result >> 12);
+                    encoded >>>= 8;
+                }
+                
+                i += getCharCount(numBytes);
+            }
+        }
+        
+        result += (result << 6);
+        result ^= (result >> 22);
+        result += (result << 30);
+
+        return result;
+    }
+    
+    /**
+     * Generate a 64-bit Murmur3 hash from the given byte array. This is the first half of
+     * the 128-bit (x64) Murmur3 hash, which processes 16 bytes (as two longs) at a time, so
+     * it's much faster than JOAAT for longer keys, and mixes much better.
+     * 
+     * @param b Bytes to hash
+     * @param offset starting offset
+     * @param length number of bytes to hash
+     * @return 64-bit hash
+     */
+    public static long getMurmur3Hash64(byte[] b, int offset, int length) {
+        return murmur3Hash(b, offset, length, 0, null);
+    }
+    
+    /**
+     * Same as {@link #getMurmur3Hash64(byte[], int, int)}, but with a seed, so that keys which
+     * collide with one seed (almost certainly) won't collide with another.
+     * 
+     * @param b Bytes to hash
+     * @param offset starting offset
+     * @param length number of bytes to hash
+     * @param seed seed value for the hash
+     * @return 64-bit hash
+     */
+    public static long getMurmur3Hash64(byte[] b, int offset, int length, long seed) {
+        return murmur3Hash(b, offset, length, seed, null);
+    }
+    
+    /**
+     * Generate a 128-bit Murmur3 (x64) hash from the given byte array.
+     * 
+     * @param b Bytes to hash
+     * @param offset starting offset
+     * @param length number of bytes to hash
+     * @param seed seed value for the hash
+     * @param result array that gets the low (result[0]) and high (result[1]) 64 bits of the hash
+     */
+    public static void getMurmur3Hash128(byte[] b, int offset, int length, long seed, long[] result) {
+        murmur3Hash(b, offset, length, seed, result);
+    }
+    
+    /**
+     * Generate a 64-bit Murmur3 hash from the UTF-8 bytes of <s>, without creating a byte array.
+     * The result is the same as hashing the bytes from {@link #getUTF8Bytes(String)}.
+     * 
+     * @param s characters to hash
+     * @return 64-bit hash
+     */
+    public static long getMurmur3Hash64(CharSequence s) {
+        return murmur3Hash(s, 0, null);
+    }
+    
+    /**
+     * Same as {@link #getMurmur3Hash64(CharSequence)}, but with a seed.
+     * 
+     * @param s characters to hash
+     * @param seed seed value for the hash
+     * @return 64-bit hash
+     */
+    public static long getMurmur3Hash64(CharSequence s, long seed) {
+        return murmur3Hash(s, seed, null);
+    }
+    
+    /**
+     * Generate a 128-bit Murmur3 (x64) hash from the UTF-8 bytes of <s>, without creating a byte array.
+     * 
+     * @param s characters to hash
+     * @param seed seed value for the hash
+     * @param result array that gets the low (result[0]) and high (result[1]) 64 bits of the hash
+     */
+    public static void getMurmur3Hash128(CharSequence s, long seed, long[] result) {
+        murmur3Hash(s, seed, result);
+    }
+    
+    private static long murmur3Hash(byte[] b, int offset, int length, long seed, long[] result) {
+        long h1 = seed;
+        long h2 = seed;
+        
+        int blocksEnd = offset + (length & ~15);
+        for (int i = offset; i < blocksEnd; i += 16) {
+            h1 ^= mixK1(getLittleEndianLong(b, i));
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = (h1 * 5) + 0x52dce729;
+
+            h2 ^= mixK2(getLittleEndianLong(b, i + 8));
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = (h2 * 5) + 0x38495ab5;
+        }
+        
+        // Now the tail (0 - 15 bytes)
+        int tailLength = length & 15;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (b[blocksEnd + i] & 0x0FFL);
+        }
+        
+        for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (b[blocksEnd + i] & 0x0FFL);
+        }
+        
+        if (tailLength > 8) {
+            h2 ^= mixK2(k2);
+        }
+        
+        if (tailLength > 0) {
+            h1 ^= mixK1(k1);
+        }
+        
+        return murmur3Finish(h1, h2, length, result);
+    }
+    
+    /**
+     * Same as {@link #murmur3Hash(byte[], int, int, long, long[])} for the UTF-8 bytes of <s>. We
+     * collect encoded bytes into the current 8-byte lane, and hang onto the first lane of each 16-byte
+     * block until we've got the second one, since we can't tell whether they're part of a full block
+     * (or the tail) until then.
+     */
+    private static long murmur3Hash(CharSequence s, long seed, long[] result) {
+        long h1 = seed;
+        long h2 = seed;
+        
+        long k1 = 0;
+        boolean haveK1 = false;
+        long lane = 0;
+        int laneBits = 0;
+        long length = 0;
+        
+        int numChars = s.length();
+        for (int i = 0; i < numChars; ) {
+            char c = s.charAt(i);
+            int encoded;
+            int numBytes;
+            if (c < 0x80) {
+                // Fast path for ASCII, which is one byte.
+                encoded = c;
+                numBytes = 1;
+                i += 1;
+            } else {
+                encoded = encodeUTF8(s, i);
+                numBytes = getUTF8ByteCount(encoded);
+                i += getCharCount(numBytes);
+            }
+            
+            length += numBytes;
+            for (int j = 0; j < numBytes; j++) {
+                lane |= (long)(encoded & 0x0FF) << laneBits;
+                encoded >>>= 8;
+                laneBits += 8;
+                
+                if (laneBits == 64) {
+                    if (!haveK1) {
+                        k1 = lane;
+                        haveK1 = true;
+                    } else {
+                        h1 ^= mixK1(k1);
+                        h1 = Long.rotateLeft(h1, 27);
+                        h1 += h2;
+                        h1 = (h1 * 5) + 0x52dce729;
+
+                        h2 ^= mixK2(lane);
+                        h2 = Long.rotateLeft(h2, 31);
+                        h2 += h1;
+                        h2 = (h2 * 5) + 0x38495ab5;
+                        
+                        haveK1 = false;
+                    }
+                    
+                    lane = 0;
+                    laneBits = 0;
+                }
+            }
+        }
+        
+        // Now the tail, which is either a full first lane (k1) and a partial second lane,
+        // or just a partial first lane.
+        if (haveK1) {
+            if (laneBits > 0) {
+                h2 ^= mixK2(lane);
+            }
+            
+            h1 ^= mixK1(k1);
+        } else if (laneBits > 0) {
+            h1 ^= mixK1(lane);
+        }
+        
+        return murmur3Finish(h1, h2, length, result);
+    }
+    
+    private static long murmur3Finish(long h1, long h2, long length, long[] result) {
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+        
+        if (result != null) {
+            result[0] = h1;
+            result[1] = h2;
+        }
+        
+        return h1;
+    }
+    
+    private static long getLittleEndianLong(byte[] b, int offset) {
+        return (b[offset] & 0x0FFL)
+            | ((b[offset + 1] & 0x0FFL) << 8)
+            | ((b[offset + 2] & 0x0FFL) << 16)
+            | ((b[offset + 3] & 0x0FFL) << 24)
+            | ((b[offset + 4] & 0x0FFL) << 32)
+            | ((b[offset + 5] & 0x0FFL) << 40)
+            | ((b[offset + 6] & 0x0FFL) << 48)
+            | ((b[offset + 7] & 0x0FFL) << 56);
+    }
+    
+    private static long mixK1(long k1) {
+        k1 *= MURMUR3_C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * MURMUR3_C2;
+    }
+    
+    private static long mixK2(long k2) {
+        k2 *= MURMUR3_C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * MURMUR3_C1;
+    }
+    
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+    
+    /**
+     * Encode the character (or surrogate pair) at <index> in <s> as UTF-8, with the first byte
+     * in the low 8 bits of the result, the next byte in the next 8 bits, and so on. Unpaired
+     * surrogates are encoded as '?', which is what String.getBytes("UTF-8") does.
+     * 
+     * @param s characters to encode
+     * @param index index of the character to encode
+     * @return encoded bytes, packed into an int.
+     */
+    static int encodeUTF8(CharSequence s, int index) {
+        char c = s.charAt(index);
+        if (c < 0x80) {
+            return c;
+        } else if (c < 0x800) {
+            return (0xC0 | (c >> 6)) | ((0x80 | (c & 0x3F)) << 8);
+        } else if ((c < Character.MIN_SURROGATE) || (c > Character.MAX_SURROGATE)) {
+            return (0xE0 | (c >> 12)) | ((0x80 | ((c >> 6) & 0x3F)) << 8) | ((0x80 | (c & 0x3F)) << 16);
+        } else if (Character.isHighSurrogate(c) && (index + 1 < s.length()) && Character.isLowSurrogate(s.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, s.charAt(index + 1));
+            return (0xF0 | (codePoint >> 18)) | ((0x80 | ((codePoint >> 12) & 0x3F)) << 8)
+                | ((0x80 | ((codePoint >> 6) & 0x3F)) << 16) | ((0x80 | (codePoint & 0x3F)) << 24);
+        } else {
+            return '?';
+        }
+    }
+    
+    /**
+     * @param encoded result from {@link #encodeUTF8(CharSequence, int)}
+     * @return number of UTF-8 bytes in <encoded>, based on the first byte.
+     */
+    static int getUTF8ByteCount(int encoded) {
+        int firstByte = encoded & 0x0FF;
+        if (firstByte < 0x80) {
+            return 1;
+        } else if (firstByte < 0xE0) {
+            return 2;
+        } else if (firstByte < 0xF0) {
+            return 3;
+        } else {
+            return 4;
+        }
+    }
+    
+    /**
+     * @param numBytes number of bytes in an encoded character
+     * @return number of chars that were encoded (2 for a surrogate pair, otherwise 1).
+     */
+    static int getCharCount(int numBytes) {
+        return (numBytes == 4) ? 2 : 1;
     }
 
     /**
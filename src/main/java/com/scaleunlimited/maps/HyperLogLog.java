@@ -0,0 +1,381 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An approximate count of distinct values, using a fixed amount of memory no matter how many values
+ * are added. This is a HyperLogLog sketch, with the HLL++ improvements: 64-bit hashes (so there's
+ * no large range correction), and a sparse representation for small counts, which uses a higher
+ * precision and takes much less space than the full set of registers. Instead of HLL++'s empirical
+ * bias correction tables, we use Ertl's improved estimator ("New cardinality estimation algorithms
+ * for HyperLogLog sketches", 2017), which is unbiased over the full range of counts.
+ *
+ * With precision p there are 2^p registers, and the relative standard error is about 1.04/sqrt(2^p),
+ * so the default of 14 uses 16K bytes (once it's no longer sparse) and has an error of about 0.8%.
+ *
+ * Sketches with the same precision can be merged (e.g. to combine sketches built by separate tasks),
+ * which gives the same result as adding all of the values to one sketch.
+ *
+ * Like {@link StringSet}, this class isn't thread-safe.
+ */
+public class HyperLogLog implements Writable {
+
+    static final int FORMAT_VERSION = 1;
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    public static final int DEFAULT_PRECISION = 14;
+
+    // Precision used for sparse entries. Each entry is an int with the 25-bit index in the high
+    // bits, and the 6-bit register value in the low bits.
+    static final int SPARSE_PRECISION = 25;
+    private static final int SPARSE_VALUE_BITS = 6;
+    private static final int SPARSE_VALUE_MASK = (1 << SPARSE_VALUE_BITS) - 1;
+
+    private static final int MIN_SPARSE_CAPACITY = 16;
+
+    private int _precision;
+
+    // Null once we switch to dense registers.
+    private int[] _sparse;
+
+    // Entries before _sortedSize are sorted, with no duplicate indexes. The rest have been
+    // added since we last sorted.
+    private int _sparseSize;
+    private int _sortedSize;
+
+    // Null while we're sparse.
+    private byte[] _registers;
+
+    /**
+     * Create an empty sketch, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if ((precision < MIN_PRECISION) || (precision > MAX_PRECISION)) {
+            throw new IllegalArgumentException(String.format("Precision must be >= %d and <= %d", MIN_PRECISION, MAX_PRECISION));
+        }
+
+        _precision = precision;
+        _sparse = new int[getMinSparseCapacity()];
+    }
+
+    /**
+     * @return the relative standard error of the count, for a sketch with <precision>.
+     */
+    public static double getRelativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public int getPrecision() {
+        return _precision;
+    }
+
+    boolean isSparse() {
+        return _registers == null;
+    }
+
+    public void add(CharSequence s) {
+        addHash(HashUtils.getMurmur3Hash64(s));
+    }
+
+    /**
+     * Add the string with UTF-8 bytes <b>, starting at <offset> and continuing for <length> bytes.
+     */
+    public void add(byte[] b, int offset, int length) {
+        addHash(HashUtils.getMurmur3Hash64(b, offset, length));
+    }
+
+    /**
+     * Add a value using its 64-bit hash. The hash has to be well mixed (all bits equally likely to
+     * be set), e.g. a Murmur3 hash.
+     */
+    public void addHash(long hash) {
+        if (_registers == null) {
+            int index = (int)(hash >>> (64 - SPARSE_PRECISION));
+            addSparse((index << SPARSE_VALUE_BITS) | getRank(hash << SPARSE_PRECISION, 64 - SPARSE_PRECISION));
+        } else {
+            int index = (int)(hash >>> (64 - _precision));
+            setRegister(index, getRank(hash << _precision, 64 - _precision));
+        }
+    }
+
+    /**
+     * @return the position of the first 1 bit in the top <numBits> bits of <bits>, starting at 1, or
+     * <numBits> + 1 if they're all zero.
+     */
+    private static int getRank(long bits, int numBits) {
+        return Math.min(Long.numberOfLeadingZeros(bits), numBits) + 1;
+    }
+
+    private void setRegister(int index, int value) {
+        if (value > _registers[index]) {
+            _registers[index] = (byte)value;
+        }
+    }
+
+    private void addSparse(int entry) {
+        if (_sparseSize == _sparse.length) {
+            normalizeSparse();
+
+            // Switch once the sparse entries would take more space than the registers.
+            if (_sparseSize >= getMaxSparseSize()) {
+                convertToDense();
+                addDenseEntry(entry);
+                return;
+            }
+
+            if (_sparseSize > (_sparse.length / 2)) {
+                _sparse = Arrays.copyOf(_sparse, Math.min(_sparse.length * 2, getMaxSparseSize()));
+            }
+        }
+
+        _sparse[_sparseSize++] = entry;
+    }
+
+    private int getMaxSparseSize() {
+        // Sparse entries are 4 bytes, versus 1 byte per register.
+        return (1 << _precision) / 4;
+    }
+
+    /**
+     * @return initial size of the sparse array. For low precisions this is less than
+     * MIN_SPARSE_CAPACITY, since the array can never hold more than the max sparse size (and
+     * readFields() rejects sparse data with more entries than that).
+     */
+    private int getMinSparseCapacity() {
+        return Math.min(MIN_SPARSE_CAPACITY, getMaxSparseSize());
+    }
+
+    /**
+     * Sort the sparse entries, and only keep the entry with the highest value for each index.
+     */
+    private void normalizeSparse() {
+        if (_sortedSize == _sparseSize) {
+            return;
+        }
+
+        Arrays.sort(_sparse, 0, _sparseSize);
+
+        // Entries are sorted by index and then value, so the last entry for an index is the one we want.
+        int numEntries = 0;
+        for (int i = 0; i < _sparseSize; i++) {
+            int entry = _sparse[i];
+            if ((i + 1 < _sparseSize) && ((_sparse[i + 1] >>> SPARSE_VALUE_BITS) == (entry >>> SPARSE_VALUE_BITS))) {
+                continue;
+            }
+
+            _sparse[numEntries++] = entry;
+        }
+
+        _sparseSize = numEntries;
+        _sortedSize = numEntries;
+    }
+
+    private void convertToDense() {
+        _registers = new byte[1 << _precision];
+        for (int i = 0; i < _sparseSize; i++) {
+            addDenseEntry(_sparse[i]);
+        }
+
+        _sparse = null;
+        _sparseSize = 0;
+        _sortedSize = 0;
+    }
+
+    /**
+     * Update the registers using a sparse entry. The sparse index has SPARSE_PRECISION - _precision
+     * extra bits past the register index, which are the first bits we'd have used for the rank.
+     */
+    private void addDenseEntry(int entry) {
+        int sparseIndex = entry >>> SPARSE_VALUE_BITS;
+        int extraBits = SPARSE_PRECISION - _precision;
+        int index = sparseIndex >>> extraBits;
+        int extra = sparseIndex & ((1 << extraBits) - 1);
+
+        int value;
+        if (extra != 0) {
+            value = Integer.numberOfLeadingZeros(extra) - (32 - extraBits) + 1;
+        } else {
+            value = extraBits + (entry & SPARSE_VALUE_MASK);
+        }
+
+        setRegister(index, value);
+    }
+
+    /**
+     * Add all of the values from <other> to this sketch.
+     */
+    public void merge(HyperLogLog other) {
+        if (other._precision != _precision) {
+            throw new IllegalArgumentException(String.format("Can't merge a sketch with precision %d into one with precision %d",
+                            other._precision, _precision));
+        }
+
+        if (other._registers == null) {
+            for (int i = 0; i < other._sparseSize; i++) {
+                if (_registers == null) {
+                    addSparse(other._sparse[i]);
+                } else {
+                    addDenseEntry(other._sparse[i]);
+                }
+            }
+        } else {
+            if (_registers == null) {
+                convertToDense();
+            }
+
+            for (int i = 0; i < _registers.length; i++) {
+                setRegister(i, other._registers[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values that have been added.
+     */
+    public long cardinality() {
+        if (_registers == null) {
+            // Linear counting using the sparse indexes, which is very accurate for the number
+            // of entries we keep before switching to registers.
+            normalizeSparse();
+            double numIndexes = 1 << SPARSE_PRECISION;
+            return Math.round(numIndexes * Math.log(numIndexes / (numIndexes - _sparseSize)));
+        }
+
+        int maxValue = 64 - _precision + 1;
+        int[] counts = new int[maxValue + 1];
+        for (byte value : _registers) {
+            counts[value] += 1;
+        }
+
+        double m = _registers.length;
+        double z = m * tau(1.0 - counts[maxValue] / m);
+        for (int k = maxValue - 1; k >= 1; k--) {
+            z = 0.5 * (z + counts[k]);
+        }
+
+        z += m * sigma(counts[0] / m);
+        return Math.round((m * m) / (2.0 * Math.log(2.0) * z));
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double y = 1.0;
+        double z = x;
+        double oldZ;
+        do {
+            x *= x;
+            oldZ = z;
+            z += x * y;
+            y += y;
+        } while (z != oldZ);
+
+        return z;
+    }
+
+    private static double tau(double x) {
+        if ((x == 0.0) || (x == 1.0)) {
+            return 0.0;
+        }
+
+        double y = 1.0;
+        double z = 1.0 - x;
+        double oldZ;
+        do {
+            x = Math.sqrt(x);
+            oldZ = z;
+            y *= 0.5;
+            z -= (1.0 - x) * (1.0 - x) * y;
+        } while (z != oldZ);
+
+        return z / 3.0;
+    }
+
+    public void clear() {
+        _registers = null;
+        _sparse = new int[getMinSparseCapacity()];
+        _sparseSize = 0;
+        _sortedSize = 0;
+    }
+
+    // Sparse entries are written as deltas between the (sorted) entries, which are mostly
+    // small, so a sketch with just a few values only takes a few bytes.
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(_precision);
+        out.writeBoolean(_registers == null);
+
+        if (_registers == null) {
+            normalizeSparse();
+            DataUtils.writeVInt(out, _sparseSize);
+
+            int prevEntry = 0;
+            for (int i = 0; i < _sparseSize; i++) {
+                DataUtils.writeVInt(out, _sparse[i] - prevEntry);
+                prevEntry = _sparse[i];
+            }
+        } else {
+            out.write(_registers);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int precision = in.readUnsignedByte();
+        if ((precision < MIN_PRECISION) || (precision > MAX_PRECISION)) {
+            throw new IOException("Data corruption - invalid precision!");
+        }
+
+        _precision = precision;
+        if (in.readBoolean()) {
+            int numEntries = DataUtils.readVInt(in);
+            if ((numEntries < 0) || (numEntries > getMaxSparseSize())) {
+                throw new IOException("Data corruption - invalid number of sparse entries!");
+            }
+
+            int[] sparse = new int[Math.max(getMinSparseCapacity(), numEntries)];
+            int entry = 0;
+            for (int i = 0; i < numEntries; i++) {
+                entry += DataUtils.readVInt(in);
+                sparse[i] = entry;
+            }
+
+            _registers = null;
+            _sparse = sparse;
+            _sparseSize = numEntries;
+            _sortedSize = numEntries;
+        } else {
+            byte[] registers = new byte[1 << precision];
+            in.readFully(registers);
+            for (byte value : registers) {
+                if ((value < 0) || (value > 64 - precision + 1)) {
+                    throw new IOException("Data corruption - invalid register value!");
+                }
+            }
+
+            _registers = registers;
+            _sparse = null;
+            _sparseSize = 0;
+            _sortedSize = 0;
+        }
+    }
+}
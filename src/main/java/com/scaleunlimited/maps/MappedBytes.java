@@ -0,0 +1,159 @@
+package com.scaleunlimited.maps;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only access to all of a file, via memory-mapped segments. A single MappedByteBuffer
+ * is limited to 2GB, so we map the file as a list of segments, and address bytes with a long
+ * offset (segment = offset >> segmentShift, position in segment = offset & segmentMask).
+ *
+ * Values (and strings) can span segments, so like {@link StringArena} we have a fast path for
+ * when everything is in one segment, and a slower path for when it's not.
+ *
+ * All reads use absolute positions, so it's safe for multiple threads to use one instance.
+ */
+final class MappedBytes {
+
+    public static final int DEFAULT_SEGMENT_SHIFT = 30;
+    
+    private final MappedByteBuffer[] _segments;
+    private final int _segmentShift;
+    private final int _segmentMask;
+    private final long _length;
+    
+    public MappedBytes(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_SEGMENT_SHIFT);
+    }
+    
+    public MappedBytes(FileChannel channel, int segmentShift) throws IOException {
+        _segmentShift = segmentShift;
+        _segmentMask = (1 << segmentShift) - 1;
+        _length = channel.size();
+        
+        long segmentSize = 1L << segmentShift;
+        int numSegments = (int)((_length + segmentSize - 1) >> segmentShift);
+        _segments = new MappedByteBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            long start = (long)i << segmentShift;
+            _segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, _length - start));
+        }
+    }
+    
+    public long length() {
+        return _length;
+    }
+    
+    public byte getByte(long offset) {
+        return _segments[(int)(offset >> _segmentShift)].get((int)(offset & _segmentMask));
+    }
+    
+    public int getInt(long offset) {
+        MappedByteBuffer segment = _segments[(int)(offset >> _segmentShift)];
+        int position = (int)(offset & _segmentMask);
+        if (position + 4 <= segment.limit()) {
+            return segment.getInt(position);
+        }
+        
+        int result = 0;
+        for (int i = 0; i < 4; i++) {
+            result = (result << 8) | (getByte(offset + i) & 0x0FF);
+        }
+        
+        return result;
+    }
+    
+    public long getLong(long offset) {
+        MappedByteBuffer segment = _segments[(int)(offset >> _segmentShift)];
+        int position = (int)(offset & _segmentMask);
+        if (position + 8 <= segment.limit()) {
+            return segment.getLong(position);
+        }
+        
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | (getByte(offset + i) & 0x0FFL);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * @return length of the null-terminated string starting at <offset>
+     */
+    public int calcStringLength(long offset) {
+        int result = 0;
+        while (getByte(offset + result) != 0) {
+            result += 1;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * @return true if the null-terminated string at <offset> is the same as the <keyLen> bytes
+     * in <keyBytes> starting at <keyOffset>.
+     */
+    public boolean stringMatches(long offset, byte[] keyBytes, int keyOffset, int keyLen) {
+        if (offset + keyLen >= _length) {
+            return false;
+        }
+        
+        MappedByteBuffer segment = _segments[(int)(offset >> _segmentShift)];
+        int position = (int)(offset & _segmentMask);
+        if (position + keyLen < segment.limit()) {
+            // Fast path - everything (including the terminating null) is in the one segment.
+            for (int i = 0; i < keyLen; i++) {
+                if (keyBytes[keyOffset + i] != segment.get(position + i)) {
+                    return false;
+                }
+            }
+            
+            return segment.get(position + keyLen) == 0;
+        }
+        
+        for (int i = 0; i < keyLen; i++) {
+            if (keyBytes[keyOffset + i] != getByte(offset + i)) {
+                return false;
+            }
+        }
+        
+        return getByte(offset + keyLen) == 0;
+    }
+    
+    /**
+     * Copy <len> bytes starting at <offset> into <dest>, starting at <destOffset>.
+     */
+    public void getBytes(long offset, byte[] dest, int destOffset, int len) {
+        long curOffset = offset;
+        int remaining = len;
+        while (remaining > 0) {
+            MappedByteBuffer segment = _segments[(int)(curOffset >> _segmentShift)];
+            int position = (int)(curOffset & _segmentMask);
+            int numToCopy = Math.min(remaining, segment.limit() - position);
+            
+            // Use a duplicate, so we don't change the position of the shared buffer.
+            ByteBuffer view = segment.duplicate();
+            view.position(position);
+            view.get(dest, destOffset, numToCopy);
+            
+            curOffset += numToCopy;
+            destOffset += numToCopy;
+            remaining -= numToCopy;
+        }
+    }
+    
+    public String getString(long offset, int len) {
+        byte[] bytes = new byte[len];
+        getBytes(offset, bytes, 0, len);
+        
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("Impossible missing charset exception", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.scaleunlimited.maps;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A read-only version of {@link StringMap}, which does lookups directly against a memory-mapped
+ * file that was written by {@link StringMap#write(java.io.DataOutput)}. This is useful for big,
+ * static maps, since the data doesn't use any heap, and opening the map is (almost) free.
+ * 
+ * Lookups are thread-safe.
+ */
+public class MappedStringMap extends MappedStringTable {
+
+    public MappedStringMap(File file) throws IOException {
+        this(file, MappedBytes.DEFAULT_SEGMENT_SHIFT);
+    }
+    
+    // For testing, so we can force strings to span segments.
+    MappedStringMap(File file, int segmentShift) throws IOException {
+        super(file, segmentShift);
+    }
+    
+    public boolean containsKey(String key) {
+        return findEntry(HashUtils.getUTF8Bytes(key)) != -1;
+    }
+    
+    public String get(String key) {
+        byte[] keyBytes = HashUtils.getUTF8Bytes(key);
+        long entryOffset = findEntry(keyBytes);
+        if (entryOffset == -1) {
+            return null;
+        }
+        
+        long valueOffset = entryOffset + keyBytes.length + 1;
+        return _bytes.getString(valueOffset, _bytes.calcStringLength(valueOffset));
+    }
+}
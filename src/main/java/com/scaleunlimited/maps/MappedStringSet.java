@@ -0,0 +1,26 @@
+package com.scaleunlimited.maps;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A read-only version of {@link StringSet}, which does lookups directly against a memory-mapped
+ * file that was written by {@link StringSet#write(java.io.DataOutput)}. See {@link MappedStringMap}.
+ * 
+ * Lookups are thread-safe.
+ */
+public class MappedStringSet extends MappedStringTable {
+
+    public MappedStringSet(File file) throws IOException {
+        this(file, MappedBytes.DEFAULT_SEGMENT_SHIFT);
+    }
+    
+    // For testing, so we can force strings to span segments.
+    MappedStringSet(File file, int segmentShift) throws IOException {
+        super(file, segmentShift);
+    }
+    
+    public boolean contains(String s) {
+        return findEntry(HashUtils.getUTF8Bytes(s)) != -1;
+    }
+}
@@ -0,0 +1,122 @@
+package com.scaleunlimited.maps;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Common code for {@link MappedStringMap} and {@link MappedStringSet}. We memory-map a file
+ * written by {@link StringTable#write(java.io.DataOutput)}, and do lookups directly against
+ * the serialized slot table and string data. So nothing is copied onto the heap, there's no
+ * table to rebuild when we open the file, and the OS shares the file's pages between all of
+ * the JVMs (e.g. task JVMs on one node) that have it mapped.
+ *
+ * The file has to be in the current (versioned) format, since the older format didn't include
+ * the slot table. Reading a file in the older format with a StringMap/StringSet, and writing it
+ * back out, will convert it.
+ */
+abstract class MappedStringTable implements Closeable {
+
+    // version byte, smallHash boolean, size int, dead bytes long, string data size long.
+    private static final long HEADER_SIZE = 1 + 1 + 4 + 8 + 8;
+
+    private RandomAccessFile _file;
+    protected MappedBytes _bytes;
+    
+    private boolean _joaatHash;
+    private boolean _smallHash;
+    private int _size;
+    private int _mask;
+    
+    // File offsets for the string data and the slot arrays.
+    protected long _dataStart;
+    private long _hashesStart;
+    private long _offsetsStart;
+    
+    protected MappedStringTable(File file, int segmentShift) throws IOException {
+        _file = new RandomAccessFile(file, "r");
+        
+        try {
+            int version = _file.readUnsignedByte();
+            if (version <= 1) {
+                throw new IOException("File is in the older format, without a slot table: " + file);
+            } else if ((version != StringTable.FORMAT_VERSION) && (version != StringTable.JOAAT_FORMAT_VERSION)) {
+                throw new IOException("Unknown serialization format version: " + version);
+            }
+            
+            _joaatHash = (version == StringTable.JOAAT_FORMAT_VERSION);
+            _smallHash = _file.readBoolean();
+            _size = _file.readInt();
+            _file.readLong(); // dead bytes
+            long stringDataSize = _file.readLong();
+            
+            _dataStart = HEADER_SIZE;
+            _file.seek(_dataStart + stringDataSize);
+            int capacity = _file.readInt();
+            if ((capacity <= 0) || ((capacity & (capacity - 1)) != 0) || (_size < 0) || (_size >= capacity)) {
+                throw new IOException("Data corruption - invalid slot table capacity: " + capacity);
+            }
+            
+            _mask = capacity - 1;
+            _hashesStart = _dataStart + stringDataSize + 4;
+            _offsetsStart = _hashesStart + (4L * capacity);
+            
+            long expectedLength = _offsetsStart + (8L * capacity);
+            if (_file.length() != expectedLength) {
+                throw new IOException(String.format("Data corruption - file length is %d, expected %d", _file.length(), expectedLength));
+            }
+            
+            _bytes = new MappedBytes(_file.getChannel(), segmentShift);
+        } catch (IOException e) {
+            _file.close();
+            throw e;
+        }
+    }
+    
+    public int size() {
+        return _size;
+    }
+    
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+    
+    /**
+     * Close the file. Note that there's no way to explicitly unmap the file's data, so that
+     * happens when the mapped buffers get garbage collected. The table can't be used after
+     * it's been closed.
+     */
+    @Override
+    public void close() throws IOException {
+        _bytes = null;
+        
+        if (_file != null) {
+            _file.close();
+            _file = null;
+        }
+    }
+    
+    /**
+     * Find the entry for the key with UTF-8 bytes <keyBytes>.
+     * 
+     * @return file offset of the entry, or -1 if the key doesn't exist.
+     */
+    protected long findEntry(byte[] keyBytes) {
+        int hash = StringTable.hash(keyBytes, 0, keyBytes.length, _joaatHash, _smallHash);
+        int slot = hash & _mask;
+        while (true) {
+            long offset = _bytes.getLong(_offsetsStart + (8L * slot));
+            if (offset == StringTable.EMPTY_SLOT) {
+                return -1;
+            }
+            
+            long entryOffset = _dataStart + offset;
+            if ((_bytes.getInt(_hashesStart + (4L * slot)) == hash) && _bytes.stringMatches(entryOffset, keyBytes, 0, keyBytes.length)) {
+                return entryOffset;
+            }
+            
+            slot = (slot + 1) & _mask;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An approximate set of the most frequent strings (heavy hitters), using a fixed number of counters
+ * no matter how many distinct strings are added. This is the SpaceSaving algorithm from Metwally,
+ * Agrawal and El Abbadi ("Efficient Computation of Frequent and Top-k Elements in Data Streams", 2005):
+ * when a new string shows up and all of the counters are in use, it replaces the string with the
+ * lowest count, and inherits that count as its error.
+ *
+ * Each counter's count is an upper bound on the string's actual count, and count - error is a lower
+ * bound. With capacity counters, the error is at most totalWeight/capacity, and any string with an
+ * actual count above that is guaranteed to have a counter.
+ *
+ * Summaries can be merged (e.g. to combine summaries built by separate tasks), using the approach
+ * from Agarwal et al ("Mergeable Summaries", 2012), which keeps the same error bound for the total
+ * weight of both summaries.
+ *
+ * The counters are kept in a min-heap (ordered by count), with a {@link StringIntMap} from each
+ * string to its counter. Like {@link HyperLogLog}, this class isn't thread-safe.
+ */
+public class SpaceSaving implements Writable {
+
+    static final int FORMAT_VERSION = 1;
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * One counter, as returned by {@link SpaceSaving#getTop(int)}.
+     */
+    public static class Counter {
+        private String _key;
+        private long _count;
+        private long _error;
+
+        public Counter(String key, long count, long error) {
+            _key = key;
+            _count = count;
+            _error = error;
+        }
+
+        public String getKey() {
+            return _key;
+        }
+
+        /**
+         * @return the upper bound on the actual count for the key.
+         */
+        public long getCount() {
+            return _count;
+        }
+
+        /**
+         * @return the max amount that the count could be too high.
+         */
+        public long getError() {
+            return _error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%d (+/-%d)", _key, _count, _error);
+        }
+    }
+
+    // Highest counts first, and for the same count the smallest error first. Ties are ordered by
+    // key, so the results don't depend on the order of the counters.
+    private static final Comparator<Counter> COUNTER_COMPARATOR = new Comparator<Counter>() {
+
+        @Override
+        public int compare(Counter c1, Counter c2) {
+            if (c1._count != c2._count) {
+                return c1._count > c2._count ? -1 : 1;
+            } else if (c1._error != c2._error) {
+                return c1._error < c2._error ? -1 : 1;
+            } else {
+                return c1._key.compareTo(c2._key);
+            }
+        }
+    };
+
+    private int _capacity;
+    private long _totalWeight;
+
+    // Upper bound on the count of a key that doesn't have a counter, when we aren't full. This is
+    // zero unless we've merged in a full summary. Every counter's count is at least this much.
+    private long _baseError;
+
+    // Counters, indexed by counter number. A counter stays at the same index while it's in use.
+    private String[] _keys;
+    private long[] _counts;
+    private long[] _errors;
+    private int _size;
+
+    // Min-heap of counter numbers, ordered by count, and each counter's position in the heap.
+    private int[] _heap;
+    private int[] _heapPositions;
+
+    // Map from key to counter number.
+    private StringIntMap _counterMap;
+
+    /**
+     * Create an empty summary, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public SpaceSaving() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be > 0");
+        }
+
+        reset(capacity);
+    }
+
+    private void reset(int capacity) {
+        _capacity = capacity;
+        _totalWeight = 0;
+        _baseError = 0;
+        _size = 0;
+
+        // Counters are allocated as needed, so a summary with only a few keys stays small.
+        int initialSize = Math.min(capacity, 16);
+        _keys = new String[initialSize];
+        _counts = new long[initialSize];
+        _errors = new long[initialSize];
+        _heap = new int[initialSize];
+        _heapPositions = new int[initialSize];
+
+        _counterMap = new StringIntMap(true);
+        _counterMap.defaultReturnValue(-1);
+    }
+
+    public int getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * @return number of counters in use.
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return total weight of all strings that have been added.
+     */
+    public long getTotalWeight() {
+        return _totalWeight;
+    }
+
+    /**
+     * @return the max amount that any count could be too high.
+     */
+    public long getMaxError() {
+        return (_size < _capacity) ? _baseError : _counts[_heap[0]];
+    }
+
+    public void add(String key) {
+        add(key, 1);
+    }
+
+    public void add(String key, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight can't be negative");
+        }
+
+        _totalWeight += weight;
+
+        int counter = _counterMap.get(key);
+        if (counter != -1) {
+            _counts[counter] += weight;
+            siftDown(_heapPositions[counter]);
+        } else if (_size < _capacity) {
+            addCounter(key, _baseError + weight, _baseError);
+        } else {
+            // Replace the key with the lowest count.
+            counter = _heap[0];
+            _counterMap.remove(_keys[counter]);
+            _counterMap.put(key, counter);
+
+            _keys[counter] = key;
+            _errors[counter] = _counts[counter];
+            _counts[counter] += weight;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return the upper bound on the count for <key>. If there's no counter for the key, then this is
+     * the max error, since that's the most it could have had when it was dropped (or else it would
+     * have replaced some other key).
+     */
+    public long getCount(String key) {
+        int counter = _counterMap.get(key);
+        return (counter == -1) ? getMaxError() : _counts[counter];
+    }
+
+    /**
+     * @return the counters with the <k> highest counts, highest first.
+     */
+    public List<Counter> getTop(int k) {
+        List<Counter> counters = getCounters();
+        return counters.subList(0, Math.min(k, counters.size()));
+    }
+
+    /**
+     * Add all of the strings from <other> to this summary. The summaries don't need to have the same
+     * capacity; the result uses the capacity of this summary.
+     */
+    public void merge(SpaceSaving other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Can't merge a summary with itself");
+        }
+
+        // A key that's missing from a full summary could have had up to that summary's max error.
+        long myMaxError = getMaxError();
+        long otherMaxError = other.getMaxError();
+
+        List<Counter> merged = new ArrayList<Counter>(_size + other._size);
+        for (int i = 0; i < _size; i++) {
+            int otherCounter = other._counterMap.get(_keys[i]);
+            if (otherCounter == -1) {
+                merged.add(new Counter(_keys[i], _counts[i] + otherMaxError, _errors[i] + otherMaxError));
+            } else {
+                merged.add(new Counter(_keys[i], _counts[i] + other._counts[otherCounter], _errors[i] + other._errors[otherCounter]));
+            }
+        }
+
+        for (int i = 0; i < other._size; i++) {
+            if (_counterMap.get(other._keys[i]) == -1) {
+                merged.add(new Counter(other._keys[i], other._counts[i] + myMaxError, other._errors[i] + myMaxError));
+            }
+        }
+
+        Collections.sort(merged, COUNTER_COMPARATOR);
+
+        long totalWeight = _totalWeight + other._totalWeight;
+        reset(_capacity);
+        _totalWeight = totalWeight;
+        _baseError = myMaxError + otherMaxError;
+        for (int i = 0; i < Math.min(_capacity, merged.size()); i++) {
+            Counter counter = merged.get(i);
+            addCounter(counter._key, counter._count, counter._error);
+        }
+    }
+
+    public void clear() {
+        reset(_capacity);
+    }
+
+    private List<Counter> getCounters() {
+        List<Counter> result = new ArrayList<Counter>(_size);
+        for (int i = 0; i < _size; i++) {
+            result.add(new Counter(_keys[i], _counts[i], _errors[i]));
+        }
+
+        Collections.sort(result, COUNTER_COMPARATOR);
+        return result;
+    }
+
+    private void addCounter(String key, long count, long error) {
+        if (_size == _keys.length) {
+            int newSize = (int)Math.min(_capacity, _keys.length * 2L);
+            _keys = Arrays.copyOf(_keys, newSize);
+            _counts = Arrays.copyOf(_counts, newSize);
+            _errors = Arrays.copyOf(_errors, newSize);
+            _heap = Arrays.copyOf(_heap, newSize);
+            _heapPositions = Arrays.copyOf(_heapPositions, newSize);
+        }
+
+        int counter = _size++;
+        _keys[counter] = key;
+        _counts[counter] = count;
+        _errors[counter] = error;
+        _counterMap.put(key, counter);
+
+        _heap[counter] = counter;
+        _heapPositions[counter] = counter;
+        siftUp(counter);
+    }
+
+    private void siftUp(int position) {
+        int counter = _heap[position];
+        long count = _counts[counter];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            int parentCounter = _heap[parent];
+            if (_counts[parentCounter] <= count) {
+                break;
+            }
+
+            setHeap(position, parentCounter);
+            position = parent;
+        }
+
+        setHeap(position, counter);
+    }
+
+    private void siftDown(int position) {
+        int counter = _heap[position];
+        long count = _counts[counter];
+        while (true) {
+            int child = (position * 2) + 1;
+            if (child >= _size) {
+                break;
+            }
+
+            if ((child + 1 < _size) && (_counts[_heap[child + 1]] < _counts[_heap[child]])) {
+                child += 1;
+            }
+
+            int childCounter = _heap[child];
+            if (_counts[childCounter] >= count) {
+                break;
+            }
+
+            setHeap(position, childCounter);
+            position = child;
+        }
+
+        setHeap(position, counter);
+    }
+
+    private void setHeap(int position, int counter) {
+        _heap[position] = counter;
+        _heapPositions[counter] = position;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        DataUtils.writeVInt(out, _capacity);
+        DataUtils.writeVLong(out, _totalWeight);
+        DataUtils.writeVLong(out, _baseError);
+        DataUtils.writeVInt(out, _size);
+
+        for (int i = 0; i < _size; i++) {
+            byte[] keyBytes = HashUtils.getUTF8Bytes(_keys[i]);
+            DataUtils.writeVInt(out, keyBytes.length);
+            out.write(keyBytes);
+            DataUtils.writeVLong(out, _counts[i]);
+            DataUtils.writeVLong(out, _errors[i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int capacity = DataUtils.readVInt(in);
+        long totalWeight = DataUtils.readVLong(in);
+        long baseError = DataUtils.readVLong(in);
+        int size = DataUtils.readVInt(in);
+        if ((capacity < 1) || (size < 0) || (size > capacity)) {
+            throw new IOException("Data corruption - invalid number of counters!");
+        }
+
+        reset(capacity);
+        _totalWeight = totalWeight;
+        _baseError = baseError;
+
+        for (int i = 0; i < size; i++) {
+            int keyLength = DataUtils.readVInt(in);
+            if (keyLength < 0) {
+                throw new IOException("Data corruption - invalid key length!");
+            }
+
+            byte[] keyBytes = new byte[keyLength];
+            in.readFully(keyBytes);
+            String key = new String(keyBytes, "UTF-8");
+
+            long count = DataUtils.readVLong(in);
+            long error = DataUtils.readVLong(in);
+            if ((error < 0) || (error > count) || (count < baseError) || (_counterMap.get(key) != -1)) {
+                throw new IOException("Data corruption - invalid counter!");
+            }
+
+            addCounter(key, count, error);
+        }
+    }
+}
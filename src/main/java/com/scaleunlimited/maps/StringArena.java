@@ -0,0 +1,406 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+/**
+ * Storage for null-terminated UTF-8 strings, as a list of fixed-size pages addressed by
+ * a long offset (page = offset >> PAGE_SHIFT, position in page = offset & PAGE_MASK). Growing
+ * just means allocating another page, so we never copy the existing data, and we never
+ * allocate one gigantic array (which is bad for GC, and limits us to 2GB).
+ *
+ * Strings can span pages, so methods that touch string data have a fast path for when
+ * the bytes are all in one page, and a slower path for when they're not.
+ *
+ * The first page starts out small, and grows (by copying) until it's a full page, so that an
+ * arena with just a few strings doesn't use a whole page. Nothing reads past the end of the
+ * string data, so the rest of the code doesn't have to care about this.
+ */
+final class StringArena {
+
+    public static final int PAGE_SHIFT = 16;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int INITIAL_PAGE_SLOTS = 16;
+    private static final int MIN_FIRST_PAGE_SIZE = 256;
+
+    private byte[][] _pages;
+    private int _numPages;
+
+    // Offset where the next string will be appended.
+    private long _length;
+
+    public StringArena() {
+        _pages = new byte[INITIAL_PAGE_SLOTS][];
+        _numPages = 0;
+        _length = 0;
+    }
+
+    public long length() {
+        return _length;
+    }
+
+    /**
+     * @return number of bytes allocated for pages, which is at least {@link #length()}.
+     */
+    public long getAllocatedBytes() {
+        return (_numPages == 0) ? 0 : _pages[0].length + ((long)(_numPages - 1) * PAGE_SIZE);
+    }
+
+    /**
+     * Reset the arena to be empty. We keep the first page around, since we'll almost
+     * certainly need it again.
+     */
+    public void clear() {
+        for (int i = 1; i < _numPages; i++) {
+            _pages[i] = null;
+        }
+
+        _numPages = Math.min(_numPages, 1);
+        _length = 0;
+    }
+
+    /**
+     * Make sure we have pages for data up to (but not including) <endOffset>.
+     */
+    private void ensureCapacity(long endOffset) {
+        int pagesNeeded = (int)((endOffset + PAGE_MASK) >> PAGE_SHIFT);
+        if (pagesNeeded > _pages.length) {
+            _pages = Arrays.copyOf(_pages, Math.max(pagesNeeded, _pages.length * 2));
+        }
+
+        if ((_numPages > 0) && (endOffset > _pages[0].length) && (_pages[0].length < PAGE_SIZE)) {
+            _pages[0] = Arrays.copyOf(_pages[0], getFirstPageSize(Math.max(endOffset, _pages[0].length * 2L)));
+        }
+
+        while (_numPages < pagesNeeded) {
+            _pages[_numPages] = new byte[(_numPages == 0) ? getFirstPageSize(endOffset) : PAGE_SIZE];
+            _numPages += 1;
+        }
+    }
+
+    private static int getFirstPageSize(long endOffset) {
+        return (int)Math.min(PAGE_SIZE, Math.max(MIN_FIRST_PAGE_SIZE, endOffset));
+    }
+
+    /**
+     * Append <len> bytes from <b> plus a terminating null byte.
+     *
+     * @return offset of the start of the string.
+     */
+    public long appendString(byte[] b, int offset, int len) {
+        long result = appendBytes(b, offset, len);
+        ensureCapacity(_length + 1);
+        _pages[(int)(_length >> PAGE_SHIFT)][(int)(_length & PAGE_MASK)] = 0;
+        _length += 1;
+        return result;
+    }
+
+    /**
+     * Append <len> bytes from <b>, as-is.
+     *
+     * @return offset of the start of the bytes.
+     */
+    public long appendBytes(byte[] b, int offset, int len) {
+        long result = _length;
+        ensureCapacity(_length + len);
+        setBytes(_length, b, offset, len);
+        _length += len;
+        return result;
+    }
+
+    public long appendString(byte[] b) {
+        return appendString(b, 0, b.length);
+    }
+
+    /**
+     * Append the UTF-8 bytes for <s>, plus a terminating null byte, without creating
+     * a byte array.
+     *
+     * @return offset of the start of the string.
+     */
+    public long appendString(CharSequence s) {
+        long result = _length;
+        int len = s.length();
+
+        // Worst case is three bytes per char (a surrogate pair is four bytes for two chars).
+        ensureCapacity(_length + (3L * len) + 1);
+        long curOffset = _length;
+        for (int i = 0; i < len; ) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                _pages[(int)(curOffset >> PAGE_SHIFT)][(int)(curOffset & PAGE_MASK)] = (byte)c;
+                curOffset += 1;
+                i += 1;
+            } else {
+                int encoded = HashUtils.encodeUTF8(s, i);
+                int numBytes = HashUtils.getUTF8ByteCount(encoded);
+                for (int j = 0; j < numBytes; j++) {
+                    _pages[(int)(curOffset >> PAGE_SHIFT)][(int)(curOffset & PAGE_MASK)] = (byte)encoded;
+                    curOffset += 1;
+                    encoded >>>= 8;
+                }
+
+                i += HashUtils.getCharCount(numBytes);
+            }
+        }
+
+        _pages[(int)(curOffset >> PAGE_SHIFT)][(int)(curOffset & PAGE_MASK)] = 0;
+        _length = curOffset + 1;
+        return result;
+    }
+
+    public byte getByte(long offset) {
+        return _pages[(int)(offset >> PAGE_SHIFT)][(int)(offset & PAGE_MASK)];
+    }
+
+    /**
+     * Copy <len> bytes from <b> (starting at <srcOffset>) into the arena at <offset>,
+     * overwriting whatever was there.
+     */
+    public void setBytes(long offset, byte[] b, int srcOffset, int len) {
+        long curOffset = offset;
+        int remaining = len;
+        while (remaining > 0) {
+            int pageOffset = (int)(curOffset & PAGE_MASK);
+            int numToCopy = Math.min(remaining, PAGE_SIZE - pageOffset);
+            System.arraycopy(b, srcOffset, _pages[(int)(curOffset >> PAGE_SHIFT)], pageOffset, numToCopy);
+            srcOffset += numToCopy;
+            curOffset += numToCopy;
+            remaining -= numToCopy;
+        }
+    }
+
+    /**
+     * Move <len> bytes from <srcOffset> down to <destOffset>, which must be less than
+     * or equal to <srcOffset>.
+     */
+    public void moveDown(long srcOffset, long destOffset, long len) {
+        long remaining = len;
+        while (remaining > 0) {
+            int srcPageOffset = (int)(srcOffset & PAGE_MASK);
+            int destPageOffset = (int)(destOffset & PAGE_MASK);
+            int numToCopy = (int)Math.min(remaining, PAGE_SIZE - Math.max(srcPageOffset, destPageOffset));
+            System.arraycopy(_pages[(int)(srcOffset >> PAGE_SHIFT)], srcPageOffset, 
+                            _pages[(int)(destOffset >> PAGE_SHIFT)], destPageOffset, numToCopy);
+            srcOffset += numToCopy;
+            destOffset += numToCopy;
+            remaining -= numToCopy;
+        }
+    }
+
+    /**
+     * Discard everything from <newLength> on, releasing pages we no longer need.
+     */
+    public void truncate(long newLength) {
+        int pagesNeeded = Math.max(1, (int)((newLength + PAGE_MASK) >> PAGE_SHIFT));
+        for (int i = pagesNeeded; i < _numPages; i++) {
+            _pages[i] = null;
+        }
+
+        _numPages = Math.min(_numPages, pagesNeeded);
+        _length = newLength;
+    }
+
+    /**
+     * Set all bytes from <startOffset> up to (but not including) <endOffset> to zero.
+     */
+    public void clear(long startOffset, long endOffset) {
+        long curOffset = startOffset;
+        while (curOffset < endOffset) {
+            int pageOffset = (int)(curOffset & PAGE_MASK);
+            int numToClear = (int)Math.min(endOffset - curOffset, PAGE_SIZE - pageOffset);
+            Arrays.fill(_pages[(int)(curOffset >> PAGE_SHIFT)], pageOffset, pageOffset + numToClear, (byte)0);
+            curOffset += numToClear;
+        }
+    }
+
+    /**
+     * @return length of the null-terminated string starting at <startingOffset>
+     */
+    public int calcStringLength(long startingOffset) {
+        byte[] page = _pages[(int)(startingOffset >> PAGE_SHIFT)];
+        int pageOffset = (int)(startingOffset & PAGE_MASK);
+        int result = 0;
+
+        while (true) {
+            if (pageOffset == PAGE_SIZE) {
+                page = _pages[(int)((startingOffset + result) >> PAGE_SHIFT)];
+                pageOffset = 0;
+            }
+
+            if (page[pageOffset] == 0) {
+                return result;
+            }
+
+            pageOffset += 1;
+            result += 1;
+        }
+    }
+
+    /**
+     * @return true if the null-terminated string at <offset> is the same as the <keyLen> bytes
+     * in <keyBytes> starting at <keyOffset>.
+     */
+    public boolean stringMatches(long offset, byte[] keyBytes, int keyOffset, int keyLen) {
+        if (offset + keyLen >= _length) {
+            return false;
+        }
+
+        byte[] page = _pages[(int)(offset >> PAGE_SHIFT)];
+        int pageOffset = (int)(offset & PAGE_MASK);
+        if (pageOffset + keyLen < PAGE_SIZE) {
+            // Fast path - everything (including the terminating null) is in the one page.
+            for (int i = 0; i < keyLen; i++) {
+                if (keyBytes[keyOffset + i] != page[pageOffset + i]) {
+                    return false;
+                }
+            }
+
+            // If it matched all of the string bytes, make sure we've got our terminating null byte.
+            return page[pageOffset + keyLen] == 0;
+        }
+
+        for (int i = 0; i < keyLen; i++) {
+            if (keyBytes[keyOffset + i] != getByte(offset + i)) {
+                return false;
+            }
+        }
+
+        return getByte(offset + keyLen) == 0;
+    }
+
+    /**
+     * @return true if the null-terminated string at <offset> is the same as the UTF-8 encoding
+     * of <key>. We encode characters as we go, so no byte array is needed.
+     */
+    public boolean stringMatches(long offset, CharSequence key) {
+        int len = key.length();
+        if (offset + len >= _length) {
+            // Every char is at least one byte, so the string data can't hold the key.
+            return false;
+        }
+
+        byte[] page = _pages[(int)(offset >> PAGE_SHIFT)];
+        int pageOffset = (int)(offset & PAGE_MASK);
+        if (pageOffset + len < PAGE_SIZE) {
+            // Fast path - if the key is all ASCII, everything is in the one page.
+            for (int i = 0; i < len; i++) {
+                char c = key.charAt(i);
+                if (c >= 0x80) {
+                    return stringMatches(offset + i, key, i);
+                } else if (page[pageOffset + i] != c) {
+                    return false;
+                }
+            }
+
+            return page[pageOffset + len] == 0;
+        }
+
+        return stringMatches(offset, key, 0);
+    }
+
+    /**
+     * Slow path for {@link #stringMatches(long, CharSequence)}, where we've already matched
+     * the first <index> chars of <key>, and their bytes ended before <offset>.
+     */
+    private boolean stringMatches(long offset, CharSequence key, int index) {
+        long curOffset = offset;
+        int len = key.length();
+        while (index < len) {
+            int encoded = HashUtils.encodeUTF8(key, index);
+            int numBytes = HashUtils.getUTF8ByteCount(encoded);
+            if (curOffset + numBytes >= _length) {
+                return false;
+            }
+
+            for (int i = 0; i < numBytes; i++) {
+                if (getByte(curOffset++) != (byte)encoded) {
+                    return false;
+                }
+
+                encoded >>>= 8;
+            }
+
+            index += HashUtils.getCharCount(numBytes);
+        }
+
+        return getByte(curOffset) == 0;
+    }
+
+    /**
+     * Copy <len> bytes starting at <offset> into <dest>, starting at <destOffset>.
+     */
+    public void getBytes(long offset, byte[] dest, int destOffset, int len) {
+        long curOffset = offset;
+        int remaining = len;
+        while (remaining > 0) {
+            int pageOffset = (int)(curOffset & PAGE_MASK);
+            int numToCopy = Math.min(remaining, PAGE_SIZE - pageOffset);
+            System.arraycopy(_pages[(int)(curOffset >> PAGE_SHIFT)], pageOffset, dest, destOffset, numToCopy);
+            curOffset += numToCopy;
+            destOffset += numToCopy;
+            remaining -= numToCopy;
+        }
+    }
+
+    /**
+     * If the <len> bytes starting at <offset> are all in one page, return that page,
+     * otherwise return null. This lets callers avoid copying bytes in the common case.
+     */
+    public byte[] getPage(long offset, int len) {
+        if ((offset & PAGE_MASK) + len <= PAGE_SIZE) {
+            return _pages[(int)(offset >> PAGE_SHIFT)];
+        } else {
+            return null;
+        }
+    }
+
+    public String getString(long offset, int len) {
+        try {
+            byte[] page = getPage(offset, len);
+            if (page != null) {
+                return new String(page, (int)(offset & PAGE_MASK), len, "UTF-8");
+            }
+
+            byte[] bytes = new byte[len];
+            getBytes(offset, bytes, 0, len);
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("Impossible missing charset exception", e);
+        }
+    }
+
+    /**
+     * Write out the first <length> bytes of the arena, as one contiguous block of data.
+     */
+    public void write(DataOutput out) throws IOException {
+        long remaining = _length;
+        for (int i = 0; remaining > 0; i++) {
+            int numToWrite = (int)Math.min(remaining, PAGE_SIZE);
+            out.write(_pages[i], 0, numToWrite);
+            remaining -= numToWrite;
+        }
+    }
+
+    /**
+     * Replace the contents of the arena with <length> bytes read from <in>.
+     */
+    public void readFields(DataInput in, long length) throws IOException {
+        clear();
+        ensureCapacity(length);
+
+        long remaining = length;
+        for (int i = 0; remaining > 0; i++) {
+            int numToRead = (int)Math.min(remaining, PAGE_SIZE);
+            in.readFully(_pages[i], 0, numToRead);
+            remaining -= numToRead;
+        }
+
+        _length = length;
+    }
+}
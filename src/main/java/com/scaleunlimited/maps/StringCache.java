@@ -0,0 +1,391 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * A cache of String key/value pairs, where the limit is the number of bytes used by the entries,
+ * versus the number of entries. This is what you want when the size of keys and values varies a
+ * lot (e.g. URLs), since an entry-count limit either wastes memory or risks running out of it.
+ *
+ * Entries are stored the same way as {@link StringMap} entries (null-terminated UTF-8 keys and
+ * values in a {@link StringArena}, with a {@link StringTable} slot table), so there are no per-entry
+ * objects, and evicting an entry doesn't create any garbage. New entries are always appended, so
+ * the string data is in insertion order.
+ *
+ * Eviction uses the CLOCK algorithm. A lookup that finds an entry sets its "referenced" flag (which
+ * we keep in an array that's parallel to the slots). When we need space, we look at the entry at
+ * the clock hand, which walks the string data from the oldest entry to the newest - if it's been
+ * referenced, we clear the flag and move it to the end (its second chance), otherwise we evict it.
+ * Either way its old bytes are dead, so everything before the clock hand is dead, and compacting
+ * the string data moves the hand back to the start.
+ *
+ * Entries bigger than a quarter of the cache aren't cached, so that one huge value can't flush most
+ * of the other entries.
+ *
+ * The byte limit is for live entry data. Evicted, updated and removed entries leave dead bytes
+ * in the string data until it's compacted (see {@link #setCompactionThreshold(float)}), and the
+ * slot table uses another 13 bytes per slot, with between 1.33 and 2.67 slots per entry.
+ *
+ * Like {@link StringMap}, this class isn't thread-safe.
+ */
+public class StringCache extends StringTable {
+
+    // Each entry has a null byte after the key, and another after the value.
+    static final int ENTRY_OVERHEAD = 2;
+
+    private static final int MAX_ENTRY_FRACTION = 4;
+
+    private final int _maxBytes;
+    private final int _maxEntryBytes;
+
+    private boolean[] _referenced;
+
+    // Offset in the string data of the next entry to look at when we need space. Everything
+    // before it is dead.
+    private long _clockOffset;
+
+    // Bytes used by live entries.
+    private long _usedBytes;
+
+    private byte[] _keyBuffer = new byte[64];
+    private byte[] _valueBuffer = new byte[64];
+    private byte[] _entryBuffer = new byte[64];
+
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+
+    /**
+     * @param maxBytes maximum number of bytes used by cache entries.
+     */
+    public StringCache(int maxBytes) {
+        if (maxBytes < ENTRY_OVERHEAD * MAX_ENTRY_FRACTION) {
+            throw new IllegalArgumentException("Max bytes must be >= " + (ENTRY_OVERHEAD * MAX_ENTRY_FRACTION));
+        }
+
+        _maxBytes = maxBytes;
+        _maxEntryBytes = maxBytes / MAX_ENTRY_FRACTION;
+        reset(false, DEFAULT_ENTRY_COUNT);
+    }
+
+    @Override
+    protected int getStringsPerEntry() {
+        return 2;
+    }
+
+    @Override
+    protected void slotsAllocated(int capacity) {
+        _referenced = new boolean[capacity];
+    }
+
+    @Override
+    protected void slotMoved(int fromSlot, int toSlot) {
+        _referenced[toSlot] = _referenced[fromSlot];
+    }
+
+    @Override
+    protected void slotsRehashed(int newCapacity, int[] newSlots) {
+        boolean[] referenced = new boolean[newCapacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] != -1) {
+                referenced[newSlots[i]] = _referenced[i];
+            }
+        }
+
+        _referenced = referenced;
+    }
+
+    @Override
+    protected void readSlotData(DataInput in, int capacity) throws IOException {
+        // We don't save the referenced flags, so all entries start out unreferenced.
+        _referenced = new boolean[capacity];
+    }
+
+    @Override
+    protected void readLegacyFields(DataInput in, boolean smallHash) throws IOException {
+        throw new IOException("StringCache doesn't support the older serialization format");
+    }
+
+    /**
+     * Read in the entries, evicting the oldest ones if they don't all fit.
+     */
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        super.readFields(in);
+
+        _usedBytes = _stringData.length() - _deadBytes;
+        _clockOffset = 0;
+        makeRoom(0);
+    }
+
+    public int getMaxBytes() {
+        return _maxBytes;
+    }
+
+    /**
+     * @return number of bytes used by entries.
+     */
+    public int getUsedBytes() {
+        return (int)_usedBytes;
+    }
+
+    public long getHitCount() {
+        return _hitCount;
+    }
+
+    public long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * @return number of entries that have been evicted to make room for new entries. This doesn't
+     * include entries that were updated or removed.
+     */
+    public long getEvictionCount() {
+        return _evictionCount;
+    }
+
+    /**
+     * @return fraction of lookups (since the last {@link #resetStats()}) that found an entry, or 0.0
+     * if there haven't been any lookups.
+     */
+    public double getHitRate() {
+        long lookups = _hitCount + _missCount;
+        return (lookups == 0) ? 0.0 : (double)_hitCount / lookups;
+    }
+
+    public void resetStats() {
+        _hitCount = 0;
+        _missCount = 0;
+        _evictionCount = 0;
+    }
+
+    /**
+     * Remove all entries. This doesn't reset the stats.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+
+        _usedBytes = 0;
+        _clockOffset = 0;
+    }
+
+    @Override
+    public void compact() {
+        super.compact();
+
+        // Everything before the clock hand was dead, so now it's at the start.
+        _clockOffset = 0;
+    }
+
+    /**
+     * @return the value for <key>, or null if it's not in the cache. This counts as a reference
+     * to the entry, so it's less likely to be evicted.
+     */
+    public String get(CharSequence key) {
+        if (key == null) {
+            return null;
+        }
+
+        int slot = lookup(findSlot(key, hash(key)));
+        return (slot < 0) ? null : getValue(slot);
+    }
+
+    /**
+     * Same as {@link #get(CharSequence)}, for the key with UTF-8 bytes <keyBytes>, starting at
+     * <offset> and continuing for <length> bytes.
+     */
+    public String get(byte[] keyBytes, int offset, int length) {
+        int slot = lookup(findSlot(keyBytes, offset, length, hash(keyBytes, offset, length)));
+        return (slot < 0) ? null : getValue(slot);
+    }
+
+    /**
+     * @return true if <key> is in the cache. Like {@link #get(CharSequence)}, this counts as a
+     * reference to the entry.
+     */
+    public boolean containsKey(CharSequence key) {
+        if (key == null) {
+            return false;
+        }
+
+        return lookup(findSlot(key, hash(key))) >= 0;
+    }
+
+    public boolean containsKey(byte[] keyBytes, int offset, int length) {
+        return lookup(findSlot(keyBytes, offset, length, hash(keyBytes, offset, length))) >= 0;
+    }
+
+    /**
+     * Add (or replace) the entry for <key>, evicting other entries as needed to make room.
+     *
+     * @return true if the entry was cached, or false if it was too big (in which case any existing
+     * entry for <key> has been removed).
+     */
+    public boolean put(CharSequence key, CharSequence value) {
+        if ((key == null) || (value == null)) {
+            throw new IllegalArgumentException("Key and value can't be null");
+        }
+
+        _keyBuffer = ensureCapacity(_keyBuffer, key.length());
+        int keyLen = encode(key, _keyBuffer);
+        _valueBuffer = ensureCapacity(_valueBuffer, value.length());
+        int valueLen = encode(value, _valueBuffer);
+        return put(_keyBuffer, 0, keyLen, _valueBuffer, 0, valueLen);
+    }
+
+    /**
+     * Same as {@link #put(CharSequence, CharSequence)}, for a key and value that are already UTF-8 bytes.
+     */
+    public boolean put(byte[] keyBytes, int keyOffset, int keyLen, byte[] valueBytes, int valueOffset, int valueLen) {
+        int hash = hash(keyBytes, keyOffset, keyLen);
+        int slot = findSlot(keyBytes, keyOffset, keyLen, hash);
+        if (slot >= 0) {
+            killEntry(slot);
+        }
+
+        long entryLen = (long)ENTRY_OVERHEAD + keyLen + valueLen;
+        if (entryLen > _maxEntryBytes) {
+            return false;
+        }
+
+        // Making room can remove or move other entries (which changes the slot table), so we have to
+        // do that before finding the slot for the new entry.
+        makeRoom((int)entryLen);
+
+        int insertionSlot = -findSlot(keyBytes, keyOffset, keyLen, hash) - 1;
+        _referenced[insertionSlot] = false;
+        long offset = _stringData.appendString(keyBytes, keyOffset, keyLen);
+        _stringData.appendString(valueBytes, valueOffset, valueLen);
+        _usedBytes += entryLen;
+        addSlot(insertionSlot, hash, offset);
+        return true;
+    }
+
+    /**
+     * @return true if there was an entry for <key>.
+     */
+    public boolean remove(CharSequence key) {
+        if (key == null) {
+            return false;
+        }
+
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+
+        killEntry(slot);
+        return true;
+    }
+
+    /**
+     * Update the hit/miss counts for a lookup that returned <slot>, and set the entry's referenced flag.
+     *
+     * @return <slot>
+     */
+    private int lookup(int slot) {
+        if (slot < 0) {
+            _missCount += 1;
+        } else {
+            _hitCount += 1;
+            _referenced[slot] = true;
+        }
+
+        return slot;
+    }
+
+    private String getValue(int slot) {
+        long valueOffset = getSlotOffset(slot) + _stringData.calcStringLength(getSlotOffset(slot)) + 1;
+        return _stringData.getString(valueOffset, _stringData.calcStringLength(valueOffset));
+    }
+
+    /**
+     * Zero out the data for the entry in <slot>, and remove its slot. The bytes get reclaimed when
+     * the string data is compacted.
+     */
+    private void killEntry(int slot) {
+        long offset = getSlotOffset(slot);
+        long entryLen = getEntryLength(offset);
+        _stringData.clear(offset, offset + entryLen);
+        _usedBytes -= entryLen;
+        removeSlot(slot);
+        addDeadBytes(entryLen);
+    }
+
+    /**
+     * Evict (or move) entries at the clock hand until there's room for <numBytes> more bytes of
+     * entry data. A referenced entry that's moved to the end of the string data won't get back to
+     * the clock hand until every other entry has been looked at, so this always terminates.
+     */
+    private void makeRoom(int numBytes) {
+        while (_usedBytes + numBytes > _maxBytes) {
+            long offset = findNextEntry(_clockOffset, getEmptyKeyOffset());
+            int keyLen = _stringData.calcStringLength(offset);
+            int slot = findSlot(offset, keyLen, hashStringData(offset, keyLen));
+            int entryLen = (int)getEntryLength(offset);
+
+            // Move the hand before we add dead bytes, since that can trigger a compaction (which
+            // resets the hand).
+            _clockOffset = offset + entryLen;
+
+            if (_referenced[slot]) {
+                _referenced[slot] = false;
+                if (_entryBuffer.length < entryLen) {
+                    _entryBuffer = new byte[Math.max(entryLen, _entryBuffer.length * 2)];
+                }
+
+                _stringData.getBytes(offset, _entryBuffer, 0, entryLen);
+                _stringData.clear(offset, offset + entryLen);
+                setSlotOffset(slot, _stringData.appendBytes(_entryBuffer, 0, entryLen));
+                addDeadBytes(entryLen);
+            } else {
+                killEntry(slot);
+                _evictionCount += 1;
+            }
+        }
+    }
+
+    /**
+     * @return <buffer>, or a bigger one if it can't hold the UTF-8 bytes for <numChars> chars.
+     */
+    private static byte[] ensureCapacity(byte[] buffer, int numChars) {
+        // Worst case is three bytes per char (a surrogate pair is four bytes for two chars).
+        int maxBytes = numChars * 3;
+        if (buffer.length >= maxBytes) {
+            return buffer;
+        }
+
+        return new byte[Math.max(maxBytes, buffer.length * 2)];
+    }
+
+    /**
+     * Encode <s> as UTF-8 into <buffer>, which must be big enough (see {@link #ensureCapacity(byte[], int)}).
+     *
+     * @return number of bytes.
+     */
+    private static int encode(CharSequence s, byte[] buffer) {
+        int result = 0;
+        int len = s.length();
+        for (int i = 0; i < len; ) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[result++] = (byte)c;
+                i += 1;
+            } else {
+                int encoded = HashUtils.encodeUTF8(s, i);
+                int numBytes = HashUtils.getUTF8ByteCount(encoded);
+                for (int j = 0; j < numBytes; j++) {
+                    buffer[result++] = (byte)encoded;
+                    encoded >>>= 8;
+                }
+
+                i += HashUtils.getCharCount(numBytes);
+            }
+        }
+
+        return result;
+    }
+}
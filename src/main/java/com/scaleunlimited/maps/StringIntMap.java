@@ -0,0 +1,223 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * A map from String keys to int values, which stores the UTF-8 bytes of the keys in a paged byte
+ * array (like {@link StringMap}), and the values in an int array that's parallel to the hash table's
+ * slots. So there are no per-entry objects, and no boxing of values. This makes it a good fit for
+ * things like counting terms, via {@link #addTo(CharSequence, int)}.
+ * 
+ * Like fastutil maps, methods that return a value return the "default return value" (initially 0)
+ * when there's no entry for the key.
+ */
+public class StringIntMap extends StringTable implements Writable {
+
+    private int[] _values;
+    private int _defaultReturnValue;
+    
+    public StringIntMap() {
+        this(false);
+    }
+
+    public StringIntMap(boolean smallHash) {
+        reset(smallHash, DEFAULT_ENTRY_COUNT);
+    }
+    
+    public int defaultReturnValue() {
+        return _defaultReturnValue;
+    }
+    
+    public void defaultReturnValue(int defaultReturnValue) {
+        _defaultReturnValue = defaultReturnValue;
+    }
+    
+    @Override
+    protected int getStringsPerEntry() {
+        return 1;
+    }
+    
+    @Override
+    protected void slotsAllocated(int capacity) {
+        _values = new int[capacity];
+    }
+    
+    @Override
+    protected void slotMoved(int fromSlot, int toSlot) {
+        _values[toSlot] = _values[fromSlot];
+    }
+    
+    @Override
+    protected void slotsRehashed(int newCapacity, int[] newSlots) {
+        int[] values = new int[newCapacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] != -1) {
+                values[newSlots[i]] = _values[i];
+            }
+        }
+        
+        _values = values;
+    }
+    
+    @Override
+    protected void writeSlotData(DataOutput out) throws IOException {
+        DataUtils.writeInts(out, _values, 0, _values.length);
+    }
+    
+    @Override
+    protected void readSlotData(DataInput in, int capacity) throws IOException {
+        _values = new int[capacity];
+        DataUtils.readInts(in, _values, 0, capacity);
+    }
+    
+    @Override
+    protected void readLegacyFields(DataInput in, boolean smallHash) throws IOException {
+        throw new IOException("StringIntMap doesn't support the older serialization format");
+    }
+    
+    public boolean containsKey(CharSequence key) {
+        return findSlot(key, hash(key)) >= 0;
+    }
+    
+    public boolean containsKey(byte[] keyBytes, int offset, int length) {
+        return findSlot(keyBytes, offset, length, hash(keyBytes, offset, length)) >= 0;
+    }
+    
+    public int get(CharSequence key) {
+        int slot = findSlot(key, hash(key));
+        return (slot < 0) ? _defaultReturnValue : _values[slot];
+    }
+    
+    public int get(byte[] keyBytes, int offset, int length) {
+        int slot = findSlot(keyBytes, offset, length, hash(keyBytes, offset, length));
+        return (slot < 0) ? _defaultReturnValue : _values[slot];
+    }
+    
+    /**
+     * Set the value for <key>.
+     * 
+     * @return the previous value, or the default return value if there wasn't one.
+     */
+    public int put(CharSequence key, int value) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            int result = _values[slot];
+            _values[slot] = value;
+            return result;
+        }
+        
+        // Set the value before adding the slot, since that can trigger a rehash.
+        int insertionSlot = -slot - 1;
+        _values[insertionSlot] = value;
+        addSlot(insertionSlot, hash, _stringData.appendString(key));
+        return _defaultReturnValue;
+    }
+    
+    /**
+     * Add <delta> to the value for <key>. If there's no entry for the key, it's added with
+     * the default return value plus <delta>.
+     * 
+     * @return the previous value, or the default return value if there wasn't one.
+     */
+    public int addTo(CharSequence key, int delta) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            int result = _values[slot];
+            _values[slot] += delta;
+            return result;
+        }
+        
+        int insertionSlot = -slot - 1;
+        _values[insertionSlot] = _defaultReturnValue + delta;
+        addSlot(insertionSlot, hash, _stringData.appendString(key));
+        return _defaultReturnValue;
+    }
+    
+    /**
+     * Remove the entry for <key>.
+     * 
+     * @return the removed value, or the default return value if there was no entry.
+     */
+    public int remove(CharSequence key) {
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return _defaultReturnValue;
+        }
+        
+        int result = _values[slot];
+        
+        // Zero out the key, so we don't re-add it when we de-serialize things.
+        long keyOffset = getSlotOffset(slot);
+        int keyLen = _stringData.calcStringLength(keyOffset);
+        _stringData.clear(keyOffset, keyOffset + keyLen);
+        removeSlot(slot);
+        addDeadBytes(keyLen + 1);
+        return result;
+    }
+    
+    /**
+     * @return a new cursor, positioned before the first entry.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Walks the entries in the map, in hash table order. The map can't be modified while
+     * a cursor is being used, other than by changing values via {@link #setValue(int)}.
+     */
+    public final class Cursor {
+        
+        private final int _expectedModCount = _modCount;
+        private int _nextSlot = 0;
+        private int _slot = -1;
+        
+        private Cursor() {
+        }
+        
+        /**
+         * Move to the next entry.
+         * 
+         * @return true if there was another entry, false if we're done.
+         */
+        public boolean next() {
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            
+            _slot = (_nextSlot == -1) ? -1 : findNextSlot(_nextSlot);
+            _nextSlot = (_slot == -1) ? -1 : _slot + 1;
+            return _slot != -1;
+        }
+        
+        public String getKey() {
+            long offset = getOffset();
+            return _stringData.getString(offset, _stringData.calcStringLength(offset));
+        }
+        
+        public int getValue() {
+            getOffset();
+            return _values[_slot];
+        }
+        
+        public void setValue(int value) {
+            getOffset();
+            _values[_slot] = value;
+        }
+        
+        private long getOffset() {
+            if (_slot == -1) {
+                throw new IllegalStateException("Cursor isn't positioned on an entry");
+            }
+            
+            return getSlotOffset(_slot);
+        }
+    }
+}
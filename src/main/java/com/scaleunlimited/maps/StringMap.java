@@ -1,385 +1,550 @@
 package com.scaleunlimited.maps;
 
-import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
-
 import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.hadoop.io.Writable;
 
 /**
- * A Map<String, String> that uses fastutil for native type->native type mapping, and a byte array for
- * storing the UTF-8 bytes for key/value pairs. This makes it much more efficient for storing lots of
+ * A Map<String, String> that uses an open-addressing hash table of offsets into a paged byte array, which
+ * stores the UTF-8 bytes for key/value pairs. This makes it much more efficient for storing lots of
  * small strings, and it's very fast to serialize/deserialize.
  *
+ * The keySet(), values() and entrySet() views (and a {@link Cursor}) walk the entries in the order that
+ * they're stored, which is roughly insertion order. Entries returned by entrySet() don't support setValue().
  */
-public class StringMap implements Map<String, String>, Writable {
-
-    // Value returned by fastutil when we request an int that doesn't exist.
-    private static final int MISSING_HASH_VALUE = -1;
+public class StringMap extends StringTable implements Map<String, String>, Writable {
 
-    private static final int DEFAULT_ENTRY_COUNT = 1000;
-    private static final int STRING_DATA_BLOCKSIZE = 64 * 1024;
-    
-    // FUTURE have multiple stringData arrays, each up to a max size, and determine which one via offset % block size.
-    //        That would avoid having one gigantic block of memory that we're expanding (and copying to).
-    // FUTURE do in-place put if new key/value fit where old key/value was located.
-    // FUTURE make it more efficient by skipping conversion of string to byte array, unless the key contains a
-    //        character > 0x7F (which means it's not something that fits in one byte in UTF-8)
-    // FUTURE track empty space in data array due to removal/put that has to move. If it gets too big relative to
-    //        total file size, do a compaction. Walk data, generate up to say 10K offset/shift values (where shift
-    //        keeps increasing) - move the data as we do this. Then walk the map, and do binary search into offsets,
-    //        adjusting value by shift amount.
-    
-    private Int2IntOpenHashMap _hashToOffsets;
-    private Map<String, String> _collisionMap;
-    private byte[] _stringData;
-    private int _curStringOffset;
-    private boolean _smallHash; // for testing
-    
     public StringMap() {
         this(false);
     }
 
     public StringMap(boolean smallHash) {
-        reset(smallHash, DEFAULT_ENTRY_COUNT, 0, STRING_DATA_BLOCKSIZE);
-    }
-    
-    private void reset(boolean smallHash, int numHashEntries, int numCollisionEntries, int stringDataSize) {
-        _smallHash = smallHash;
-        
-        _hashToOffsets = new Int2IntOpenHashMap(numHashEntries);
-        _hashToOffsets.defaultReturnValue(MISSING_HASH_VALUE);
-        _collisionMap = new HashMap<String, String>(numCollisionEntries);
-        
-        // The key and value strings are stored as null-termianted UTF-8 bytes
-        _stringData = new byte[stringDataSize];
-        _curStringOffset = 0;
+        reset(smallHash, DEFAULT_ENTRY_COUNT);
     }
     
     @Override
-    public void readFields(DataInput in) throws IOException {
-        boolean smallHash = in.readBoolean();
-        int numHashEntries = in.readInt();
-        int numCollisionEntries = in.readInt();
-        int stringDataSize = in.readInt();
-        
-        reset(smallHash, numHashEntries, numCollisionEntries, stringDataSize);
-        
-        in.readFully(_stringData, 0, stringDataSize);
-        
-        // Now we have to rebuild the hash table from the data in _stringData.
-        for (; _curStringOffset < stringDataSize; ) {
-            int keyLen = calcStringLength(_curStringOffset);
-            if (keyLen > 0) {
-                // only process strings we haven't deleted
-                int hash = hash(_stringData, _curStringOffset, keyLen);
-                int oldOffset = _hashToOffsets.put(hash, _curStringOffset);
-                if (oldOffset != MISSING_HASH_VALUE) {
-                    throw new IOException("Data corruption - hash already exists!");
-                }
-                
-                _curStringOffset += (keyLen + 1);
-
-                // Skip over the value
-                int valueLen = calcStringLength(_curStringOffset);
-                _curStringOffset += (valueLen + 1);
-            } else {
-                _curStringOffset += 1;
-            }
-        }
-        
-        // Now read in the collision values. For each, make sure we already have a
-        // hash entry, otherwise it's an error.
-        for (int i = 0; i < numCollisionEntries; i++) {
-            String key = in.readUTF();
-            String value = in.readUTF();
-            
-            int hash = hash(key);
-            if (!_hashToOffsets.containsKey(hash)) {
-                throw new IOException("Data corruption - collision entry doesn't exist in hash!");
-            }
-            
-            if (_collisionMap.put(key, value) != null) {
-                throw new IOException("Data corruption - collision entry already exists!");
-            }
-        }
-    }
+    protected void readLegacyCollisionEntry(DataInput in) throws IOException {
+        String key = in.readUTF();
+        String value = in.readUTF();
 
-    @Override
-    public void write(DataOutput out) throws IOException {
-        out.writeBoolean(_smallHash);
-        out.writeInt(_hashToOffsets.size());
-        out.writeInt(_collisionMap.size());
-        
-        // Write out the key & value data info. We can e-build the hash table from
-        // this array.
-        out.writeInt(_curStringOffset);
-        out.write(_stringData, 0, _curStringOffset);
-
-        // Write out the entries we've saved in the collision set.
-        for (Entry<String, String> entry : _collisionMap.entrySet()) {
-            out.writeUTF(entry.getKey());
-            out.writeUTF(entry.getValue());
+        if (put(key, value) != null) {
+            throw new IOException("Data corruption - collision entry already exists!");
         }
     }
 
-    private int calcStringLength(int startingOffset) {
-        int curOffset = startingOffset;
-        while (_stringData[curOffset] != 0) {
-            curOffset += 1;
-        }
-        
-        return curOffset - startingOffset;
-    }
-    
-    private String getValueString(int valueOffset, int valueLen) {
-        try {
-            return new String(_stringData, valueOffset, valueLen, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Impossible missing charset exception", e);
-        }
-    }
-    
     /**
-     * Generate a 32-bit JOAAT hash from the bytes of <phrase>
+     * Generate a 32-bit hash from the bytes of <phrase>
      * 
      * @param phrase String to hash
      * @return 32-bit hash
      */
     public int hash(String phrase) {
-        int result = HashUtils.getIntHash(phrase);
-        
-        if (_smallHash) {
-            // only generate 256 unique hash values, for testing.
-            result = result & 0x0FF;
-        }
-        
-        return result;
+        byte[] bytes = HashUtils.getUTF8Bytes(phrase);
+        return hash(bytes, 0, bytes.length);
     }
     
-    private int hash(byte[] b, int offset, int length) {
-        int result = HashUtils.getIntHash(b, offset, length);
-        
-        if (_smallHash) {
-            // only generate 256 unique hash values, for testing.
-            result = result & 0x0FF;
-        }
-        
-        return result;
+    private String getValue(int slot, int keyLen) {
+        long valueOffset = getSlotOffset(slot) + keyLen + 1;
+        int valueLen = _stringData.calcStringLength(valueOffset);
+        return _stringData.getString(valueOffset, valueLen);
     }
     
-    @Override
-    public int size() {
-        return _hashToOffsets.size() + _collisionMap.size();
+    private long appendEntry(byte[] keyBytes, byte[] valueBytes) {
+        long result = _stringData.appendString(keyBytes);
+        _stringData.appendString(valueBytes);
+        return result;
     }
-
-    @Override
-    public boolean isEmpty() {
-        return _hashToOffsets.isEmpty() && _collisionMap.isEmpty();
+    
+    /**
+     * Zero out the key/value data for the entry at <slot>, so that we don't re-add it
+     * when we de-serialize things.
+     * 
+     * @return number of bytes cleared.
+     */
+    private long clearEntryData(int slot, int keyLen) {
+        long keyOffset = getSlotOffset(slot);
+        long valueOffset = keyOffset + keyLen + 1;
+        int valueLen = _stringData.calcStringLength(valueOffset);
+        long endOffset = valueOffset + valueLen + 1;
+        _stringData.clear(keyOffset, endOffset);
+        return endOffset - keyOffset;
     }
-
+    
     @Override
     public String remove(Object key) {
         if (key instanceof String) {
-            String collisionValue = _collisionMap.remove(key);
-            if (collisionValue != null) {
-                return collisionValue;
-            } else {
-                // FUTURE set up to reclaim space in string data block.
-                // We'd want to save the offset somewhere
-                int hash = hash((String)key);
-                int keyOffset = _hashToOffsets.remove(hash);
-                if (keyOffset != MISSING_HASH_VALUE) {
-                    // We need to clear out the entry so we don't re-add it as a string
-                    // when we de-serialize things.
-                    int keyLen = calcStringLength(keyOffset);
-                    
-                    int valueOffset = keyOffset + keyLen + 1;
-                    int valueLen = calcStringLength(valueOffset);
-                    String result = getValueString(valueOffset, valueLen);
-                    Arrays.fill(_stringData, keyOffset, keyOffset + keyLen + 1 + valueLen + 1, (byte)0);
-                    return result;
-                } else {
-                    return null;
-                }
+            byte[] keyBytes = HashUtils.getUTF8Bytes((String)key);
+            int slot = findSlot(keyBytes, hash(keyBytes, 0, keyBytes.length));
+            if (slot < 0) {
+                return null;
             }
+            
+            String result = getValue(slot, keyBytes.length);
+            long numCleared = clearEntryData(slot, keyBytes.length);
+            removeSlot(slot);
+            addDeadBytes(numCleared);
+            return result;
         } else {
             return null;
         }
     }
     
-    @Override
-    public void clear() {
-        _hashToOffsets.clear();
-        _collisionMap.clear();
-        
-        // Decrease size of byte arrays
-        if (_stringData.length > STRING_DATA_BLOCKSIZE) {
-            _stringData = new byte[STRING_DATA_BLOCKSIZE];
-        }
-        
-        _curStringOffset = 0;
-    }
-
     @Override
     public boolean containsKey(Object key) {
         if (key instanceof String) {
-            int hash = hash((String)key);
-            int keyOffset = _hashToOffsets.get(hash);
-            if (keyOffset == MISSING_HASH_VALUE) {
-                return false;
-            }
-            
-            // We might have a match...need to see if the actual string matches our stored bytes.
-            // If not, then we check the collision set.
-            byte[] stringBytes = HashUtils.getUTF8Bytes((String)key);
-            boolean matches = true;
-            for (int i = 0; (i < stringBytes.length) && matches; i++) {
-                if (stringBytes[i] != _stringData[keyOffset + i]) {
-                    matches = false;
-                }
-            }
-            
-            // If it matched all of the string bytes, make sure we've got our terminating null byte.
-            matches = matches && _stringData[keyOffset + stringBytes.length] == 0;
-            
-            // If it didn't match, see if it's in the collision set.
-            return(matches || _collisionMap.containsKey((String)key));
+            return containsKey((CharSequence)key);
         } else {
             return false;
         }
     }
 
-    @Override
-    public boolean containsValue(Object value) {
-        throw new UnsupportedOperationException("Not yet implemented");
+    /**
+     * Same as {@link #containsKey(Object)}, but without creating a byte array for the key.
+     */
+    public boolean containsKey(CharSequence key) {
+        return (key != null) && (findSlot(key, hash(key)) >= 0);
+    }
+    
+    /**
+     * Check whether there's an entry for the key with UTF-8 bytes <keyBytes>, starting at
+     * <offset> and continuing for <length> bytes.
+     */
+    public boolean containsKey(byte[] keyBytes, int offset, int length) {
+        return findSlot(keyBytes, offset, length, hash(keyBytes, offset, length)) >= 0;
     }
 
     @Override
-    public String get(Object key) {
-        // See if we have it in the collision map.
-        String result = _collisionMap.get(key);
-        if (result != null) {
-            return result;
+    public boolean containsValue(Object value) {
+        if (!(value instanceof String)) {
+            return false;
         }
         
-        // TODO use common code to return either MISSING_HASH_VALUE,
-        // or the long offsets value if we have the key.
-        int hash = hash((String)key);
-        int keyOffset = _hashToOffsets.get(hash);
-        if (keyOffset == MISSING_HASH_VALUE) {
-            return null;
-        }
-
-        byte[] stringBytes = HashUtils.getUTF8Bytes((String)key);
-        boolean matches = true;
-        for (int i = 0; (i < stringBytes.length) && matches; i++) {
-            if (stringBytes[i] != _stringData[keyOffset + i]) {
-                matches = false;
+        byte[] valueBytes = HashUtils.getUTF8Bytes((String)value);
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            if ((cursor.getValueLength() == valueBytes.length) && _stringData.stringMatches(cursor._valueOffset, valueBytes, 0, valueBytes.length)) {
+                return true;
             }
         }
         
-        // If it matched all of the string bytes, make sure we've got our terminating null byte.a
-        matches = matches && _stringData[keyOffset + stringBytes.length] == 0;
-        
-        if (matches) {
-            int keyLen = stringBytes.length;
-            int valueOffset = keyOffset + keyLen + 1;
-            int valueLen = calcStringLength(valueOffset);
-            return getValueString(valueOffset, valueLen);
+        return false;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (key instanceof String) {
+            return get((CharSequence)key);
         } else {
-            return _collisionMap.get(key);
+            return null;
         }
     }
 
-    private boolean keyInHash(String key) {
-        int hash = hash(key);
-        int keyOffset = _hashToOffsets.get(hash);
-        if (keyOffset == MISSING_HASH_VALUE) {
-            return false;
+    /**
+     * Same as {@link #get(Object)}, but without creating a byte array for the key.
+     */
+    public String get(CharSequence key) {
+        if (key == null) {
+            return null;
         }
-
-        byte[] stringBytes = HashUtils.getUTF8Bytes(key);
-        boolean matches = true;
-        for (int i = 0; (i < stringBytes.length) && matches; i++) {
-            if (stringBytes[i] != _stringData[keyOffset + i]) {
-                matches = false;
-            }
+        
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
         }
         
-        // If it matched all of the string bytes, make sure we've got our terminating null byte.a
-        matches = matches && _stringData[keyOffset + stringBytes.length] == 0;
-        return matches;
+        return getValue(slot, _stringData.calcStringLength(getSlotOffset(slot)));
+    }
+    
+    /**
+     * Get the value for the key with UTF-8 bytes <keyBytes>, starting at <offset> and
+     * continuing for <length> bytes.
+     */
+    public String get(byte[] keyBytes, int offset, int length) {
+        int slot = findSlot(keyBytes, offset, length, hash(keyBytes, offset, length));
+        if (slot < 0) {
+            return null;
+        }
+        
+        return getValue(slot, length);
+    }
+
+    @Override
+    protected int getStringsPerEntry() {
+        // Key and value
+        return 2;
     }
     
     @Override
     public String put(String key, String value) {
-        int hash = hash(key);
-        int keyOffset = _hashToOffsets.get(hash);
-        if (keyOffset == MISSING_HASH_VALUE) {
-            // We need to add it to the array and the hash set
-            byte[] keyBytes = HashUtils.getUTF8Bytes(key);
-            byte[] valueBytes = HashUtils.getUTF8Bytes(value);
-            
-            // Make sure we have enough space in the array.
-            int endOffset = _curStringOffset + keyBytes.length + 1 + valueBytes.length + 1;
-            if (endOffset > _stringData.length) {
-                byte[] newData = new byte[endOffset + STRING_DATA_BLOCKSIZE];
-                System.arraycopy(_stringData, 0, newData, 0, _curStringOffset);
-                _stringData = newData;
-            }
-            
-            _hashToOffsets.put(hash, _curStringOffset);
-
-            System.arraycopy(keyBytes, 0, _stringData, _curStringOffset, keyBytes.length);
-            _curStringOffset += keyBytes.length;
-            _stringData[_curStringOffset++] = 0;
+        byte[] keyBytes = HashUtils.getUTF8Bytes(key);
+        byte[] valueBytes = HashUtils.getUTF8Bytes(value);
+        int hash = hash(keyBytes, 0, keyBytes.length);
+        int slot = findSlot(keyBytes, hash);
+        
+        if (slot < 0) {
+            // We need to add it to the array and the hash table
+            addSlot(-slot - 1, hash, appendEntry(keyBytes, valueBytes));
             
-            System.arraycopy(valueBytes, 0, _stringData, _curStringOffset, valueBytes.length);
-            _curStringOffset += valueBytes.length;
-            _stringData[_curStringOffset++] = 0;
-
             // There was no previous value.
             return null;
-        } else if (keyInHash(key)) {
-            // We're updating something that's in our hash. For now, just remove it and re-add it.
-            // FUTURE if new value length <= old value length, insert in-place and zero out the
-            // remaining data.
-            String result = remove(key);
-            put(key, value);
-            return result;
+        }
+        
+        // We're updating an existing entry. If the new value fits where the old value
+        // is located, overwrite it and zero out any remaining bytes. Otherwise clear the
+        // old data and append the new key/value to the end of our string data.
+        long valueOffset = getSlotOffset(slot) + keyBytes.length + 1;
+        int oldValueLen = _stringData.calcStringLength(valueOffset);
+        String result = _stringData.getString(valueOffset, oldValueLen);
+        
+        if (valueBytes.length <= oldValueLen) {
+            _stringData.setBytes(valueOffset, valueBytes, 0, valueBytes.length);
+            _stringData.clear(valueOffset + valueBytes.length, valueOffset + oldValueLen);
+            addDeadBytes(oldValueLen - valueBytes.length);
         } else {
-            // We're adding a collision entry, or updating one that already exists.
-            return _collisionMap.put(key, value);
+            long numCleared = clearEntryData(slot, keyBytes.length);
+            setSlotOffset(slot, appendEntry(keyBytes, valueBytes));
+            addDeadBytes(numCleared);
         }
+        
+        return result;
     }
 
     @Override
     public void putAll(Map<? extends String, ? extends String> m) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        for (Map.Entry<? extends String, ? extends String> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
     }
 
     @Override
     public Set<String> keySet() {
-        throw new UnsupportedOperationException("Not yet implemented");
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new ViewIterator<String>() {
+
+                    @Override
+                    protected String get(Cursor cursor) {
+                        return cursor.getKey();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return StringMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return StringMap.this.remove(o) != null;
+            }
+
+            @Override
+            public void clear() {
+                StringMap.this.clear();
+            }
+        };
     }
 
     @Override
     public Collection<String> values() {
-        throw new UnsupportedOperationException("Not yet implemented");
+        return new AbstractCollection<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new ViewIterator<String>() {
+
+                    @Override
+                    protected String get(Cursor cursor) {
+                        return cursor.getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return StringMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsValue(o);
+            }
+
+            @Override
+            public void clear() {
+                StringMap.this.clear();
+            }
+        };
     }
 
     @Override
-    public Set<java.util.Map.Entry<String, String>> entrySet() {
-        throw new UnsupportedOperationException("Not yet implemented");
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new ViewIterator<Map.Entry<String, String>>() {
+
+                    @Override
+                    protected Map.Entry<String, String> get(Cursor cursor) {
+                        return new AbstractMap.SimpleImmutableEntry<String, String>(cursor.getKey(), cursor.getValue());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return StringMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+                
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+                String value = get(entry.getKey());
+                return (value != null) && value.equals(entry.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (contains(o)) {
+                    StringMap.this.remove(((Map.Entry<?, ?>)o).getKey());
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+
+            @Override
+            public void clear() {
+                StringMap.this.clear();
+            }
+        };
     }
 
+    /**
+     * @return a new cursor, positioned before the first entry.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Create an immutable copy of this map, which uses a minimal perfect hash for lookups. This
+     * map isn't changed, so it can be cleared (or discarded) after being frozen.
+     */
+    public FrozenStringMap freeze() {
+        return new FrozenStringMap(this);
+    }
+
+    /**
+     * Walks the entries in the map, in the order they're stored in the string data. The key
+     * and value are available as slices of a byte array (UTF-8 bytes), which is one of the
+     * pages of string data unless the bytes span pages, in which case they're copied into
+     * a buffer owned by the cursor. Either way, no Strings are created, and the arrays must
+     * not be modified, and are only valid until the next call to next().
+     * 
+     * The map can't be modified while a cursor is being used, other than via {@link #remove()}.
+     */
+    public final class Cursor {
+        
+        private final long _emptyKeyOffset;
+        private int _expectedModCount;
+        
+        private long _nextOffset;
+        private long _peekOffset;
+        
+        private long _keyOffset;
+        private int _keyLength;
+        private long _valueOffset;
+        private int _valueLength;
+        
+        private byte[] _keyBytes;
+        private int _keyBytesOffset;
+        private byte[] _keyBuffer = new byte[0];
+        private byte[] _valueBytes;
+        private int _valueBytesOffset;
+        private byte[] _valueBuffer = new byte[0];
+        
+        private Cursor() {
+            _emptyKeyOffset = getEmptyKeyOffset();
+            _expectedModCount = _modCount;
+            _nextOffset = 0;
+            _peekOffset = -1;
+            _keyOffset = -1;
+        }
+        
+        public boolean hasNext() {
+            checkForComodification();
+            
+            if (_peekOffset == -1) {
+                _peekOffset = findNextEntry(_nextOffset, _emptyKeyOffset);
+            }
+            
+            return _peekOffset != -1;
+        }
+        
+        /**
+         * Move to the next entry.
+         * 
+         * @return true if there was another entry, false if we're done.
+         */
+        public boolean next() {
+            if (!hasNext()) {
+                _keyOffset = -1;
+                return false;
+            }
+            
+            _keyOffset = _peekOffset;
+            _keyLength = _stringData.calcStringLength(_keyOffset);
+            _valueOffset = _keyOffset + _keyLength + 1;
+            _valueLength = _stringData.calcStringLength(_valueOffset);
+            _nextOffset = _valueOffset + _valueLength + 1;
+            _peekOffset = -1;
+            
+            _keyBytes = _stringData.getPage(_keyOffset, _keyLength);
+            if (_keyBytes != null) {
+                _keyBytesOffset = (int)(_keyOffset & StringArena.PAGE_MASK);
+            } else {
+                if (_keyBuffer.length < _keyLength) {
+                    _keyBuffer = new byte[_keyLength];
+                }
+                
+                _stringData.getBytes(_keyOffset, _keyBuffer, 0, _keyLength);
+                _keyBytes = _keyBuffer;
+                _keyBytesOffset = 0;
+            }
+            
+            _valueBytes = _stringData.getPage(_valueOffset, _valueLength);
+            if (_valueBytes != null) {
+                _valueBytesOffset = (int)(_valueOffset & StringArena.PAGE_MASK);
+            } else {
+                if (_valueBuffer.length < _valueLength) {
+                    _valueBuffer = new byte[_valueLength];
+                }
+                
+                _stringData.getBytes(_valueOffset, _valueBuffer, 0, _valueLength);
+                _valueBytes = _valueBuffer;
+                _valueBytesOffset = 0;
+            }
+            
+            return true;
+        }
+        
+        public byte[] getKeyBytes() {
+            checkCurrent();
+            return _keyBytes;
+        }
+        
+        public int getKeyOffset() {
+            checkCurrent();
+            return _keyBytesOffset;
+        }
+        
+        public int getKeyLength() {
+            checkCurrent();
+            return _keyLength;
+        }
+        
+        public byte[] getValueBytes() {
+            checkCurrent();
+            return _valueBytes;
+        }
+        
+        public int getValueOffset() {
+            checkCurrent();
+            return _valueBytesOffset;
+        }
+        
+        public int getValueLength() {
+            checkCurrent();
+            return _valueLength;
+        }
+        
+        public String getKey() {
+            checkCurrent();
+            return _stringData.getString(_keyOffset, _keyLength);
+        }
+        
+        public String getValue() {
+            checkCurrent();
+            return _stringData.getString(_valueOffset, _valueLength);
+        }
+        
+        /**
+         * Remove the current entry from the map. We don't compact the string data here
+         * (since that would move entries around while we're walking them), so that
+         * happens during a later update, or via an explicit call to compact().
+         */
+        public void remove() {
+            checkCurrent();
+            checkForComodification();
+            
+            int slot = findSlot(_keyBytes, _keyBytesOffset, _keyLength, hash(_keyBytes, _keyBytesOffset, _keyLength));
+            _deadBytes += clearEntryData(slot, _keyLength);
+            removeSlot(slot);
+            
+            _keyOffset = -1;
+            _expectedModCount = _modCount;
+        }
+        
+        private void checkCurrent() {
+            if (_keyOffset == -1) {
+                throw new IllegalStateException("Cursor isn't positioned on an entry");
+            }
+        }
+        
+        private void checkForComodification() {
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+    
+    private abstract class ViewIterator<T> implements Iterator<T> {
+        
+        private Cursor _cursor = cursor();
+        
+        protected abstract T get(Cursor cursor);
+        
+        @Override
+        public boolean hasNext() {
+            return _cursor.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!_cursor.next()) {
+                throw new NoSuchElementException();
+            }
+            
+            return get(_cursor);
+        }
+
+        @Override
+        public void remove() {
+            _cursor.remove();
+        }
+    }
 }
@@ -1,266 +1,141 @@
 package com.scaleunlimited.maps;
 
-import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
-
 import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.hadoop.io.Writable;
 
-public class StringSet implements Set<String>, Writable {
-
-    // Value returned by fastutil when we request an int that doesn't exist.
-    private static final int MISSING_HASH_VALUE = -1;
+public class StringSet extends StringTable implements Set<String>, Writable {
 
-    private static final int DEFAULT_ENTRY_COUNT = 1000;
-    private static final int STRING_DATA_BLOCKSIZE = 64 * 1024;
-    
-    private Int2IntOpenHashMap _hashToOffset;
-    private Set<String> _collisionSet;
-    private byte[] _stringData;
-    private int _curOffset;
-    private boolean _smallHash; // for testing
-    
     public StringSet() {
         this(false);
     }
 
     public StringSet(boolean smallHash) {
-        reset(smallHash, DEFAULT_ENTRY_COUNT, 0, STRING_DATA_BLOCKSIZE);
+        reset(smallHash, DEFAULT_ENTRY_COUNT);
     }
-    
-    private void reset(boolean smallHash, int numHashEntries, int numCollisionEntries, int stringDataSize) {
-        _smallHash = smallHash;
-        _hashToOffset = new Int2IntOpenHashMap(numHashEntries);
-        _hashToOffset.defaultReturnValue(MISSING_HASH_VALUE);
-        _collisionSet = new HashSet<String>(numCollisionEntries);
-        _stringData = new byte[stringDataSize];
-        _curOffset = 0;
+
+    /**
+     * @param numEntries expected number of entries, which is used to size the slot table. Use a
+     * small value if you'll have lots of sets, most of which are small.
+     */
+    public StringSet(int numEntries) {
+        reset(false, numEntries);
     }
     
     @Override
-    public void readFields(DataInput in) throws IOException {
-        boolean smallHash = in.readBoolean();
-        int numHashEntries = in.readInt();
-        int numCollisionEntries = in.readInt();
-        int stringDataSize = in.readInt();
-        
-        reset(smallHash, numHashEntries, numCollisionEntries, stringDataSize);
-        
-        in.readFully(_stringData, 0, stringDataSize);
-        
-        // Now we have to rebuild the hash table from the data in _stringData.
-        for (; _curOffset < stringDataSize; ) {
-            int len = calcStringLength(_curOffset);
-            if (len > 0) {
-                // only process strings we haven't deleted
-                int hash = hash(_stringData, _curOffset, len);
-                int oldOffset = _hashToOffset.put(hash, _curOffset);
-                if (oldOffset != MISSING_HASH_VALUE) {
-                    throw new IOException("Data corruption - hash already exists!");
-                }
-            }
-            
-            // Skip over the null value.
-            _curOffset += (len + 1);
-        }
-        
-        // Now read in the collision values. For each, make sure we already have a
-        // hash entry, otherwise it's an error.
-        for (int i = 0; i < numCollisionEntries; i++) {
-            String s = in.readUTF();
-            
-            int hash = hash(s);
-            if (!_hashToOffset.containsKey(hash)) {
-                throw new IOException("Data corruption - collision entry doesn't exist in hash!");
-            }
-            
-            if (!_collisionSet.add(s)) {
-                throw new IOException("Data corruption - collision entry already exists!");
-            }
-        }
-    }
+    protected void readLegacyCollisionEntry(DataInput in) throws IOException {
+        String s = in.readUTF();
 
-    @Override
-    public void write(DataOutput out) throws IOException {
-        out.writeBoolean(_smallHash);
-        out.writeInt(_hashToOffset.size());
-        out.writeInt(_collisionSet.size());
-        out.writeInt(_curOffset);
-        
-        // Now just write out the string array. We can re-build the hash table from
-        // this array.
-        out.write(_stringData, 0, _curOffset);
-        
-        // Write out the strings we've saved in the collision set.
-        Iterator<String> iter = _collisionSet.iterator();
-        while (iter.hasNext()) {
-            out.writeUTF(iter.next());
+        if (!add(s)) {
+            throw new IOException("Data corruption - collision entry already exists!");
         }
     }
 
-    private int calcStringLength(int startingOffset) {
-        int curOffset = startingOffset;
-        while (_stringData[curOffset] != 0) {
-            curOffset += 1;
-        }
-        
-        return curOffset - startingOffset;
-    }
-    
     /**
-     * Generate a 32-bit JOAAT hash from the bytes of <phrase>
+     * Generate a 32-bit hash from the bytes of <phrase>
      * 
      * @param phrase String to hash
      * @return 32-bit hash
      */
     public int hash(String phrase) {
-        int result = HashUtils.getIntHash(phrase);
-        
-        if (_smallHash) {
-            // only generate 256 unique hash values.
-            result = result & 0x0FF;
-        }
-        
-        return result;
-    }
-    
-    private int hash(byte[] b, int offset, int length) {
-        int result = HashUtils.getIntHash(b, offset, length);
-        
-        if (_smallHash) {
-            // only generate 256 unique hash values.
-            result = result & 0x0FF;
-        }
-        
-        return result;
+        byte[] bytes = HashUtils.getUTF8Bytes(phrase);
+        return hash(bytes, 0, bytes.length);
     }
     
     @Override
-    public int size() {
-        return _hashToOffset.size() + _collisionSet.size();
-    }
-
-    @Override
-    public boolean isEmpty() {
-        return _hashToOffset.isEmpty() && _collisionSet.isEmpty();
+    protected int getStringsPerEntry() {
+        return 1;
     }
-
+    
     @Override
     public boolean contains(Object o) {
         if (o instanceof String) {
-            int hash = hash((String)o);
-            int offset = _hashToOffset.get(hash);
-            if (offset == MISSING_HASH_VALUE) {
-                return false;
-            }
-            
-            // We might have a match...need to see if the actual string matches our stored bytes.
-            // If not, then we check the collision set.
-            byte[] stringBytes = getUTF8Bytes((String)o);
-            boolean matches = true;
-            for (int i = 0; (i < stringBytes.length) && matches; i++) {
-                if (stringBytes[i] != _stringData[offset + i]) {
-                    matches = false;
-                }
-            }
-            
-            // If it matched all of the string bytes, make sure we've got our terminating null byte.a
-            matches = matches && _stringData[offset + stringBytes.length] == 0;
-            
-            // If it didn't match, see if it's in the collision set.
-            return(matches || _collisionSet.contains((String)o));
+            return contains((CharSequence)o);
         } else {
             return false;
         }
     }
 
-    private byte[] getUTF8Bytes(String str) {
-        try {
-            return str.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Impossible missing charset exception", e);
-        }
+    /**
+     * Same as {@link #contains(Object)}, but without creating a byte array for <s>.
+     */
+    public boolean contains(CharSequence s) {
+        return (s != null) && (findSlot(s, hash(s)) >= 0);
     }
     
+    /**
+     * Check whether the set contains the string with UTF-8 bytes <stringBytes>, starting at
+     * <offset> and continuing for <length> bytes.
+     */
+    public boolean contains(byte[] stringBytes, int offset, int length) {
+        return findSlot(stringBytes, offset, length, hash(stringBytes, offset, length)) >= 0;
+    }
+
+    /**
+     * Iterate over the strings in the order they're stored, which is roughly insertion order.
+     */
     @Override
     public Iterator<String> iterator() {
-        throw new UnsupportedOperationException("Not yet implemented");
-        // We'd need to create an iterator that iterates over all of the values, and
-        // also returns everything from the collision set.
+        return new StringIterator();
     }
 
     @Override
     public Object[] toArray() {
-        throw new UnsupportedOperationException("Not yet implemented");
+        return toList().toArray();
     }
 
     @Override
     public <T> T[] toArray(T[] a) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        return toList().toArray(a);
+    }
+    
+    private List<String> toList() {
+        List<String> result = new ArrayList<String>(size());
+        for (String s : this) {
+            result.add(s);
+        }
+        
+        return result;
     }
 
     @Override
     public boolean add(String e) {
-        if (contains(e)) {
+        byte[] stringBytes = HashUtils.getUTF8Bytes(e);
+        int hash = hash(stringBytes, 0, stringBytes.length);
+        int slot = findSlot(stringBytes, hash);
+        if (slot >= 0) {
             return false;
         }
         
-        int hash = hash(e);
-        int offset = _hashToOffset.get(hash);
-        if (offset == MISSING_HASH_VALUE) {
-            // We need to add it to the array and the hash set
-            byte[] stringBytes = getUTF8Bytes(e);
-            
-            // Make sure we have enough space in the array.
-            int endOffset = _curOffset + stringBytes.length + 1;
-            if (endOffset > _stringData.length) {
-                byte[] newData = new byte[endOffset + STRING_DATA_BLOCKSIZE];
-                System.arraycopy(_stringData, 0, newData, 0, _curOffset);
-                _stringData = newData;
-            }
-            
-            System.arraycopy(stringBytes, 0, _stringData, _curOffset, stringBytes.length);
-            
-            _hashToOffset.put(hash, _curOffset);
-            _curOffset += stringBytes.length;
-            
-            // And null-terminate it.
-            _stringData[_curOffset++] = 0;
-        } else {
-            _collisionSet.add(e);
-        }
-
+        // We need to add it to the array and the hash table
+        addSlot(-slot - 1, hash, _stringData.appendString(stringBytes));
         return true;
     }
 
     @Override
     public boolean remove(Object o) {
         if (o instanceof String) {
-            if (_collisionSet.remove(o)) {
-                return true;
-            } else {
-                // FUTURE set up to reclaim space in string data block.
-                // We'd want to save the offset somewhere
-                int hash = hash((String)o);
-                int stringDataOffset = _hashToOffset.remove(hash);
-                if (stringDataOffset != MISSING_HASH_VALUE) {
-                    // We need to clear out the entry so we don't re-add it as a string
-                    // when we de-serialize things.
-                    int len = calcStringLength(stringDataOffset);
-                    Arrays.fill(_stringData, stringDataOffset, stringDataOffset + len, (byte)0);
-                    return true;
-                } else {
-                    return false;
-                }
+            byte[] stringBytes = HashUtils.getUTF8Bytes((String)o);
+            int slot = findSlot(stringBytes, hash(stringBytes, 0, stringBytes.length));
+            if (slot < 0) {
+                return false;
             }
+            
+            // We need to clear out the entry so we don't re-add it as a string
+            // when we de-serialize things.
+            long stringDataOffset = getSlotOffset(slot);
+            _stringData.clear(stringDataOffset, stringDataOffset + stringBytes.length);
+            removeSlot(slot);
+            addDeadBytes(stringBytes.length + 1);
+            return true;
         } else {
             return false;
         }
@@ -268,35 +143,108 @@ public class StringSet implements Set<String>, Writable {
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        
+        return true;
     }
 
     @Override
     public boolean addAll(Collection<? extends String> c) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        boolean result = false;
+        for (String s : c) {
+            result |= add(s);
+        }
+        
+        return result;
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        boolean result = false;
+        Iterator<String> iter = iterator();
+        while (iter.hasNext()) {
+            if (!c.contains(iter.next())) {
+                iter.remove();
+                result = true;
+            }
+        }
+        
+        return result;
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        boolean result = false;
+        for (Object o : c) {
+            result |= remove(o);
+        }
+        
+        return result;
     }
 
-    @Override
-    public void clear() {
-        _hashToOffset.clear();
-        _collisionSet.clear();
+    /**
+     * Walks the strings in the string data. Removing via the iterator doesn't compact
+     * the string data, since that would move strings we haven't gotten to yet.
+     */
+    private class StringIterator implements Iterator<String> {
         
-        // Decrease size of byte array
-        if (_stringData.length > STRING_DATA_BLOCKSIZE) {
-            _stringData = new byte[STRING_DATA_BLOCKSIZE];
+        private final long _emptyStringOffset = getEmptyKeyOffset();
+        private int _expectedModCount = _modCount;
+        private long _nextOffset = 0;
+        private long _peekOffset = -1;
+        private long _curOffset = -1;
+        private int _curLength;
+        
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            
+            if (_peekOffset == -1) {
+                _peekOffset = findNextEntry(_nextOffset, _emptyStringOffset);
+            }
+            
+            return _peekOffset != -1;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            
+            _curOffset = _peekOffset;
+            _curLength = _stringData.calcStringLength(_curOffset);
+            _nextOffset = _curOffset + _curLength + 1;
+            _peekOffset = -1;
+            return _stringData.getString(_curOffset, _curLength);
+        }
+
+        @Override
+        public void remove() {
+            if (_curOffset == -1) {
+                throw new IllegalStateException("next() hasn't been called");
+            }
+            
+            checkForComodification();
+            
+            int slot = findSlot(_curOffset, _curLength, hashStringData(_curOffset, _curLength));
+            _stringData.clear(_curOffset, _curOffset + _curLength);
+            removeSlot(slot);
+            _deadBytes += _curLength + 1;
+            
+            _curOffset = -1;
+            _expectedModCount = _modCount;
         }
         
-        _curOffset = 0;
+        private void checkForComodification() {
+            if (_modCount != _expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 
 }
@@ -0,0 +1,668 @@
+package com.scaleunlimited.maps;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Common code for {@link StringMap} and {@link StringSet}. Entries are stored as null-terminated
+ * UTF-8 strings in a {@link StringArena}, and an open-addressing (linear probing) table maps from
+ * the hash of the key to the offset of the key in that arena. Hash "collisions" are resolved by probing,
+ * and comparing the actual key bytes, so there's no need for a secondary collision map.
+ *
+ * Each slot in the table has a 32-bit hash (folded down from a 64-bit Murmur3 hash) and the offset
+ * of the entry. The hash lets us skip most mis-matches without touching the string data, and
+ * also lets us rehash the table (when it grows) without re-hashing the keys.
+ *
+ * Removed (or moved) entries leave behind zeroed "dead" bytes in the string data. We keep
+ * track of how many there are, and when they're more than the compaction threshold (as a
+ * fraction of all string data) we compact the data, by sliding live entries down over the
+ * dead bytes and then adjusting the slot offsets.
+ *
+ * The serialized format includes the slot table, so deserializing is just a bulk read of
+ * the string data and the slot arrays - we don't have to re-hash every key. We can still
+ * read the older format (which only had the string data, plus a list of "collision" entries),
+ * in which case we rebuild the table as we go.
+ *
+ * Version 2 of the format used (avalanched) 64-bit JOAAT hashes for the slots. A table read from
+ * that format keeps using JOAAT (so the slots stay valid), until it's cleared.
+ */
+abstract class StringTable {
+
+    // Offset value for a slot that isn't being used.
+    protected static final long EMPTY_SLOT = -1;
+
+    protected static final int DEFAULT_ENTRY_COUNT = 1000;
+
+    // clear() shrinks the table when it has more than this many times the slots it needs.
+    private static final int SHRINK_FACTOR = 8;
+
+    public static final float DEFAULT_COMPACTION_THRESHOLD = 0.5f;
+
+    // Don't bother compacting until we'd reclaim at least this many bytes.
+    private static final int MIN_COMPACTION_BYTES = StringArena.PAGE_SIZE;
+
+    private static final byte[] EMPTY_KEY = new byte[0];
+
+    // The older format started with the smallHash boolean, which is written as a 0 or 1 byte,
+    // so our format version has to be > 1 for us to tell the two apart.
+    static final int FORMAT_VERSION = 3;
+    static final int JOAAT_FORMAT_VERSION = 2;
+
+    private int[] _slotHashes;
+    private long[] _slotOffsets;
+    private int _mask;
+    private int _maxFill;
+    private int _size;
+
+    // The key (and value, for maps) strings are stored as null-terminated UTF-8 bytes
+    protected StringArena _stringData;
+    protected boolean _smallHash; // for testing
+
+    // True if the slot hashes are from JOAAT (older format), versus Murmur3.
+    private boolean _joaatHash;
+
+    // Number of bytes in _stringData that are from removed entries.
+    protected long _deadBytes;
+    private float _compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    // Incremented whenever entries are added, removed or moved, so that cursors
+    // (and iterators) can detect changes made while they're walking the string data.
+    protected int _modCount;
+
+    /**
+     * @return number of null-terminated strings per entry in the string data.
+     */
+    protected abstract int getStringsPerEntry();
+
+    /**
+     * Read one of the "collision" entries at the end of the older serialized format, and add
+     * it to the table.
+     */
+    protected void readLegacyCollisionEntry(DataInput in) throws IOException {
+        throw new IOException("Unexpected collision entry in serialized data");
+    }
+
+    /**
+     * Called when the slot table has been (re)allocated with <capacity> empty slots. Subclasses
+     * that keep per-slot data (e.g. values) in parallel arrays allocate them here.
+     */
+    protected void slotsAllocated(int capacity) {
+    }
+
+    /**
+     * Called when the entry in <fromSlot> has been moved to the (empty) <toSlot>.
+     */
+    protected void slotMoved(int fromSlot, int toSlot) {
+    }
+
+    /**
+     * Called when the slot table has been rehashed to <newCapacity> slots, where <newSlots>
+     * has the new slot index for each old slot index (or -1, if the old slot was empty).
+     */
+    protected void slotsRehashed(int newCapacity, int[] newSlots) {
+    }
+
+    /**
+     * Write out any per-slot data, after the slot table. 
+     */
+    protected void writeSlotData(DataOutput out) throws IOException {
+    }
+
+    /**
+     * Read in any per-slot data, for a slot table with <capacity> slots.
+     */
+    protected void readSlotData(DataInput in, int capacity) throws IOException {
+    }
+
+    protected void reset(boolean smallHash, int numEntries) {
+        _smallHash = smallHash;
+        _joaatHash = false;
+
+        int capacity = HashCommon.arraySize(Math.max(numEntries, 1), Hash.DEFAULT_LOAD_FACTOR);
+        _slotHashes = new int[capacity];
+        _slotOffsets = new long[capacity];
+        Arrays.fill(_slotOffsets, EMPTY_SLOT);
+        _mask = capacity - 1;
+        _maxFill = HashCommon.maxFill(capacity, Hash.DEFAULT_LOAD_FACTOR);
+        _size = 0;
+
+        _stringData = new StringArena();
+        _deadBytes = 0;
+        _modCount++;
+
+        slotsAllocated(capacity);
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * @return number of bytes used by the string data (including unused space at the end of the
+     * last page) and the slot table. This doesn't include any per-slot data kept by subclasses.
+     */
+    public long getMemorySize() {
+        return _stringData.getAllocatedBytes() + ((long)_slotOffsets.length * (4 + 8));
+    }
+
+    /**
+     * @return number of slots in the table (for testing).
+     */
+    int getSlotCapacity() {
+        return _slotOffsets.length;
+    }
+
+    public void clear() {
+        // If the table is much bigger than it needs to be for the entries it had, shrink it, so
+        // that a table that's reused (and cleared) after one very big set of entries doesn't keep
+        // paying O(capacity) for every clear and cursor scan.
+        int numEntries = Math.max(_size, DEFAULT_ENTRY_COUNT);
+        if (_slotOffsets.length > SHRINK_FACTOR * HashCommon.arraySize(numEntries, Hash.DEFAULT_LOAD_FACTOR)) {
+            reset(_smallHash, numEntries);
+            return;
+        }
+
+        Arrays.fill(_slotOffsets, EMPTY_SLOT);
+        _size = 0;
+
+        // We don't have any slot hashes now, so we can switch to our current hash function.
+        _joaatHash = false;
+
+        // This releases all but the first page of string data.
+        _stringData.clear();
+        _deadBytes = 0;
+        _modCount++;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(_joaatHash ? JOAAT_FORMAT_VERSION : FORMAT_VERSION);
+        out.writeBoolean(_smallHash);
+        out.writeInt(_size);
+        out.writeLong(_deadBytes);
+        out.writeLong(_stringData.length());
+        _stringData.write(out);
+
+        out.writeInt(_slotOffsets.length);
+        DataUtils.writeInts(out, _slotHashes, 0, _slotHashes.length);
+        DataUtils.writeLongs(out, _slotOffsets, 0, _slotOffsets.length);
+        writeSlotData(out);
+    }
+
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version <= 1) {
+            readLegacyFields(in, version == 1);
+            return;
+        } else if ((version != FORMAT_VERSION) && (version != JOAAT_FORMAT_VERSION)) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        boolean smallHash = in.readBoolean();
+        int size = in.readInt();
+        long deadBytes = in.readLong();
+        long stringDataSize = in.readLong();
+        if ((size < 0) || (deadBytes < 0) || (deadBytes > stringDataSize)) {
+            throw new IOException("Data corruption - invalid size info!");
+        }
+
+        _smallHash = smallHash;
+        _joaatHash = (version == JOAAT_FORMAT_VERSION);
+        _stringData = new StringArena();
+        _stringData.readFields(in, stringDataSize);
+        _deadBytes = deadBytes;
+
+        int capacity = in.readInt();
+        if ((capacity <= 0) || ((capacity & (capacity - 1)) != 0) || (size >= capacity)) {
+            throw new IOException("Data corruption - invalid slot table capacity: " + capacity);
+        }
+
+        _slotHashes = new int[capacity];
+        _slotOffsets = new long[capacity];
+        DataUtils.readInts(in, _slotHashes, 0, capacity);
+        DataUtils.readLongs(in, _slotOffsets, 0, capacity);
+        readSlotData(in, capacity);
+        _mask = capacity - 1;
+        _maxFill = HashCommon.maxFill(capacity, Hash.DEFAULT_LOAD_FACTOR);
+        _size = size;
+        _modCount++;
+    }
+
+    /**
+     * Read the older format, where we only have the string data (and the collision entries),
+     * so we have to rebuild the slot table by walking the string data. The smallHash flag
+     * (which was the first field) has already been read.
+     */
+    protected void readLegacyFields(DataInput in, boolean smallHash) throws IOException {
+        int numHashEntries = in.readInt();
+        int numCollisionEntries = in.readInt();
+        int stringDataSize = in.readInt();
+
+        reset(smallHash, numHashEntries + numCollisionEntries);
+
+        _stringData.readFields(in, stringDataSize);
+
+        for (long curOffset = 0; curOffset < stringDataSize; ) {
+            int keyLen = _stringData.calcStringLength(curOffset);
+            if (keyLen > 0) {
+                // only process entries we haven't deleted
+                int hash = hashStringData(curOffset, keyLen);
+                int slot = findSlot(curOffset, keyLen, hash);
+                if (slot >= 0) {
+                    throw new IOException("Data corruption - key already exists!");
+                }
+
+                addSlot(-slot - 1, hash, curOffset);
+                curOffset += getEntryLength(curOffset);
+            } else {
+                curOffset += 1;
+                _deadBytes += 1;
+            }
+        }
+
+        // Older versions kept entries with colliding hashes in a separate map, so
+        // add those back in as regular entries.
+        for (int i = 0; i < numCollisionEntries; i++) {
+            readLegacyCollisionEntry(in);
+        }
+    }
+
+    /**
+     * @return number of bytes in the string data that aren't being used by any entry.
+     */
+    public long getDeadBytes() {
+        return _deadBytes;
+    }
+
+    public float getCompactionThreshold() {
+        return _compactionThreshold;
+    }
+
+    /**
+     * Set the fraction of the string data that can be dead (from removed or updated entries)
+     * before we automatically compact it. A value of 1.0 or more disables auto-compaction.
+     *
+     * @param compactionThreshold fraction of string data that can be dead bytes.
+     */
+    public void setCompactionThreshold(float compactionThreshold) {
+        if (compactionThreshold <= 0.0f) {
+            throw new IllegalArgumentException("Compaction threshold must be > 0");
+        }
+
+        _compactionThreshold = compactionThreshold;
+        maybeCompact();
+    }
+
+    /**
+     * Record that we've got <numBytes> more dead bytes in the string data, and compact
+     * if that's pushed us over our threshold.
+     */
+    protected void addDeadBytes(long numBytes) {
+        _deadBytes += numBytes;
+        maybeCompact();
+    }
+
+    private void maybeCompact() {
+        if ((_deadBytes >= MIN_COMPACTION_BYTES) && (_deadBytes > _compactionThreshold * _stringData.length())) {
+            compact();
+        }
+    }
+
+    /**
+     * Reclaim all dead bytes in the string data. We walk the data, sliding each live entry
+     * down over the dead bytes before it, and record an offset/shift pair every time the
+     * amount of shifting changes. Then we walk the slots, and binary search the offsets
+     * to find out how much each slot's offset needs to shift down.
+     */
+    public void compact() {
+        if (_deadBytes == 0) {
+            return;
+        }
+
+        // The walk treats a zero byte as dead, so we can't have an entry with an empty key
+        // in the data. Pull it out, and add it back at the end.
+        int emptyKeySlot = findSlot(EMPTY_KEY, hash(EMPTY_KEY, 0, 0));
+        byte[] emptyKeyEntry = null;
+        if (emptyKeySlot >= 0) {
+            long offset = _slotOffsets[emptyKeySlot];
+            emptyKeyEntry = new byte[(int)(getEntryLength(offset))];
+            _stringData.getBytes(offset, emptyKeyEntry, 0, emptyKeyEntry.length);
+            _stringData.clear(offset, offset + emptyKeyEntry.length);
+        }
+
+        long[] runOffsets = new long[64];
+        long[] runShifts = new long[64];
+        int numRuns = 0;
+
+        long length = _stringData.length();
+        long srcOffset = 0;
+        long destOffset = 0;
+        while (srcOffset < length) {
+            if (_stringData.getByte(srcOffset) == 0) {
+                srcOffset += 1;
+                continue;
+            }
+
+            long entryLength = getEntryLength(srcOffset);
+            long shift = srcOffset - destOffset;
+            if (shift > 0) {
+                if ((numRuns == 0) || (runShifts[numRuns - 1] != shift)) {
+                    if (numRuns == runOffsets.length) {
+                        runOffsets = Arrays.copyOf(runOffsets, numRuns * 2);
+                        runShifts = Arrays.copyOf(runShifts, numRuns * 2);
+                    }
+
+                    runOffsets[numRuns] = srcOffset;
+                    runShifts[numRuns] = shift;
+                    numRuns += 1;
+                }
+
+                _stringData.moveDown(srcOffset, destOffset, entryLength);
+            }
+
+            srcOffset += entryLength;
+            destOffset += entryLength;
+        }
+
+        _stringData.truncate(destOffset);
+
+        for (int i = 0; i < _slotOffsets.length; i++) {
+            long offset = _slotOffsets[i];
+            if ((offset != EMPTY_SLOT) && (i != emptyKeySlot)) {
+                int run = Arrays.binarySearch(runOffsets, 0, numRuns, offset);
+                if (run < 0) {
+                    // We want the run with the largest offset <= our offset
+                    run = -run - 2;
+                }
+
+                if (run >= 0) {
+                    _slotOffsets[i] = offset - runShifts[run];
+                }
+            }
+        }
+
+        if (emptyKeyEntry != null) {
+            _slotOffsets[emptyKeySlot] = _stringData.appendBytes(emptyKeyEntry, 0, emptyKeyEntry.length);
+        }
+
+        _deadBytes = 0;
+        _modCount++;
+    }
+
+    /**
+     * @return offset of the entry with an empty key, or -1 if there is no such entry.
+     */
+    protected long getEmptyKeyOffset() {
+        int slot = findSlot(EMPTY_KEY, hash(EMPTY_KEY, 0, 0));
+        return (slot >= 0) ? _slotOffsets[slot] : -1;
+    }
+
+    /**
+     * Find the first live entry in the string data at or after <offset>. Removed entries are
+     * zeroed out, so we skip zero bytes - except for the entry with an empty key (which starts
+     * with a zero byte), so the caller has to tell us where that is.
+     *
+     * @param offset where to start looking
+     * @param emptyKeyOffset result of {@link #getEmptyKeyOffset()}
+     * @return offset of the entry, or -1 if there are no more entries.
+     */
+    protected long findNextEntry(long offset, long emptyKeyOffset) {
+        long length = _stringData.length();
+        while (offset < length) {
+            if ((offset == emptyKeyOffset) || (_stringData.getByte(offset) != 0)) {
+                return offset;
+            }
+
+            offset += 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return number of bytes used by the entry (all of its null-terminated strings) at <offset>.
+     */
+    protected long getEntryLength(long offset) {
+        long curOffset = offset;
+        for (int i = 0; i < getStringsPerEntry(); i++) {
+            curOffset += _stringData.calcStringLength(curOffset) + 1;
+        }
+
+        return curOffset - offset;
+    }
+
+    /**
+     * Generate the 32-bit slot hash for the <length> bytes starting at <offset> in <b>. We
+     * calculate a 64-bit Murmur3 hash, and then fold it down to 32 bits.
+     *
+     * @param b Bytes to hash
+     * @param offset starting offset
+     * @param length number of bytes to hash
+     * @return 32-bit hash
+     */
+    protected int hash(byte[] b, int offset, int length) {
+        return hash(b, offset, length, _joaatHash, _smallHash);
+    }
+
+    /**
+     * Static version of {@link #hash(byte[], int, int)}, for code (like {@link MappedStringTable})
+     * that does lookups against serialized table data.
+     */
+    static int hash(byte[] b, int offset, int length, boolean joaatHash, boolean smallHash) {
+        if (joaatHash) {
+            // JOAAT's 64-bit variant doesn't mix well, so we have to avalanche the bits.
+            return foldHash(HashCommon.murmurHash3(HashUtils.getLongHash(b, offset, length)), smallHash);
+        } else {
+            return foldHash(HashUtils.getMurmur3Hash64(b, offset, length), smallHash);
+        }
+    }
+
+    /**
+     * Generate the same slot hash as {@link #hash(byte[], int, int)} would for the UTF-8
+     * bytes of <key>, without having to create those bytes.
+     */
+    protected int hash(CharSequence key) {
+        if (_joaatHash) {
+            return foldHash(HashCommon.murmurHash3(HashUtils.getLongHash(key)), _smallHash);
+        } else {
+            return foldHash(HashUtils.getMurmur3Hash64(key), _smallHash);
+        }
+    }
+
+    private static int foldHash(long longHash, boolean smallHash) {
+        int result = (int)(longHash ^ (longHash >>> 32));
+
+        if (smallHash) {
+            // only generate 256 unique hash values, for testing.
+            result = result & 0x0FF;
+        }
+
+        return result;
+    }
+
+    protected int findSlot(byte[] keyBytes, int hash) {
+        return findSlot(keyBytes, 0, keyBytes.length, hash);
+    }
+
+    /**
+     * Find the slot for the key with UTF-8 bytes <keyBytes> and slot hash <hash>.
+     *
+     * @param keyBytes UTF-8 bytes of the key
+     * @param keyOffset starting offset of the key in <keyBytes>
+     * @param keyLen number of bytes in the key
+     * @param hash slot hash, from {@link #hash(byte[], int, int)}
+     * @return slot index if the key exists, otherwise -(insertion slot) - 1
+     */
+    protected int findSlot(byte[] keyBytes, int keyOffset, int keyLen, int hash) {
+        int slot = hash & _mask;
+        while (true) {
+            long offset = _slotOffsets[slot];
+            if (offset == EMPTY_SLOT) {
+                return -slot - 1;
+            } else if ((_slotHashes[slot] == hash) && _stringData.stringMatches(offset, keyBytes, keyOffset, keyLen)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & _mask;
+        }
+    }
+
+    /**
+     * Find the slot for <key>, comparing its chars (encoded as UTF-8 on the fly) against
+     * the string data.
+     *
+     * @param key key to find
+     * @param hash slot hash, from {@link #hash(CharSequence)}
+     * @return slot index if the key exists, otherwise -(insertion slot) - 1
+     */
+    protected int findSlot(CharSequence key, int hash) {
+        int slot = hash & _mask;
+        while (true) {
+            long offset = _slotOffsets[slot];
+            if (offset == EMPTY_SLOT) {
+                return -slot - 1;
+            } else if ((_slotHashes[slot] == hash) && _stringData.stringMatches(offset, key)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & _mask;
+        }
+    }
+
+    /**
+     * Add a new entry to the table, at <insertionSlot> (as returned by {@link #findSlot(byte[], int)}).
+     * The entry's data must already be in _stringData, starting at <offset>.
+     */
+    protected void addSlot(int insertionSlot, int hash, long offset) {
+        _slotHashes[insertionSlot] = hash;
+        _slotOffsets[insertionSlot] = offset;
+        _modCount++;
+
+        if (++_size > _maxFill) {
+            rehash(_slotOffsets.length * 2);
+        }
+    }
+
+    protected long getSlotOffset(int slot) {
+        return _slotOffsets[slot];
+    }
+
+    protected void setSlotOffset(int slot, long offset) {
+        _slotOffsets[slot] = offset;
+        _modCount++;
+    }
+
+    /**
+     * Remove the entry at <slot>. Since we use linear probing, we have to shift back
+     * any following entries that would otherwise become unreachable.
+     *
+     * @param slot index of slot to clear.
+     */
+    protected void removeSlot(int slot) {
+        _size -= 1;
+        _modCount++;
+
+        int last = slot;
+        int cur = slot;
+        while (true) {
+            cur = (cur + 1) & _mask;
+
+            long offset = _slotOffsets[cur];
+            if (offset == EMPTY_SLOT) {
+                _slotOffsets[last] = EMPTY_SLOT;
+                return;
+            }
+
+            // If the entry at cur has a home slot that's cyclically in (last, cur], then
+            // it's still reachable and we leave it where it is.
+            int home = _slotHashes[cur] & _mask;
+            if ((last <= cur) ? ((last >= home) || (home > cur)) : ((last >= home) && (home > cur))) {
+                _slotHashes[last] = _slotHashes[cur];
+                _slotOffsets[last] = offset;
+                slotMoved(cur, last);
+                last = cur;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldHashes = _slotHashes;
+        long[] oldOffsets = _slotOffsets;
+
+        _slotHashes = new int[newCapacity];
+        _slotOffsets = new long[newCapacity];
+        Arrays.fill(_slotOffsets, EMPTY_SLOT);
+        _mask = newCapacity - 1;
+        _maxFill = HashCommon.maxFill(newCapacity, Hash.DEFAULT_LOAD_FACTOR);
+
+        int[] newSlots = new int[oldOffsets.length];
+        for (int i = 0; i < oldOffsets.length; i++) {
+            long offset = oldOffsets[i];
+            if (offset != EMPTY_SLOT) {
+                int hash = oldHashes[i];
+                int slot = hash & _mask;
+                while (_slotOffsets[slot] != EMPTY_SLOT) {
+                    slot = (slot + 1) & _mask;
+                }
+
+                _slotHashes[slot] = hash;
+                _slotOffsets[slot] = offset;
+                newSlots[i] = slot;
+            } else {
+                newSlots[i] = -1;
+            }
+        }
+
+        slotsRehashed(newCapacity, newSlots);
+    }
+
+    /**
+     * @return index of the first slot at or after <slot> that has an entry, or -1 if there
+     * are no more entries.
+     */
+    protected int findNextSlot(int slot) {
+        for (int i = slot; i < _slotOffsets.length; i++) {
+            if (_slotOffsets[i] != EMPTY_SLOT) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Generate the slot hash for the <length> bytes starting at <offset> in the string data.
+     */
+    protected int hashStringData(long offset, int length) {
+        byte[] page = _stringData.getPage(offset, length);
+        if (page != null) {
+            return hash(page, (int)(offset & StringArena.PAGE_MASK), length);
+        }
+        
+        byte[] bytes = new byte[length];
+        _stringData.getBytes(offset, bytes, 0, length);
+        return hash(bytes, 0, length);
+    }
+
+    /**
+     * Find the slot for the key whose bytes are already in the string data, at <offset>.
+     */
+    protected int findSlot(long offset, int keyLen, int hash) {
+        byte[] page = _stringData.getPage(offset, keyLen);
+        if (page != null) {
+            return findSlot(page, (int)(offset & StringArena.PAGE_MASK), keyLen, hash);
+        }
+        
+        byte[] bytes = new byte[keyLen];
+        _stringData.getBytes(offset, bytes, 0, keyLen);
+        return findSlot(bytes, 0, keyLen, hash);
+    }
+}
@@ -0,0 +1,348 @@
+package com.scaleunlimited.maps;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * An approximate distribution of values, for estimating quantiles (median, p95, p99, etc) using a
+ * bounded amount of memory no matter how many values are added. This is Dunning's t-digest ("Computing
+ * extremely accurate quantiles using t-digests", 2019), in the merging form: values are collected in
+ * a buffer, and when it fills up they're sorted and merged into a list of weighted centroids.
+ *
+ * The arcsine scale function used to decide which centroids can be merged keeps centroids near the
+ * tails very small, so the error for q close to 0 or 1 is much lower than for the median. The exact
+ * min and max are also kept, so quantile(0.0) and quantile(1.0) are exact.
+ *
+ * The compression sets the accuracy and memory use. There are at most about 2 * compression
+ * centroids (16 bytes each), plus a buffer of up to 5 * compression values (8 bytes each) that is
+ * only allocated as needed. The default of 100 gives a quantile error (in q) of well under 1% for the
+ * median, and much less in the tails.
+ *
+ * Digests can be merged (e.g. to combine digests built by separate tasks), which gives about the same
+ * result as adding all of the values to one digest.
+ *
+ * Like {@link HyperLogLog}, this class isn't thread-safe.
+ */
+public class TDigest implements Writable {
+
+    static final int FORMAT_VERSION = 1;
+
+    public static final int MIN_COMPRESSION = 10;
+    public static final int MAX_COMPRESSION = 1000;
+    public static final int DEFAULT_COMPRESSION = 100;
+
+    private static final int BUFFER_FACTOR = 5;
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private int _compression;
+
+    // Centroids, sorted by mean.
+    private double[] _means;
+    private long[] _weights;
+    private int _numCentroids;
+
+    // Values that haven't been merged into the centroids yet.
+    private double[] _buffer;
+    private int _bufferSize;
+
+    // Total weight of centroids plus buffered values.
+    private long _count;
+
+    private double _min;
+    private double _max;
+
+    /**
+     * Create an empty digest, e.g. for use with {@link #readFields(DataInput)}.
+     */
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(int compression) {
+        if ((compression < MIN_COMPRESSION) || (compression > MAX_COMPRESSION)) {
+            throw new IllegalArgumentException(String.format("Compression must be >= %d and <= %d", MIN_COMPRESSION, MAX_COMPRESSION));
+        }
+
+        _compression = compression;
+        _means = new double[0];
+        _weights = new long[0];
+        _buffer = new double[MIN_BUFFER_SIZE];
+        clear();
+    }
+
+    public int getCompression() {
+        return _compression;
+    }
+
+    int getNumCentroids() {
+        flushBuffer();
+        return _numCentroids;
+    }
+
+    /**
+     * @return number of values that have been added.
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    public double getMin() {
+        return _min;
+    }
+
+    public double getMax() {
+        return _max;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Can't add NaN to a digest");
+        }
+
+        if (_bufferSize == _buffer.length) {
+            int maxBufferSize = _compression * BUFFER_FACTOR;
+            if (_buffer.length < maxBufferSize) {
+                _buffer = Arrays.copyOf(_buffer, Math.min(_buffer.length * 2, maxBufferSize));
+            } else {
+                flushBuffer();
+            }
+        }
+
+        _buffer[_bufferSize++] = value;
+        _count += 1;
+        _min = Math.min(_min, value);
+        _max = Math.max(_max, value);
+    }
+
+    /**
+     * Add all of the values from <other> to this digest. The digests don't need to have the same
+     * compression; the result uses the compression of this digest.
+     */
+    public void merge(TDigest other) {
+        if ((other == this) || (other._count == 0)) {
+            return;
+        }
+
+        // Doesn't change what's in <other>, just how it's stored.
+        other.flushBuffer();
+        flushBuffer();
+        mergeCentroids(other._means, other._weights, other._numCentroids);
+
+        _count += other._count;
+        _min = Math.min(_min, other._min);
+        _max = Math.max(_max, other._max);
+    }
+
+    /**
+     * @return the estimated value at quantile <q>, from 0.0 (the min) to 1.0 (the max), or NaN if
+     * no values have been added.
+     */
+    public double quantile(double q) {
+        if ((q < 0.0) || (q > 1.0)) {
+            throw new IllegalArgumentException("Quantile must be >= 0.0 and <= 1.0, got " + q);
+        }
+
+        if (_count == 0) {
+            return Double.NaN;
+        }
+
+        flushBuffer();
+
+        // Each centroid's mean is treated as being at the middle of its weight, and we interpolate
+        // between centroids, and between the first/last centroid and the min/max.
+        double index = q * _count;
+        double halfWeight = _weights[0] / 2.0;
+        if (index <= halfWeight) {
+            return _min + ((index / halfWeight) * (_means[0] - _min));
+        }
+
+        double weightSoFar = halfWeight;
+        for (int i = 0; i < _numCentroids - 1; i++) {
+            double deltaWeight = (_weights[i] + _weights[i + 1]) / 2.0;
+            if (weightSoFar + deltaWeight > index) {
+                return _means[i] + (((index - weightSoFar) / deltaWeight) * (_means[i + 1] - _means[i]));
+            }
+
+            weightSoFar += deltaWeight;
+        }
+
+        int last = _numCentroids - 1;
+        halfWeight = _weights[last] / 2.0;
+        return _means[last] + (Math.min(1.0, (index - weightSoFar) / halfWeight) * (_max - _means[last]));
+    }
+
+    public void clear() {
+        _numCentroids = 0;
+        _bufferSize = 0;
+        _count = 0;
+        _min = Double.POSITIVE_INFINITY;
+        _max = Double.NEGATIVE_INFINITY;
+    }
+
+    private void flushBuffer() {
+        if (_bufferSize == 0) {
+            return;
+        }
+
+        Arrays.sort(_buffer, 0, _bufferSize);
+        mergeCentroids(_buffer, null, _bufferSize);
+        _bufferSize = 0;
+    }
+
+    /**
+     * Merge the current centroids with <numValues> sorted <values>, which have the weights in
+     * <weights> (or 1 if that's null).
+     */
+    private void mergeCentroids(double[] values, long[] weights, int numValues) {
+        long totalWeight = 0;
+        for (int i = 0; i < _numCentroids; i++) {
+            totalWeight += _weights[i];
+        }
+
+        for (int i = 0; i < numValues; i++) {
+            totalWeight += (weights == null ? 1 : weights[i]);
+        }
+
+        int maxCentroids = _numCentroids + numValues;
+        double[] newMeans = new double[maxCentroids];
+        long[] newWeights = new long[maxCentroids];
+        int numCentroids = 0;
+
+        // Walk both sorted lists, adding each value to the current centroid until that would make it
+        // span more than one unit of the scale function.
+        double curMean = 0.0;
+        long curWeight = 0;
+        long weightSoFar = 0;
+        double weightLimit = totalWeight * getQ(1.0);
+
+        int centroidIndex = 0;
+        int valueIndex = 0;
+        while ((centroidIndex < _numCentroids) || (valueIndex < numValues)) {
+            double mean;
+            long weight;
+            if ((valueIndex == numValues) || ((centroidIndex < _numCentroids) && (_means[centroidIndex] <= values[valueIndex]))) {
+                mean = _means[centroidIndex];
+                weight = _weights[centroidIndex];
+                centroidIndex += 1;
+            } else {
+                mean = values[valueIndex];
+                weight = (weights == null ? 1 : weights[valueIndex]);
+                valueIndex += 1;
+            }
+
+            if (curWeight == 0) {
+                curMean = mean;
+                curWeight = weight;
+            } else if (weightSoFar + curWeight + weight <= weightLimit) {
+                curWeight += weight;
+                curMean += (mean - curMean) * ((double)weight / curWeight);
+            } else {
+                newMeans[numCentroids] = curMean;
+                newWeights[numCentroids] = curWeight;
+                numCentroids += 1;
+
+                weightSoFar += curWeight;
+                weightLimit = totalWeight * getQ(getK((double)weightSoFar / totalWeight) + 1.0);
+
+                curMean = mean;
+                curWeight = weight;
+            }
+        }
+
+        newMeans[numCentroids] = curMean;
+        newWeights[numCentroids] = curWeight;
+        numCentroids += 1;
+
+        _means = Arrays.copyOf(newMeans, numCentroids);
+        _weights = Arrays.copyOf(newWeights, numCentroids);
+        _numCentroids = numCentroids;
+    }
+
+    /**
+     * @return position of quantile <q> in the scale function, from 0 to compression.
+     */
+    private double getK(double q) {
+        return _compression * (Math.asin((2.0 * q) - 1.0) + (Math.PI / 2.0)) / Math.PI;
+    }
+
+    /**
+     * @return the inverse of {@link #getK(double)}.
+     */
+    private double getQ(double k) {
+        if (k >= _compression) {
+            return 1.0;
+        }
+
+        return (Math.sin((k * Math.PI / _compression) - (Math.PI / 2.0)) + 1.0) / 2.0;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        flushBuffer();
+
+        out.writeByte(FORMAT_VERSION);
+        DataUtils.writeVInt(out, _compression);
+        DataUtils.writeVInt(out, _numCentroids);
+
+        if (_numCentroids > 0) {
+            out.writeDouble(_min);
+            out.writeDouble(_max);
+
+            for (int i = 0; i < _numCentroids; i++) {
+                out.writeDouble(_means[i]);
+                DataUtils.writeVLong(out, _weights[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown serialization format version: " + version);
+        }
+
+        int compression = DataUtils.readVInt(in);
+        if ((compression < MIN_COMPRESSION) || (compression > MAX_COMPRESSION)) {
+            throw new IOException("Data corruption - invalid compression!");
+        }
+
+        int numCentroids = DataUtils.readVInt(in);
+        if (numCentroids < 0) {
+            throw new IOException("Data corruption - invalid number of centroids!");
+        }
+
+        _compression = compression;
+        clear();
+
+        double[] means = new double[numCentroids];
+        long[] weights = new long[numCentroids];
+        long count = 0;
+
+        if (numCentroids > 0) {
+            _min = in.readDouble();
+            _max = in.readDouble();
+
+            double prevMean = _min;
+            for (int i = 0; i < numCentroids; i++) {
+                means[i] = in.readDouble();
+                weights[i] = DataUtils.readVLong(in);
+                if ((weights[i] <= 0) || !(means[i] >= prevMean) || !(means[i] <= _max)) {
+                    throw new IOException("Data corruption - invalid centroid!");
+                }
+
+                prevMean = means[i];
+                count += weights[i];
+            }
+        }
+
+        _means = means;
+        _weights = weights;
+        _numCentroids = numCentroids;
+        _count = count;
+    }
+}
@@ -259,6 +259,30 @@ public class Int2IntOpenHashMap extends AbstractInt2IntMap implements java.io.Se
   if ( ASSERTS ) checkTable();
   return defRetValue;
  }
+ /** Adds a pair to the map, but only if no value is currently associated with the key.
+	 *
+	 * <P>This is a cheaper replacement for a call to <code>containsKey()</code> followed by a call to <code>put()</code>,
+	 * as the table is probed only once.
+	 *
+	 * @param k the key.
+	 * @param v the value.
+	 * @return the current value, or the {@linkplain #defaultReturnValue() default return value} if no value was present for the given key (in which case the pair was added).
+	 */
+ public int putIfAbsent(final int k, final int v) {
+  // The starting point.
+  int pos = ( it.unimi.dsi.fastutil.HashCommon.murmurHash3( (k) ^ mask ) ) & mask;
+  // There's always an unused entry.
+  while( used[ pos ] ) {
+   if ( ( (key[ pos ]) == (k) ) ) return value[ pos ];
+   pos = ( pos + 1 ) & mask;
+  }
+  used[ pos ] = true;
+  key[ pos ] = k;
+  value[ pos ] = v;
+  if ( size++ >= maxFill ) rehash( arraySize( size + 1, f ) );
+  if ( ASSERTS ) checkTable();
+  return defRetValue;
+ }
  /** Shifts left entries with the specified hash code, starting at the specified position,
 	 * and empties the resulting free entry.
 	 *
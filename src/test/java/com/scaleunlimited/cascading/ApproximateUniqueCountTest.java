@@ -0,0 +1,130 @@
+package com.scaleunlimited.cascading;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+import com.scaleunlimited.maps.HyperLogLog;
+
+@SuppressWarnings("rawtypes")
+public class ApproximateUniqueCountTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/ApproximateUniqueCountTest";
+    private static final Fields IN_FIELDS = new Fields("user", "id", "value");
+    private static final Fields COUNT_FIELD = new Fields("count");
+
+    @Test
+    public void testCounts() throws Exception {
+        final Fields groupFields = new Fields("user");
+        final int precision = 10;
+        LocalPlatform platform = new LocalPlatform(ApproximateUniqueCountTest.class);
+
+        // Use a threshold of 1, so that sketches for each user get emitted (and merged in
+        // the reducer) every time the user changes.
+        Flow flow = makeFlow("testCounts", groupFields, new Fields("id"), precision, 1, platform);
+        flow.complete();
+
+        Map<String, Long> counts = getCounts(platform, "testCounts", groupFields);
+        assertEquals(3, counts.size());
+
+        // Small counts are exact.
+        assertEquals(1L, (long)counts.get("user-0"));
+        assertEquals(100L, (long)counts.get("user-1"));
+
+        long count = counts.get("user-2");
+        assertEquals(10000, count, 10000 * 4 * HyperLogLog.getRelativeError(precision));
+    }
+
+    @Test
+    public void testMultipleUniqueFields() throws Exception {
+        final Fields groupFields = new Fields("user");
+        LocalPlatform platform = new LocalPlatform(ApproximateUniqueCountTest.class);
+        Flow flow = makeFlow("testMultipleUniqueFields", groupFields, new Fields("id", "value"), HyperLogLog.DEFAULT_PRECISION,
+                        10000, platform);
+        flow.complete();
+
+        // user-0 has one id, but two values.
+        Map<String, Long> counts = getCounts(platform, "testMultipleUniqueFields", groupFields);
+        assertEquals(2L, (long)counts.get("user-0"));
+        assertEquals(100L, (long)counts.get("user-1"));
+    }
+
+    @Test
+    public void testInvalidPrecision() throws Exception {
+        try {
+            new ApproximateUniqueCount(new Pipe("test"), new Fields("user"), new Fields("id"), COUNT_FIELD, HyperLogLog.MAX_PRECISION + 1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flow makeFlow(String testName, Fields groupFields, Fields uniqueFields, int precision, int threshold, BasePlatform platform) throws Exception {
+        BasePath outputDir = platform.makePath(OUTPUT_DIR);
+        BasePath testDir = platform.makePath(outputDir, testName);
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+
+        // user-0 has one id (with two different values), user-1 has 100 ids, and user-2 has 10K ids,
+        // and every id shows up three times. Mix up the users, so that we get lots of partial sketches.
+        for (int i = 0; i < 3; i++) {
+            for (int id = 0; id < 10000; id++) {
+                if (id == 0) {
+                    write.add(new Tuple("user-0", "id-0", i % 2));
+                }
+
+                if (id < 100) {
+                    write.add(new Tuple("user-1", "id-" + id, 0));
+                }
+
+                write.add(new Tuple("user-2", "id-" + id, 0));
+            }
+        }
+
+        write.close();
+
+        Pipe pipe = new Pipe("test");
+        ApproximateUniqueCount assembly = new ApproximateUniqueCount(null, Pipe.pipes(pipe), groupFields, uniqueFields, COUNT_FIELD, precision, threshold);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(groupFields.append(COUNT_FIELD)), out, SinkMode.REPLACE);
+
+        Flow flow = platform.makeFlowConnector().connect(testName, sourceTap, sinkTap, assembly);
+        FlowUtils.nameFlowSteps(flow);
+        return flow;
+    }
+
+    private Map<String, Long> getCounts(BasePlatform platform, String testName, Fields groupFields) throws Exception {
+        BasePath outputDir = platform.makePath(OUTPUT_DIR);
+        BasePath testDir = platform.makePath(outputDir, testName);
+        BasePath dataPath = platform.makePath(testDir, "out");
+
+        Tap tap = platform.makeTap(platform.makeBinaryScheme(groupFields.append(COUNT_FIELD)), dataPath);
+
+        Map<String, Long> result = new HashMap<String, Long>();
+        TupleEntryIterator iter = tap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            TupleEntry next = iter.next();
+            result.put(next.getString("user"), next.getLong("count"));
+        }
+
+        iter.close();
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.scaleunlimited.cascading;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.pipe.assembly.SumBy;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+import com.scaleunlimited.maps.FrontCodedStringSet;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class EncodeStringsTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/EncodeStringsTest";
+    private static final Fields IN_FIELDS = new Fields("domain", "category", "count");
+    private static final Fields STRING_FIELDS = new Fields("domain", "category");
+    private static final Fields OUT_FIELDS = new Fields("domain", "category", "sum");
+
+    @Test
+    public void testEncodeAndDecode() throws Exception {
+        LocalPlatform platform = new LocalPlatform(EncodeStringsTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), "testEncodeAndDecode");
+        
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+        
+        Map<String, Integer> expectedSums = new HashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            String domain = "domain-" + (i % 7) + ".com";
+            String category = ((i % 10) == 0) ? null : "category-" + (i % 3);
+            write.add(new Tuple(domain, category, i));
+            
+            String key = domain + "/" + category;
+            Integer sum = expectedSums.get(key);
+            expectedSums.put(key, (sum == null ? 0 : sum) + i);
+        }
+        
+        write.close();
+        
+        File localDir = new File(OUTPUT_DIR + "/testEncodeAndDecode/dictionary");
+        String sharedDir = StringDictionary.buildDictionary(platform, sourceTap, STRING_FIELDS, testDir, localDir);
+        
+        // 7 domains, and 3 categories
+        FrontCodedStringSet dictionary = StringDictionary.loadDictionary(platform, platform.makeFlowProcess(), sharedDir);
+        assertEquals(10, dictionary.size());
+        assertTrue(dictionary.contains("domain-0.com"));
+        assertTrue(dictionary.contains("category-2"));
+        
+        Pipe pipe = new Pipe("strings");
+        pipe = new EncodeStrings(pipe, STRING_FIELDS, platform, sharedDir);
+        pipe = new SumBy(pipe, STRING_FIELDS, new Fields("count"), new Fields("sum"), Integer.class);
+        pipe = new DecodeStrings(pipe, STRING_FIELDS, platform, sharedDir);
+        
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(OUT_FIELDS), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect("testEncodeAndDecode", sourceTap, sinkTap, pipe);
+        flow.complete();
+        
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        int numGroups = 0;
+        while (iter.hasNext()) {
+            TupleEntry te = iter.next();
+            String key = te.getString("domain") + "/" + te.getString("category");
+            assertEquals(expectedSums.get(key), (Integer)te.getInteger("sum"));
+            numGroups += 1;
+        }
+        
+        iter.close();
+        assertEquals(expectedSums.size(), numGroups);
+    }
+}
@@ -0,0 +1,153 @@
+package com.scaleunlimited.cascading;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class GroupLimitAssemblyTest {
+
+    private static final String OUTPUT_DIR = "build/test/GroupLimitAssemblyTest";
+    private static final Fields TEST_FIELDS = new Fields("user", "value");
+
+    /**
+     * Orders values by their string representation, so e.g. 10 comes before 9.
+     */
+    @SuppressWarnings("serial")
+    private static class StringOrderComparator implements Comparator<Integer>, Serializable {
+
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.toString().compareTo(o2.toString());
+        }
+    }
+
+    @Test
+    public void testReverseOrder() throws Exception {
+        // A tiny buffer, so groups get flushed early and the reducer has to do the final limiting.
+        checkTopValues("testReverseOrder", true, 3, 5);
+    }
+
+    @Test
+    public void testNormalOrder() throws Exception {
+        checkTopValues("testNormalOrder", false, 3, GroupLimitAssembly.DEFAULT_MAX_BUFFERED_TUPLES);
+    }
+
+    @Test
+    public void testCustomComparator() throws Exception {
+        // The map-side limiting has to use the same order as the GroupBy, or it keeps the wrong tuples.
+        checkTopValues("testCustomComparator", false, 3, GroupLimitAssembly.DEFAULT_MAX_BUFFERED_TUPLES, new StringOrderComparator());
+        checkTopValues("testCustomComparatorReversed", true, 3, 5, new StringOrderComparator());
+    }
+
+    @Test
+    public void testInvalidParameters() throws Exception {
+        try {
+            new GroupLimitAssembly(new Pipe("test"), new Fields("user"), new Fields("value"), true, 0);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new GroupLimitAssembly(null, Pipe.pipes(new Pipe("test")), new Fields("user"), new Fields("value"), true, 10, 5);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    private void checkTopValues(String testName, boolean reverseOrder, int maxInGroup, int maxBufferedTuples) throws Exception {
+        checkTopValues(testName, reverseOrder, maxInGroup, maxBufferedTuples, null);
+    }
+
+    private void checkTopValues(String testName, boolean reverseOrder, int maxInGroup, int maxBufferedTuples, Comparator<Integer> comparator) throws Exception {
+        LocalPlatform platform = new LocalPlatform(GroupLimitAssemblyTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), testName);
+
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(TEST_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+
+        Map<String, List<Integer>> allValues = new HashMap<String, List<Integer>>();
+        Random rand = new Random(1L);
+        for (int i = 0; i < 10000; i++) {
+            String user = "user-" + rand.nextInt(20);
+            int value = rand.nextInt(1000000);
+            write.add(new Tuple(user, value));
+
+            List<Integer> values = allValues.get(user);
+            if (values == null) {
+                values = new ArrayList<Integer>();
+                allValues.put(user, values);
+            }
+
+            values.add(value);
+        }
+
+        write.close();
+
+        Fields sortFields = new Fields("value");
+        if (comparator != null) {
+            sortFields.setComparator("value", comparator);
+        }
+
+        Pipe pipe = new Pipe("test");
+        GroupLimitAssembly assembly = new GroupLimitAssembly(null, Pipe.pipes(pipe), new Fields("user"), sortFields,
+                        reverseOrder, maxInGroup, maxBufferedTuples);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(TEST_FIELDS), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect(testName, sourceTap, sinkTap, assembly.getTailPipe());
+        flow.complete();
+
+        Map<String, List<Integer>> topValues = new HashMap<String, List<Integer>>();
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            TupleEntry te = iter.next();
+            String user = te.getString("user");
+            List<Integer> values = topValues.get(user);
+            if (values == null) {
+                values = new ArrayList<Integer>();
+                topValues.put(user, values);
+            }
+
+            values.add(te.getInteger("value"));
+        }
+
+        iter.close();
+
+        assertEquals(allValues.size(), topValues.size());
+        for (String user : allValues.keySet()) {
+            List<Integer> expected = allValues.get(user);
+            Collections.sort(expected, comparator);
+            if (reverseOrder) {
+                Collections.reverse(expected);
+            }
+
+            // Values come out in sorted order.
+            assertEquals(expected.subList(0, maxInGroup), topValues.get(user));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.scaleunlimited.cascading;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+
+@SuppressWarnings("rawtypes")
+public class MapSideUniqueCountTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/MapSideUniqueCountTest";
+    private static final Fields IN_FIELDS = new Fields("user", "id", "value");
+    private static final Fields COUNT_FIELD = new Fields("count");
+
+    @Test
+    public void testSingleField() throws Exception {
+        // Use a threshold of 1, so we emit a run every time the user changes, and the reducer
+        // has to merge runs.
+        Map<String, Long> counts = runFlow("testSingleField", makeMixedData(), new Fields("id"), 1, 64, false);
+        assertEquals(3, counts.size());
+        assertEquals(1L, (long)counts.get("user-0"));
+        assertEquals(100L, (long)counts.get("user-1"));
+        assertEquals(10000L, (long)counts.get("user-2"));
+    }
+
+    @Test
+    public void testMultipleUniqueFields() throws Exception {
+        Map<String, Long> counts = runFlow("testMultipleUniqueFields", makeMixedData(), new Fields("id", "value"), 2, 64, false);
+
+        // user-0 has one id, but two values.
+        assertEquals(2L, (long)counts.get("user-0"));
+        assertEquals(100L, (long)counts.get("user-1"));
+        assertEquals(10000L, (long)counts.get("user-2"));
+    }
+
+    @Test
+    public void testTypesAndNulls() throws Exception {
+        List<Tuple> data = new ArrayList<Tuple>();
+        data.add(new Tuple("user-0", 1, 0));
+        data.add(new Tuple("user-0", 1L, 0));
+        data.add(new Tuple("user-0", "1", 0));
+        data.add(new Tuple("user-0", null, 0));
+        data.add(new Tuple("user-0", null, 0));
+        data.add(new Tuple("user-0", 1, 0));
+
+        data.add(new Tuple("user-1", 1, 0));
+        data.add(new Tuple("user-1", 2, 0));
+        data.add(new Tuple("user-1", 2, 0));
+
+        Map<String, Long> counts = runFlow("testTypesAndNulls", data, new Fields("id"), 10, 64, false);
+        assertEquals(4L, (long)counts.get("user-0"));
+        assertEquals(2L, (long)counts.get("user-1"));
+    }
+
+    @Test
+    public void testMixedTypeRuns() throws Exception {
+        // user-0's first run only has Integer values, and its second has an Integer and a String,
+        // so the Integer has to be encoded the same way in both.
+        List<Tuple> data = new ArrayList<Tuple>();
+        data.add(new Tuple("user-0", 1, 0));
+        data.add(new Tuple("user-1", 1L, 0));
+        data.add(new Tuple("user-0", "a", 0));
+        data.add(new Tuple("user-0", 1, 0));
+
+        Map<String, Long> counts = runFlow("testMixedTypeRuns", data, new Fields("id"), 1, 64, false);
+        assertEquals(2L, (long)counts.get("user-0"));
+        assertEquals(1L, (long)counts.get("user-1"));
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        // 100K unique string ids is more than 1MB, so we'll have to emit runs before we've seen
+        // all of them.
+        List<Tuple> data = new ArrayList<Tuple>();
+        for (int i = 0; i < 100000; i++) {
+            data.add(new Tuple("user-0", "id-" + i, 0));
+            data.add(new Tuple("user-0", "id-" + (i / 2), 0));
+            data.add(new Tuple("user-1", "id-" + (i % 10), 0));
+        }
+
+        Map<String, Long> counts = runFlow("testMemoryLimit", data, new Fields("id"), 10, 1, false);
+        assertEquals(100000L, (long)counts.get("user-0"));
+        assertEquals(10L, (long)counts.get("user-1"));
+    }
+
+    @Test
+    public void testManySpills() throws Exception {
+        // user-0 has 20 overlapping batches of 20K unique ids, mixed in with the other users, so its
+        // set gets evicted (with lots of values) many times. Only the first one should be a run, and
+        // the reducer has to stream the rest.
+        List<Tuple> data = new ArrayList<Tuple>();
+        for (int batch = 0; batch < 20; batch++) {
+            for (int i = 0; i < 20000; i++) {
+                data.add(new Tuple("user-0", "id-" + ((batch * 10000) + i), 0));
+                data.add(new Tuple("user-" + (1 + (i % 3)), "id-" + (i % 10), 0));
+            }
+        }
+
+        Map<String, Long> counts = runFlow("testManySpills", data, new Fields("id"), 1, 1, false);
+        assertEquals(210000L, (long)counts.get("user-0"));
+        assertEquals(10L, (long)counts.get("user-1"));
+        assertEquals(10L, (long)counts.get("user-2"));
+        assertEquals(10L, (long)counts.get("user-3"));
+    }
+
+    @Test
+    public void testPartitionedByGroup() throws Exception {
+        // All of each user's values come together. user-1 has too many values to fit in
+        // memory, so it has to be emitted as runs.
+        List<Tuple> data = new ArrayList<Tuple>();
+        for (int i = 0; i < 1000; i++) {
+            data.add(new Tuple("user-0", "id-" + (i % 100), 0));
+        }
+
+        for (int i = 0; i < 100000; i++) {
+            data.add(new Tuple("user-1", "id-" + i, 0));
+            data.add(new Tuple("user-1", "id-" + (i / 2), 0));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            data.add(new Tuple("user-2", i % 7, 0));
+        }
+
+        Map<String, Long> counts = runFlow("testPartitionedByGroup", data, new Fields("id"), 1, 1, true);
+        assertEquals(100L, (long)counts.get("user-0"));
+        assertEquals(100000L, (long)counts.get("user-1"));
+        assertEquals(7L, (long)counts.get("user-2"));
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws Exception {
+        // Runs are UTF-8, where an unpaired surrogate would turn into '?'. Use a threshold of 1
+        // so every value is emitted in a run.
+        List<Tuple> data = new ArrayList<Tuple>();
+        data.add(new Tuple("user-0", "s\ud800", 0));
+        data.add(new Tuple("user-1", "x", 0));
+        data.add(new Tuple("user-0", "s?", 0));
+        data.add(new Tuple("user-1", "x", 0));
+        data.add(new Tuple("user-0", "s\\d800", 0));
+        data.add(new Tuple("user-1", "x", 0));
+        data.add(new Tuple("user-0", "s\ud83d\ude00", 0));
+        data.add(new Tuple("user-1", "x", 0));
+        data.add(new Tuple("user-0", "s\ud800", 0));
+
+        Map<String, Long> counts = runFlow("testUnpairedSurrogates", data, new Fields("id"), 1, 64, false);
+        assertEquals(4L, (long)counts.get("user-0"));
+        assertEquals(1L, (long)counts.get("user-1"));
+    }
+
+    @Test
+    public void testEscapeSurrogates() {
+        assertEquals("abc", MapSideUniqueCount.escapeSurrogates("abc"));
+        assertEquals("a\\d800b", MapSideUniqueCount.escapeSurrogates("a\ud800b"));
+        assertEquals("\\dc00", MapSideUniqueCount.escapeSurrogates("\udc00"));
+        assertEquals("a\\\\b", MapSideUniqueCount.escapeSurrogates("a\\b"));
+
+        // Valid pairs are left alone.
+        assertEquals("\ud83d\ude00", MapSideUniqueCount.escapeSurrogates("\ud83d\ude00"));
+        assertEquals("\\dc00\ud83d\ude00\\d83d", MapSideUniqueCount.escapeSurrogates("\udc00\ud83d\ude00\ud83d"));
+
+        assertFalse(MapSideUniqueCount.encodeValues(new Tuple("a\ud800")).equals(MapSideUniqueCount.encodeValues(new Tuple("a\\d800"))));
+    }
+
+    @Test
+    public void testCodePointOrder() {
+        assertTrue(MapSideUniqueCount.compareCodePoints("a", "b") < 0);
+        assertTrue(MapSideUniqueCount.compareCodePoints("ab", "a") > 0);
+        assertEquals(0, MapSideUniqueCount.compareCodePoints("ab", "ab"));
+
+        // A supplementary character (surrogate pair) sorts after any BMP character, same as with
+        // UTF-8 bytes, even though the high surrogate is less than U+FF01.
+        assertTrue(MapSideUniqueCount.compareCodePoints("\ud83d\ude00", "\uff01") > 0);
+        assertTrue("\ud83d\ude00".compareTo("\uff01") < 0);
+    }
+
+    @Test
+    public void testEncodeValues() {
+        assertFalse(MapSideUniqueCount.encodeValues(new Tuple("a:b", "c")).equals(MapSideUniqueCount.encodeValues(new Tuple("a", "b:c"))));
+        assertFalse(MapSideUniqueCount.encodeValues(new Tuple(1)).equals(MapSideUniqueCount.encodeValues(new Tuple(1L))));
+        assertFalse(MapSideUniqueCount.encodeValues(new Tuple((Object)null)).equals(MapSideUniqueCount.encodeValues(new Tuple("n"))));
+    }
+
+    /**
+     * @return data where user-0 has one id (with two different values), user-1 has 100 ids, and
+     * user-2 has 10K ids, and every id shows up three times. The users are mixed up, so that we
+     * get lots of partial sets.
+     */
+    private List<Tuple> makeMixedData() {
+        List<Tuple> result = new ArrayList<Tuple>();
+        for (int i = 0; i < 3; i++) {
+            for (int id = 0; id < 10000; id++) {
+                if (id == 0) {
+                    result.add(new Tuple("user-0", 0, i % 2));
+                }
+
+                if (id < 100) {
+                    result.add(new Tuple("user-1", id, 0));
+                }
+
+                result.add(new Tuple("user-2", id, 0));
+            }
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> runFlow(String testName, List<Tuple> data, Fields uniqueFields, int threshold, int maxMemoryMB,
+                    boolean partitionedByGroup) throws Exception {
+        final Fields groupFields = new Fields("user");
+        LocalPlatform platform = new LocalPlatform(MapSideUniqueCountTest.class);
+
+        BasePath outputDir = platform.makePath(OUTPUT_DIR);
+        BasePath testDir = platform.makePath(outputDir, testName);
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+        for (Tuple tuple : data) {
+            write.add(tuple);
+        }
+
+        write.close();
+
+        Pipe pipe = new Pipe("test");
+        MapSideUniqueCount assembly = new MapSideUniqueCount(null, Pipe.pipes(pipe), groupFields, uniqueFields, COUNT_FIELD,
+                        threshold, maxMemoryMB, partitionedByGroup);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(groupFields.append(COUNT_FIELD)), out, SinkMode.REPLACE);
+
+        Flow flow = platform.makeFlowConnector().connect(testName, sourceTap, sinkTap, assembly.getTailPipe());
+        FlowUtils.nameFlowSteps(flow);
+        flow.complete();
+
+        Map<String, Long> result = new HashMap<String, Long>();
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            TupleEntry next = iter.next();
+            result.put(next.getString("user"), next.getLong("count"));
+        }
+
+        iter.close();
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package com.scaleunlimited.cascading;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+import com.scaleunlimited.maps.TDigest;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class QuantilesTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/QuantilesTest";
+    private static final Fields IN_FIELDS = new Fields("host", "latency");
+    private static final Fields GROUP_FIELDS = new Fields("host");
+
+    @Test
+    public void testQuantiles() throws Exception {
+        LocalPlatform platform = new LocalPlatform(QuantilesTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), "testQuantiles");
+
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+
+        // host-0 has latencies 0...9999, and host-1 has 1000...1999. Mix up the hosts (and use a
+        // threshold of 1) so that we get lots of partial digests that have to be merged.
+        for (int i = 0; i < 10000; i++) {
+            int latency = (i * 7919) % 10000;
+            write.add(new Tuple("host-0", (double)latency));
+
+            if (i < 1000) {
+                write.add(new Tuple("host-1", 1000.0 + latency % 1000));
+            }
+        }
+
+        write.add(new Tuple("host-1", null));
+        write.add(new Tuple("host-2", null));
+        write.close();
+
+        Pipe pipe = new Pipe("test");
+        double[] quantiles = {0.0, 0.5, 0.99, 1.0};
+        Fields outputFields = new Fields("min", "p50", "p99", "max");
+        Quantiles assembly = new Quantiles(null, Pipe.pipes(pipe), GROUP_FIELDS, new Fields("latency"), quantiles, outputFields,
+                        TDigest.DEFAULT_COMPRESSION, 1);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(GROUP_FIELDS.append(outputFields)), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect("testQuantiles", sourceTap, sinkTap, assembly);
+        FlowUtils.nameFlowSteps(flow);
+        flow.complete();
+
+        Map<String, TupleEntry> results = new HashMap<String, TupleEntry>();
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            TupleEntry te = new TupleEntry(iter.next());
+            results.put(te.getString("host"), te);
+        }
+
+        iter.close();
+        assertEquals(3, results.size());
+
+        TupleEntry te = results.get("host-0");
+        assertEquals(0.0, te.getDouble("min"), 0.0);
+        assertEquals(5000.0, te.getDouble("p50"), 50.0);
+        assertEquals(9900.0, te.getDouble("p99"), 10.0);
+        assertEquals(9999.0, te.getDouble("max"), 0.0);
+
+        te = results.get("host-1");
+        assertEquals(1000.0, te.getDouble("min"), 0.0);
+        assertEquals(1500.0, te.getDouble("p50"), 5.0);
+        assertEquals(1990.0, te.getDouble("p99"), 1.0);
+        assertEquals(1999.0, te.getDouble("max"), 0.0);
+
+        // host-2 only has a null value.
+        assertNull(results.get("host-2").getObject("p50"));
+    }
+
+    @Test
+    public void testInvalidParameters() throws Exception {
+        try {
+            new Quantiles(new Pipe("test"), GROUP_FIELDS, new Fields("latency"), new double[] {0.5, 0.99}, new Fields("p50"));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new Quantiles(new Pipe("test"), GROUP_FIELDS, new Fields("latency"), new double[] {50.0}, new Fields("p50"));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new Quantiles(null, Pipe.pipes(new Pipe("test")), GROUP_FIELDS, new Fields("latency"), Quantiles.DEFAULT_QUANTILES,
+                            Quantiles.DEFAULT_OUTPUT_FIELDS, TDigest.MAX_COMPRESSION + 1, 100);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.scaleunlimited.cascading;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class StdDeviationByTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/StdDeviationByTest";
+    private static final Fields IN_FIELDS = new Fields("host", "latency");
+    private static final Fields GROUP_FIELDS = new Fields("host");
+
+    @Test
+    public void testMergedPartials() throws Exception {
+        LocalPlatform platform = new LocalPlatform(StdDeviationByTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), "testMergedPartials");
+
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+
+        // Mix up the hosts, and use a threshold of 1, so that we get lots of partials that have to
+        // be merged. host-1 has a big offset, which would lose precision with a naive sum of squares.
+        Map<String, double[]> values = new HashMap<String, double[]>();
+        values.put("host-0", new double[10000]);
+        values.put("host-1", new double[10000]);
+
+        Random rand = new Random(1L);
+        for (int i = 0; i < 10000; i++) {
+            double value = 100.0 + (rand.nextGaussian() * 10.0);
+            values.get("host-0")[i] = value;
+            write.add(new Tuple("host-0", value));
+
+            value = 1000000000.0 + rand.nextGaussian();
+            values.get("host-1")[i] = value;
+            write.add(new Tuple("host-1", value));
+        }
+
+        write.add(new Tuple("host-0", null));
+        write.add(new Tuple("host-2", null));
+        write.close();
+
+        Pipe pipe = new Pipe("test");
+        StdDeviationBy assembly = new StdDeviationBy(null, Pipe.pipes(pipe), GROUP_FIELDS, new Fields("latency"),
+                        StdDeviationBy.DEFAULT_OUTPUT_FIELDS, 1);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(GROUP_FIELDS.append(StdDeviationBy.DEFAULT_OUTPUT_FIELDS)), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect("testMergedPartials", sourceTap, sinkTap, assembly);
+        FlowUtils.nameFlowSteps(flow);
+        flow.complete();
+
+        Map<String, TupleEntry> results = new HashMap<String, TupleEntry>();
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            TupleEntry te = new TupleEntry(iter.next());
+            results.put(te.getString("host"), te);
+        }
+
+        iter.close();
+        assertEquals(3, results.size());
+
+        for (String host : values.keySet()) {
+            double[] hostValues = values.get(host);
+            double mean = 0.0;
+            for (double value : hostValues) {
+                mean += value / hostValues.length;
+            }
+
+            double variance = 0.0;
+            for (double value : hostValues) {
+                variance += ((value - mean) * (value - mean)) / hostValues.length;
+            }
+
+            TupleEntry te = results.get(host);
+            assertEquals(mean, te.getDouble(StdDeviationBy.MEAN_FIELD_NAME), Math.abs(mean) * 1e-12);
+            assertEquals(variance, te.getDouble(StdDeviationBy.VARIANCE_FIELD_NAME), variance * 1e-6);
+            assertEquals(Math.sqrt(variance), te.getDouble(StdDeviation.FIELD_NAME), Math.sqrt(variance) * 1e-6);
+        }
+
+        // host-2 only has a null value.
+        assertNull(results.get("host-2").getObject(StdDeviationBy.MEAN_FIELD_NAME));
+    }
+
+    @Test
+    public void testMomentsMerge() {
+        StdDeviationBy.Moments all = new StdDeviationBy.Moments();
+        StdDeviationBy.Moments first = new StdDeviationBy.Moments();
+        StdDeviationBy.Moments second = new StdDeviationBy.Moments();
+
+        for (int i = 0; i < 100; i++) {
+            all.add(i);
+            if (i < 30) {
+                first.add(i);
+            } else {
+                second.add(i);
+            }
+        }
+
+        StdDeviationBy.Moments merged = new StdDeviationBy.Moments();
+        merged.merge(0, 0.0, 0.0);
+        merged.merge(first.getCount(), first.getMean(), first.getM2());
+        merged.merge(second.getCount(), second.getMean(), second.getM2());
+
+        assertEquals(100, merged.getCount());
+        assertEquals(49.5, merged.getMean(), 1e-12);
+        assertEquals(all.getVariance(), merged.getVariance(), 1e-9);
+        assertEquals(833.25, merged.getVariance(), 1e-9);
+    }
+
+    @Test
+    public void testInvalidFields() throws Exception {
+        try {
+            new StdDeviationBy(new Pipe("test"), GROUP_FIELDS, new Fields("latency", "host"));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new StdDeviationBy(new Pipe("test"), GROUP_FIELDS, new Fields("latency"), new Fields("mean", "stddev"));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+}
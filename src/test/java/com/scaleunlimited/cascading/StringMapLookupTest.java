@@ -0,0 +1,101 @@
+package com.scaleunlimited.cascading;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.StringMapLookup.MapType;
+import com.scaleunlimited.cascading.local.LocalPlatform;
+import com.scaleunlimited.maps.StringMap;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class StringMapLookupTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/StringMapLookupTest";
+    private static final Fields IN_FIELDS = new Fields("domain", "count");
+    private static final Fields OUT_FIELDS = new Fields("domain", "count", "country");
+
+    @Test
+    public void testLookups() throws Exception {
+        for (MapType mapType : MapType.values()) {
+            runLookups(mapType, true);
+            runLookups(mapType, false);
+        }
+    }
+    
+    @Test
+    public void testSharingMap() throws Exception {
+        LocalPlatform platform = new LocalPlatform(StringMapLookupTest.class);
+        StringMap map = new StringMap();
+        map.put("key", "value");
+        String sharedDir = StringMapLookup.shareMap(platform, map, new File(OUTPUT_DIR, "testSharingMap"));
+        
+        Object map1 = StringMapLookup.getMap(platform, platform.makeFlowProcess(), sharedDir, MapType.HEAP);
+        Object map2 = StringMapLookup.getMap(platform, platform.makeFlowProcess(), sharedDir, MapType.HEAP);
+        assertSame(map1, map2);
+        
+        Object map3 = StringMapLookup.getMap(platform, platform.makeFlowProcess(), sharedDir, MapType.MAPPED);
+        assertNotSame(map1, map3);
+    }
+    
+    private void runLookups(MapType mapType, boolean includeMissing) throws Exception {
+        String testName = "testLookups-" + mapType + "-" + includeMissing;
+        LocalPlatform platform = new LocalPlatform(StringMapLookupTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), testName);
+        
+        StringMap map = new StringMap();
+        for (int i = 0; i < 100; i += 2) {
+            map.put("domain-" + i + ".com", "country-" + (i % 5));
+        }
+        
+        String sharedDir = StringMapLookup.shareMap(platform, map, new File(OUTPUT_DIR, testName));
+        
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+        for (int i = 0; i < 100; i++) {
+            write.add(new Tuple("domain-" + i + ".com", i));
+        }
+        
+        write.add(new Tuple(null, 100));
+        write.close();
+        
+        Pipe pipe = new Pipe("domains");
+        pipe = new StringMapLookup(pipe, new Fields("domain"), new Fields("country"), platform, sharedDir, mapType, includeMissing);
+        
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(OUT_FIELDS), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect(testName, sourceTap, sinkTap, pipe);
+        flow.complete();
+        
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        int numResults = 0;
+        while (iter.hasNext()) {
+            TupleEntry te = iter.next();
+            int count = te.getInteger("count");
+            if (((count % 2) == 0) && (count < 100)) {
+                assertEquals("country-" + (count % 5), te.getString("country"));
+            } else {
+                assertTrue(includeMissing);
+                assertNull(te.getString("country"));
+            }
+            
+            numResults += 1;
+        }
+        
+        iter.close();
+        assertEquals(includeMissing ? 101 : 50, numResults);
+    }
+}
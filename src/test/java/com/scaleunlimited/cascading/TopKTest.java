@@ -0,0 +1,132 @@
+package com.scaleunlimited.cascading;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import cascading.flow.Flow;
+import cascading.pipe.Pipe;
+import cascading.tap.SinkMode;
+import cascading.tap.Tap;
+import cascading.tuple.Fields;
+import cascading.tuple.Tuple;
+import cascading.tuple.TupleEntry;
+import cascading.tuple.TupleEntryCollector;
+import cascading.tuple.TupleEntryIterator;
+
+import com.scaleunlimited.cascading.local.LocalPlatform;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class TopKTest extends Assert {
+
+    private static final String OUTPUT_DIR = "build/test/TopKTest";
+    private static final Fields IN_FIELDS = new Fields("term", "weight");
+    private static final Fields OUT_FIELDS = new Fields("term", "count");
+
+    @Test
+    public void testTopTerms() throws Exception {
+        Map<String, Long> actualCounts = new HashMap<String, Long>();
+        List<TupleEntry> results = runFlow("testTopTerms", null, 5, 100, actualCounts);
+        assertEquals(5, results.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            TupleEntry te = results.get(i);
+            assertEquals("term-" + i, te.getString("term"));
+
+            // Counts are an upper bound, but the top terms are frequent enough to be exact.
+            assertEquals((long)actualCounts.get("term-" + i), te.getLong("count"));
+        }
+    }
+
+    @Test
+    public void testWeights() throws Exception {
+        Map<String, Long> actualCounts = new HashMap<String, Long>();
+        List<TupleEntry> results = runFlow("testWeights", new Fields("weight"), 3, 100, actualCounts);
+        assertEquals(3, results.size());
+
+        // The weights favor high-numbered terms, so the top terms aren't the same as without weights.
+        long prevCount = Long.MAX_VALUE;
+        for (TupleEntry te : results) {
+            String term = te.getString("term");
+            long count = te.getLong("count");
+            assertTrue(count <= prevCount);
+            assertTrue(count >= actualCounts.get(term));
+            prevCount = count;
+        }
+
+        assertEquals("term-9", results.get(0).getString("term"));
+    }
+
+    @Test
+    public void testInvalidParameters() throws Exception {
+        try {
+            new TopK(new Pipe("test"), new Fields("term"), new Fields("count"), 0);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new TopK(null, Pipe.pipes(new Pipe("test")), new Fields("term"), null, new Fields("count"), 10, 5);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new TopK(new Pipe("test"), new Fields("term", "weight"), new Fields("count"), 10);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    private List<TupleEntry> runFlow(String testName, Fields weightField, int k, int capacity, Map<String, Long> actualCounts) throws Exception {
+        LocalPlatform platform = new LocalPlatform(TopKTest.class);
+        BasePath testDir = platform.makePath(platform.makePath(OUTPUT_DIR), testName);
+
+        BasePath in = platform.makePath(testDir, "in");
+        Tap sourceTap = platform.makeTap(platform.makeBinaryScheme(IN_FIELDS), in, SinkMode.REPLACE);
+        TupleEntryCollector write = sourceTap.openForWrite(platform.makeFlowProcess());
+
+        // term-n shows up about 1/(n+1) as often as term-0. The weight is n*n, so with weights the
+        // top terms are mostly term-9, term-8, term-7.
+        Random rand = new Random(1L);
+        for (int i = 0; i < 100000; i++) {
+            int n = (int)Math.floor(Math.exp(rand.nextDouble() * Math.log(10.0)) - 1.0);
+            String term = "term-" + n;
+            long weight = n * n;
+            write.add(new Tuple(term, weight));
+
+            Long count = actualCounts.get(term);
+            actualCounts.put(term, (count == null ? 0 : count) + (weightField == null ? 1 : weight));
+        }
+
+        write.add(new Tuple(null, 1L));
+        write.close();
+
+        Pipe pipe = new Pipe("test");
+        TopK assembly = new TopK(null, Pipe.pipes(pipe), new Fields("term"), weightField, new Fields("count"), k, capacity);
+
+        BasePath out = platform.makePath(testDir, "out");
+        Tap sinkTap = platform.makeTap(platform.makeBinaryScheme(OUT_FIELDS), out, SinkMode.REPLACE);
+        Flow flow = platform.makeFlowConnector().connect(testName, sourceTap, sinkTap, assembly.getTailPipe());
+        FlowUtils.nameFlowSteps(flow);
+        flow.complete();
+
+        List<TupleEntry> result = new ArrayList<TupleEntry>();
+        TupleEntryIterator iter = sinkTap.openForRead(platform.makeFlowProcess());
+        while (iter.hasNext()) {
+            result.add(new TupleEntry(iter.next()));
+        }
+
+        iter.close();
+        return result;
+    }
+}
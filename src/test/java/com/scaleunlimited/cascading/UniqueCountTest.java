@@ -104,7 +104,34 @@ public class UniqueCountTest extends Assert {
         assertEquals(1, counts[0]);
     }
 
-    
+    @Test
+    public void testFingerprintFilter() throws Exception {
+        final Fields groupFields = new Fields("user");
+        LocalPlatform platform = new LocalPlatform(UniqueCountTest.class);
+        Pipe pipe = new Pipe("test");
+        UniqueCount assembly = new UniqueCount(null, Pipe.pipes(pipe), groupFields, new Fields("id"), COUNT_FIELD,
+                        new UniqueCount.FilterPartialFingerprintDuplicates(1));
+        Flow flow = makeFlow("testFingerprintFilter", 10, groupFields, false, platform, assembly);
+        flow.complete();
+        
+        int[] counts = getUniqueCounts(platform, "testFingerprintFilter", groupFields, "user-0", 4);
+        assertEquals(1, counts.length);
+        assertEquals(2, counts[0]);
+    }
+
+    @Test
+    public void testFingerprint() {
+        long fingerprint = UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0", 1));
+        assertEquals(fingerprint, UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0", 1)));
+        
+        // Order, type and nulls all matter.
+        assertFalse(fingerprint == UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple(1, "user-0")));
+        assertFalse(fingerprint == UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0", 1L)));
+        assertFalse(fingerprint == UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0", "1")));
+        assertFalse(UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0", null))
+                        == UniqueCount.FilterPartialFingerprintDuplicates.getFingerprint(new Tuple("user-0")));
+    }
+
     @Test
     public void testHadoopCluster() throws Exception {
         final Fields groupFields = new Fields("user");
@@ -120,11 +147,20 @@ public class UniqueCountTest extends Assert {
         assertEquals(2, counts[0]);
     }
 
-    @SuppressWarnings({"unchecked" })
     private Flow makeFlow(String testName, int numDatums,  
                     Fields groupFields, Fields uniqueFields,
                     boolean insertNullIdField,
                     BasePlatform platform) throws Exception {
+        Pipe pipe = new Pipe("test");
+        UniqueCount assembly = new UniqueCount(pipe, groupFields, uniqueFields, COUNT_FIELD, 2);
+        return makeFlow(testName, numDatums, groupFields, insertNullIdField, platform, assembly);
+    }
+    
+    @SuppressWarnings({"unchecked" })
+    private Flow makeFlow(String testName, int numDatums,  
+                    Fields groupFields,
+                    boolean insertNullIdField,
+                    BasePlatform platform, UniqueCount assembly) throws Exception {
         
         BasePath outputDir = platform.makePath(OUTPUT_DIR);
         BasePath testDir = platform.makePath(outputDir, testName);
@@ -155,9 +191,6 @@ public class UniqueCountTest extends Assert {
         
         write.close();
 
-        Pipe pipe = new Pipe("test");
-        UniqueCount assembly = new UniqueCount(pipe, groupFields, uniqueFields, COUNT_FIELD, 2);
-
         Pipe uniqueCountsPipe = assembly.getTailPipe();
         
         BasePath out = platform.makePath(testDir, "out");
@@ -0,0 +1,116 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BlockedBloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        BlockedBloomFilter filter = new BlockedBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("key-" + i);
+        }
+        
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+            assertTrue(filter.mightContain(new StringBuilder("key-" + i)));
+        }
+        
+        byte[] keyBytes = HashUtils.getUTF8Bytes("xxkey-2xx");
+        assertTrue(filter.mightContain(keyBytes, 2, 5));
+    }
+    
+    @Test
+    public void testFalsePositiveRate() {
+        final int numKeys = 100000;
+        
+        for (double targetRate : new double[] {0.1, 0.01, 0.001}) {
+            BlockedBloomFilter filter = new BlockedBloomFilter(numKeys, targetRate);
+            assertTrue(BlockedBloomFilter.getFalsePositiveRate(numKeys, filter.getNumBlocks(), filter.getNumHashes()) <= targetRate);
+            
+            for (int i = 0; i < numKeys; i++) {
+                byte[] keyBytes = HashUtils.getUTF8Bytes("key-" + i);
+                filter.add(keyBytes, 0, keyBytes.length);
+            }
+            
+            int numFalsePositives = 0;
+            final int numChecks = 200000;
+            for (int i = 0; i < numChecks; i++) {
+                if (filter.mightContain("missing-" + i)) {
+                    numFalsePositives += 1;
+                }
+            }
+            
+            double rate = (double)numFalsePositives / numChecks;
+            assertTrue(String.format("False positive rate of %f for target of %f", rate, targetRate), rate < targetRate * 1.25);
+        }
+    }
+    
+    @Test
+    public void testMerging() throws Exception {
+        BlockedBloomFilter filter1 = new BlockedBloomFilter(1000, 0.01);
+        BlockedBloomFilter filter2 = new BlockedBloomFilter(1000, 0.01);
+        BlockedBloomFilter combined = new BlockedBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            String key = "key-" + i;
+            ((i % 2) == 0 ? filter1 : filter2).add(key);
+            combined.add(key);
+        }
+        
+        filter1.merge(filter2);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter1.mightContain("key-" + i));
+        }
+        
+        assertArrayEquals(serialize(combined), serialize(filter1));
+        
+        try {
+            filter1.merge(new BlockedBloomFilter(filter1.getNumBlocks() + 1, filter1.getNumHashes()));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        BlockedBloomFilter filter = new BlockedBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("key-" + i);
+        }
+        
+        BlockedBloomFilter filter2 = new BlockedBloomFilter();
+        filter2.readFields(new DataInputStream(new ByteArrayInputStream(serialize(filter))));
+        assertEquals(filter.getNumBlocks(), filter2.getNumBlocks());
+        assertEquals(filter.getNumHashes(), filter2.getNumHashes());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter2.mightContain("key-" + i));
+        }
+        
+        filter2.clear();
+        assertFalse(filter2.mightContain("key-0"));
+        
+        byte[] data = serialize(filter);
+        data[0] = (byte)(BlockedBloomFilter.FORMAT_VERSION + 1);
+        try {
+            new BlockedBloomFilter().readFields(new DataInputStream(new ByteArrayInputStream(data)));
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+    
+    private static byte[] serialize(BlockedBloomFilter filter) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        filter.write(new DataOutputStream(baos));
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,127 @@
+package com.scaleunlimited.maps;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Contention benchmark of {@link ConcurrentStringMap} against ConcurrentHashMap<String, String>,
+ * with multiple threads doing a mix of lookups and updates on a shared map. Like
+ * {@link StringMapBenchmark}, run it directly:
+ * 
+ * java com.scaleunlimited.maps.ConcurrentStringMapBenchmark [number of threads] [number of keys]
+ *
+ */
+public class ConcurrentStringMapBenchmark {
+
+    private static final int DEFAULT_NUM_KEYS = 200000;
+    private static final int OPS_PER_THREAD = 1000000;
+    private static final int NUM_ROUNDS = 3;
+    
+    // Percentages of operations that are updates.
+    private static final int[] WRITE_PERCENTAGES = {0, 10, 50};
+    
+    private static interface SharedMap {
+        String get(String key);
+        void put(String key, String value);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int numThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int numKeys = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUM_KEYS;
+        String[] keys = makeKeys(numKeys);
+        
+        for (int round = 0; round < NUM_ROUNDS; round++) {
+            System.out.println(String.format("Round %d, %d threads, %d keys", round + 1, numThreads, numKeys));
+            
+            for (int writePercentage : WRITE_PERCENTAGES) {
+                final ConcurrentHashMap<String, String> chm = new ConcurrentHashMap<String, String>();
+                runBenchmark("ConcurrentHashMap", new SharedMap() {
+                    
+                    @Override
+                    public String get(String key) {
+                        return chm.get(key);
+                    }
+
+                    @Override
+                    public void put(String key, String value) {
+                        chm.put(key, value);
+                    }
+                }, keys, numThreads, writePercentage);
+
+                final ConcurrentStringMap csm = new ConcurrentStringMap();
+                runBenchmark("ConcurrentStringMap", new SharedMap() {
+                    
+                    @Override
+                    public String get(String key) {
+                        return csm.get(key);
+                    }
+
+                    @Override
+                    public void put(String key, String value) {
+                        csm.put(key, value);
+                    }
+                }, keys, numThreads, writePercentage);
+            }
+        }
+    }
+
+    private static String[] makeKeys(int numKeys) {
+        Random rand = new Random(1L);
+        String[] result = new String[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            result[i] = String.format("http://www.domain-%d.com/page/%d/%d", rand.nextInt(numKeys / 10 + 1), i, rand.nextInt());
+        }
+        
+        return result;
+    }
+    
+    private static void runBenchmark(String name, final SharedMap map, final String[] keys, int numThreads, final int writePercentage) throws Exception {
+        for (String key : keys) {
+            map.put(key, key);
+        }
+        
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(numThreads);
+        final int[] numFound = new int[numThreads];
+        
+        for (int i = 0; i < numThreads; i++) {
+            final int threadIndex = i;
+            Thread t = new Thread(new Runnable() {
+                
+                @Override
+                public void run() {
+                    Random rand = new Random(threadIndex);
+                    
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    
+                    for (int j = 0; j < OPS_PER_THREAD; j++) {
+                        String key = keys[rand.nextInt(keys.length)];
+                        if (rand.nextInt(100) < writePercentage) {
+                            map.put(key, (j & 1) == 0 ? "v" : key);
+                        } else if (map.get(key) != null) {
+                            numFound[threadIndex] += 1;
+                        }
+                    }
+                    
+                    doneLatch.countDown();
+                }
+            });
+            
+            t.setDaemon(true);
+            t.start();
+        }
+        
+        long startTime = System.currentTimeMillis();
+        startLatch.countDown();
+        doneLatch.await();
+        long deltaTime = Math.max(1, System.currentTimeMillis() - startTime);
+        
+        long totalOps = (long)OPS_PER_THREAD * numThreads;
+        System.out.println(String.format("%-20s %3d%% writes: %6dms, %,d ops/second", name, writePercentage, deltaTime, (totalOps * 1000L) / deltaTime));
+    }
+}
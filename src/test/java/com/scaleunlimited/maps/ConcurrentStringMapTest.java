@@ -0,0 +1,119 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ConcurrentStringMapTest {
+
+    @Test
+    public void test() {
+        ConcurrentStringMap csm = new ConcurrentStringMap(3);
+        
+        assertTrue(csm.isEmpty());
+        assertFalse(csm.containsKey("test"));
+        assertNull(csm.put("test", "value"));
+        assertTrue(csm.containsKey("test"));
+        assertTrue(csm.containsKey(new StringBuilder("test")));
+        assertEquals("value", csm.get("test"));
+        assertEquals("value", csm.get(new StringBuilder("test")));
+        
+        assertEquals("value", csm.putIfAbsent("test", "value2"));
+        assertEquals("value", csm.get("test"));
+        assertNull(csm.putIfAbsent("test2", "value2"));
+        assertEquals("value2", csm.get("test2"));
+        assertEquals(2, csm.size());
+        
+        assertEquals("value", csm.remove("test"));
+        assertNull(csm.remove("test"));
+        assertEquals(1, csm.size());
+        
+        csm.clear();
+        assertTrue(csm.isEmpty());
+        assertNull(csm.get("test2"));
+    }
+    
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final ConcurrentStringMap csm = new ConcurrentStringMap(4);
+        final int numKeys = 2000;
+        final int numWriters = 2;
+        final int numReaders = 4;
+        final int numRounds = 48;
+        final AtomicReference<String> error = new AtomicReference<String>();
+        
+        // Writers keep changing (and growing) the values, and removing/re-adding keys, while
+        // readers check that any value they see is a valid value for that key.
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numWriters; i++) {
+            final int writerIndex = i;
+            threads.add(new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int round = 0; round < numRounds; round++) {
+                        for (int k = writerIndex; k < numKeys; k += numWriters) {
+                            String key = "key-" + k;
+                            if ((round % 10) == 9) {
+                                csm.remove(key);
+                            } else {
+                                csm.put(key, makeValue(key, round));
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        
+        for (int i = 0; i < numReaders; i++) {
+            final int readerIndex = i;
+            threads.add(new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Random rand = new Random(readerIndex);
+                    for (int j = 0; j < 200000; j++) {
+                        String key = "key-" + rand.nextInt(numKeys);
+                        String value = csm.get(new StringBuilder(key));
+                        if ((value != null) && !value.startsWith(key + "/")) {
+                            error.set(String.format("Got value %s for key %s", value, key));
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+        
+        for (Thread t : threads) {
+            t.start();
+        }
+        
+        for (Thread t : threads) {
+            t.join();
+        }
+        
+        assertNull(error.get(), error.get());
+        
+        for (int k = 0; k < numKeys; k++) {
+            String key = "key-" + k;
+            assertEquals(makeValue(key, numRounds - 1), csm.get(key));
+        }
+        
+        assertEquals(numKeys, csm.size());
+    }
+    
+    private static String makeValue(String key, int round) {
+        StringBuilder result = new StringBuilder(key);
+        result.append('/');
+        for (int i = 0; i < round; i++) {
+            result.append('x');
+        }
+        
+        return result.toString();
+    }
+}
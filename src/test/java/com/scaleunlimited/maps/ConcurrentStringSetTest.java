@@ -0,0 +1,31 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ConcurrentStringSetTest {
+
+    @Test
+    public void test() {
+        ConcurrentStringSet css = new ConcurrentStringSet();
+        
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(css.add("string-" + i));
+        }
+        
+        assertFalse(css.add("string-0"));
+        assertEquals(1000, css.size());
+        assertTrue(css.contains("string-10"));
+        assertTrue(css.contains(new StringBuilder("string-10")));
+        assertFalse(css.contains("string-1000"));
+        
+        assertTrue(css.remove("string-10"));
+        assertFalse(css.remove("string-10"));
+        assertFalse(css.contains("string-10"));
+        assertEquals(999, css.size());
+        
+        css.clear();
+        assertTrue(css.isEmpty());
+    }
+}
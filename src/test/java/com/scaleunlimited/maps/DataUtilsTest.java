@@ -0,0 +1,133 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class DataUtilsTest {
+
+    /**
+     * Counts the bytes written to it, without keeping them.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long _count;
+
+        @Override
+        public void write(int b) throws IOException {
+            _count += 1;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            _count += len;
+        }
+
+        public long getCount() {
+            return _count;
+        }
+    }
+
+    /**
+     * Returns <length> zero bytes.
+     */
+    private static class ZeroInputStream extends InputStream {
+        private long _remaining;
+
+        public ZeroInputStream(long length) {
+            _remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (_remaining == 0) {
+                return -1;
+            }
+
+            _remaining -= 1;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (_remaining == 0) {
+                return -1;
+            }
+
+            int numBytes = (int)Math.min(len, _remaining);
+            for (int i = 0; i < numBytes; i++) {
+                b[off + i] = 0;
+            }
+
+            _remaining -= numBytes;
+            return numBytes;
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        int[] ints = new int[100000];
+        long[] longs = new long[100000];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * 31;
+            longs[i] = i * 0x123456789L;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DataUtils.writeInts(out, ints, 10, ints.length - 10);
+        DataUtils.writeLongs(out, longs, 0, longs.length);
+        out.close();
+
+        int[] intsCopy = new int[ints.length];
+        long[] longsCopy = new long[longs.length];
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        DataUtils.readInts(in, intsCopy, 10, ints.length - 10);
+        DataUtils.readLongs(in, longsCopy, 0, longs.length);
+
+        for (int i = 10; i < ints.length; i++) {
+            assertEquals(ints[i], intsCopy[i]);
+        }
+
+        assertArrayEquals(longs, longsCopy);
+    }
+
+    @Test
+    public void testBufferSizeOverflow() {
+        // These byte counts don't fit in an int.
+        assertTrue(DataUtils.getBufferSize(1 << 28, 8) > 0);
+        assertTrue(DataUtils.getBufferSize(1 << 29, 8) > 0);
+        assertTrue(DataUtils.getBufferSize(1 << 30, 4) > 0);
+        assertEquals(DataUtils.getBufferSize(Integer.MAX_VALUE, 8), DataUtils.getBufferSize(1000000, 8));
+
+        assertEquals(80, DataUtils.getBufferSize(10, 8));
+        assertEquals(0, DataUtils.getBufferSize(0, 8));
+    }
+
+    @Test(timeout = 120000)
+    public void testLargeArray() throws Exception {
+        // 2^28 longs is 2GB of data, which is past where the byte count overflows an int.
+        final int length = 1 << 28;
+        Assume.assumeTrue(Runtime.getRuntime().maxMemory() > (length * 8L) + (1024L * 1024 * 1024));
+
+        long[] values = new long[length];
+        values[length - 1] = 1L;
+
+        CountingOutputStream counter = new CountingOutputStream();
+        DataOutputStream out = new DataOutputStream(counter);
+        DataUtils.writeLongs(out, values, 0, length);
+        out.close();
+        assertEquals(length * 8L, counter.getCount());
+
+        DataUtils.readLongs(new DataInputStream(new ZeroInputStream(length * 8L)), values, 0, length);
+        assertEquals(0L, values[length - 1]);
+    }
+}
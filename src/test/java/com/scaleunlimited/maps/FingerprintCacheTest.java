@@ -0,0 +1,102 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FingerprintCacheTest {
+
+    @Test
+    public void test() {
+        FingerprintCache cache = new FingerprintCache(1, false);
+        assertEquals((1024 * 1024) / 8, cache.getCapacity());
+
+        assertFalse(cache.contains(100L));
+        assertTrue(cache.add(100L));
+        assertTrue(cache.contains(100L));
+        assertFalse(cache.add(100L));
+        assertEquals(1, cache.size());
+
+        // Zero is a valid fingerprint.
+        assertTrue(cache.add(0L));
+        assertFalse(cache.add(0L));
+        assertTrue(cache.add(-1L));
+        assertEquals(3, cache.size());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.4, cache.getHitRate(), 0.0001);
+
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertFalse(cache.contains(100L));
+    }
+
+    @Test
+    public void testEviction() {
+        FingerprintCache cache = new FingerprintCache(1, false);
+        int capacity = cache.getCapacity();
+
+        for (long i = 0; i < capacity * 4; i++) {
+            assertTrue(cache.add(HashCommon.murmurHash3(i + 1)));
+            assertTrue(cache.size() < capacity);
+        }
+
+        assertEquals((capacity * 4) - cache.size(), cache.getEvictionCount());
+
+        // Recent entries are still there.
+        for (long i = (capacity * 4) - 1000; i < capacity * 4; i++) {
+            assertTrue(cache.contains(HashCommon.murmurHash3(i + 1)));
+        }
+    }
+
+    @Test
+    public void testClockKeepsHotEntries() {
+        FingerprintCache cache = new FingerprintCache(1, false);
+        int capacity = cache.getCapacity();
+
+        for (long i = 0; i < 100; i++) {
+            cache.add(HashCommon.murmurHash3(-i - 1));
+        }
+
+        for (long i = 0; i < capacity * 4; i++) {
+            cache.add(HashCommon.murmurHash3(i + 1));
+
+            if ((i % 1000) == 0) {
+                for (long j = 0; j < 100; j++) {
+                    assertFalse(cache.add(HashCommon.murmurHash3(-j - 1)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAdaptiveSizing() {
+        FingerprintCache cache = new FingerprintCache(16);
+        int minCapacity = cache.getCapacity();
+        assertTrue(minCapacity < cache.getMaxCapacity());
+
+        // Lots of duplicates, at distances (in number of adds) spread from 1 to 2^20. The initial
+        // table catches some of them, and a bigger table would catch more, so it should grow.
+        Random rand = new Random(1L);
+        for (long i = 0; i < 4 * 1024 * 1024; i++) {
+            cache.add(HashCommon.murmurHash3(i + 1));
+            long distance = rand.nextInt(1 << rand.nextInt(21));
+            cache.add(HashCommon.murmurHash3(Math.max(0, i - distance) + 1));
+        }
+
+        assertEquals(cache.getMaxCapacity(), cache.getCapacity());
+
+        // Now all unique values, so it should shrink back down.
+        for (long i = 0; i < cache.getMaxCapacity() * 4L; i++) {
+            assertTrue(cache.add(HashCommon.murmurHash3(-i - 1)));
+        }
+
+        assertEquals(minCapacity, cache.getCapacity());
+        assertTrue(cache.size() < minCapacity);
+    }
+}
@@ -0,0 +1,168 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class FrontCodedStringSetTest {
+
+    @Test
+    public void testLookups() throws Exception {
+        Random rand = new Random(1L);
+        List<String> strings = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            strings.add(String.format("http://www.domain-%d.com/page/%d", rand.nextInt(500), rand.nextInt(100)));
+        }
+        
+        strings.add("");
+        
+        // For ASCII strings, String order is the same as UTF-8 byte order.
+        List<String> sorted = new ArrayList<String>(new TreeSet<String>(strings));
+        
+        for (int blockSize : new int[] {1, 3, 16}) {
+            FrontCodedStringSet set = new FrontCodedStringSet(strings, blockSize);
+            assertEquals(sorted.size(), set.size());
+            assertEquals(sorted, new ArrayList<String>(set));
+            
+            for (int i = 0; i < sorted.size(); i++) {
+                String s = sorted.get(i);
+                assertTrue(set.contains(s));
+                assertTrue(set.contains(new StringBuilder(s)));
+                assertEquals(i, set.indexOf(s));
+                assertEquals(i, set.rank(s));
+                assertEquals(s, set.select(i));
+                
+                // Something that sorts right after <s>, but isn't in the set.
+                String after = s + "\u0000";
+                assertFalse(set.contains(after));
+                assertEquals(-1, set.indexOf(after));
+                assertEquals(i + 1, set.rank(after));
+            }
+            
+            assertFalse(set.contains("zzz"));
+            assertEquals(sorted.size(), set.rank("zzz"));
+            assertFalse(set.contains((Object)null));
+            assertFalse(set.contains(new Object()));
+        }
+    }
+    
+    @Test
+    public void testSelectOutOfRange() {
+        FrontCodedStringSet set = new FrontCodedStringSet(Arrays.asList("a", "b"));
+        
+        try {
+            set.select(2);
+            fail("Should have thrown exception");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        
+        try {
+            set.select(-1);
+            fail("Should have thrown exception");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testPrefixIteration() {
+        List<String> strings = Arrays.asList("a", "ab", "abc", "abd", "abda", "ac", "b", "ba");
+        FrontCodedStringSet set = new FrontCodedStringSet(strings, 3);
+        
+        assertEquals(Arrays.asList("ab", "abc", "abd", "abda"), toList(set.prefixIterator("ab")));
+        assertEquals(Arrays.asList("abd", "abda"), toList(set.prefixIterator("abd")));
+        assertEquals(Arrays.asList("b", "ba"), toList(set.prefixIterator("b")));
+        assertEquals(strings, toList(set.prefixIterator("")));
+        assertTrue(toList(set.prefixIterator("abe")).isEmpty());
+        assertTrue(toList(set.prefixIterator("c")).isEmpty());
+        assertTrue(toList(set.prefixIterator("0")).isEmpty());
+    }
+    
+    @Test
+    public void testUTF8Order() {
+        // String.compareTo() sorts the surrogate pair for U+1F600 before U+FFFD, but in UTF-8 (code point)
+        // order it comes after.
+        String replacement = "x\ufffd";
+        String emoji = "x\ud83d\ude00";
+        String accented = "x\u00e9";
+        FrontCodedStringSet set = new FrontCodedStringSet(Arrays.asList(emoji, replacement, accented, "x"));
+        
+        assertEquals(Arrays.asList("x", accented, replacement, emoji), new ArrayList<String>(set));
+        assertEquals(3, set.indexOf(emoji));
+        assertEquals(Arrays.asList(emoji), toList(set.prefixIterator(emoji)));
+    }
+    
+    @Test
+    public void testEmptySet() throws Exception {
+        FrontCodedStringSet set = new FrontCodedStringSet(Collections.<String>emptyList());
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(""));
+        assertEquals(0, set.rank("a"));
+        assertFalse(set.iterator().hasNext());
+        assertFalse(set.prefixIterator("").hasNext());
+        assertTrue(serialize(set).isEmpty());
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        List<String> strings = new ArrayList<String>();
+        for (int i = 0; i < 100000; i++) {
+            strings.add("term-" + i);
+        }
+        
+        FrontCodedStringSet set = serialize(new FrontCodedStringSet(strings));
+        assertEquals(strings.size(), set.size());
+        for (String s : strings) {
+            assertTrue(set.contains(s));
+        }
+        
+        assertEquals(new TreeSet<String>(strings), set);
+    }
+    
+    @Test
+    public void testUnknownFormatVersion() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new FrontCodedStringSet(Arrays.asList("a")).write(new DataOutputStream(baos));
+        byte[] data = baos.toByteArray();
+        data[0] = (byte)(FrontCodedStringSet.FORMAT_VERSION + 1);
+        
+        try {
+            new FrontCodedStringSet().readFields(new DataInputStream(new ByteArrayInputStream(data)));
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+    
+    private static List<String> toList(Iterator<String> iter) {
+        List<String> result = new ArrayList<String>();
+        while (iter.hasNext()) {
+            result.add(iter.next());
+        }
+        
+        return result;
+    }
+    
+    private static FrontCodedStringSet serialize(FrontCodedStringSet set) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        set.write(new DataOutputStream(baos));
+        
+        FrontCodedStringSet result = new FrontCodedStringSet();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class FrozenStringMapTest {
+
+    @Test
+    public void testLookups() throws Exception {
+        StringMap sm = new StringMap();
+        final int numKeys = 10000;
+        for (int i = 0; i < numKeys; i++) {
+            sm.put("key-" + i, "value-" + i);
+        }
+        
+        sm.remove("key-0");
+        sm.put("key-1", "a new value");
+        sm.put("", "empty key");
+        sm.put("k\u00e9y-\u4e2d", "v\u00e4lue");
+        
+        FrozenStringMap fsm = sm.freeze();
+        
+        // Freezing doesn't change the original map.
+        assertEquals(numKeys + 1, sm.size());
+        assertEquals(sm.size(), fsm.size());
+        
+        assertFalse(fsm.containsKey("key-0"));
+        assertNull(fsm.get("key-0"));
+        assertEquals("a new value", fsm.get("key-1"));
+        assertEquals("empty key", fsm.get(""));
+        assertEquals("v\u00e4lue", fsm.get("k\u00e9y-\u4e2d"));
+        assertEquals("v\u00e4lue", fsm.get(new StringBuilder("k\u00e9y-\u4e2d")));
+        
+        byte[] keyBytes = HashUtils.getUTF8Bytes("xxkey-2xx");
+        assertTrue(fsm.containsKey(keyBytes, 2, 5));
+        assertEquals("value-2", fsm.get(keyBytes, 2, 5));
+        assertFalse(fsm.containsKey(keyBytes, 2, 4));
+        
+        for (int i = 2; i < numKeys; i++) {
+            assertEquals("value-" + i, fsm.get("key-" + i));
+        }
+        
+        assertFalse(fsm.containsKey("key-" + numKeys));
+        assertFalse(fsm.containsKey((Object)null));
+        assertFalse(fsm.containsKey(new Object()));
+        
+        // Equal to the original map, and iterates in the same order.
+        assertTrue(fsm.equals(sm));
+        assertEquals(new HashMap<String, String>(sm), fsm);
+        assertEquals(sm.keySet().iterator().next(), fsm.keySet().iterator().next());
+    }
+    
+    @Test
+    public void testImmutable() {
+        StringMap sm = new StringMap();
+        sm.put("key", "value");
+        FrozenStringMap fsm = sm.freeze();
+        
+        try {
+            fsm.put("key2", "value2");
+            fail("Should have thrown exception");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        
+        try {
+            fsm.entrySet().iterator().next().setValue("value2");
+            fail("Should have thrown exception");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        
+        try {
+            fsm.clear();
+            fail("Should have thrown exception");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        
+        assertEquals("value", fsm.get("key"));
+    }
+    
+    @Test
+    public void testEmptyAndSmallMaps() throws Exception {
+        FrozenStringMap fsm = new StringMap().freeze();
+        assertTrue(fsm.isEmpty());
+        assertNull(fsm.get("key"));
+        assertFalse(fsm.entrySet().iterator().hasNext());
+        assertTrue(serialize(fsm).isEmpty());
+        assertTrue(new FrozenStringMap().isEmpty());
+        assertNull(new FrozenStringMap().get(""));
+        
+        for (int numKeys = 1; numKeys < 20; numKeys++) {
+            StringMap sm = new StringMap();
+            for (int i = 0; i < numKeys; i++) {
+                sm.put("k" + i, "v" + i);
+            }
+            
+            fsm = serialize(sm.freeze());
+            assertEquals(numKeys, fsm.size());
+            for (int i = 0; i < numKeys; i++) {
+                assertEquals("v" + i, fsm.get("k" + i));
+            }
+            
+            assertNull(fsm.get("k" + numKeys));
+        }
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        StringMap sm = new StringMap();
+        final int numKeys = 100000;
+        for (int i = 0; i < numKeys; i++) {
+            sm.put("http://www.domain-" + i + ".com/page", "value-" + i);
+        }
+        
+        FrozenStringMap fsm = serialize(sm.freeze());
+        assertEquals(numKeys, fsm.size());
+        
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals("value-" + i, fsm.get("http://www.domain-" + i + ".com/page"));
+        }
+        
+        // Besides the strings (plus a null byte for each one), the displacements and offsets are
+        // bit-packed, so the rest should be a lot less than one long per key.
+        long stringBytes = 0;
+        for (Map.Entry<String, String> entry : sm.entrySet()) {
+            stringBytes += HashUtils.getUTF8Bytes(entry.getKey()).length + HashUtils.getUTF8Bytes(entry.getValue()).length + 2;
+        }
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        fsm.write(new DataOutputStream(baos));
+        assertTrue(baos.size() - stringBytes < numKeys * 4);
+        
+        for (Map.Entry<String, String> entry : fsm.entrySet()) {
+            assertEquals(sm.get(entry.getKey()), entry.getValue());
+        }
+    }
+    
+    @Test
+    public void testUnknownFormatVersion() throws Exception {
+        StringMap sm = new StringMap();
+        sm.put("key", "value");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        sm.freeze().write(new DataOutputStream(baos));
+        byte[] data = baos.toByteArray();
+        data[0] = (byte)(FrozenStringMap.FORMAT_VERSION + 1);
+        
+        try {
+            new FrozenStringMap().readFields(new DataInputStream(new ByteArrayInputStream(data)));
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+    
+    private static FrozenStringMap serialize(FrozenStringMap map) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        map.write(new DataOutputStream(baos));
+        
+        FrozenStringMap result = new FrozenStringMap();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        return result;
+    }
+}
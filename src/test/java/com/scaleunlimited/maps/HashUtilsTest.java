@@ -0,0 +1,101 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashUtilsTest {
+
+    @Test
+    public void testCharSequenceHash() throws Exception {
+        String[] strings = {
+            "",
+            "ascii only",
+            "caf\u00e9",
+            "\u4e2d\u6587",
+            "pair \ud83d\ude00 here",
+            "unpaired high \ud83d",
+            "unpaired high \ud83d in the middle",
+            "unpaired low \ude00 in the middle",
+            "\ude00\ud83d reversed pair",
+        };
+        
+        for (String s : strings) {
+            byte[] bytes = HashUtils.getUTF8Bytes(s);
+            long expected = HashUtils.getLongHash(bytes, 0, bytes.length);
+            assertEquals(s, expected, HashUtils.getLongHash((CharSequence)s));
+            assertEquals(s, expected, HashUtils.getLongHash(new StringBuilder(s)));
+        }
+    }
+    
+    @Test
+    public void testRandomCharSequenceHash() throws Exception {
+        Random rand = new Random(1L);
+        
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = rand.nextInt(20);
+            for (int j = 0; j < len; j++) {
+                // Bias towards interesting characters, including surrogates.
+                switch (rand.nextInt(4)) {
+                    case 0: sb.append((char)rand.nextInt(0x80)); break;
+                    case 1: sb.append((char)rand.nextInt(0x800)); break;
+                    case 2: sb.append((char)(0xD800 + rand.nextInt(0x800))); break;
+                    default: sb.append((char)rand.nextInt(0x10000)); break;
+                }
+            }
+            
+            byte[] bytes = HashUtils.getUTF8Bytes(sb.toString());
+            assertEquals(HashUtils.getLongHash(bytes, 0, bytes.length), HashUtils.getLongHash(sb));
+        }
+    }
+    
+    @Test
+    public void testMurmur3Hash() throws Exception {
+        // Known values for the x64 128-bit Murmur3 hash.
+        long[] result = new long[2];
+        byte[] bytes = HashUtils.getUTF8Bytes("The quick brown fox jumps over the lazy dog");
+        HashUtils.getMurmur3Hash128(bytes, 0, bytes.length, 0, result);
+        assertEquals(0xe34bbc7bbc071b6cL, result[0]);
+        assertEquals(0x7a433ca9c49a9347L, result[1]);
+        
+        HashUtils.getMurmur3Hash128(new byte[0], 0, 0, 0, result);
+        assertEquals(0, result[0]);
+        assertEquals(0, result[1]);
+        
+        // Offsets shouldn't matter.
+        byte[] padded = HashUtils.getUTF8Bytes("xxThe quick brown fox jumps over the lazy dogxx");
+        assertEquals(0xe34bbc7bbc071b6cL, HashUtils.getMurmur3Hash64(padded, 2, padded.length - 4));
+    }
+    
+    @Test
+    public void testMurmur3CharSequenceHash() throws Exception {
+        Random rand = new Random(1L);
+        long[] expected = new long[2];
+        long[] result = new long[2];
+        
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = rand.nextInt(40);
+            for (int j = 0; j < len; j++) {
+                switch (rand.nextInt(4)) {
+                    case 0: sb.append((char)rand.nextInt(0x80)); break;
+                    case 1: sb.append((char)rand.nextInt(0x800)); break;
+                    case 2: sb.append((char)(0xD800 + rand.nextInt(0x800))); break;
+                    default: sb.append((char)rand.nextInt(0x10000)); break;
+                }
+            }
+            
+            byte[] bytes = HashUtils.getUTF8Bytes(sb.toString());
+            long seed = rand.nextLong();
+            HashUtils.getMurmur3Hash128(bytes, 0, bytes.length, seed, expected);
+            HashUtils.getMurmur3Hash128(sb, seed, result);
+            assertArrayEquals(expected, result);
+            assertEquals(expected[0], HashUtils.getMurmur3Hash64(bytes, 0, bytes.length, seed));
+            assertEquals(expected[0], HashUtils.getMurmur3Hash64(sb, seed));
+            assertEquals(HashUtils.getMurmur3Hash64(bytes, 0, bytes.length), HashUtils.getMurmur3Hash64(sb));
+        }
+    }
+}
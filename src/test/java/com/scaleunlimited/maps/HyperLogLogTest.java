@@ -0,0 +1,183 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testAccuracy() {
+        for (int precision : new int[] {10, 14}) {
+            HyperLogLog sketch = new HyperLogLog(precision);
+            double maxError = 4 * HyperLogLog.getRelativeError(precision);
+
+            int numAdded = 0;
+            for (int target : new int[] {10, 100, 1000, 10000, 100000, 1000000}) {
+                while (numAdded < target) {
+                    sketch.add("value-" + numAdded);
+
+                    // Lots of duplicates, which shouldn't change the count.
+                    sketch.add("value-" + (numAdded / 2));
+                    numAdded += 1;
+                }
+
+                double error = Math.abs(sketch.cardinality() - target) / (double)target;
+                assertTrue(String.format("Error of %f for %d values with precision %d", error, target, precision), error <= maxError);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallCountsAreExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.cardinality());
+
+        for (int i = 0; i < 1000; i++) {
+            byte[] valueBytes = HashUtils.getUTF8Bytes("value-" + i);
+            sketch.add(valueBytes, 0, valueBytes.length);
+            sketch.add("value-" + i);
+            assertEquals(i + 1, sketch.cardinality());
+        }
+
+        assertTrue(sketch.isSparse());
+    }
+
+    @Test
+    public void testSwitchToDense() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("value-" + i);
+        }
+
+        assertFalse(sketch.isSparse());
+        assertEquals(1000, sketch.cardinality(), 1000 * 4 * HyperLogLog.getRelativeError(10));
+    }
+
+    @Test
+    public void testMerging() {
+        for (int numValues : new int[] {100, 100000}) {
+            HyperLogLog sketch1 = new HyperLogLog();
+            HyperLogLog sketch2 = new HyperLogLog();
+            HyperLogLog combined = new HyperLogLog();
+
+            for (int i = 0; i < numValues; i++) {
+                sketch1.add("value-" + i);
+                combined.add("value-" + i);
+
+                // Half of the second sketch's values overlap with the first.
+                sketch2.add("value-" + (i + numValues / 2));
+                combined.add("value-" + (i + numValues / 2));
+            }
+
+            sketch1.merge(sketch2);
+            assertEquals(combined.cardinality(), sketch1.cardinality());
+        }
+
+        // Merging a dense sketch into a sparse one
+        HyperLogLog sparse = new HyperLogLog();
+        HyperLogLog dense = new HyperLogLog();
+        HyperLogLog combined = new HyperLogLog();
+        sparse.add("value");
+        combined.add("value");
+        for (int i = 0; i < 100000; i++) {
+            dense.add("value-" + i);
+            combined.add("value-" + i);
+        }
+
+        sparse.merge(dense);
+        assertFalse(sparse.isSparse());
+        assertEquals(combined.cardinality(), sparse.cardinality());
+
+        try {
+            sparse.merge(new HyperLogLog(10));
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        for (int numValues : new int[] {0, 10, 100000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < numValues; i++) {
+                sketch.add("value-" + i);
+            }
+
+            byte[] bytes = serialize(sketch);
+            if (numValues == 10) {
+                // A sketch with a few values shouldn't need more than a few bytes per value.
+                assertTrue(bytes.length < 50);
+            }
+
+            HyperLogLog copy = new HyperLogLog(4);
+            copy.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+            assertEquals(sketch.getPrecision(), copy.getPrecision());
+            assertEquals(sketch.cardinality(), copy.cardinality());
+
+            // And the copy should still work after deserialization.
+            copy.add("another value");
+            sketch.add("another value");
+            assertEquals(sketch.cardinality(), copy.cardinality());
+        }
+    }
+
+    @Test
+    public void testLowPrecisionSerialization() throws Exception {
+        // At low precisions the max number of sparse entries is less than the initial sparse capacity.
+        for (int precision = HyperLogLog.MIN_PRECISION; precision <= HyperLogLog.MIN_PRECISION + 2; precision++) {
+            for (int numValues = 0; numValues <= 20; numValues++) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                for (int i = 0; i < numValues; i++) {
+                    sketch.add("value-" + i);
+                }
+
+                HyperLogLog copy = new HyperLogLog();
+                copy.readFields(new DataInputStream(new ByteArrayInputStream(serialize(sketch))));
+                assertEquals(precision, copy.getPrecision());
+                assertEquals(sketch.cardinality(), copy.cardinality());
+
+                copy.add("another value");
+                sketch.add("another value");
+                assertEquals(sketch.cardinality(), copy.cardinality());
+
+                sketch.clear();
+                sketch.add("value-0");
+                copy.readFields(new DataInputStream(new ByteArrayInputStream(serialize(sketch))));
+                assertEquals(sketch.cardinality(), copy.cardinality());
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidPrecision() {
+        try {
+            new HyperLogLog(HyperLogLog.MIN_PRECISION - 1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new HyperLogLog(HyperLogLog.MAX_PRECISION + 1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    private byte[] serialize(HyperLogLog sketch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        sketch.write(out);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
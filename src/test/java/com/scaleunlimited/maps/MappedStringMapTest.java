@@ -0,0 +1,106 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class MappedStringMapTest {
+
+    @Test
+    public void testLookups() throws Exception {
+        StringMap sm = new StringMap();
+        final int numKeys = 10000;
+        for (int i = 0; i < numKeys; i++) {
+            sm.put("key-" + i, "value-" + i);
+        }
+        
+        sm.remove("key-0");
+        sm.put("key-1", "a new value");
+        sm.put("", "empty key");
+        sm.put("k\u00e9y-\u4e2d", "v\u00e4lue");
+        
+        File file = writeMap(sm, "testLookups");
+        MappedStringMap msm = new MappedStringMap(file);
+        
+        assertEquals(sm.size(), msm.size());
+        assertFalse(msm.containsKey("key-0"));
+        assertNull(msm.get("key-0"));
+        assertEquals("a new value", msm.get("key-1"));
+        assertEquals("empty key", msm.get(""));
+        assertEquals("v\u00e4lue", msm.get("k\u00e9y-\u4e2d"));
+        
+        for (int i = 2; i < numKeys; i++) {
+            assertEquals("value-" + i, msm.get("key-" + i));
+        }
+        
+        assertFalse(msm.containsKey("key-" + numKeys));
+        msm.close();
+    }
+    
+    @Test
+    public void testSpanningSegments() throws Exception {
+        // Use a small hash to get lots of collisions, and tiny segments so strings and slot
+        // values wind up spanning segments.
+        StringMap sm = new StringMap(true);
+        final int numKeys = 1000;
+        for (int i = 0; i < numKeys; i++) {
+            sm.put("key-" + i, "value-" + i);
+        }
+        
+        StringBuilder longKey = new StringBuilder();
+        while (longKey.length() < 10000) {
+            longKey.append("long-key-");
+        }
+        
+        sm.put(longKey.toString(), "long value");
+        
+        File file = writeMap(sm, "testSpanningSegments");
+        MappedStringMap msm = new MappedStringMap(file, 10);
+        
+        assertEquals(numKeys + 1, msm.size());
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals("value-" + i, msm.get("key-" + i));
+        }
+        
+        assertEquals("long value", msm.get(longKey.toString()));
+        assertFalse(msm.containsKey(longKey.substring(1)));
+        msm.close();
+    }
+    
+    @Test
+    public void testLegacyFormat() throws Exception {
+        LegacyStringMap lsm = new LegacyStringMap();
+        lsm.put("key", "value");
+        
+        File dir = new File("build/test/MappedStringMapTest/testLegacyFormat/");
+        dir.mkdirs();
+        File file = new File(dir, "string.map");
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        lsm.write(out);
+        out.close();
+        
+        try {
+            new MappedStringMap(file);
+            fail("Should have thrown exception for older format");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+    
+    private static File writeMap(StringMap sm, String testName) throws IOException {
+        File dir = new File("build/test/MappedStringMapTest/" + testName + "/");
+        dir.mkdirs();
+        File file = new File(dir, "string.map");
+        file.delete();
+        
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        sm.write(out);
+        out.close();
+        return file;
+    }
+}
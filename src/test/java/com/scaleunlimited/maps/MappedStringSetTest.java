@@ -0,0 +1,42 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.Test;
+
+public class MappedStringSetTest {
+
+    @Test
+    public void testLookups() throws Exception {
+        StringSet ss = new StringSet(true);
+        final int numStrings = 5000;
+        for (int i = 0; i < numStrings; i++) {
+            ss.add("string-" + i);
+        }
+        
+        ss.remove("string-0");
+        
+        File dir = new File("build/test/MappedStringSetTest/testLookups/");
+        dir.mkdirs();
+        File file = new File(dir, "string.set");
+        file.delete();
+        
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        ss.write(out);
+        out.close();
+        
+        MappedStringSet mss = new MappedStringSet(file, 12);
+        assertEquals(numStrings - 1, mss.size());
+        assertFalse(mss.contains("string-0"));
+        for (int i = 1; i < numStrings; i++) {
+            assertTrue(mss.contains("string-" + i));
+        }
+        
+        assertFalse(mss.contains("string-" + numStrings));
+        mss.close();
+    }
+}
@@ -0,0 +1,190 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpaceSavingTest {
+
+    @Test
+    public void testSkewedCounts() {
+        Map<String, Long> actualCounts = new HashMap<String, Long>();
+        SpaceSaving summary = new SpaceSaving(100);
+
+        Random rand = new Random(1L);
+        for (int i = 0; i < 1000000; i++) {
+            String key = makeZipfKey(rand);
+            summary.add(key);
+            increment(actualCounts, key, 1);
+        }
+
+        assertEquals(1000000, summary.getTotalWeight());
+        assertEquals(100, summary.size());
+        checkCounters(summary, actualCounts);
+
+        // With a skewed distribution, the top keys are easy to find.
+        List<SpaceSaving.Counter> top = summary.getTop(10);
+        assertEquals(10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals("key-" + i, top.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void testWeights() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a", 10);
+        summary.add("b", 5);
+        summary.add("a", 10);
+        assertEquals(20, summary.getCount("a"));
+        assertEquals(5, summary.getCount("b"));
+
+        // "c" replaces "b", and inherits its count as the error.
+        summary.add("c", 1);
+        assertEquals(6, summary.getCount("c"));
+        assertEquals(6, summary.getMaxError());
+        assertEquals(6, summary.getCount("b"));
+
+        List<SpaceSaving.Counter> top = summary.getTop(10);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).getKey());
+        assertEquals(0, top.get(0).getError());
+        assertEquals("c", top.get(1).getKey());
+        assertEquals(5, top.get(1).getError());
+    }
+
+    @Test
+    public void testMerging() {
+        Map<String, Long> actualCounts = new HashMap<String, Long>();
+        SpaceSaving[] summaries = new SpaceSaving[8];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = new SpaceSaving(100);
+        }
+
+        Random rand = new Random(1L);
+        for (int i = 0; i < 800000; i++) {
+            String key = makeZipfKey(rand);
+
+            // Skew which summary gets which keys, so they have different sets of counters.
+            int summary = (key.hashCode() & 0x7FFFFFFF) % 3 == 0 ? 0 : rand.nextInt(summaries.length);
+            summaries[summary].add(key);
+            increment(actualCounts, key, 1);
+        }
+
+        SpaceSaving merged = new SpaceSaving(100);
+        for (SpaceSaving summary : summaries) {
+            merged.merge(summary);
+        }
+
+        assertEquals(800000, merged.getTotalWeight());
+        checkCounters(merged, actualCounts);
+
+        // Merging adds the error from each summary, so only check the top keys that are well
+        // separated.
+        List<SpaceSaving.Counter> top = merged.getTop(3);
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals("key-" + i, top.get(i).getKey());
+        }
+
+        // Merging a full summary into a bigger (empty) one has to keep the error of the full one.
+        SpaceSaving bigger = new SpaceSaving(1000);
+        bigger.merge(summaries[0]);
+        assertEquals(summaries[0].getMaxError(), bigger.getMaxError());
+        bigger.add("new key");
+        assertEquals(summaries[0].getMaxError() + 1, bigger.getCount("new key"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        for (int numValues : new int[] {0, 10, 100000}) {
+            SpaceSaving summary = new SpaceSaving(50);
+            Random rand = new Random(1L);
+            for (int i = 0; i < numValues; i++) {
+                summary.add(makeZipfKey(rand));
+            }
+
+            SpaceSaving copy = new SpaceSaving(1);
+            copy.readFields(new DataInputStream(new ByteArrayInputStream(serialize(summary))));
+            assertEquals(summary.getCapacity(), copy.getCapacity());
+            assertEquals(summary.getTotalWeight(), copy.getTotalWeight());
+            assertEquals(summary.getMaxError(), copy.getMaxError());
+            assertEquals(summary.getTop(50).toString(), copy.getTop(50).toString());
+
+            // And the copy should still work after deserialization.
+            copy.add("key-0\u00e9");
+            summary.add("key-0\u00e9");
+            assertEquals(summary.getCount("key-0\u00e9"), copy.getCount("key-0\u00e9"));
+            assertEquals(summary.getMaxError(), copy.getMaxError());
+        }
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        try {
+            new SpaceSaving(0);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new SpaceSaving().add("key", -1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    /**
+     * Check that every counter's count is an upper bound, and count - error is a lower bound, on the
+     * actual count, and that every key with an actual count above the max error has a counter.
+     */
+    private void checkCounters(SpaceSaving summary, Map<String, Long> actualCounts) {
+        long maxError = summary.getMaxError();
+        assertTrue(maxError <= summary.getTotalWeight() / summary.getCapacity());
+
+        Map<String, SpaceSaving.Counter> counters = new HashMap<String, SpaceSaving.Counter>();
+        for (SpaceSaving.Counter counter : summary.getTop(summary.getCapacity())) {
+            long actualCount = actualCounts.containsKey(counter.getKey()) ? actualCounts.get(counter.getKey()) : 0;
+            assertTrue(counter.toString(), counter.getCount() >= actualCount);
+            assertTrue(counter.toString(), counter.getCount() - counter.getError() <= actualCount);
+            counters.put(counter.getKey(), counter);
+        }
+
+        for (String key : actualCounts.keySet()) {
+            if (actualCounts.get(key) > maxError) {
+                assertTrue(key, counters.containsKey(key));
+            }
+        }
+    }
+
+    /**
+     * @return a key where key-n shows up about 1/(n+1) as often as key-0.
+     */
+    private String makeZipfKey(Random rand) {
+        return "key-" + (int)Math.floor(Math.exp(rand.nextDouble() * Math.log(100000.0)) - 1.0);
+    }
+
+    private void increment(Map<String, Long> counts, String key, long amount) {
+        Long count = counts.get(key);
+        counts.put(key, (count == null ? 0 : count) + amount);
+    }
+
+    private byte[] serialize(SpaceSaving summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        summary.write(out);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,146 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+public class StringArenaTest {
+
+    @Test
+    public void testSpanningPages() throws Exception {
+        StringArena arena = new StringArena();
+        
+        // Fill up most of the first page, so the next string spans pages.
+        byte[] filler = makeBytes(StringArena.PAGE_SIZE - 10, 'a');
+        assertEquals(0, arena.appendString(filler));
+        
+        byte[] spanning = HashUtils.getUTF8Bytes("this string spans two pages");
+        long offset = arena.appendString(spanning);
+        assertEquals(StringArena.PAGE_SIZE - 9, offset);
+        assertEquals(spanning.length, arena.calcStringLength(offset));
+        assertTrue(arena.stringMatches(offset, spanning, 0, spanning.length));
+        assertFalse(arena.stringMatches(offset, spanning, 0, spanning.length - 1));
+        assertEquals("this string spans two pages", arena.getString(offset, spanning.length));
+        
+        // And a string that's bigger than a page.
+        byte[] big = makeBytes(StringArena.PAGE_SIZE * 2 + 5, 'b');
+        offset = arena.appendString(big);
+        assertEquals(big.length, arena.calcStringLength(offset));
+        assertTrue(arena.stringMatches(offset, big, 0, big.length));
+        assertEquals(offset + big.length + 1, arena.length());
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        StringArena arena = new StringArena();
+        for (int i = 0; i < 20000; i++) {
+            arena.appendString(HashUtils.getUTF8Bytes("string-" + i));
+        }
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        arena.write(out);
+        out.close();
+        
+        byte[] data = baos.toByteArray();
+        assertEquals(arena.length(), data.length);
+        
+        StringArena arena2 = new StringArena();
+        arena2.readFields(new DataInputStream(new ByteArrayInputStream(data)), data.length);
+        assertEquals(arena.length(), arena2.length());
+        
+        long offset = 0;
+        for (int i = 0; i < 20000; i++) {
+            byte[] expected = HashUtils.getUTF8Bytes("string-" + i);
+            assertTrue(arena2.stringMatches(offset, expected, 0, expected.length));
+            offset += expected.length + 1;
+        }
+    }
+    
+    @Test
+    public void testClearingData() throws Exception {
+        StringArena arena = new StringArena();
+        byte[] filler = makeBytes(StringArena.PAGE_SIZE - 2, 'a');
+        arena.appendString(filler);
+        
+        byte[] value = HashUtils.getUTF8Bytes("value");
+        long offset = arena.appendString(value);
+        arena.clear(offset, offset + value.length);
+        assertEquals(0, arena.calcStringLength(offset));
+        assertEquals(0, arena.getByte(offset + 4));
+        
+        arena.clear();
+        assertEquals(0, arena.length());
+        assertEquals(0, arena.appendString(value));
+        assertTrue(arena.stringMatches(0, value, 0, value.length));
+    }
+    
+    @Test
+    public void testMovingData() throws Exception {
+        StringArena arena = new StringArena();
+        byte[] filler = makeBytes(StringArena.PAGE_SIZE + 100, 'a');
+        arena.appendString(filler);
+        
+        // Move a string that spans pages down to the start, across a page boundary.
+        byte[] filler2 = makeBytes(StringArena.PAGE_SIZE - 120, 'b');
+        long offset = arena.appendString(HashUtils.getUTF8Bytes("dead"));
+        arena.appendString(filler2);
+        
+        byte[] value = HashUtils.getUTF8Bytes("value that spans pages");
+        long valueOffset = arena.appendString(value);
+        assertTrue(arena.getPage(valueOffset, value.length) == null);
+        
+        arena.moveDown(valueOffset, offset, value.length + 1);
+        assertTrue(arena.stringMatches(offset, value, 0, value.length));
+        
+        arena.truncate(offset + value.length + 1);
+        assertEquals(offset + value.length + 1, arena.length());
+        assertEquals(offset, arena.appendString(value) - value.length - 1);
+    }
+    
+    @Test
+    public void testGrowingFirstPage() throws Exception {
+        StringArena arena = new StringArena();
+        assertEquals(0, arena.getAllocatedBytes());
+        
+        byte[] value = HashUtils.getUTF8Bytes("value");
+        arena.appendString(value);
+        assertTrue(arena.getAllocatedBytes() < 1024);
+        
+        // Keep adding strings until we're past the first page, and make sure nothing was lost
+        // when the first page grew.
+        long offset = 0;
+        while (arena.length() < StringArena.PAGE_SIZE + 10) {
+            offset = arena.appendString(value);
+            assertTrue(arena.getAllocatedBytes() >= arena.length());
+        }
+        
+        assertEquals(StringArena.PAGE_SIZE * 2, arena.getAllocatedBytes());
+        for (long i = 0; i <= offset; i += value.length + 1) {
+            assertTrue(arena.stringMatches(i, value, 0, value.length));
+        }
+        
+        // One big string goes straight to a full first page.
+        arena = new StringArena();
+        byte[] big = makeBytes(StringArena.PAGE_SIZE + 5, 'b');
+        arena.appendString(big);
+        assertEquals(StringArena.PAGE_SIZE * 2, arena.getAllocatedBytes());
+        assertTrue(arena.stringMatches(0, big, 0, big.length));
+    }
+    
+    private static byte[] makeBytes(int len, char c) {
+        byte[] result = new byte[len];
+        for (int i = 0; i < len; i++) {
+            result[i] = (byte)c;
+        }
+        
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StringCacheTest {
+
+    @Test
+    public void test() {
+        StringCache cache = new StringCache(1000);
+
+        assertNull(cache.get("test"));
+        assertFalse(cache.containsKey("test"));
+        assertTrue(cache.put("test", "value"));
+        assertEquals("value", cache.get("test"));
+        assertTrue(cache.containsKey(new StringBuilder("test")));
+        assertEquals(1, cache.size());
+
+        assertTrue(cache.put("test", "new value"));
+        assertEquals("new value", cache.get("test"));
+        assertEquals(1, cache.size());
+
+        byte[] keyBytes = HashUtils.getUTF8Bytes("xtestx");
+        assertTrue(cache.containsKey(keyBytes, 1, 4));
+        assertEquals("new value", cache.get(keyBytes, 1, 4));
+
+        assertTrue(cache.put("", ""));
+        assertEquals("", cache.get(""));
+
+        String nonAscii = "caf\u00e9-\u65e5\u672c-\ud83d\ude00";
+        assertTrue(cache.put(nonAscii, nonAscii));
+        assertEquals(nonAscii, cache.get(nonAscii));
+
+        assertTrue(cache.remove("test"));
+        assertFalse(cache.remove("test"));
+        assertNull(cache.get("test"));
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getUsedBytes());
+        assertNull(cache.get(nonAscii));
+    }
+
+    @Test
+    public void testStats() {
+        StringCache cache = new StringCache(1000);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        cache.containsKey("a");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3.0, cache.getHitRate(), 0.0001);
+
+        cache.resetStats();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testByteLimit() {
+        final int maxBytes = 10000;
+        StringCache cache = new StringCache(maxBytes);
+
+        int entryBytes = StringCache.ENTRY_OVERHEAD + "key-00000".length() + "value-00000".length();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(cache.put(String.format("key-%05d", i), String.format("value-%05d", i)));
+            assertTrue(cache.getUsedBytes() <= maxBytes);
+            assertTrue(cache.size() * entryBytes <= maxBytes);
+        }
+
+        // We should have evicted everything but (about) as many entries as will fit.
+        assertTrue(cache.size() > (maxBytes / entryBytes) - 2);
+        assertEquals(10000 - cache.size(), cache.getEvictionCount());
+
+        // The most recent entry is always there.
+        assertEquals("value-09999", cache.get("key-09999"));
+        assertNull(cache.get("key-00000"));
+    }
+
+    @Test
+    public void testTooBig() {
+        StringCache cache = new StringCache(1000);
+        assertTrue(cache.put("key", "small"));
+
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            big.append('x');
+        }
+
+        assertFalse(cache.put("key", big));
+        assertNull(cache.get("key"));
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testClockKeepsHotEntries() {
+        StringCache cache = new StringCache(20000);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("hot-" + i, "hot value");
+        }
+
+        // Stream lots of keys that we only see once, touching the hot keys as we go.
+        for (int i = 0; i < 100000; i++) {
+            cache.put("cold-" + i, "cold value");
+
+            if ((i % 100) == 0) {
+                for (int j = 0; j < 10; j++) {
+                    assertEquals("hot value", cache.get("hot-" + j));
+                }
+            }
+        }
+
+        assertTrue(cache.getEvictionCount() > 90000);
+        assertEquals(1.0, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        // Lots of puts, updates, removes and gets, with varying sizes so we exercise compacting
+        // the string data while the clock hand is in the middle of it. The cache never returns a
+        // wrong value, and everything that's in it is findable.
+        StringCache cache = new StringCache(5000);
+        Map<String, String> expected = new HashMap<String, String>();
+        Random rand = new Random(1L);
+
+        for (int i = 0; i < 200000; i++) {
+            String key = "k" + rand.nextInt(500) + ((rand.nextInt(10) == 0) ? "\u00e9" : "");
+            int op = rand.nextInt(10);
+            if (op < 4) {
+                StringBuilder value = new StringBuilder("v" + i);
+                int extra = rand.nextInt(rand.nextInt(10) == 0 ? 1200 : 40);
+                for (int j = 0; j < extra; j++) {
+                    value.append('.');
+                }
+
+                if (cache.put(key, value)) {
+                    expected.put(key, value.toString());
+                } else {
+                    expected.remove(key);
+                }
+            } else if (op < 5) {
+                cache.remove(key);
+                expected.remove(key);
+            } else {
+                String value = cache.get(key);
+                if (value == null) {
+                    // Evicted, or never added.
+                    expected.remove(key);
+                } else {
+                    assertEquals(expected.get(key), value);
+                }
+            }
+
+            assertTrue(cache.getUsedBytes() <= cache.getMaxBytes());
+        }
+
+        int numFound = 0;
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            String value = cache.get(entry.getKey());
+            if (value != null) {
+                assertEquals(entry.getValue(), value);
+                numFound += 1;
+            }
+        }
+
+        assertEquals(cache.size(), numFound);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        StringCache cache = new StringCache(10000);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        cache.remove("key-999");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        cache.write(new DataOutputStream(baos));
+        byte[] data = baos.toByteArray();
+
+        StringCache copy = new StringCache(10000);
+        copy.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+        assertEquals(cache.size(), copy.size());
+        assertEquals(cache.getUsedBytes(), copy.getUsedBytes());
+        assertEquals("value-998", copy.get("key-998"));
+        assertNull(copy.get("key-999"));
+
+        // A smaller cache evicts the oldest entries, to get under its limit.
+        StringCache smaller = new StringCache(1000);
+        smaller.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+        assertTrue(smaller.getUsedBytes() <= 1000);
+        assertTrue(smaller.size() > 0);
+        assertEquals("value-998", smaller.get("key-998"));
+        assertNull(smaller.get("key-0"));
+
+        // And both are still usable.
+        assertTrue(smaller.put("new key", "new value"));
+        assertEquals("new value", smaller.get("new key"));
+        assertTrue(copy.put("key-999", "new value"));
+        assertEquals("new value", copy.get("key-999"));
+    }
+}
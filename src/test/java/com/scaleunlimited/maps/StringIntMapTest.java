@@ -0,0 +1,160 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StringIntMapTest {
+
+    @Test
+    public void test() {
+        StringIntMap sim = new StringIntMap();
+        
+        assertFalse(sim.containsKey("test"));
+        assertEquals(0, sim.get("test"));
+        assertEquals(0, sim.put("test", 10));
+        assertTrue(sim.containsKey("test"));
+        assertEquals(10, sim.get("test"));
+        assertEquals(10, sim.put("test", 20));
+        assertEquals(20, sim.get("test"));
+        
+        sim.defaultReturnValue(-1);
+        assertEquals(-1, sim.get("missing"));
+        assertEquals(-1, sim.remove("missing"));
+        assertEquals(20, sim.remove("test"));
+        assertFalse(sim.containsKey("test"));
+        assertTrue(sim.isEmpty());
+        
+        assertEquals(-1, sim.addTo("new", 5));
+        assertEquals(4, sim.get("new"));
+        
+        byte[] keyBytes = HashUtils.getUTF8Bytes("xnewx");
+        assertTrue(sim.containsKey(keyBytes, 1, 3));
+        assertEquals(4, sim.get(keyBytes, 1, 3));
+        
+        sim.clear();
+        assertFalse(sim.containsKey("new"));
+        assertEquals(0, sim.size());
+    }
+    
+    @Test
+    public void testCounting() throws Exception {
+        // Use a small hash, so we get lots of collisions (and thus slots moving on removal).
+        StringIntMap sim = new StringIntMap(true);
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        
+        for (int i = 0; i < 20000; i++) {
+            String key = "term-" + (i % 3000) + ((i % 7 == 0) ? "\u00e9" : "");
+            sim.addTo(new StringBuilder(key), 1);
+            Integer count = expected.get(key);
+            expected.put(key, (count == null) ? 1 : count + 1);
+        }
+        
+        for (int i = 0; i < 3000; i += 5) {
+            String key = "term-" + i;
+            Integer count = expected.remove(key);
+            assertEquals((count == null) ? 0 : count.intValue(), sim.remove(key));
+        }
+        
+        assertEquals(expected, toMap(sim));
+        
+        StringIntMap sim2 = roundTrip(sim);
+        assertEquals(expected, toMap(sim2));
+        
+        // Make sure the deserialized map is fully functional.
+        assertEquals(0, sim2.addTo("another term", 3));
+        assertEquals(3, sim2.get("another term"));
+        assertEquals(expected.get("term-1").intValue(), sim2.get("term-1"));
+    }
+    
+    @Test
+    public void testCursor() throws Exception {
+        StringIntMap sim = new StringIntMap();
+        sim.put("a", 1);
+        sim.put("b", 2);
+        sim.put("", 3);
+        
+        StringIntMap.Cursor cursor = sim.cursor();
+        while (cursor.next()) {
+            cursor.setValue(cursor.getValue() * 10);
+        }
+        
+        assertFalse(cursor.next());
+        assertEquals(10, sim.get("a"));
+        assertEquals(20, sim.get("b"));
+        assertEquals(30, sim.get(""));
+        
+        cursor = sim.cursor();
+        assertTrue(cursor.next());
+        sim.put("c", 4);
+        
+        try {
+            cursor.next();
+            fail("Should have thrown exception");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testClearShrinksTable() throws Exception {
+        StringIntMap sim = new StringIntMap();
+        sim.defaultReturnValue(-1);
+        int initialCapacity = sim.getSlotCapacity();
+
+        // One big document, then lots of small ones.
+        for (int i = 0; i < 100000; i++) {
+            sim.addTo("term-" + i, 1);
+        }
+
+        int bigCapacity = sim.getSlotCapacity();
+        assertTrue(bigCapacity > initialCapacity * 8);
+
+        // Clearing right after the big document keeps the big table, since it's about the right size.
+        sim.clear();
+        assertEquals(bigCapacity, sim.getSlotCapacity());
+        assertTrue(sim.isEmpty());
+
+        sim.addTo("term-1", 1);
+        sim.clear();
+        assertEquals(initialCapacity, sim.getSlotCapacity());
+        assertTrue(sim.isEmpty());
+
+        // And the map still works, including the default return value.
+        assertEquals(-1, sim.get("term-1"));
+        sim.addTo("term-1", 5);
+        assertEquals(4, sim.get("term-1"));
+        assertEquals(1, toMap(sim).size());
+    }
+
+    private static Map<String, Integer> toMap(StringIntMap sim) {
+        Map<String, Integer> result = new HashMap<String, Integer>();
+        StringIntMap.Cursor cursor = sim.cursor();
+        while (cursor.next()) {
+            assertNull(result.put(cursor.getKey(), cursor.getValue()));
+        }
+        
+        assertEquals(sim.size(), result.size());
+        return result;
+    }
+    
+    private static StringIntMap roundTrip(StringIntMap sim) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        sim.write(out);
+        out.close();
+        
+        StringIntMap result = new StringIntMap();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        return result;
+    }
+}
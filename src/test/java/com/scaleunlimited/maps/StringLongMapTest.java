@@ -0,0 +1,52 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+public class StringLongMapTest {
+
+    @Test
+    public void test() throws Exception {
+        StringLongMap slm = new StringLongMap(true);
+        
+        final long bigValue = 1L << 40;
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(0, slm.addTo("key-" + i, bigValue));
+            assertEquals(bigValue, slm.addTo("key-" + i, i));
+        }
+        
+        assertEquals(bigValue + 10, slm.remove("key-10"));
+        assertEquals(0, slm.remove("key-10"));
+        assertEquals(4999, slm.size());
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        slm.write(out);
+        out.close();
+        
+        StringLongMap slm2 = new StringLongMap();
+        slm2.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        assertEquals(4999, slm2.size());
+        assertFalse(slm2.containsKey("key-10"));
+        
+        for (int i = 0; i < 5000; i++) {
+            if (i != 10) {
+                assertEquals(bigValue + i, slm2.get("key-" + i));
+            }
+        }
+        
+        long total = 0;
+        StringLongMap.Cursor cursor = slm2.cursor();
+        while (cursor.next()) {
+            total += cursor.getValue() - bigValue;
+        }
+        
+        assertEquals((4999L * 5000L / 2) - 10, total);
+    }
+}
@@ -0,0 +1,81 @@
+package com.scaleunlimited.maps;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simple timing comparison of {@link StringMap} against {@link LegacyStringMap}, the
+ * original hash => offset + collision map version. This isn't a unit test (it takes
+ * a while, and timing results depend on the machine), so run it directly:
+ * 
+ * java com.scaleunlimited.maps.StringMapBenchmark [number of keys]
+ *
+ */
+public class StringMapBenchmark {
+
+    private static final int DEFAULT_NUM_KEYS = 200000;
+    private static final int NUM_ROUNDS = 3;
+    
+    public static void main(String[] args) {
+        int numKeys = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NUM_KEYS;
+        String[] keys = makeKeys(numKeys);
+        
+        for (int round = 0; round < NUM_ROUNDS; round++) {
+            System.out.println(String.format("Round %d, %d keys", round + 1, numKeys));
+            runBenchmark("LegacyStringMap", new LegacyStringMap(), keys);
+            runBenchmark("StringMap", new StringMap(), keys);
+        }
+    }
+
+    private static String[] makeKeys(int numKeys) {
+        // Make URL-ish keys, with a long shared prefix and a variable-length suffix.
+        Random rand = new Random(1L);
+        String[] result = new String[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            result[i] = String.format("http://www.domain-%d.com/page/%d/%d", rand.nextInt(numKeys / 10 + 1), i, rand.nextInt());
+        }
+        
+        return result;
+    }
+    
+    private static void runBenchmark(String name, Map<String, String> map, String[] keys) {
+        long startTime = System.nanoTime();
+        for (String key : keys) {
+            map.put(key, key);
+        }
+        
+        long putTime = System.nanoTime();
+        int numFound = 0;
+        for (String key : keys) {
+            if (map.get(key) != null) {
+                numFound += 1;
+            }
+        }
+        
+        long getTime = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            if (map.containsKey(keys[i] + "x")) {
+                numFound -= 1;
+            }
+        }
+        
+        long missTime = System.nanoTime();
+        
+        // Update every key, which forces the old value to be replaced.
+        for (String key : keys) {
+            map.put(key, "v");
+        }
+        
+        long updateTime = System.nanoTime();
+        
+        if (numFound != keys.length) {
+            throw new IllegalStateException(String.format("%s found %d of %d keys", name, numFound, keys.length));
+        }
+        
+        System.out.println(String.format("%-16s put: %5dms, get: %5dms, miss: %5dms, update: %5dms", name, 
+                        (putTime - startTime) / 1000000L,
+                        (getTime - putTime) / 1000000L,
+                        (missTime - getTime) / 1000000L,
+                        (updateTime - missTime) / 1000000L));
+    }
+}
@@ -2,7 +2,10 @@ package com.scaleunlimited.maps;
 
 import static junit.framework.Assert.assertEquals;
 import static org.junit.Assert.*;
+import it.unimi.dsi.fastutil.HashCommon;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -11,6 +14,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
@@ -325,6 +333,475 @@ public class StringMapTest {
         assertEquals(0, sm2.size());
         assertFalse(sm2.containsKey("key"));
     }
-   
+
+    @Test
+    public void testRemovingWithCollisions() throws Exception {
+        StringMap sm = new StringMap(true);
+        
+        final int numKeys = 2000;
+        for (int i = 0; i < numKeys; i++) {
+            String s = "test-" + i;
+            assertNull(sm.put(s, "value-" + i));
+        }
+        
+        // Remove every third key, which forces shifting of entries that collided
+        // with the removed key.
+        for (int i = 0; i < numKeys; i += 3) {
+            assertEquals("value-" + i, sm.remove("test-" + i));
+        }
+        
+        for (int i = 0; i < numKeys; i++) {
+            String s = "test-" + i;
+            if ((i % 3) == 0) {
+                assertFalse(sm.containsKey(s));
+                assertNull(sm.get(s));
+            } else {
+                assertEquals("value-" + i, sm.get(s));
+            }
+        }
+        
+        assertEquals(numKeys - ((numKeys + 2) / 3), sm.size());
+    }
+    
+    @Test
+    public void testReadingLegacyFormat() throws Exception {
+        // The older version of StringMap kept colliding entries in a separate map, which
+        // were serialized after the string data.
+        LegacyStringMap lsm = new LegacyStringMap(true);
+        
+        final int numKeys = 1000;
+        for (int i = 0; i < numKeys; i++) {
+            lsm.put("test-" + i, "value-" + i);
+        }
+        
+        lsm.remove("test-0");
+        
+        File dir = new File("build/test/StringMapTest/testReadingLegacyFormat/");
+        dir.mkdirs();
+        File file = new File(dir, "string.map");
+        file.delete();
+        
+        OutputStream os = new FileOutputStream(file);
+        DataOutputStream out = new DataOutputStream(os);
+        lsm.write(out);
+        out.close();
+        
+        StringMap sm = new StringMap();
+        InputStream is = new FileInputStream(file);
+        DataInputStream in = new DataInputStream(is);
+        sm.readFields(in);
+        in.close();
+        
+        assertEquals(numKeys - 1, sm.size());
+        assertFalse(sm.containsKey("test-0"));
+        
+        for (int i = 1; i < numKeys; i++) {
+            assertEquals("value-" + i, sm.get("test-" + i));
+        }
+    }
+
+    @Test
+    public void testLongStrings() throws Exception {
+        StringMap sm = new StringMap();
+        
+        // Keys and values that are longer than a page of string data.
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < StringArena.PAGE_SIZE * 3) {
+            sb.append("long-string-");
+        }
+        
+        String longString = sb.toString();
+        for (int i = 0; i < 10; i++) {
+            assertNull(sm.put(longString + i, "value-" + i));
+            assertNull(sm.put("key-" + i, longString + i));
+        }
+        
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value-" + i, sm.get(longString + i));
+            assertEquals(longString + i, sm.get("key-" + i));
+        }
+        
+        assertEquals("value-5", sm.remove(longString + 5));
+        assertFalse(sm.containsKey(longString + 5));
+        assertEquals(19, sm.size());
+    }
+
+    @Test
+    public void testInPlaceUpdate() throws Exception {
+        StringMap sm = new StringMap();
+        assertNull(sm.put("key", "a longer value"));
+        long dataSize = sm._stringData.length();
+        
+        // Shorter (or same length) values get written in place.
+        assertEquals("a longer value", sm.put("key", "short"));
+        assertEquals("short", sm.get("key"));
+        assertEquals(dataSize, sm._stringData.length());
+        assertEquals("a longer value".length() - "short".length(), sm.getDeadBytes());
+        
+        assertEquals("short", sm.put("key", "shore"));
+        assertEquals("shore", sm.get("key"));
+        assertEquals(dataSize, sm._stringData.length());
+        
+        assertEquals("shore", sm.put("key", ""));
+        assertEquals("", sm.get("key"));
+        assertEquals(dataSize, sm._stringData.length());
+        
+        // And a longer value has to be appended.
+        assertEquals("", sm.put("key", "an even longer value"));
+        assertEquals("an even longer value", sm.get("key"));
+        assertTrue(sm._stringData.length() > dataSize);
+        
+        // Make sure the zeroed-out bytes don't mess up deserialization.
+        StringMap sm2 = roundTrip(sm);
+        assertEquals(1, sm2.size());
+        assertEquals("an even longer value", sm2.get("key"));
+        assertEquals(sm.getDeadBytes(), sm2.getDeadBytes());
+    }
+    
+    @Test
+    public void testCompaction() throws Exception {
+        StringMap sm = new StringMap();
+        sm.setCompactionThreshold(0.25f);
+        
+        final int numKeys = 5000;
+        assertNull(sm.put("", "empty key"));
+        for (int i = 0; i < numKeys; i++) {
+            assertNull(sm.put("key-" + i, "value"));
+        }
+        
+        // Keep growing the values, which means every update has to move the entry.
+        long maxDataSize = 0;
+        for (int j = 0; j < 50; j++) {
+            for (int i = 0; i < numKeys; i++) {
+                sm.put("key-" + i, makeValue(i, j));
+            }
+            
+            maxDataSize = Math.max(maxDataSize, sm._stringData.length());
+            
+            // We don't bother compacting until there's at least a page of dead bytes.
+            assertTrue(sm.getDeadBytes() <= Math.max(sm._stringData.length() * 0.25f, StringArena.PAGE_SIZE));
+        }
+        
+        // We should have compacted a bunch of times, so the data can't be more than
+        // the live data plus the allowed dead bytes.
+        long liveDataSize = sm._stringData.length() - sm.getDeadBytes();
+        assertTrue(maxDataSize < (liveDataSize / 0.75f) + 2 * StringArena.PAGE_SIZE);
+        
+        assertEquals("empty key", sm.get(""));
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals(makeValue(i, 49), sm.get("key-" + i));
+        }
+
+        // Removing everything should leave us with nothing but the empty key.
+        for (int i = 0; i < numKeys; i++) {
+            assertEquals(makeValue(i, 49), sm.remove("key-" + i));
+        }
+        
+        sm.compact();
+        assertEquals(0, sm.getDeadBytes());
+        assertEquals("".length() + 1 + "empty key".length() + 1, sm._stringData.length());
+        assertEquals("empty key", sm.get(""));
+        assertEquals(1, sm.size());
+    }
+    
+    @Test
+    public void testSerializingTable() throws Exception {
+        StringMap sm = new StringMap();
+        
+        // Enough entries that the slot table is bigger than one buffer's worth of data.
+        final int numKeys = 20000;
+        assertNull(sm.put("", "empty key"));
+        for (int i = 0; i < numKeys; i++) {
+            assertNull(sm.put("key-" + i, "value-" + i));
+        }
+        
+        for (int i = 0; i < numKeys; i += 3) {
+            assertEquals("value-" + i, sm.remove("key-" + i));
+        }
+        
+        StringMap sm2 = roundTrip(sm);
+        assertEquals(sm.size(), sm2.size());
+        assertEquals(sm.getDeadBytes(), sm2.getDeadBytes());
+        assertEquals(sm._stringData.length(), sm2._stringData.length());
+        
+        // The slot table is saved, so even the empty key survives.
+        assertEquals("empty key", sm2.get(""));
+        for (int i = 0; i < numKeys; i++) {
+            if ((i % 3) == 0) {
+                assertFalse(sm2.containsKey("key-" + i));
+            } else {
+                assertEquals("value-" + i, sm2.get("key-" + i));
+            }
+        }
+        
+        // Make sure the deserialized table is fully functional (including growing).
+        for (int i = numKeys; i < numKeys * 2; i++) {
+            assertNull(sm2.put("key-" + i, "value-" + i));
+        }
+        
+        assertEquals("value-1", sm2.remove("key-1"));
+        sm2.compact();
+        assertEquals(0, sm2.getDeadBytes());
+        assertEquals("value-2", sm2.get("key-2"));
+        assertEquals("value-" + (numKeys + 1), sm2.get("key-" + (numKeys + 1)));
+        assertEquals("empty key", sm2.get(""));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testUnknownFormatVersion() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        new StringMap().write(out);
+        out.close();
+        
+        byte[] data = baos.toByteArray();
+        data[0] = 99;
+        
+        new StringMap().readFields(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+    
+    @Test
+    public void testCharSequenceLookups() throws Exception {
+        StringMap sm = new StringMap(true);
+        
+        String[] keys = {
+            "",
+            "ascii",
+            "caf\u00e9",
+            "\u4e2d\u6587",
+            "pair \ud83d\ude00",
+            "unpaired \ud83d",
+            "unpaired \ude00 low",
+        };
+        
+        for (int i = 0; i < keys.length; i++) {
+            assertNull(sm.put(keys[i], "value-" + i));
+        }
+        
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder key = new StringBuilder(keys[i]);
+            assertTrue(sm.containsKey(key));
+            assertEquals("value-" + i, sm.get(key));
+            
+            byte[] keyBytes = HashUtils.getUTF8Bytes("xx" + keys[i] + "yy");
+            assertTrue(sm.containsKey(keyBytes, 2, keyBytes.length - 4));
+            assertEquals("value-" + i, sm.get(keyBytes, 2, keyBytes.length - 4));
+        }
+        
+        // Prefixes and extensions of keys shouldn't match.
+        assertFalse(sm.containsKey(new StringBuilder("asci")));
+        assertFalse(sm.containsKey(new StringBuilder("asciii")));
+        assertFalse(sm.containsKey(new StringBuilder("caf")));
+        assertFalse(sm.containsKey(new StringBuilder("caf\u00e9s")));
+        assertNull(sm.get(new StringBuilder("\u4e2d")));
+        
+        byte[] keyBytes = HashUtils.getUTF8Bytes("ascii");
+        assertFalse(sm.containsKey(keyBytes, 0, keyBytes.length - 1));
+        assertNull(sm.get(keyBytes, 1, keyBytes.length - 1));
+        
+        assertNull(sm.get((String)null));
+        assertFalse(sm.containsKey((String)null));
+    }
+    
+    @Test
+    public void testViews() throws Exception {
+        StringMap sm = new StringMap(true);
+        Map<String, String> expected = new HashMap<String, String>();
+        for (int i = 0; i < 1000; i++) {
+            expected.put("key-" + i, "value-" + i);
+        }
+        
+        expected.put("", "empty key");
+        expected.put("empty value", "");
+        sm.putAll(expected);
+        
+        // Removed and moved entries shouldn't show up twice.
+        assertEquals("value-0", sm.remove("key-0"));
+        expected.remove("key-0");
+        sm.put("key-1", "a much longer value than before");
+        expected.put("key-1", "a much longer value than before");
+        
+        assertEquals(expected.size(), sm.size());
+        assertEquals(expected.keySet(), sm.keySet());
+        assertEquals(expected.entrySet(), sm.entrySet());
+        assertEquals(expected.size(), sm.values().size());
+        assertTrue(sm.values().containsAll(expected.values()));
+        
+        assertTrue(sm.containsValue("value-2"));
+        assertTrue(sm.containsValue(""));
+        assertTrue(sm.containsValue("empty key"));
+        assertFalse(sm.containsValue("value-0"));
+        assertFalse(sm.containsValue("value-"));
+        
+        // Remove via the iterator.
+        Iterator<String> iter = sm.keySet().iterator();
+        while (iter.hasNext()) {
+            String key = iter.next();
+            if (key.endsWith("5")) {
+                iter.remove();
+                expected.remove(key);
+            }
+        }
+        
+        assertEquals(expected.keySet(), sm.keySet());
+        
+        sm.compact();
+        assertEquals(expected.entrySet(), sm.entrySet());
+        
+        assertTrue(sm.keySet().remove("key-2"));
+        assertFalse(sm.containsKey("key-2"));
+    }
+    
+    @Test
+    public void testCursor() throws Exception {
+        StringMap sm = new StringMap();
+        
+        // Make some keys & values that will span pages.
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < StringArena.PAGE_SIZE / 2) {
+            sb.append("long-string-");
+        }
+        
+        final int numKeys = 20;
+        for (int i = 0; i < numKeys; i++) {
+            sm.put("key-" + i + sb, "value-" + i + sb);
+        }
+        
+        sm.put("", "empty key");
+        
+        int numEntries = 0;
+        StringMap.Cursor cursor = sm.cursor();
+        while (cursor.next()) {
+            String key = new String(cursor.getKeyBytes(), cursor.getKeyOffset(), cursor.getKeyLength(), "UTF-8");
+            String value = new String(cursor.getValueBytes(), cursor.getValueOffset(), cursor.getValueLength(), "UTF-8");
+            assertEquals(key, cursor.getKey());
+            assertEquals(value, cursor.getValue());
+            assertEquals(sm.get(key), value);
+            numEntries += 1;
+            
+            if (key.startsWith("key-1")) {
+                cursor.remove();
+                assertFalse(sm.containsKey(key));
+            }
+        }
+        
+        assertEquals(numKeys + 1, numEntries);
+        assertFalse(cursor.next());
+        
+        // key-1 and key-10 through key-19
+        assertEquals(numKeys + 1 - 11, sm.size());
+        assertEquals("empty key", sm.get(""));
+        
+        cursor = sm.cursor();
+        assertTrue(cursor.next());
+        sm.put("new key", "new value");
+        
+        try {
+            cursor.next();
+            fail("Should have thrown exception");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testReadingJoaatFormat() throws Exception {
+        // Version 2 of the format had slot hashes from JOAAT, so build one of those by hand.
+        String[] keys = {"a", "b", "c\u00e9"};
+        final int capacity = 8;
+        int[] slotHashes = new int[capacity];
+        long[] slotOffsets = new long[capacity];
+        Arrays.fill(slotOffsets, -1);
+        
+        ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+        for (int i = 0; i < keys.length; i++) {
+            byte[] keyBytes = HashUtils.getUTF8Bytes(keys[i]);
+            long longHash = HashCommon.murmurHash3(HashUtils.getLongHash(keyBytes, 0, keyBytes.length));
+            int hash = (int)(longHash ^ (longHash >>> 32));
+            int slot = hash & (capacity - 1);
+            while (slotOffsets[slot] != -1) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            
+            slotHashes[slot] = hash;
+            slotOffsets[slot] = stringData.size();
+            stringData.write(keyBytes);
+            stringData.write(0);
+            stringData.write(HashUtils.getUTF8Bytes("value-" + i));
+            stringData.write(0);
+        }
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeByte(2);
+        out.writeBoolean(false);
+        out.writeInt(keys.length);
+        out.writeLong(0);
+        out.writeLong(stringData.size());
+        out.write(stringData.toByteArray());
+        out.writeInt(capacity);
+        for (int hash : slotHashes) {
+            out.writeInt(hash);
+        }
+        
+        for (long offset : slotOffsets) {
+            out.writeLong(offset);
+        }
+        
+        out.close();
+        
+        StringMap sm = new StringMap();
+        sm.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        assertEquals(keys.length, sm.size());
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals("value-" + i, sm.get(keys[i]));
+            assertEquals("value-" + i, sm.get(new StringBuilder(keys[i])));
+        }
+        
+        // Updates (including growing the table) keep working with the older hash.
+        for (int i = 0; i < 100; i++) {
+            sm.put("key-" + i, "value");
+        }
+        
+        StringMap sm2 = roundTrip(sm);
+        assertEquals("value-1", sm2.get("b"));
+        assertEquals("value", sm2.get("key-99"));
+        
+        // The file written out should still be version 2, so that the slot hashes are valid.
+        baos = new ByteArrayOutputStream();
+        out = new DataOutputStream(baos);
+        sm2.write(out);
+        out.close();
+        assertEquals(2, baos.toByteArray()[0]);
+        
+        // But once it's cleared, we switch to the current hash.
+        sm2.clear();
+        sm2.put("a", "b");
+        baos = new ByteArrayOutputStream();
+        out = new DataOutputStream(baos);
+        sm2.write(out);
+        out.close();
+        assertEquals(StringTable.FORMAT_VERSION, baos.toByteArray()[0]);
+    }
+    
+    private static String makeValue(int keyIndex, int round) {
+        StringBuilder result = new StringBuilder("value-" + keyIndex);
+        for (int i = 0; i < round; i++) {
+            result.append('x');
+        }
+        
+        return result.toString();
+    }
+    
+    private StringMap roundTrip(StringMap sm) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        sm.write(out);
+        out.close();
+        
+        StringMap result = new StringMap();
+        result.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        return result;
+    }
 
 }
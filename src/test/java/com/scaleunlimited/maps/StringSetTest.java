@@ -4,6 +4,8 @@ import static junit.framework.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -11,6 +13,10 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -29,6 +35,23 @@ public class StringSetTest {
         assertFalse(ss.contains("test"));
     }
     
+    @Test
+    public void testMemorySize() {
+        StringSet ss = new StringSet(4);
+        assertTrue(ss.getMemorySize() < 1024);
+        
+        long dataSize = 0;
+        for (int i = 0; i < 10000; i++) {
+            String s = "test-" + i;
+            ss.add(s);
+            dataSize += s.length() + 1;
+            
+            // String data plus 12 bytes per slot, with at least 1.33 slots per entry.
+            assertTrue(ss.getMemorySize() >= dataSize + (16 * ss.size()));
+            assertTrue(ss.getMemorySize() <= StringArena.PAGE_SIZE + (2 * dataSize) + (32 * ss.size()));
+        }
+    }
+    
     @Test
     public void testBigData() {
         StringSet ss = new StringSet();
@@ -192,6 +215,121 @@ public class StringSetTest {
         assertEquals(0, ss2.size());
         assertFalse(ss2.contains("key"));
     }
-    
+
+    @Test
+    public void testCompaction() throws Exception {
+        StringSet ss = new StringSet();
+        
+        // Add and remove lots of strings, which should trigger compaction.
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(ss.add("string-" + i));
+            if ((i % 10) != 0) {
+                assertTrue(ss.remove("string-" + i));
+            }
+        }
+        
+        assertEquals(10000, ss.size());
+        assertTrue(ss.getDeadBytes() <= ss._stringData.length() * StringTable.DEFAULT_COMPACTION_THRESHOLD);
+        
+        ss.compact();
+        assertEquals(0, ss.getDeadBytes());
+        
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(((i % 10) == 0), ss.contains("string-" + i));
+        }
+    }
+
+    @Test
+    public void testCharSequenceLookups() throws Exception {
+        StringSet ss = new StringSet();
+        assertTrue(ss.add("ascii"));
+        assertTrue(ss.add("\u00e9t\u00e9"));
+        
+        assertTrue(ss.contains(new StringBuilder("ascii")));
+        assertTrue(ss.contains(new StringBuilder("\u00e9t\u00e9")));
+        assertFalse(ss.contains(new StringBuilder("\u00e9t")));
+        assertFalse(ss.contains((String)null));
+        
+        byte[] bytes = HashUtils.getUTF8Bytes("ascii\u00e9t\u00e9");
+        assertTrue(ss.contains(bytes, 0, 5));
+        assertTrue(ss.contains(bytes, 5, bytes.length - 5));
+        assertFalse(ss.contains(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        StringSet ss = new StringSet(true);
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add("string-" + i);
+        }
+        
+        expected.add("");
+        assertTrue(ss.addAll(expected));
+        assertFalse(ss.addAll(expected));
+        assertTrue(ss.remove("string-0"));
+        expected.remove("string-0");
+        
+        assertEquals(expected, new HashSet<String>(ss));
+        assertTrue(ss.containsAll(expected));
+        assertEquals(expected.size(), ss.toArray().length);
+        assertEquals(expected, new HashSet<String>(Arrays.asList(ss.toArray(new String[0]))));
+        
+        Iterator<String> iter = ss.iterator();
+        while (iter.hasNext()) {
+            String s = iter.next();
+            if (s.endsWith("7")) {
+                iter.remove();
+                expected.remove(s);
+            }
+        }
+        
+        assertEquals(expected, new HashSet<String>(ss));
+        
+        assertTrue(ss.removeAll(Arrays.asList("string-1", "string-2")));
+        assertFalse(ss.contains("string-1"));
+        assertTrue(ss.retainAll(Arrays.asList("string-3", "", "missing")));
+        assertEquals(new HashSet<String>(Arrays.asList("string-3", "")), new HashSet<String>(ss));
+    }
+
+    @Test
+    public void testReadingLegacyFormat() throws Exception {
+        // The older format was the smallHash flag, entry counts, and the raw string data,
+        // followed by any entries that had colliding hashes.
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        byte[] stringData = "one\0\0\0\0two\0".getBytes("UTF-8");
+        out.writeBoolean(true);
+        out.writeInt(2);
+        out.writeInt(1);
+        out.writeInt(stringData.length);
+        out.write(stringData);
+        out.writeUTF("three");
+        out.close();
+        
+        StringSet ss = new StringSet();
+        ss.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        
+        assertEquals(3, ss.size());
+        assertTrue(ss.contains("one"));
+        assertTrue(ss.contains("two"));
+        assertTrue(ss.contains("three"));
+        assertFalse(ss.contains(""));
+        assertEquals(3, ss.getDeadBytes());
+        
+        // And writing it back out uses the current format.
+        baos = new ByteArrayOutputStream();
+        out = new DataOutputStream(baos);
+        ss.write(out);
+        out.close();
+        
+        StringSet ss2 = new StringSet();
+        ss2.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        assertEquals(3, ss2.size());
+        assertTrue(ss2.contains("one"));
+        assertTrue(ss2.contains("two"));
+        assertTrue(ss2.contains("three"));
+        assertEquals(3, ss2.getDeadBytes());
+    }
 
 }
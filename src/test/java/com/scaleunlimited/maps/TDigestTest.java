@@ -0,0 +1,199 @@
+package com.scaleunlimited.maps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TDigestTest {
+
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999};
+
+    @Test
+    public void testAccuracy() {
+        Random rand = new Random(1L);
+        double[] uniform = new double[1000000];
+        double[] exponential = new double[uniform.length];
+        for (int i = 0; i < uniform.length; i++) {
+            uniform[i] = rand.nextDouble();
+            exponential[i] = -Math.log(1.0 - rand.nextDouble());
+        }
+
+        for (double[] values : new double[][] {uniform, exponential}) {
+            TDigest digest = new TDigest();
+            for (double value : values) {
+                digest.add(value);
+            }
+
+            checkAccuracy(digest, values);
+            assertTrue(digest.getNumCentroids() <= 2 * digest.getCompression());
+        }
+    }
+
+    @Test
+    public void testSortedInput() {
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        TDigest digest = new TDigest();
+        for (double value : values) {
+            digest.add(value);
+        }
+
+        checkAccuracy(digest, values);
+    }
+
+    @Test
+    public void testSmallCounts() {
+        TDigest digest = new TDigest();
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+
+        digest.add(5.0);
+        assertEquals(5.0, digest.quantile(0.0), 0.0);
+        assertEquals(5.0, digest.quantile(0.5), 0.0);
+        assertEquals(5.0, digest.quantile(1.0), 0.0);
+
+        digest.add(1.0);
+        digest.add(3.0);
+        assertEquals(3, digest.getCount());
+        assertEquals(1.0, digest.getMin(), 0.0);
+        assertEquals(5.0, digest.getMax(), 0.0);
+        assertEquals(1.0, digest.quantile(0.0), 0.0);
+        assertEquals(3.0, digest.quantile(0.5), 0.0);
+        assertEquals(5.0, digest.quantile(1.0), 0.0);
+
+        // With only a few values, every value gets its own centroid.
+        assertEquals(3, digest.getNumCentroids());
+    }
+
+    @Test
+    public void testMerging() {
+        Random rand = new Random(1L);
+        double[] values = new double[100000];
+        TDigest[] digests = new TDigest[10];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = new TDigest();
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rand.nextGaussian();
+
+            // Give each digest a different range of values, so merging has to interleave them.
+            digests[(int)Math.min(digests.length - 1, Math.abs(values[i]) * 4)].add(values[i]);
+        }
+
+        TDigest merged = new TDigest();
+        for (TDigest digest : digests) {
+            merged.merge(digest);
+
+            // Merging the same (flushed) digest again shouldn't be a problem.
+            new TDigest(50).merge(digest);
+        }
+
+        merged.merge(new TDigest());
+        assertEquals(values.length, merged.getCount());
+        checkAccuracy(merged, values);
+        assertTrue(merged.getNumCentroids() <= 2 * merged.getCompression());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        for (int numValues : new int[] {0, 10, 100000}) {
+            TDigest digest = new TDigest();
+            Random rand = new Random(1L);
+            for (int i = 0; i < numValues; i++) {
+                digest.add(rand.nextDouble());
+            }
+
+            byte[] bytes = serialize(digest);
+
+            // Centroids take at most a mean (8 bytes) plus a short variable-length weight.
+            assertTrue(bytes.length <= 32 + (digest.getNumCentroids() * 12));
+
+            TDigest copy = new TDigest(TDigest.MIN_COMPRESSION);
+            copy.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+            assertEquals(digest.getCompression(), copy.getCompression());
+            assertEquals(digest.getCount(), copy.getCount());
+            for (double q : QUANTILES) {
+                assertEquals(digest.quantile(q), copy.quantile(q), 0.0);
+            }
+
+            // And the copy should still work after deserialization.
+            copy.add(0.5);
+            digest.add(0.5);
+            assertEquals(digest.quantile(0.5), copy.quantile(0.5), 0.0);
+        }
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        try {
+            new TDigest(TDigest.MIN_COMPRESSION - 1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new TDigest(TDigest.MAX_COMPRESSION + 1);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new TDigest().add(Double.NaN);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+
+        try {
+            new TDigest().quantile(1.5);
+            fail("Should have thrown exception");
+        } catch (IllegalArgumentException e) {
+            // valid
+        }
+    }
+
+    /**
+     * Check that the estimated value for each quantile has about the right rank in <values>. The
+     * error allowed in the tails is much smaller than for the median.
+     */
+    private void checkAccuracy(TDigest digest, double[] values) {
+        double[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+
+        assertEquals(sorted[0], digest.quantile(0.0), 0.0);
+        assertEquals(sorted[sorted.length - 1], digest.quantile(1.0), 0.0);
+
+        for (double q : QUANTILES) {
+            double estimate = digest.quantile(q);
+            int rank = Arrays.binarySearch(sorted, estimate);
+            if (rank < 0) {
+                rank = -(rank + 1);
+            }
+
+            double error = Math.abs(((double)rank / sorted.length) - q);
+            double maxError = 0.005 * Math.sqrt(q * (1.0 - q) * 4.0) + 0.0001;
+            assertTrue(String.format("Error of %f for quantile %f", error, q), error <= maxError);
+        }
+    }
+
+    private byte[] serialize(TDigest digest) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        digest.write(out);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,148 @@
+package it.unimi.dsi.fastutil.longs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Long2IntOpenHashMapTest {
+
+    @Test
+    public void testBasics() {
+        Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+        
+        assertEquals(0, map.get(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(0, map.put(1L, 10));
+        assertEquals(10, map.get(1L));
+        assertEquals(10, map.put(1L, 20));
+        assertTrue(map.containsKey(1L));
+        assertTrue(map.containsValue(20));
+        
+        // Keys that only differ in the high 32 bits must be distinct.
+        map.put(1L << 32, 30);
+        assertEquals(20, map.get(1L));
+        assertEquals(30, map.get(1L << 32));
+        assertEquals(2, map.size());
+        
+        assertEquals(20, map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(1, map.size());
+        
+        map.defaultReturnValue(-1);
+        assertEquals(-1, map.get(1L));
+        assertNull(map.get(Long.valueOf(1L)));
+        assertEquals(Integer.valueOf(30), map.get(Long.valueOf(1L << 32)));
+        
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(1L << 32));
+    }
+    
+    @Test
+    public void testAddTo() {
+        Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+        
+        assertEquals(0, map.addTo(5L, 3));
+        assertEquals(3, map.addTo(5L, 4));
+        assertEquals(7, map.get(5L));
+        
+        // The default return value is the starting point for new keys.
+        map.defaultReturnValue(100);
+        assertEquals(100, map.addTo(6L, 1));
+        assertEquals(101, map.get(6L));
+    }
+    
+    @Test
+    public void testPutIfAbsent() {
+        Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+        map.defaultReturnValue(-1);
+        
+        assertEquals(-1, map.putIfAbsent(5L, 3));
+        assertEquals(3, map.putIfAbsent(5L, 4));
+        assertEquals(3, map.get(5L));
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    public void testAgainstHashMap() {
+        Random rand = new Random(1L);
+        Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        
+        for (int i = 0; i < 100000; i++) {
+            // Use a small range of keys, so we get lots of updates and removes.
+            long key = rand.nextInt(10000) * 0x9E3779B97F4A7C15L;
+            int op = rand.nextInt(4);
+            if (op == 0) {
+                Integer oldValue = expected.remove(key);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.remove(key));
+            } else if (op == 1) {
+                Integer oldValue = expected.get(key);
+                expected.put(key, (oldValue == null ? 0 : oldValue) + i);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.addTo(key, i));
+            } else {
+                Integer oldValue = expected.put(key, i);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.put(key, i));
+            }
+            
+            assertEquals(expected.size(), map.size());
+        }
+        
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        
+        // Remove about half of the entries via the iterator, which has to handle entries that
+        // wrap around the end of the table.
+        ObjectIterator<Long2IntMap.Entry> iter = map.long2IntEntrySet().iterator();
+        while (iter.hasNext()) {
+            Long2IntMap.Entry entry = iter.next();
+            if ((entry.getIntValue() & 1) == 0) {
+                assertEquals(entry.getValue(), expected.remove(entry.getKey()));
+                iter.remove();
+            }
+        }
+        
+        assertEquals(expected, map);
+        
+        LongIterator keys = map.keySet().iterator();
+        int numKeys = 0;
+        while (keys.hasNext()) {
+            assertTrue(expected.containsKey(keys.nextLong()));
+            numKeys += 1;
+        }
+        
+        assertEquals(expected.size(), numKeys);
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, i);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Long2IntOpenHashMap map2 = (Long2IntOpenHashMap)in.readObject();
+        in.close();
+        
+        assertEquals(map, map2);
+        assertEquals(500, map2.get(500 * 31L));
+    }
+}
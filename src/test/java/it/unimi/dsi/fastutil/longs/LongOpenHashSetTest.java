@@ -0,0 +1,110 @@
+package it.unimi.dsi.fastutil.longs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongOpenHashSetTest {
+
+    @Test
+    public void testBasics() {
+        LongOpenHashSet set = new LongOpenHashSet();
+        
+        assertFalse(set.contains(1L));
+        assertTrue(set.add(1L));
+        assertFalse(set.add(1L));
+        assertTrue(set.contains(1L));
+        
+        // Values that only differ in the high 32 bits must be distinct.
+        assertTrue(set.add(1L << 32));
+        assertEquals(2, set.size());
+        
+        assertTrue(set.remove(1L));
+        assertFalse(set.remove(1L));
+        assertFalse(set.contains(1L));
+        assertTrue(set.contains(1L << 32));
+        
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1L << 32));
+    }
+    
+    @Test
+    public void testAgainstHashSet() {
+        Random rand = new Random(1L);
+        LongOpenHashSet set = new LongOpenHashSet(10);
+        Set<Long> expected = new HashSet<Long>();
+        
+        for (int i = 0; i < 100000; i++) {
+            long value = rand.nextInt(10000) * 0x9E3779B97F4A7C15L;
+            if (rand.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            
+            assertEquals(expected.size(), set.size());
+        }
+        
+        assertEquals(expected, set);
+        assertEquals(expected.hashCode(), set.hashCode());
+        
+        // Remove entries via the iterator, which has to handle entries that wrap around the
+        // end of the table.
+        LongIterator iter = set.iterator();
+        while (iter.hasNext()) {
+            long value = iter.nextLong();
+            if ((value & 1) == 0) {
+                assertTrue(expected.remove(value));
+                iter.remove();
+            }
+        }
+        
+        assertEquals(expected, set);
+        
+        assertTrue(set.trim());
+        assertEquals(expected, set);
+    }
+    
+    @Test
+    public void testConstructors() {
+        long[] values = new long[] {1L, 2L, 3L, 2L};
+        
+        assertEquals(3, new LongOpenHashSet(values).size());
+        assertEquals(2, new LongOpenHashSet(values, 1, 2).size());
+        
+        LongOpenHashSet set = new LongOpenHashSet(new LongArrayList(values));
+        assertEquals(3, set.size());
+        assertEquals(set, new LongOpenHashSet(set.iterator()));
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        LongOpenHashSet set = new LongOpenHashSet();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i * 31L);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(set);
+        out.close();
+        
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        LongOpenHashSet set2 = (LongOpenHashSet)in.readObject();
+        in.close();
+        
+        assertEquals(set, set2);
+        assertTrue(set2.contains(500 * 31L));
+    }
+}
@@ -0,0 +1,145 @@
+package it.unimi.dsi.fastutil.objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Object2IntOpenHashMapTest {
+
+    @Test
+    public void testBasics() {
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<String>();
+        
+        assertEquals(0, map.getInt("a"));
+        assertFalse(map.containsKey("a"));
+        assertEquals(0, map.put("a", 10));
+        assertEquals(10, map.getInt("a"));
+        assertEquals(10, map.put("a", 20));
+        assertTrue(map.containsKey("a"));
+        assertTrue(map.containsValue(20));
+        
+        // Lookups use equals(), not identity.
+        assertEquals(20, map.getInt(new String("a")));
+        
+        // Null keys are supported.
+        map.put(null, 30);
+        assertEquals(30, map.getInt(null));
+        assertEquals(2, map.size());
+        
+        assertEquals(20, map.removeInt("a"));
+        assertFalse(map.containsKey("a"));
+        assertEquals(1, map.size());
+        
+        map.defaultReturnValue(-1);
+        assertEquals(-1, map.getInt("a"));
+        assertNull(map.get("a"));
+        assertEquals(Integer.valueOf(30), map.get(null));
+        
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.getInt(null));
+    }
+    
+    @Test
+    public void testAddTo() {
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<String>();
+        
+        assertEquals(0, map.addTo("term", 1));
+        assertEquals(1, map.addTo("term", 1));
+        assertEquals(2, map.getInt("term"));
+    }
+    
+    @Test
+    public void testPutIfAbsent() {
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<String>();
+        map.defaultReturnValue(-1);
+        
+        assertEquals(-1, map.putIfAbsent("a", 3));
+        assertEquals(3, map.putIfAbsent("a", 4));
+        assertEquals(3, map.getInt("a"));
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    public void testAgainstHashMap() {
+        Random rand = new Random(1L);
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<String>();
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        
+        for (int i = 0; i < 100000; i++) {
+            String key = "key-" + rand.nextInt(10000);
+            int op = rand.nextInt(4);
+            if (op == 0) {
+                Integer oldValue = expected.remove(key);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.removeInt(key));
+            } else if (op == 1) {
+                Integer oldValue = expected.get(key);
+                expected.put(key, (oldValue == null ? 0 : oldValue) + i);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.addTo(key, i));
+            } else {
+                Integer oldValue = expected.put(key, i);
+                assertEquals(oldValue == null ? 0 : oldValue.intValue(), map.put(key, i));
+            }
+            
+            assertEquals(expected.size(), map.size());
+        }
+        
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        
+        // Remove about half of the entries via the key set iterator, which has to handle entries
+        // that wrap around the end of the table.
+        ObjectIterator<String> iter = map.keySet().iterator();
+        while (iter.hasNext()) {
+            String key = iter.next();
+            if ((map.getInt(key) & 1) == 0) {
+                assertTrue(expected.remove(key) != null);
+                iter.remove();
+            }
+        }
+        
+        assertEquals(expected, map);
+        
+        ObjectIterator<Object2IntMap.Entry<String>> entries = map.object2IntEntrySet().fastIterator();
+        int numEntries = 0;
+        while (entries.hasNext()) {
+            Object2IntMap.Entry<String> entry = entries.next();
+            assertEquals(expected.get(entry.getKey()).intValue(), entry.getIntValue());
+            numEntries += 1;
+        }
+        
+        assertEquals(expected.size(), numEntries);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSerialization() throws Exception {
+        Object2IntOpenHashMap<String> map = new Object2IntOpenHashMap<String>();
+        for (int i = 0; i < 1000; i++) {
+            map.put("key-" + i, i);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(map);
+        out.close();
+        
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Object2IntOpenHashMap<String> map2 = (Object2IntOpenHashMap<String>)in.readObject();
+        in.close();
+        
+        assertEquals(map, map2);
+        assertEquals(500, map2.getInt("key-500"));
+    }
+}